@@ -0,0 +1,42 @@
+// 服务端事件推送（SSE）
+// 轮到回合、交易变化、组队邀请、聊天消息和被动窗口切换时由服务端主动推送，客户端不再需要轮询
+
+const EVENT_TYPES = ['TURN', 'TRADE_INVITE', 'TRADE', 'PARTY_INVITE', 'PARTY', 'CHAT', 'WINDOW']
+
+/**
+ * 建立推送连接
+ * @param {string} sessionId 会话ID
+ * @param {object} handlers 事件处理函数 { onEvent(type, data), onOpen(), onError(closed) }
+ * @returns {EventSource}
+ */
+export function openEventStream(sessionId, handlers) {
+  const source = new EventSource(`/api/events?sessionId=${encodeURIComponent(sessionId)}`)
+
+  source.onopen = () => {
+    console.log('[Events] 推送连接已建立')
+    handlers.onOpen?.()
+  }
+
+  source.onerror = () => {
+    // CLOSED表示服务端拒绝连接（如会话失效），浏览器不会自动重连
+    const closed = source.readyState === EventSource.CLOSED
+    console.warn('[Events] 推送连接中断', closed ? '（已关闭）' : '（自动重连中）')
+    handlers.onError?.(closed)
+  }
+
+  for (const type of EVENT_TYPES) {
+    source.addEventListener(type, (e) => {
+      let data = {}
+      try {
+        data = JSON.parse(e.data)
+      } catch (err) {
+        console.error('[Events] 无法解析事件数据:', type, e.data)
+        return
+      }
+      console.log('[Events] 收到事件:', type, data)
+      handlers.onEvent?.(type, data)
+    })
+  }
+
+  return source
+}
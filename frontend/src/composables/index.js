@@ -1,3 +1,4 @@
 export { useCommand } from './useCommand'
 export { useKeyboard } from './useKeyboard'
 export { useMapRenderer } from './useMapRenderer'
+export { usePushEvents } from './usePushEvents'
@@ -0,0 +1,135 @@
+import { watch, onUnmounted } from 'vue'
+import { openEventStream } from '../api/events'
+import { useSessionStore } from '../stores/sessionStore'
+import { useMapStore } from '../stores/mapStore'
+import { useCombatStore } from '../stores/combatStore'
+import { useTradeStore } from '../stores/tradeStore'
+import { useChatStore } from '../stores/chatStore'
+import { useCommand } from './useCommand'
+
+// 连接被服务端关闭后的重连间隔
+const RECONNECT_DELAY = 5000
+
+// 推送事件的窗口类型对应的刷新指令
+const REFRESH_COMMANDS = {
+  combat: 'wait',
+  trade: 'trade wait 0',
+  map: 'wait 1'
+}
+
+export function usePushEvents() {
+  const sessionStore = useSessionStore()
+  const mapStore = useMapStore()
+  const combatStore = useCombatStore()
+  const tradeStore = useTradeStore()
+  const chatStore = useChatStore()
+  const { sendCommand } = useCommand()
+
+  let source = null
+  let reconnectTimer = null
+
+  // 日志时间只精确到秒，推送的时间戳按秒取整，避免同一条消息在日志中重复出现
+  function toLogTime(ts) {
+    return Math.floor((ts || Date.now()) / 1000) * 1000
+  }
+
+  // 没有请求在执行时发送刷新指令，请求执行中时结果会随响应一起返回
+  function refresh(command) {
+    if (!sessionStore.isWaiting) {
+      sendCommand(command)
+    }
+  }
+
+  function handleEvent(type, data) {
+    switch (type) {
+      case 'TURN':
+        // 轮到自己回合：没有正在等待的wait时主动获取战斗状态
+        if (mapStore.windowType === 'combat' && !combatStore.isMyTurn) {
+          refresh('wait')
+        }
+        break
+      case 'TRADE':
+        if (tradeStore.isInTrade) {
+          refresh('trade wait 0')
+        }
+        break
+      case 'TRADE_INVITE':
+        chatStore.addSystemMessage(`${data.from} 邀请你进行交易`, 'trade_invite', data.from, toLogTime(data.ts))
+        break
+      case 'PARTY_INVITE':
+        chatStore.addSystemMessage(`${data.from} 邀请你加入队伍`, 'party_invite', data.from, toLogTime(data.ts))
+        break
+      case 'PARTY':
+        chatStore.addSystemMessage(data.text, null, null, toLogTime(data.ts))
+        break
+      case 'CHAT':
+        chatStore.addMessage(data.ref, data.from, data.text, toLogTime(data.ts))
+        break
+      case 'WINDOW': {
+        // 被动切换窗口（如被拉入战斗、对方接受交易）：刷新到新窗口
+        const windowType = (data.ref || '').toLowerCase()
+        if (windowType && windowType !== mapStore.windowType && REFRESH_COMMANDS[windowType]) {
+          refresh(REFRESH_COMMANDS[windowType])
+        }
+        break
+      }
+    }
+  }
+
+  function connect() {
+    disconnect()
+    if (!sessionStore.sessionId) {
+      return
+    }
+    source = openEventStream(sessionStore.sessionId, {
+      onOpen: () => {
+        sessionStore.pushConnected = true
+      },
+      onEvent: handleEvent,
+      onError: (closed) => {
+        sessionStore.pushConnected = false
+        if (closed) {
+          scheduleReconnect()
+        }
+      }
+    })
+  }
+
+  function scheduleReconnect() {
+    clearTimeout(reconnectTimer)
+    reconnectTimer = setTimeout(() => {
+      if (sessionStore.isLoggedIn && mapStore.windowType !== 'register') {
+        connect()
+      }
+    }, RECONNECT_DELAY)
+  }
+
+  function disconnect() {
+    clearTimeout(reconnectTimer)
+    reconnectTimer = null
+    if (source) {
+      source.close()
+      source = null
+    }
+    sessionStore.pushConnected = false
+  }
+
+  // 登录且创建角色后建立连接，登出时断开
+  watch(
+    () => [sessionStore.sessionId, sessionStore.isLoggedIn, mapStore.windowType === 'register'],
+    ([sessionId, isLoggedIn, registering]) => {
+      if (sessionId && isLoggedIn && !registering) {
+        if (!source) {
+          connect()
+        }
+      } else {
+        disconnect()
+      }
+    },
+    { immediate: true }
+  )
+
+  onUnmounted(disconnect)
+
+  return { connect, disconnect }
+}
@@ -6,6 +6,7 @@ export const useSessionStore = defineStore('session', () => {
   const isLoggedIn = ref(false)
   const isLoading = ref(false)
   const isWaiting = ref(false)
+  const pushConnected = ref(false) // 事件推送连接是否可用，不可用时退回轮询
   const username = ref('')
 
   function setSession(id, user) {
@@ -46,6 +47,7 @@ export const useSessionStore = defineStore('session', () => {
     isLoggedIn,
     isLoading,
     isWaiting,
+    pushConnected,
     username,
     setSession,
     clearSession,
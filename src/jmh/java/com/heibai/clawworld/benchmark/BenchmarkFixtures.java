@@ -0,0 +1,125 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.domain.character.Enemy;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.map.GameMap;
+import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.factory.EntityFactory;
+import com.heibai.clawworld.infrastructure.factory.MapInitializationService;
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
+import com.heibai.clawworld.infrastructure.persistence.repository.ChestInstanceRepository;
+import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
+import com.heibai.clawworld.infrastructure.persistence.repository.NpcShopInstanceRepository;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试公共数据
+ * 配置全部来自 src/main/resources/data 下的CSV，地图实体按线上初始化流程构建，
+ * 数据库只用Mockito替身（不启动Spring和MongoDB）
+ */
+public final class BenchmarkFixtures {
+
+    private static volatile ConfigDataManager configDataManager;
+    private static volatile MapInitializationService mapInitializationService;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static ConfigDataManager config() {
+        if (configDataManager == null) {
+            synchronized (BenchmarkFixtures.class) {
+                if (configDataManager == null) {
+                    configDataManager = ConfigDataManager.loadFromClasspath();
+                }
+            }
+        }
+        return configDataManager;
+    }
+
+    /**
+     * 获取按CSV初始化的运行时地图（包含敌人、NPC、传送点等实体）
+     */
+    public static GameMap map(String mapId) {
+        if (mapInitializationService == null) {
+            synchronized (BenchmarkFixtures.class) {
+                if (mapInitializationService == null) {
+                    MapInitializationService service = new MapInitializationService(config(),
+                        new EntityFactory(config()),
+                        Mockito.mock(EnemyInstanceRepository.class),
+                        Mockito.mock(NpcShopInstanceRepository.class),
+                        Mockito.mock(ChestInstanceRepository.class));
+                    service.initializeMaps();
+                    mapInitializationService = service;
+                }
+            }
+        }
+        GameMap map = mapInitializationService.getMap(mapId);
+        if (map == null) {
+            throw new IllegalArgumentException("地图不存在: " + mapId);
+        }
+        return map;
+    }
+
+    /**
+     * 地图上敌人对应的数据库实例（全部存活），供寻路判断敌人占据的格子
+     */
+    public static List<EnemyInstanceEntity> enemyInstances(GameMap map) {
+        List<EnemyInstanceEntity> instances = new ArrayList<>();
+        for (MapEntity entity : map.getEntities()) {
+            if (entity instanceof Enemy enemy) {
+                EnemyInstanceEntity instance = new EnemyInstanceEntity();
+                instance.setMapId(map.getId());
+                instance.setInstanceId(enemy.getId());
+                instance.setX(enemy.getX());
+                instance.setY(enemy.getY());
+                instances.add(instance);
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * 在地图上依次找可通行的格子放置玩家
+     */
+    public static List<Player> players(GameMap map, int count) {
+        List<Player> players = new ArrayList<>(count);
+        int index = 0;
+        for (int y = 0; y < map.getHeight() && players.size() < count; y++) {
+            for (int x = 0; x < map.getWidth() && players.size() < count; x++) {
+                if (!isPassable(map, x, y)) {
+                    continue;
+                }
+                Player player = new Player();
+                player.setId("bench_player_" + index);
+                player.setName("玩家" + index);
+                player.setRoleId("WARRIOR");
+                player.setLevel(1 + index % 10);
+                player.setMapId(map.getId());
+                player.setX(x);
+                player.setY(y);
+                players.add(player);
+                index++;
+            }
+        }
+        return players;
+    }
+
+    private static boolean isPassable(GameMap map, int x, int y) {
+        for (String terrain : config().getMapTerrain(map.getId(), x, y)) {
+            var terrainConfig = config().getTerrainType(terrain);
+            if (terrainConfig != null && !terrainConfig.isPassable()) {
+                return false;
+            }
+        }
+        for (MapEntity entity : map.getEntities()) {
+            if (entity.getX() == x && entity.getY() == y) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.service.CombatDamageCalculator;
+import com.heibai.clawworld.domain.service.CombatEngine;
+import com.heibai.clawworld.domain.service.CombatSettlementService;
+import com.heibai.clawworld.domain.service.skill.SkillExecutor;
+import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.simulation.CombatSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 战斗引擎回合处理基准
+ * - turn：玩家行动一次并处理到再次轮到玩家（包含分片投递、敌人AI、增量日志）
+ * - fight：从创建战斗到结算的完整一场战斗
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CombatEngineBenchmark {
+
+    private static final String PLAYER_ID = "sim_player_0";
+    private static final String PLAYER_FACTION = "party_bench";
+
+    @Param({"slime", "goblin"})
+    private String enemyId;
+
+    @Param({"1", "5"})
+    private int enemyCount;
+
+    private ConfigDataManager configDataManager;
+    private CombatSimulator factory;
+    private CombatEngine combatEngine;
+
+    // turn 基准使用的长期战斗（角色生命足够大，不会结束）
+    private String endlessCombatId;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        configDataManager = BenchmarkFixtures.config();
+        factory = new CombatSimulator(configDataManager);
+    }
+
+    /**
+     * 每轮迭代使用新的引擎，避免已结束战斗的缓存累积影响结果
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        combatEngine = new CombatEngine(configDataManager, new SkillResolver(configDataManager),
+            new SkillExecutor(new CombatDamageCalculator()), new CombatSettlementService(configDataManager));
+        endlessCombatId = startCombat(Integer.MAX_VALUE / 2);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        combatEngine.destroy();
+    }
+
+    @Benchmark
+    public CombatEngine.CombatActionResult turn() {
+        return act(endlessCombatId);
+    }
+
+    @Benchmark
+    public int fight() {
+        String combatId = startCombat(0);
+        int turns = 0;
+        CombatEngine.CombatActionResult result;
+        do {
+            result = act(combatId);
+            turns++;
+        } while (!result.isCombatEnded() && result.isSuccess() && turns < 1000);
+        combatEngine.getAndRemoveRewardDistribution(combatId);
+        return turns;
+    }
+
+    /**
+     * 创建战斗并初始化第一个回合
+     * @param health 大于0时覆盖所有角色的生命值
+     */
+    private String startCombat(int health) {
+        String combatId = combatEngine.createCombat("benchmark");
+        List<CombatCharacter> players = new ArrayList<>();
+        players.add(withHealth(factory.createPlayer("WARRIOR", 5, 0), health));
+        List<CombatCharacter> enemies = new ArrayList<>();
+        for (int i = 0; i < enemyCount; i++) {
+            enemies.add(withHealth(factory.createEnemy(enemyId, i), health));
+        }
+        combatEngine.addPartyToCombat(combatId, PLAYER_FACTION, players);
+        combatEngine.addPartyToCombat(combatId, "enemy_" + enemyId, enemies);
+        combatEngine.initializeFirstTurn(combatId);
+        return combatId;
+    }
+
+    /**
+     * 玩家普通攻击第一个存活的敌人，并像展示层一样取走增量日志
+     */
+    private CombatEngine.CombatActionResult act(String combatId) {
+        CombatInstance combat = combatEngine.getCombat(combatId).orElse(null);
+        if (combat == null) {
+            return combatEngine.executeSkillWithWait(combatId, PLAYER_ID, "basic_attack", null);
+        }
+        String targetId = combat.getEnemyCharacters(PLAYER_FACTION).get(0).getCharacterId();
+        CombatEngine.CombatActionResult result =
+            combatEngine.executeSkillWithWait(combatId, PLAYER_ID, "basic_attack", targetId);
+        combatEngine.takeUnacknowledgedLogs(combatId, PLAYER_ID);
+        return result;
+    }
+
+    private static CombatCharacter withHealth(CombatCharacter character, int health) {
+        if (health > 0) {
+            character.setMaxHealth(health);
+            character.setCurrentHealth(health);
+        }
+        return character;
+    }
+}
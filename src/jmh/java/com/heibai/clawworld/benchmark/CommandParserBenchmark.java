@@ -0,0 +1,84 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.domain.map.GameMap;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.config.data.item.ItemConfig;
+import com.heibai.clawworld.infrastructure.config.data.skill.SkillConfig;
+import com.heibai.clawworld.interfaces.command.Command;
+import com.heibai.clawworld.interfaces.command.CommandContext;
+import com.heibai.clawworld.interfaces.command.CommandParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指令解析基准
+ * 每个窗口一组典型指令，物品、技能和实体名称取自CSV配置；每次调用解析整组指令
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandParserBenchmark {
+
+    @Param({"MAP", "COMBAT", "TRADE"})
+    private CommandContext.WindowType windowType;
+
+    private final CommandParser parser = new CommandParser();
+    private String[] commands;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConfigDataManager config = BenchmarkFixtures.config();
+        String item = config.getAllItems().stream().map(ItemConfig::getName).findFirst().orElse("小型生命药水");
+        String skill = config.getAllSkills().stream().map(SkillConfig::getName).skip(1).findFirst().orElse("火球术");
+        String enemy = config.getEnemy("goblin").getName();
+        GameMap map = BenchmarkFixtures.map("starter_village");
+        String entity = map.getEntities().get(0).getName();
+
+        List<String> list = new ArrayList<>();
+        switch (windowType) {
+            case MAP -> {
+                list.add("move 5 10");
+                list.add("inspect self");
+                list.add("inspect " + item);
+                list.add("interact " + entity + " 查看");
+                list.add("say world 大家好，有人组队打" + enemy + "吗");
+                list.add("say to 玩家1 你好");
+                list.add("use " + item);
+                list.add("attribute add str 5");
+                list.add("party leave");
+                list.add("wait 10");
+            }
+            case COMBAT -> {
+                list.add("cast " + skill + " " + enemy + "#1");
+                list.add("cast " + skill);
+                list.add("use " + item);
+                list.add("wait");
+                list.add("end");
+            }
+            case TRADE -> {
+                list.add("trade add 铁剑#1");
+                list.add("trade remove 铁剑#1");
+                list.add("trade money 100");
+                list.add("trade lock");
+                list.add("trade confirm");
+            }
+            default -> throw new IllegalArgumentException(windowType.name());
+        }
+        commands = list.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws CommandParser.CommandParseException {
+        for (String command : commands) {
+            Command parsed = parser.parse(command, windowType);
+            blackhole.consume(parsed);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.interfaces.log.GameLog;
+import com.heibai.clawworld.interfaces.log.GameLogBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应文本格式化基准
+ * 模拟一次地图窗口响应：若干状态日志加十个窗口区块，只衡量日志格式化为文本的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameLogBuilderBenchmark {
+
+    @Param({"20", "100"})
+    private int entityLines;
+
+    private List<GameLog> logs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder entities = new StringBuilder("新手村的地图实体：\n");
+        for (int i = 0; i < entityLines; i++) {
+            entities.append("玩家").append(i).append(" Lv.5 (").append(i % 20).append(',').append(i / 20)
+                .append(") [需移动至周边交互] [类型：玩家] [交互选项: 查看, 邀请组队, 请求交易]\n");
+        }
+
+        GameLogBuilder builder = new GameLogBuilder()
+            .addState("环境变化", "玩家3进入了地图")
+            .addState("响应", "移动完成")
+            .addWindow("地图信息", "当前地图：新手村（20×20），宁静的村庄【安全区域】，默认地形：草地")
+            .addWindow("玩家状态", "角色: 勇者 (战士) Lv.5\n位置: (5, 7)\n经验: 120/300 (40%)  金币: 500")
+            .addWindow("技能列表", "你的技能：\n普通攻击\n强力打击\n旋风斩")
+            .addWindow("装备栏", "你的装备：\n武器: 铁剑#1")
+            .addWindow("背包", "你的背包：\n金币: 500\n小型生命药水 x5")
+            .addWindow("队伍信息", "你的组队情况：\n你当前没有队伍")
+            .addWindow("实体列表", entities.toString())
+            .addWindow("可达目标", "你移动后可以交互的实体：\n商人: 移动到 (3,4) 可交互")
+            .addWindow("聊天记录", "新增聊天：\n[世界] 玩家1: 有人一起去森林吗");
+        logs = new ArrayList<>(builder.getLogs());
+    }
+
+    @Benchmark
+    public String format() {
+        return GameLogBuilder.format(logs);
+    }
+}
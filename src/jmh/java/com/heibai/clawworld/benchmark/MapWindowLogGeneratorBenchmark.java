@@ -0,0 +1,90 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.application.impl.PathfindingServiceImpl;
+import com.heibai.clawworld.application.service.CharacterInfoService;
+import com.heibai.clawworld.application.service.MapEntityService;
+import com.heibai.clawworld.application.service.PartyService;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.chat.ChatMessage;
+import com.heibai.clawworld.domain.map.GameMap;
+import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
+import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+import com.heibai.clawworld.interfaces.log.GameLogBuilder;
+import com.heibai.clawworld.interfaces.log.MapWindowLogGenerator;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地图窗口渲染基准
+ * 地图实体按CSV初始化，另外在可通行格子上放置若干其他玩家模拟热门地图；
+ * 角色信息、组队、交易等外部服务返回固定内容，只衡量窗口生成本身
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapWindowLogGeneratorBenchmark {
+
+    @Param({"starter_village", "dark_forest"})
+    private String mapId;
+
+    @Param({"0", "20", "100"})
+    private int otherPlayers;
+
+    private MapWindowLogGenerator generator;
+    private GameMap map;
+    private Player viewer;
+    private List<MapEntity> entities;
+    private List<ChatMessage> chatHistory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = BenchmarkFixtures.map(mapId);
+
+        List<Player> players = BenchmarkFixtures.players(map, otherPlayers + 1);
+        viewer = players.get(0);
+        entities = new ArrayList<>(map.getEntities());
+        entities.addAll(players);
+
+        EnemyInstanceRepository enemyInstanceRepository = Mockito.mock(EnemyInstanceRepository.class);
+        Mockito.when(enemyInstanceRepository.findByMapId(mapId)).thenReturn(BenchmarkFixtures.enemyInstances(map));
+        var reachability = new PathfindingServiceImpl(BenchmarkFixtures.config(), enemyInstanceRepository)
+            .calculateReachabilityMap(mapId, viewer.getX(), viewer.getY());
+
+        MapEntityService mapEntityService = Mockito.mock(MapEntityService.class);
+        Mockito.when(mapEntityService.calculateReachabilityMap(viewer.getId())).thenReturn(reachability);
+
+        CharacterInfoService characterInfoService = Mockito.mock(CharacterInfoService.class);
+        Mockito.when(characterInfoService.generatePlayerStatus(viewer)).thenReturn("等级 5 生命 120/120 法力 50/50 位置 (1,1)");
+        Mockito.when(characterInfoService.generateSkills(viewer)).thenReturn("普通攻击\n强力打击\n旋风斩");
+        Mockito.when(characterInfoService.generateEquipment(viewer)).thenReturn("武器：铁剑#1");
+        Mockito.when(characterInfoService.generateInventory(viewer)).thenReturn("小型生命药水 x5");
+        Mockito.when(characterInfoService.generatePartyInfo(viewer)).thenReturn("你当前没有队伍");
+
+        generator = new MapWindowLogGenerator(characterInfoService, Mockito.mock(PartyService.class),
+            Mockito.mock(TradeRepository.class), mapEntityService, BenchmarkFixtures.config());
+
+        chatHistory = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setChannelType(i % 2 == 0 ? ChatMessage.ChannelType.WORLD : ChatMessage.ChannelType.MAP);
+            message.setSenderNickname("玩家" + i);
+            message.setMessage("有人一起去" + map.getName() + "吗");
+            chatHistory.add(message);
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        GameLogBuilder builder = new GameLogBuilder();
+        generator.generateMapWindowLogs(builder, viewer, map, entities, chatHistory);
+        return builder.build();
+    }
+}
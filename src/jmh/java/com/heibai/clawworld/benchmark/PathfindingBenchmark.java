@@ -0,0 +1,58 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.application.impl.PathfindingServiceImpl;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.map.GameMap;
+import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 寻路与可达性计算基准
+ * 起点和终点取地图上第一个和最后一个可通行的空格子，敌人占据的格子按CSV配置视为不可通行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfindingBenchmark {
+
+    @Param({"starter_village", "town_square", "dark_forest"})
+    private String mapId;
+
+    private PathfindingServiceImpl pathfindingService;
+    private int startX;
+    private int startY;
+    private int targetX;
+    private int targetY;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GameMap map = BenchmarkFixtures.map(mapId);
+        EnemyInstanceRepository enemyInstanceRepository = Mockito.mock(EnemyInstanceRepository.class);
+        Mockito.when(enemyInstanceRepository.findByMapId(mapId)).thenReturn(BenchmarkFixtures.enemyInstances(map));
+        pathfindingService = new PathfindingServiceImpl(BenchmarkFixtures.config(), enemyInstanceRepository);
+
+        List<Player> cells = BenchmarkFixtures.players(map, map.getWidth() * map.getHeight());
+        startX = cells.get(0).getX();
+        startY = cells.get(0).getY();
+        targetX = cells.get(cells.size() - 1).getX();
+        targetY = cells.get(cells.size() - 1).getY();
+    }
+
+    @Benchmark
+    public List<int[]> findPath() {
+        return pathfindingService.findPath(mapId, startX, startY, targetX, targetY);
+    }
+
+    @Benchmark
+    public Set<String> calculateReachabilityMap() {
+        return pathfindingService.calculateReachabilityMap(mapId, startX, startY);
+    }
+}
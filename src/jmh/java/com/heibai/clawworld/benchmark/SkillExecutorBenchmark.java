@@ -0,0 +1,77 @@
+package com.heibai.clawworld.benchmark;
+
+import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.combat.CombatParty;
+import com.heibai.clawworld.domain.service.CombatDamageCalculator;
+import com.heibai.clawworld.domain.service.skill.SkillExecutor;
+import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.domain.skill.Skill;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.simulation.CombatSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 群体技能（ENEMY_ALL）在大规模敌方阵营上的执行开销
+ * 敌人生命足够大，每轮迭代前恢复满血，保证每次执行都命中全部目标
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkillExecutorBenchmark {
+
+    @Param({"whirlwind", "ice_storm"})
+    private String skillId;
+
+    @Param({"10", "50", "200"})
+    private int partySize;
+
+    private SkillExecutor skillExecutor;
+    private Skill skill;
+    private CombatInstance combat;
+    private CombatCharacter caster;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConfigDataManager configDataManager = BenchmarkFixtures.config();
+        CombatSimulator factory = new CombatSimulator(configDataManager);
+        skillExecutor = new SkillExecutor(new CombatDamageCalculator());
+        skill = new SkillResolver(configDataManager).getSkillById(skillId);
+        if (skill == null || skill.getTargetType() != Skill.SkillTarget.ENEMY_ALL) {
+            throw new IllegalStateException("不是群体技能: " + skillId);
+        }
+
+        combat = new CombatInstance("benchmark", "benchmark", 42);
+        caster = factory.createPlayer("MAGE", 10, 0);
+        CombatParty players = new CombatParty("party_bench");
+        caster.setFactionId("party_bench");
+        players.addCharacter(caster);
+        combat.addParty("party_bench", players);
+
+        CombatParty enemies = new CombatParty("enemy_goblin");
+        for (int i = 0; i < partySize; i++) {
+            CombatCharacter enemy = factory.createEnemy("goblin", i);
+            enemy.setFactionId("enemy_goblin");
+            enemies.addCharacter(enemy);
+        }
+        combat.addParty("enemy_goblin", enemies);
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreHealth() {
+        for (CombatCharacter enemy : combat.getParties().get("enemy_goblin").getCharacters()) {
+            enemy.setMaxHealth(Integer.MAX_VALUE / 2);
+            enemy.setCurrentHealth(Integer.MAX_VALUE / 2);
+        }
+    }
+
+    @Benchmark
+    public SkillExecutor.SkillExecutionResult enemyAll() {
+        return skillExecutor.executeSkill(combat, caster, skill, null);
+    }
+}
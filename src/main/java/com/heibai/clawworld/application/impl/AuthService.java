@@ -5,16 +5,20 @@ import com.heibai.clawworld.application.service.MapEntityService;
 import com.heibai.clawworld.application.service.PlayerSessionService;
 import com.heibai.clawworld.domain.character.Player;
 import com.heibai.clawworld.domain.chat.ChatMessage;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.domain.map.GameMap;
 import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.domain.service.CombatEngine;
 import com.heibai.clawworld.domain.service.PlayerLevelService;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.infrastructure.config.data.character.RoleConfig;
 import com.heibai.clawworld.infrastructure.factory.MapInitializationService;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
+import com.heibai.clawworld.interfaces.log.GameLog;
 import com.heibai.clawworld.interfaces.log.GameLogBuilder;
 import com.heibai.clawworld.interfaces.log.MapWindowLogGenerator;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -42,6 +46,9 @@ public class AuthService {
     private final ConfigDataManager configDataManager;
     private final com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository tradeRepository;
     private final com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository playerRepository;
+    private final MapEntityJournal mapEntityJournal;
+    private final CombatEngine combatEngine;
+    private final PlayerEventPublisher eventPublisher;
 
     /**
      * 登录或注册
@@ -81,18 +88,22 @@ public class AuthService {
                 account.setLastKnownWindowType("MAP");
             }
 
-            accountRepository.save(account);
-
             // 获取玩家信息（使用 PlayerSessionService 获取完整数据）
             Player player = null;
+            boolean combatActive = false;
             if (account.getPlayerId() != null) {
                 player = playerSessionService.getPlayerState(account.getPlayerId());
 
                 // 清理玩家的残留交易记录
                 cleanupPlayerTrades(account.getPlayerId());
 
-                // 清理玩家的战斗状态（处理异常离线的情况）
-                cleanupPlayerCombatState(player);
+                // 清理玩家的战斗状态（处理异常离线的情况）；战斗仍在进行（如重启后从检查点恢复）时回到战斗窗口
+                combatActive = !cleanupPlayerCombatState(player);
+                if (combatActive) {
+                    account.setCurrentWindowType("COMBAT");
+                    account.setCurrentWindowId(player.getCombatId());
+                    account.setLastKnownWindowType("COMBAT");
+                }
 
                 // 检查并处理升级（处理离线期间可能获得的经验）
                 if (playerLevelService.processLevelUp(player)) {
@@ -103,9 +114,18 @@ public class AuthService {
                 player = playerSessionService.getPlayerState(account.getPlayerId());
             }
 
+            accountRepository.save(account);
+
+            // 旧会话的推送连接不再有效
+            if (account.getPlayerId() != null) {
+                eventPublisher.disconnect(account.getPlayerId(), sessionId);
+            }
+
             // 生成窗口内容
             GameLogBuilder windowBuilder = new GameLogBuilder();
-            if (player != null) {
+            if (combatActive) {
+                windowBuilder.addWindow("战斗窗口", "你仍在战斗中，战斗已恢复，请继续战斗。");
+            } else if (player != null) {
                 // 已注册用户，生成地图窗口内容
                 GameMap map = mapInitializationService.getMap(player.getMapId());
                 if (map != null) {
@@ -121,7 +141,7 @@ public class AuthService {
                 generateRegisterWindowContent(windowBuilder);
             }
 
-            return LoginResult.success(sessionId, windowBuilder.build(), account.getPlayerId() == null);
+            return LoginResult.success(sessionId, windowBuilder.getLogs(), account.getPlayerId() == null);
         } else {
             // 账号不存在，创建新账号
             AccountEntity newAccount = new AccountEntity();
@@ -144,7 +164,7 @@ public class AuthService {
             GameLogBuilder windowBuilder = new GameLogBuilder();
             generateRegisterWindowContent(windowBuilder);
 
-            return LoginResult.success(sessionId, windowBuilder.build(), true);
+            return LoginResult.success(sessionId, windowBuilder.getLogs(), true);
         }
     }
 
@@ -174,6 +194,11 @@ public class AuthService {
             entity.setCurrentWindowId(null);
             entity.setCurrentWindowType(null);
             accountRepository.save(entity);
+
+            // 断开该会话的推送连接，不等连接超时
+            if (entity.getPlayerId() != null) {
+                eventPublisher.disconnect(entity.getPlayerId(), null);
+            }
         }
     }
 
@@ -208,22 +233,29 @@ public class AuthService {
 
     /**
      * 清理玩家的战斗状态
-     * 在玩家上线时调用，处理异常离线导致的战斗状态残留
+     * 在玩家上线时调用，处理异常离线导致的战斗状态残留；战斗引擎中仍有该战斗时保留战斗状态
+     * @return 玩家不在进行中的战斗里返回true；战斗仍在进行返回false
      */
-    private void cleanupPlayerCombatState(Player player) {
-        if (player != null && player.isInCombat()) {
-            player.setInCombat(false);
-            player.setCombatId(null);
-            // 保存到数据库
-            Optional<com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity> playerEntityOpt =
-                playerRepository.findById(player.getId());
-            if (playerEntityOpt.isPresent()) {
-                com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity playerEntity = playerEntityOpt.get();
-                playerEntity.setInCombat(false);
-                playerEntity.setCombatId(null);
-                playerRepository.save(playerEntity);
-            }
+    private boolean cleanupPlayerCombatState(Player player) {
+        if (player == null || !player.isInCombat()) {
+            return true;
+        }
+        if (player.getCombatId() != null && combatEngine.getCombat(player.getCombatId()).isPresent()) {
+            return false;
         }
+
+        player.setInCombat(false);
+        player.setCombatId(null);
+        // 保存到数据库
+        Optional<com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity> playerEntityOpt =
+            playerRepository.findById(player.getId());
+        if (playerEntityOpt.isPresent()) {
+            com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity playerEntity = playerEntityOpt.get();
+            playerEntity.setInCombat(false);
+            playerEntity.setCombatId(null);
+            playerRepository.save(playerEntity);
+        }
+        return true;
     }
 
     /**
@@ -248,6 +280,7 @@ public class AuthService {
         for (com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity trade : allTrades) {
             trade.setStatus(com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity.TradeStatus.CANCELLED);
             tradeRepository.save(trade);
+            mapEntityJournal.relationChanged();
 
             // 清理双方玩家的tradeId
             String initiatorId = trade.getInitiatorId();
@@ -306,23 +339,29 @@ public class AuthService {
         private final boolean success;
         private final String message;
         private final String sessionId;
-        private final String content;  // 合并后的完整内容（背景+窗口）
+        private final List<GameLog> logs;  // 窗口日志（结构化响应直接使用，文本在需要时才格式化）
+        private String content;  // 合并后的完整内容（背景+窗口）
         private final boolean isNewUser;
 
-        private LoginResult(boolean success, String message, String sessionId, String content, boolean isNewUser) {
+        private LoginResult(boolean success, String message, String sessionId, List<GameLog> logs, String content, boolean isNewUser) {
             this.success = success;
             this.message = message;
             this.sessionId = sessionId;
+            this.logs = logs;
             this.content = content;
             this.isNewUser = isNewUser;
         }
 
         public static LoginResult success(String sessionId, String content, boolean isNewUser) {
-            return new LoginResult(true, "登录成功", sessionId, content, isNewUser);
+            return new LoginResult(true, "登录成功", sessionId, null, content, isNewUser);
+        }
+
+        public static LoginResult success(String sessionId, List<GameLog> logs, boolean isNewUser) {
+            return new LoginResult(true, "登录成功", sessionId, logs, null, isNewUser);
         }
 
         public static LoginResult error(String message) {
-            return new LoginResult(false, message, null, null, false);
+            return new LoginResult(false, message, null, null, null, false);
         }
 
         public boolean isSuccess() {
@@ -338,12 +377,22 @@ public class AuthService {
         }
 
         public String getContent() {
+            if (content == null && logs != null) {
+                content = GameLogBuilder.format(logs);
+            }
             return content;
         }
 
+        /**
+         * 窗口日志；结果直接由文本创建时为空列表
+         */
+        public List<GameLog> getLogs() {
+            return logs != null ? logs : List.of();
+        }
+
         // 为了兼容性保留这两个方法
         public String getBackgroundPrompt() {
-            return content;
+            return getContent();
         }
 
         public String getWindowContent() {
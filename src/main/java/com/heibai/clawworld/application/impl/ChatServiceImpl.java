@@ -1,6 +1,8 @@
 package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.domain.chat.ChatMessage;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.ChatMessageEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
@@ -28,6 +30,7 @@ public class ChatServiceImpl implements ChatService {
     private final AccountRepository accountRepository;
     private final PartyRepository partyRepository;
     private final ChatMapper chatMapper;
+    private final PlayerEventPublisher eventPublisher;
 
     @Override
     public ChatResult sendWorldMessage(String playerId, String message) {
@@ -58,6 +61,8 @@ public class ChatServiceImpl implements ChatService {
 
         chatMessageRepository.save(chatMessage);
 
+        eventPublisher.publishAll(toEvent(chatMessage));
+
         return ChatResult.success("世界频道消息发送成功");
     }
 
@@ -96,6 +101,14 @@ public class ChatServiceImpl implements ChatService {
 
         chatMessageRepository.save(chatMessage);
 
+        // 没有任何推送连接时不查询地图上的玩家
+        if (eventPublisher.hasSubscribers()) {
+            PlayerEvent event = toEvent(chatMessage);
+            for (PlayerEntity mapPlayer : playerRepository.findByCurrentMapId(player.getCurrentMapId())) {
+                eventPublisher.publish(mapPlayer.getId(), event);
+            }
+        }
+
         return ChatResult.success("地图频道消息发送成功");
     }
 
@@ -134,6 +147,9 @@ public class ChatServiceImpl implements ChatService {
 
         chatMessageRepository.save(chatMessage);
 
+        partyRepository.findById(player.getPartyId())
+                .ifPresent(party -> eventPublisher.publish(party.getMemberIds(), toEvent(chatMessage)));
+
         return ChatResult.success("队伍频道消息发送成功");
     }
 
@@ -178,6 +194,8 @@ public class ChatServiceImpl implements ChatService {
 
         chatMessageRepository.save(chatMessage);
 
+        eventPublisher.publish(receiverId, toEvent(chatMessage));
+
         return ChatResult.success("私聊消息发送成功");
     }
 
@@ -239,4 +257,12 @@ public class ChatServiceImpl implements ChatService {
                 .map(chatMapper::toDomain)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 聊天消息转换为推送事件（频道名小写，与客户端频道标识一致）
+     */
+    private PlayerEvent toEvent(ChatMessageEntity chatMessage) {
+        return PlayerEvent.chat(chatMessage.getChannelType().name().toLowerCase(),
+                chatMessage.getSenderNickname(), chatMessage.getMessage(), chatMessage.getTimestamp());
+    }
 }
@@ -14,6 +14,7 @@ import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.mapper.ConfigMapper;
 import com.heibai.clawworld.infrastructure.persistence.repository.ChestInstanceRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -34,6 +35,7 @@ public class ChestServiceImpl implements ChestService {
     private final ConfigDataManager configDataManager;
     private final PlayerSessionService playerSessionService;
     private final ConfigMapper configMapper;
+    private final MapEntityJournal mapEntityJournal;
     private final Random random = new Random();
 
     @Override
@@ -116,6 +118,12 @@ public class ChestServiceImpl implements ChestService {
             chest.setLastOpenTime(System.currentTimeMillis());
         }
         chestInstanceRepository.save(chest);
+        mapEntityJournal.record(chest.getMapId(), chest.getInstanceId(), chest.getDisplayName());
+        if (!"SMALL".equals(chest.getChestType())) {
+            // 大宝箱到刷新时间后再次变化
+            mapEntityJournal.recordAt(chest.getMapId(), chest.getInstanceId(), chest.getDisplayName(),
+                chest.getLastOpenTime() + chestConfig.getRespawnSeconds() * 1000L);
+        }
 
         // 构建消息
         StringBuilder message = new StringBuilder();
@@ -4,14 +4,15 @@ import com.heibai.clawworld.application.impl.combat.CombatEndHandler;
 import com.heibai.clawworld.application.impl.combat.CombatInitiationService;
 import com.heibai.clawworld.application.impl.combat.CombatProtectionChecker;
 import com.heibai.clawworld.application.service.WindowStateService;
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
 import com.heibai.clawworld.domain.combat.CombatCharacter;
-import com.heibai.clawworld.domain.combat.CombatParty;
 import com.heibai.clawworld.domain.service.CombatEngine;
 import com.heibai.clawworld.domain.service.skill.SkillResolver;
 import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.infrastructure.config.data.map.MapConfig;
 import com.heibai.clawworld.domain.character.Player;
 import com.heibai.clawworld.domain.combat.Combat;
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
@@ -49,6 +50,9 @@ public class CombatServiceImpl implements CombatService {
     private final CombatEndHandler endHandler;
     private final SkillResolver skillResolver;
 
+    // 占用敌人失败后重新读取的最大次数
+    private static final int MAX_ENEMY_CLAIM_ATTEMPTS = 3;
+
     @Override
     public CombatResult initiateCombat(String attackerId, String targetId) {
         try {
@@ -118,7 +122,7 @@ public class CombatServiceImpl implements CombatService {
             combatEngine.addPartyToCombat(combatId, target.getFaction(), targetCombatChars);
 
             // 更新所有参战玩家的战斗状态并切换窗口
-            updatePlayersForCombat(combatId, attackerParty, targetParty);
+            updatePlayersForCombat(combatId, attackerId, attackerParty, targetParty);
 
             // 初始化第一个回合
             combatEngine.initializeFirstTurn(combatId);
@@ -135,8 +139,9 @@ public class CombatServiceImpl implements CombatService {
 
     /**
      * 更新参战玩家的战斗状态和窗口
+     * @param actorId 发起战斗的玩家ID（只向其他参战玩家推送窗口事件）
      */
-    private void updatePlayersForCombat(String combatId, List<Player>... playerGroups) {
+    private void updatePlayersForCombat(String combatId, String actorId, List<Player>... playerGroups) {
         List<com.heibai.clawworld.domain.window.WindowTransition> transitions = new ArrayList<>();
 
         for (List<Player> group : playerGroups) {
@@ -156,7 +161,7 @@ public class CombatServiceImpl implements CombatService {
         }
 
         if (!transitions.isEmpty()) {
-            boolean success = windowStateService.transitionWindows(transitions);
+            boolean success = windowStateService.transitionWindows(transitions, actorId);
             if (!success) {
                 log.warn("部分玩家窗口状态切换失败: combatId={}", combatId);
             }
@@ -178,119 +183,149 @@ public class CombatServiceImpl implements CombatService {
                 return CombatResult.error(mapCheck.errorMessage());
             }
 
-            // 查找敌人实例
-            List<com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity> enemiesOnMap =
-                enemyInstanceRepository.findByMapId(mapId);
+            // 敌人的占用是带条件的原子更新：没抢到说明其他玩家刚刚发起了战斗，重新读取后加入该战斗
+            for (int attempt = 0; attempt < MAX_ENEMY_CLAIM_ATTEMPTS; attempt++) {
+                Optional<EnemyInstanceEntity> enemyOpt =
+                    enemyInstanceRepository.findFirstByMapIdAndDisplayName(mapId, enemyDisplayName);
+                if (enemyOpt.isEmpty()) {
+                    return CombatResult.error("目标敌人不存在: " + enemyDisplayName);
+                }
+                EnemyInstanceEntity targetEnemy = enemyOpt.get();
 
-            com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity targetEnemy = null;
-            for (var enemy : enemiesOnMap) {
-                if (enemy.getDisplayName() != null && enemy.getDisplayName().equals(enemyDisplayName)) {
-                    targetEnemy = enemy;
-                    break;
+                if (targetEnemy.isDead()) {
+                    return CombatResult.error("目标敌人已死亡，等待刷新");
                 }
-            }
 
-            if (targetEnemy == null) {
-                return CombatResult.error("目标敌人不存在: " + enemyDisplayName);
-            }
+                // 敌人已在进行中的战斗里，加入该战斗
+                String existingCombatId = targetEnemy.isInCombat() ? targetEnemy.getCombatId() : null;
+                if (existingCombatId != null) {
+                    Optional<CombatInstance> existingCombat = combatEngine.getCombat(existingCombatId);
+                    if (existingCombat.isPresent()) {
+                        return joinEnemyCombat(attacker, existingCombat.get(), mapId, enemyDisplayName);
+                    }
+                }
 
-            if (targetEnemy.isDead()) {
-                return CombatResult.error("目标敌人已死亡，等待刷新");
-            }
+                // 检查玩家是否在敌人附近（九宫格范围内）
+                if (!initiationService.isInInteractionRange(attacker, targetEnemy.getX(), targetEnemy.getY())) {
+                    return CombatResult.error("目标敌人不在交互范围内，请先移动到敌人附近");
+                }
 
-            if (targetEnemy.isInCombat()) {
-                // 如果敌人已在战斗中，检查是否可以加入
-                String existingCombatId = targetEnemy.getCombatId();
-                Optional<CombatInstance> existingCombat = combatEngine.getCombat(existingCombatId);
-                if (existingCombat.isPresent()) {
-                    CombatInstance combat = existingCombat.get();
+                // 获取敌人配置
+                com.heibai.clawworld.infrastructure.config.data.character.EnemyConfig enemyConfig =
+                    configDataManager.getEnemy(targetEnemy.getTemplateId());
+                if (enemyConfig == null) {
+                    return CombatResult.error("敌人配置不存在: " + targetEnemy.getTemplateId());
+                }
 
-                    // 检查抢怪保护
-                    var stealCheck = protectionChecker.checkMonsterStealProtection(mapId, combat);
-                    if (!stealCheck.allowed()) {
-                        return CombatResult.error(stealCheck.errorMessage());
-                    }
+                // 敌人标记为战斗中但战斗已不存在（如服务器重启），按原占用的战斗ID接管
+                CombatResult result = startEnemyCombat(attacker, targetEnemy, existingCombatId, mapId, enemyDisplayName);
+                if (result != null) {
+                    return result;
+                }
+                log.debug("敌人已被其他战斗占用，重新读取: mapId={}, enemyName={}", mapId, enemyDisplayName);
+            }
 
-                    // 将玩家加入现有战斗
-                    List<Player> attackerParty = initiationService.collectPartyMembers(attacker);
-                    List<CombatCharacter> attackerCombatChars = attackerParty.stream()
-                        .map(combatMapper::toCombatCharacter)
-                        .collect(Collectors.toList());
-                    combatEngine.addPartyToCombat(existingCombatId, attacker.getFaction(), attackerCombatChars);
+            return CombatResult.error("目标敌人正在进入战斗，请稍后再试");
+        } catch (Exception e) {
+            log.error("发起PVE战斗失败", e);
+            return CombatResult.error("发起战斗失败: " + e.getMessage());
+        }
+    }
 
-                    // 更新所有参战玩家的战斗状态并切换窗口
-                    updatePlayersForCombat(existingCombatId, attackerParty);
+    /**
+     * 加入敌人所在的进行中战斗
+     */
+    private CombatResult joinEnemyCombat(Player attacker, CombatInstance combat, String mapId, String enemyDisplayName) {
+        String combatId = combat.getCombatId();
 
-                    log.info("玩家加入现有战斗: combatId={}, attackerId={}, enemyName={}, partySize={}",
-                        existingCombatId, attackerId, enemyDisplayName, attackerParty.size());
+        // 检查抢怪保护
+        var stealCheck = protectionChecker.checkMonsterStealProtection(mapId, combat);
+        if (!stealCheck.allowed()) {
+            return CombatResult.error(stealCheck.errorMessage());
+        }
 
-                    return CombatResult.success(existingCombatId, existingCombatId, "加入战斗");
-                }
-            }
+        // 将玩家加入现有战斗
+        List<Player> attackerParty = initiationService.collectPartyMembers(attacker);
+        List<CombatCharacter> attackerCombatChars = attackerParty.stream()
+            .map(combatMapper::toCombatCharacter)
+            .collect(Collectors.toList());
+        combatEngine.addPartyToCombat(combatId, attacker.getFaction(), attackerCombatChars);
 
-            // 检查玩家是否在敌人附近（九宫格范围内）
-            if (!initiationService.isInInteractionRange(attacker, targetEnemy.getX(), targetEnemy.getY())) {
-                return CombatResult.error("目标敌人不在交互范围内，请先移动到敌人附近");
-            }
+        // 更新所有参战玩家的战斗状态并切换窗口
+        updatePlayersForCombat(combatId, attacker.getId(), attackerParty);
 
-            // 获取敌人配置
-            com.heibai.clawworld.infrastructure.config.data.character.EnemyConfig enemyConfig =
-                configDataManager.getEnemy(targetEnemy.getTemplateId());
-            if (enemyConfig == null) {
-                return CombatResult.error("敌人配置不存在: " + targetEnemy.getTemplateId());
-            }
+        log.info("玩家加入现有战斗: combatId={}, attackerId={}, enemyName={}, partySize={}",
+            combatId, attacker.getId(), enemyDisplayName, attackerParty.size());
 
-            // 收集攻击方队伍成员
-            List<Player> attackerParty = initiationService.collectPartyMembers(attacker);
+        return CombatResult.success(combatId, combatId, "加入战斗");
+    }
 
-            // 收集同格子的所有敌人（同一阵营）
-            String enemyFaction = "enemy_" + targetEnemy.getTemplateId();
-            final int targetX = targetEnemy.getX();
-            final int targetY = targetEnemy.getY();
-            List<com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity> enemiesAtPosition =
-                enemiesOnMap.stream()
-                    .filter(e -> e.getX() == targetX && e.getY() == targetY)
-                    .filter(e -> !e.isDead())
-                    .collect(Collectors.toList());
+    /**
+     * 创建新的PVE战斗
+     * 先创建战斗并加入攻击方，再原子占用目标敌人，这样抢先占用后其他玩家加入时看到的已是完整的攻击方
+     * @param expectedCombatId 目标敌人当前被占用的（已失效）战斗ID；未被占用时为null
+     * @return 战斗结果；目标敌人已被其他战斗占用时返回null
+     */
+    private CombatResult startEnemyCombat(Player attacker, EnemyInstanceEntity targetEnemy, String expectedCombatId,
+                                          String mapId, String enemyDisplayName) {
+        // 收集攻击方队伍成员
+        List<Player> attackerParty = initiationService.collectPartyMembers(attacker);
+
+        // 创建战斗并添加攻击方（玩家）
+        String combatId = combatEngine.createCombat(mapId);
+        List<CombatCharacter> attackerCombatChars = attackerParty.stream()
+            .map(combatMapper::toCombatCharacter)
+            .collect(Collectors.toList());
+        combatEngine.addPartyToCombat(combatId, attacker.getFaction(), attackerCombatChars);
 
-            // 创建战斗
-            String combatId = combatEngine.createCombat(mapId);
+        // 占用目标敌人
+        Optional<EnemyInstanceEntity> claimed = enemyInstanceRepository.claimForCombat(
+            mapId, targetEnemy.getInstanceId(), expectedCombatId, combatId);
+        if (claimed.isEmpty()) {
+            combatEngine.discardCombat(combatId);
+            return null;
+        }
 
-            // 添加攻击方（玩家）到战斗
-            List<CombatCharacter> attackerCombatChars = attackerParty.stream()
-                .map(combatMapper::toCombatCharacter)
-                .collect(Collectors.toList());
-            combatEngine.addPartyToCombat(combatId, attacker.getFaction(), attackerCombatChars);
+        List<EnemyInstanceEntity> claimedEnemies = new ArrayList<>();
+        claimedEnemies.add(claimed.get());
+        try {
+            // 占用同格子的其他敌人（同一阵营），已在其他战斗中或已死亡的不参战
+            for (EnemyInstanceEntity enemy : enemyInstanceRepository.findByMapIdAndXAndY(mapId, targetEnemy.getX(), targetEnemy.getY())) {
+                if (enemy.getInstanceId().equals(targetEnemy.getInstanceId()) || enemy.isDead() || enemy.isInCombat()) {
+                    continue;
+                }
+                enemyInstanceRepository.claimForCombat(mapId, enemy.getInstanceId(), null, combatId)
+                    .ifPresent(claimedEnemies::add);
+            }
 
             // 添加防守方（敌人）到战斗
+            String enemyFaction = "enemy_" + targetEnemy.getTemplateId();
             List<CombatCharacter> enemyCombatChars = new ArrayList<>();
-            for (var enemy : enemiesAtPosition) {
+            for (EnemyInstanceEntity enemy : claimedEnemies) {
                 var config = configDataManager.getEnemy(enemy.getTemplateId());
                 if (config != null) {
-                    CombatCharacter combatChar = combatMapper.toCombatCharacter(enemy, config);
-                    enemyCombatChars.add(combatChar);
-
-                    // 更新敌人状态为战斗中
-                    enemy.setInCombat(true);
-                    enemy.setCombatId(combatId);
-                    enemyInstanceRepository.save(enemy);
+                    enemyCombatChars.add(combatMapper.toCombatCharacter(enemy, config));
                 }
             }
             combatEngine.addPartyToCombat(combatId, enemyFaction, enemyCombatChars);
 
             // 更新所有参战玩家的战斗状态并切换窗口
-            updatePlayersForCombat(combatId, attackerParty);
+            updatePlayersForCombat(combatId, attacker.getId(), attackerParty);
 
             // 初始化第一个回合
             combatEngine.initializeFirstTurn(combatId);
 
             log.info("发起PVE战斗: combatId={}, attackerId={}, enemyName={}, mapId={}, enemyCount={}, partySize={}",
-                combatId, attackerId, enemyDisplayName, mapId, enemyCombatChars.size(), attackerParty.size());
+                combatId, attacker.getId(), enemyDisplayName, mapId, enemyCombatChars.size(), attackerParty.size());
 
             return CombatResult.success(combatId, combatId, "战斗开始");
-        } catch (Exception e) {
-            log.error("发起PVE战斗失败", e);
-            return CombatResult.error("发起战斗失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // 战斗没能开始，释放已占用的敌人
+            for (EnemyInstanceEntity enemy : claimedEnemies) {
+                enemyInstanceRepository.releaseCombatClaim(mapId, enemy.getInstanceId(), combatId);
+            }
+            combatEngine.discardCombat(combatId);
+            throw e;
         }
     }
 
@@ -329,11 +364,11 @@ public class CombatServiceImpl implements CombatService {
                 }
 
                 // 自动选择一个敌方目标（选择第一个存活的敌人）
-                List<CombatCharacter> enemies = combat.getEnemyCharacters(caster.getFactionId());
-                if (enemies.isEmpty()) {
+                // 存活视图只能在分片线程上读取，这里从已发布的快照中选取
+                targetId = findFirstAliveEnemy(combat.getSnapshot(), caster.getFactionId());
+                if (targetId == null) {
                     return ActionResult.error("没有可攻击的目标");
                 }
-                targetId = enemies.get(0).getCharacterId();
             }
 
             CombatEngine.CombatActionResult result = combatEngine.executeSkillWithWait(combatId, playerId, skillId, targetId);
@@ -367,6 +402,23 @@ public class CombatServiceImpl implements CombatService {
         }
     }
 
+    /**
+     * 从快照中找出第一个敌对阵营的存活角色
+     */
+    private String findFirstAliveEnemy(Combat snapshot, String factionId) {
+        for (Combat.CombatParty party : snapshot.getParties()) {
+            if (party.getFaction().equals(factionId)) {
+                continue;
+            }
+            for (Combat.CombatCharacter character : party.getCharacters()) {
+                if (character.isAlive()) {
+                    return character.getCharacterId();
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public ActionResult castSkillOnTarget(String combatId, String playerId, String skillName, String targetName) {
         try {
@@ -456,29 +508,16 @@ public class CombatServiceImpl implements CombatService {
                 return ActionResult.error("只有消耗品可以在战斗中使用");
             }
 
-            String resultMessage;
-            switch (item.getEffect()) {
-                case "HEAL_HP":
-                    int hpRestore = item.getEffectValue() != null ? item.getEffectValue() : 0;
-                    int newHp = Math.min(combatChar.getCurrentHealth() + hpRestore, combatChar.getMaxHealth());
-                    int actualHp = newHp - combatChar.getCurrentHealth();
-                    combatChar.setCurrentHealth(newHp);
-                    resultMessage = String.format("%s 使用了 %s，恢复了 %d 点生命值 (当前: %d/%d)",
-                        combatChar.getName(), itemName, actualHp, newHp, combatChar.getMaxHealth());
-                    break;
-                case "HEAL_MP":
-                    int mpRestore = item.getEffectValue() != null ? item.getEffectValue() : 0;
-                    int newMp = Math.min(combatChar.getCurrentMana() + mpRestore, combatChar.getMaxMana());
-                    int actualMp = newMp - combatChar.getCurrentMana();
-                    combatChar.setCurrentMana(newMp);
-                    resultMessage = String.format("%s 使用了 %s，恢复了 %d 点法力值 (当前: %d/%d)",
-                        combatChar.getName(), itemName, actualMp, newMp, combatChar.getMaxMana());
-                    break;
-                default:
-                    return ActionResult.error("该物品无法在战斗中使用");
+            if (!"HEAL_HP".equals(item.getEffect()) && !"HEAL_MP".equals(item.getEffect())) {
+                return ActionResult.error("该物品无法在战斗中使用");
             }
 
-            combat.addLog(resultMessage);
+            // 在战斗所属分片上应用物品效果，与回合处理串行
+            String resultMessage = combatEngine.executeOnCombat(combatId,
+                instance -> applyCombatItemEffect(instance, playerId, item, itemName));
+            if (resultMessage == null) {
+                return ActionResult.error("还未轮到你的回合");
+            }
 
             targetSlot.setQuantity(targetSlot.getQuantity() - 1);
             if (targetSlot.getQuantity() <= 0) {
@@ -486,8 +525,6 @@ public class CombatServiceImpl implements CombatService {
             }
             playerSessionService.savePlayerState(player);
 
-            combat.resetActionBar(playerId);
-
             if (combat.isFinished()) {
                 endHandler.handleCombatEnd(combatId);
                 return ActionResult.combatEnded("战斗结束", resultMessage);
@@ -510,6 +547,41 @@ public class CombatServiceImpl implements CombatService {
         }
     }
 
+    /**
+     * 在战斗中应用物品效果（在战斗分片线程上执行）
+     * @return 效果日志；如果已经不是该玩家的回合返回null
+     */
+    private String applyCombatItemEffect(CombatInstance combat, String playerId,
+                                         com.heibai.clawworld.domain.item.Item item, String itemName) {
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        CombatCharacter combatChar = combat.findCharacter(playerId);
+        if (currentTurn.isEmpty() || !currentTurn.get().equals(playerId)
+            || combatChar == null || !combatChar.isAlive()) {
+            return null;
+        }
+
+        String resultMessage;
+        if ("HEAL_HP".equals(item.getEffect())) {
+            int hpRestore = item.getEffectValue() != null ? item.getEffectValue() : 0;
+            int newHp = Math.min(combatChar.getCurrentHealth() + hpRestore, combatChar.getMaxHealth());
+            int actualHp = newHp - combatChar.getCurrentHealth();
+            combatChar.setCurrentHealth(newHp);
+            resultMessage = String.format("%s 使用了 %s，恢复了 %d 点生命值 (当前: %d/%d)",
+                combatChar.getName(), itemName, actualHp, newHp, combatChar.getMaxHealth());
+        } else {
+            int mpRestore = item.getEffectValue() != null ? item.getEffectValue() : 0;
+            int newMp = Math.min(combatChar.getCurrentMana() + mpRestore, combatChar.getMaxMana());
+            int actualMp = newMp - combatChar.getCurrentMana();
+            combatChar.setCurrentMana(newMp);
+            resultMessage = String.format("%s 使用了 %s，恢复了 %d 点法力值 (当前: %d/%d)",
+                combatChar.getName(), itemName, actualMp, newMp, combatChar.getMaxMana());
+        }
+
+        combat.addLog(resultMessage);
+        combat.resetActionBar(playerId);
+        return resultMessage;
+    }
+
     @Override
     public ActionResult waitTurn(String combatId, String playerId) {
         try {
@@ -539,6 +611,61 @@ public class CombatServiceImpl implements CombatService {
         }
     }
 
+    @Override
+    public ActionResult autoBattle(String combatId, String playerId, List<String> skillNames,
+                                   AutoBattlePolicy.TargetStrategy targetStrategy) {
+        try {
+            AutoBattlePolicy policy = AutoBattlePolicy.defaultPolicy();
+            if (targetStrategy != null) {
+                policy.setTargetStrategy(targetStrategy);
+            }
+            if (skillNames != null) {
+                for (String skillName : skillNames) {
+                    String skillId = skillResolver.findSkillIdByName(skillName);
+                    if (skillId == null) {
+                        return ActionResult.error("技能不存在: " + skillName);
+                    }
+                    policy.getSkillPriority().add(skillId);
+                }
+            }
+
+            CombatEngine.CombatActionResult result = combatEngine.autoBattle(combatId, playerId, policy);
+            String battleLog = result.getBattleLog() != null ? String.join("\n", result.getBattleLog()) : "";
+
+            if (result.isCombatEnded()) {
+                endHandler.handleCombatEnd(combatId);
+                return ActionResult.combatEnded("自动战斗结束", battleLog);
+            }
+            if (!result.isSuccess()) {
+                return ActionResult.error(result.getMessage(), battleLog);
+            }
+            return ActionResult.success(result.getMessage(), battleLog);
+        } catch (Exception e) {
+            log.error("自动战斗失败", e);
+            return ActionResult.error("自动战斗失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ActionResult disableAutoBattle(String combatId, String playerId) {
+        try {
+            CombatEngine.CombatActionResult result = combatEngine.disableAutoBattle(combatId, playerId);
+            String battleLog = result.getBattleLog() != null ? String.join("\n", result.getBattleLog()) : "";
+
+            if (result.isCombatEnded()) {
+                endHandler.handleCombatEnd(combatId);
+                return ActionResult.combatEnded(result.getMessage(), battleLog);
+            }
+            if (!result.isSuccess()) {
+                return ActionResult.error(result.getMessage(), battleLog);
+            }
+            return ActionResult.success(result.getMessage(), battleLog);
+        } catch (Exception e) {
+            log.error("关闭自动战斗失败", e);
+            return ActionResult.error("关闭自动战斗失败: " + e.getMessage());
+        }
+    }
+
     @Override
     public ActionResult forfeit(String combatId, String playerId) {
         try {
@@ -568,78 +695,10 @@ public class CombatServiceImpl implements CombatService {
 
     @Override
     public Combat getCombatState(String combatId) {
-        Optional<CombatInstance> combatOpt = combatEngine.getCombat(combatId);
-        if (combatOpt.isEmpty()) {
-            return null;
-        }
-
-        // 将CombatInstance转换为Combat领域对象
-        CombatInstance instance = combatOpt.get();
-        Combat combat = new Combat();
-        combat.setId(instance.getCombatId());
-        combat.setMapId(instance.getMapId());
-        combat.setStartTime(instance.getStartTime());
-        combat.setStatus(instance.getStatus());
-
-        // 转换日志格式
-        List<String> logs = instance.getAllLogs().stream()
-            .map(entry -> String.format("[#%d] %s", entry.getSequence(), entry.getMessage()))
-            .collect(Collectors.toList());
-        combat.setCombatLog(logs);
-
-        // 转换参战方信息
-        List<Combat.CombatParty> parties = new ArrayList<>();
-        for (Map.Entry<String, CombatParty> entry : instance.getParties().entrySet()) {
-            Combat.CombatParty party = new Combat.CombatParty();
-            party.setFaction(entry.getKey());
-
-            List<Combat.CombatCharacter> characters = new ArrayList<>();
-            for (CombatCharacter cc : entry.getValue().getCharacters()) {
-                Combat.CombatCharacter character = new Combat.CombatCharacter();
-                character.setCharacterId(cc.getCharacterId());
-                character.setCharacterType(cc.getCharacterType());
-                character.setName(cc.getName());
-                character.setCurrentHealth(cc.getCurrentHealth());
-                character.setMaxHealth(cc.getMaxHealth());
-                character.setCurrentMana(cc.getCurrentMana());
-                character.setMaxMana(cc.getMaxMana());
-                character.setSpeed(cc.getSpeed());
-                character.setDead(!cc.isAlive());
-
-                // 转换技能冷却
-                List<Combat.SkillCooldown> cooldowns = new ArrayList<>();
-                if (cc.getSkillCooldowns() != null) {
-                    for (Map.Entry<String, Integer> cdEntry : cc.getSkillCooldowns().entrySet()) {
-                        Combat.SkillCooldown cooldown = new Combat.SkillCooldown();
-                        cooldown.setSkillId(cdEntry.getKey());
-                        cooldown.setRemainingTurns(cdEntry.getValue());
-                        cooldowns.add(cooldown);
-                    }
-                }
-                character.setSkillCooldowns(cooldowns);
-
-                characters.add(character);
-            }
-            party.setCharacters(characters);
-            parties.add(party);
-        }
-        combat.setParties(parties);
-
-        // 转换行动条信息（按进度排序）
-        List<Combat.ActionBarEntry> actionBarEntries = new ArrayList<>();
-        List<CombatInstance.ActionBarEntry> sortedEntries = instance.getActionBar().values().stream()
-            .sorted((a, b) -> Integer.compare(b.getProgress(), a.getProgress()))
-            .collect(Collectors.toList());
-
-        for (CombatInstance.ActionBarEntry abEntry : sortedEntries) {
-            Combat.ActionBarEntry entry = new Combat.ActionBarEntry();
-            entry.setCharacterId(abEntry.getCharacterId());
-            entry.setProgress(abEntry.getProgress());
-            actionBarEntries.add(entry);
-        }
-        combat.setActionBar(actionBarEntries);
-
-        return combat;
+        // 返回引擎在最近一次状态变化后发布的只读快照，不重建、不加锁
+        return combatEngine.getCombat(combatId)
+            .map(CombatInstance::getSnapshot)
+            .orElse(null);
     }
 
     @Override
@@ -649,12 +708,30 @@ public class CombatServiceImpl implements CombatService {
             return false;
         }
 
-        Optional<String> currentTurn = combatOpt.get().getCurrentTurnCharacterId();
-        return currentTurn.isPresent() && currentTurn.get().equals(playerId);
+        Combat snapshot = combatOpt.get().getSnapshot();
+        return snapshot != null && playerId.equals(snapshot.getCurrentTurnCharacterId());
     }
 
     @Override
     public long getTurnStartTime(String combatId) {
         return combatEngine.getTurnStartTime(combatId);
     }
+
+    @Override
+    public CombatLogDelta takeCombatLogDelta(String combatId, String playerId) {
+        List<CombatInstance.CombatLogEntry> pending = combatEngine.takeUnacknowledgedLogs(combatId, playerId);
+        if (pending.isEmpty()) {
+            return new CombatLogDelta(List.of(), 0);
+        }
+        List<String> logs = new ArrayList<>(pending.size());
+        for (CombatInstance.CombatLogEntry entry : pending) {
+            logs.add(entry.getFormatted());
+        }
+        return new CombatLogDelta(logs, pending.get(pending.size() - 1).getSequence());
+    }
+
+    @Override
+    public void acknowledgeCombatLog(String combatId, String playerId) {
+        combatEngine.acknowledgeAllLogs(combatId, playerId);
+    }
 }
@@ -12,6 +12,7 @@ import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceR
 import com.heibai.clawworld.infrastructure.persistence.repository.NpcShopInstanceRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -45,6 +46,7 @@ public class MapEntityServiceImpl implements MapEntityService {
     private final CombatService combatService;
     private final CharacterInfoService characterInfoService;
     private final ChestService chestService;
+    private final MapEntityJournal mapEntityJournal;
 
     @Override
     public EntityInfo inspectCharacter(String playerId, String characterName) {
@@ -253,6 +255,7 @@ public class MapEntityServiceImpl implements MapEntityService {
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     playerRepository.save(player);
+                    mapEntityJournal.record(player.getCurrentMapId(), player.getId(), player.getName());
                     return MoveResult.error("移动中断于(" + player.getX() + ", " + player.getY() + ")");
                 }
             }
@@ -264,6 +267,7 @@ public class MapEntityServiceImpl implements MapEntityService {
 
         // 保存最终位置
         playerRepository.save(player);
+        mapEntityJournal.record(player.getCurrentMapId(), player.getId(), player.getName());
 
         return MoveResult.success(targetX, targetY, String.format("移动至(%d, %d)", targetX, targetY));
     }
@@ -1,17 +1,23 @@
 package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.domain.character.Party;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.infrastructure.persistence.entity.PartyEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.mapper.PartyMapper;
 import com.heibai.clawworld.infrastructure.persistence.repository.PartyRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.application.service.PartyService;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,6 +31,8 @@ public class PartyServiceImpl implements PartyService {
     private final PartyRepository partyRepository;
     private final PlayerRepository playerRepository;
     private final PartyMapper partyMapper;
+    private final PlayerEventPublisher eventPublisher;
+    private final MapEntityJournal mapEntityJournal;
 
     @Override
     @Transactional
@@ -90,6 +98,10 @@ public class PartyServiceImpl implements PartyService {
         party.getPendingInvitations().add(invitation);
 
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
+
+        // 通知被邀请者
+        eventPublisher.publish(targetPlayerId, PlayerEvent.partyInvite(party.getId(), inviter.getName()));
 
         return PartyResult.success("邀请已发送", party.getId());
     }
@@ -142,6 +154,7 @@ public class PartyServiceImpl implements PartyService {
             party.getPendingInvitations().removeIf(inv ->
                 inv.getInviterId().equals(inviterId) && inv.getInviteeId().equals(playerId) && isExpired(inv.getInviteTime()));
             partyRepository.save(party);
+            mapEntityJournal.relationChanged();
             return PartyResult.error("未找到有效的邀请记录");
         }
 
@@ -156,12 +169,15 @@ public class PartyServiceImpl implements PartyService {
         party.getMemberIds().add(playerId);
         party.getPendingInvitations().remove(invitation);
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
 
         // 更新玩家信息
         player.setPartyId(party.getId());
         player.setPartyLeader(false);
         playerRepository.save(player);
 
+        notifyMembers(party, playerId, player.getName() + "加入了队伍");
+
         // 生成队伍状态描述
         String partyInfo = generatePartyInfo(party, playerId);
         return PartyResult.success("成功加入队伍\n" + partyInfo, party.getId());
@@ -202,6 +218,7 @@ public class PartyServiceImpl implements PartyService {
         }
 
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
         return PartyResult.success("已拒绝邀请");
     }
 
@@ -261,6 +278,11 @@ public class PartyServiceImpl implements PartyService {
         targetParty.getPendingRequests().add(request);
 
         partyRepository.save(targetParty);
+        mapEntityJournal.relationChanged();
+
+        // 通知队长
+        eventPublisher.publish(targetParty.getLeaderId(),
+                PlayerEvent.party(targetParty.getId(), player.getName() + "请求加入队伍"));
 
         return PartyResult.success("加入请求已发送");
     }
@@ -317,12 +339,15 @@ public class PartyServiceImpl implements PartyService {
         party.getMemberIds().add(requesterId);
         party.getPendingRequests().remove(request);
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
 
         // 更新玩家信息
         requester.setPartyId(party.getId());
         requester.setPartyLeader(false);
         playerRepository.save(requester);
 
+        notifyMembers(party, leaderId, requester.getName() + "加入了队伍");
+
         return PartyResult.success("玩家已加入队伍", party.getId());
     }
 
@@ -353,6 +378,7 @@ public class PartyServiceImpl implements PartyService {
         }
 
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
         return PartyResult.success("已拒绝加入请求");
     }
 
@@ -394,6 +420,7 @@ public class PartyServiceImpl implements PartyService {
             target.setPartyLeader(false);
             playerRepository.save(target);
         }
+        eventPublisher.publish(targetPlayerId, PlayerEvent.party(party.getId(), "你被踢出了队伍"));
 
         // 检查队伍是否需要解散（少于2人）
         if (party.getMemberIds().size() < 2) {
@@ -401,6 +428,8 @@ public class PartyServiceImpl implements PartyService {
         }
 
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
+        notifyMembers(party, leaderId, targetPlayerName + "被踢出了队伍");
         return PartyResult.success("已踢出玩家");
     }
 
@@ -450,6 +479,8 @@ public class PartyServiceImpl implements PartyService {
         }
 
         partyRepository.save(party);
+        mapEntityJournal.relationChanged();
+        notifyMembers(party, playerId, player.getName() + "离开了队伍");
         return PartyResult.success("已离开队伍");
     }
 
@@ -465,6 +496,18 @@ public class PartyServiceImpl implements PartyService {
         return disbandPartyInternal(partyOpt.get());
     }
 
+    /**
+     * 通知队伍其他成员队伍发生变化
+     */
+    private void notifyMembers(PartyEntity party, String excludeId, String text) {
+        PlayerEvent event = PlayerEvent.party(party.getId(), text);
+        for (String memberId : party.getMemberIds()) {
+            if (!memberId.equals(excludeId)) {
+                eventPublisher.publish(memberId, event);
+            }
+        }
+    }
+
     /**
      * 内部方法：解散队伍
      */
@@ -482,6 +525,9 @@ public class PartyServiceImpl implements PartyService {
 
         // 删除队伍
         partyRepository.delete(party);
+        mapEntityJournal.relationChanged();
+
+        eventPublisher.publish(party.getMemberIds(), PlayerEvent.party(party.getId(), "队伍已解散"));
 
         return PartyResult.success("队伍已解散");
     }
@@ -498,6 +544,23 @@ public class PartyServiceImpl implements PartyService {
         return partyOpt.map(partyMapper::toDomain).orElse(null);
     }
 
+    @Override
+    public Map<String, Party> getPlayerParties(Collection<String> playerIds) {
+        Map<String, Party> result = new HashMap<>();
+        if (playerIds.isEmpty()) {
+            return result;
+        }
+        for (PartyEntity entity : partyRepository.findByMemberIdsIn(playerIds)) {
+            Party party = partyMapper.toDomain(entity);
+            for (String memberId : entity.getMemberIds()) {
+                if (playerIds.contains(memberId)) {
+                    result.put(memberId, party);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * 为邀请者创建队伍（只有邀请者一人，等待被邀请者加入）
      */
@@ -20,6 +20,7 @@ import com.heibai.clawworld.infrastructure.persistence.repository.PartyRepositor
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.application.service.PlayerSessionService;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,6 +43,7 @@ public class PlayerSessionServiceImpl implements PlayerSessionService {
     private final PlayerStatsService playerStatsService;
     private final CharacterInfoService characterInfoService;
     private final com.heibai.clawworld.infrastructure.factory.MapInitializationService mapInitializationService;
+    private final MapEntityJournal mapEntityJournal;
 
     @Override
     @Transactional
@@ -126,6 +128,7 @@ public class PlayerSessionServiceImpl implements PlayerSessionService {
         playerEntity.setPartyId(null);
         playerEntity.setPartyLeader(false);
         playerRepository.save(playerEntity);
+        mapEntityJournal.record(playerEntity.getCurrentMapId(), playerEntity.getId(), playerEntity.getName());
 
         // 更新账号信息
         account.setNickname(playerName);
@@ -152,10 +155,24 @@ public class PlayerSessionServiceImpl implements PlayerSessionService {
             return null;
         }
 
-        Player player = playerMapper.toDomain(playerOpt.get());
-
-        // 重建装备和物品对象
         PlayerEntity entity = playerOpt.get();
+        Player player = getPlayerState(entity);
+
+        // 如果玩家有队伍，设置为队伍的阵营
+        if (entity.getPartyId() != null) {
+            Optional<com.heibai.clawworld.infrastructure.persistence.entity.PartyEntity> partyOpt =
+                partyRepository.findById(entity.getPartyId());
+            if (partyOpt.isPresent()) {
+                player.setFaction(partyOpt.get().getFaction());
+            }
+        }
+
+        return player;
+    }
+
+    @Override
+    public Player getPlayerState(PlayerEntity entity) {
+        Player player = playerMapper.toDomain(entity);
 
         // 重建装备栏
         Map<Equipment.EquipmentSlot, Equipment> equipment = new HashMap<>();
@@ -194,15 +211,6 @@ public class PlayerSessionServiceImpl implements PlayerSessionService {
         }
         player.setInventory(inventory);
 
-        // 如果玩家有队伍，设置为队伍的阵营
-        if (entity.getPartyId() != null) {
-            Optional<com.heibai.clawworld.infrastructure.persistence.entity.PartyEntity> partyOpt =
-                partyRepository.findById(entity.getPartyId());
-            if (partyOpt.isPresent()) {
-                player.setFaction(partyOpt.get().getFaction());
-            }
-        }
-
         return player;
     }
 
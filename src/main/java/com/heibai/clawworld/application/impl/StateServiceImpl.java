@@ -9,6 +9,7 @@ import com.heibai.clawworld.domain.chat.ChatMessage;
 import com.heibai.clawworld.domain.map.MapEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
+import com.heibai.clawworld.interfaces.log.InteractionContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -79,6 +80,9 @@ public class StateServiceImpl implements StateService {
         Player currentPlayer = playerSessionService.getPlayerState(playerId);
         if (currentPlayer != null && currentPlayer.getMapId() != null) {
             List<MapEntity> entitiesOnMap = mapEntityService.getMapEntities(currentPlayer.getMapId(), playerId);
+            // 组队、交易状态一次查询，所有实体共用
+            InteractionContext interactions = new InteractionContext(playerId, partyService, tradeRepository);
+            interactions.prefetch(entitiesOnMap);
 
             // 构建当前实体快照
             java.util.Map<String, AccountEntity.EntitySnapshot> currentSnapshot = new java.util.HashMap<>();
@@ -98,7 +102,7 @@ public class StateServiceImpl implements StateService {
 
                 // 获取交互选项
                 if (entity.isInteractable()) {
-                    List<String> options = getEntityInteractionOptionsForState(entity, currentPlayer);
+                    List<String> options = getEntityInteractionOptionsForState(entity, currentPlayer, interactions);
                     snapshot.setInteractionOptions(options);
                 } else {
                     snapshot.setInteractionOptions(new java.util.ArrayList<>());
@@ -257,92 +261,13 @@ public class StateServiceImpl implements StateService {
     /**
      * 获取实体的交互选项（用于状态追踪）
      */
-    private List<String> getEntityInteractionOptionsForState(MapEntity entity, Player viewer) {
-        // 这里需要调用与 MapWindowContentGenerator 相同的逻辑
-        // 为了避免循环依赖，我们直接获取基础交互选项
+    private List<String> getEntityInteractionOptionsForState(MapEntity entity, Player viewer,
+                                                             InteractionContext interactions) {
         com.heibai.clawworld.infrastructure.config.data.map.MapConfig mapConfig = configDataManager.getMap(viewer.getMapId());
         if (mapConfig == null) {
             return entity.getInteractionOptions();
         }
-
-        List<String> options = new java.util.ArrayList<>(entity.getInteractionOptions(viewer.getFaction(), mapConfig.isSafe()));
-
-        // 如果是玩家，添加玩家特定的交互选项
-        if ("PLAYER".equals(entity.getEntityType()) && entity instanceof Player) {
-            Player targetPlayer = (Player) entity;
-            addPlayerSpecificOptionsForState(options, viewer, targetPlayer);
-        }
-
-        return options;
-    }
-
-    /**
-     * 添加玩家特定的交互选项（用于状态追踪）
-     */
-    private void addPlayerSpecificOptionsForState(List<String> options, Player viewer, Player target) {
-        // 组队相关选项
-        com.heibai.clawworld.domain.character.Party viewerParty = partyService.getPlayerParty(viewer.getId());
-        com.heibai.clawworld.domain.character.Party targetParty = partyService.getPlayerParty(target.getId());
-
-        if (targetParty == null || targetParty.isSolo()) {
-            options.add("邀请组队");
-        }
-
-        if (targetParty != null && targetParty.getPendingInvitations() != null) {
-            boolean hasInvitation = targetParty.getPendingInvitations().stream()
-                    .anyMatch(inv -> inv.getInviterId().equals(target.getId())
-                            && inv.getInviteeId().equals(viewer.getId())
-                            && !inv.isExpired());
-            if (hasInvitation) {
-                options.add("接受组队邀请");
-                options.add("拒绝组队邀请");
-            }
-        }
-
-        if (targetParty != null && !targetParty.isSolo()) {
-            options.add("请求加入队伍");
-        }
-
-        if (viewerParty != null && viewerParty.isLeader(viewer.getId()) && viewerParty.getPendingRequests() != null) {
-            boolean hasRequest = viewerParty.getPendingRequests().stream()
-                    .anyMatch(req -> req.getRequesterId().equals(target.getId()) && !req.isExpired());
-            if (hasRequest) {
-                options.add("接受组队请求");
-                options.add("拒绝组队请求");
-            }
-        }
-
-        // 交易相关选项
-        List<com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity> activeTrades =
-            tradeRepository.findActiveTradesByPlayerId(
-                com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity.TradeStatus.ACTIVE, viewer.getId());
-        List<com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity> pendingTrades =
-            tradeRepository.findActiveTradesByPlayerId(
-                com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity.TradeStatus.PENDING, viewer.getId());
-
-        if (activeTrades.isEmpty() && pendingTrades.isEmpty()) {
-            options.add("请求交易");
-        }
-
-        // 检查viewer是否收到了来自target的交易请求
-        List<com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity> viewerPendingTrades =
-            tradeRepository.findByStatusAndReceiverId(
-                com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity.TradeStatus.PENDING, viewer.getId());
-
-        log.debug("检查交易请求: viewerId={}, targetId={}, pendingTradesCount={}",
-            viewer.getId(), target.getId(), viewerPendingTrades.size());
-
-        boolean hasTradeRequest = viewerPendingTrades.stream()
-                .anyMatch(t -> t.getInitiatorId().equals(target.getId()));
-
-        log.debug("是否有来自target的交易请求: viewerId={}, targetId={}, hasTradeRequest={}",
-            viewer.getId(), target.getId(), hasTradeRequest);
-
-        if (hasTradeRequest) {
-            options.add("接受交易请求");
-            options.add("拒绝交易请求");
-            log.debug("添加交易请求选项: viewerId={}, targetId={}", viewer.getId(), target.getId());
-        }
+        return interactions.getInteractionOptions(entity, entity.getInteractionOptions(viewer.getFaction(), mapConfig.isSafe()));
     }
 
     @Override
@@ -487,6 +412,8 @@ public class StateServiceImpl implements StateService {
         state.append("cast [技能名称] [目标名称] - 对目标释放技能（如：cast 火球术 哥布林#1）\n");
         state.append("use [物品名称] - 使用物品\n");
         state.append("wait - 跳过回合\n");
+        state.append("auto [lowest|threat|first] [技能名称...] - 开启自动战斗，按技能优先级自动行动，战斗结束后在wait中返回汇总结果（如：auto lowest 火球术）\n");
+        state.append("auto off - 关闭自动战斗\n");
         state.append("end - 逃离战斗（角色视为死亡）\n");
 
         updateLastStateTimestamp(playerId);
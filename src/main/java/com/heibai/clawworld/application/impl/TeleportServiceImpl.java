@@ -6,6 +6,7 @@ import com.heibai.clawworld.infrastructure.config.data.map.MapConfig;
 import com.heibai.clawworld.infrastructure.config.data.map.WaypointConfig;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +23,7 @@ public class TeleportServiceImpl implements TeleportService {
 
     private final PlayerRepository playerRepository;
     private final ConfigDataManager configDataManager;
+    private final MapEntityJournal mapEntityJournal;
 
     @Override
     @Transactional
@@ -75,6 +77,8 @@ public class TeleportServiceImpl implements TeleportService {
         }
 
         playerRepository.save(player);
+        mapEntityJournal.record(oldMapId, player.getId(), player.getName());
+        mapEntityJournal.record(player.getCurrentMapId(), player.getId(), player.getName());
 
         // 构建传送成功消息
         String message = String.format("传送成功！从 %s 传送到 %s·%s (位置: %d, %d)",
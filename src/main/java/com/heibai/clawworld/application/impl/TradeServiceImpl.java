@@ -2,6 +2,8 @@ package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.application.service.WindowStateService;
 import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.domain.item.Equipment;
 import com.heibai.clawworld.domain.trade.Trade;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
@@ -14,6 +16,7 @@ import com.heibai.clawworld.infrastructure.persistence.repository.PlayerReposito
 import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
 import com.heibai.clawworld.application.service.PlayerSessionService;
 import com.heibai.clawworld.application.service.TradeService;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -39,6 +42,8 @@ public class TradeServiceImpl implements TradeService {
     private final AccountRepository accountRepository;
     private final WindowStateService windowStateService;
     private final ConfigDataManager configDataManager;
+    private final PlayerEventPublisher eventPublisher;
+    private final MapEntityJournal mapEntityJournal;
 
     @Override
     @Transactional
@@ -91,6 +96,7 @@ public class TradeServiceImpl implements TradeService {
 
         TradeEntity entity = tradeMapper.toEntity(trade);
         tradeRepository.save(entity);
+        mapEntityJournal.relationChanged();
 
         // 更新发起者的tradeId（但不切换窗口，因为还在等待对方接受）
         Player requester = playerSessionService.getPlayerState(requesterId);
@@ -106,6 +112,10 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("发起交易: tradeId={}, requesterId={}, targetPlayerId={}", trade.getId(), requesterId, targetPlayerId);
 
+        // 通知被请求方
+        eventPublisher.publish(targetPlayerId, PlayerEvent.tradeInvite(trade.getId(),
+            requester != null ? requester.getName() : null));
+
         // 发起交易时不返回windowId，不切换窗口
         return TradeResult.success(trade.getId(), null, "已向 " + targetPlayerName + " 发起交易请求，等待对方接受");
     }
@@ -135,6 +145,7 @@ public class TradeServiceImpl implements TradeService {
         // 接受交易
         tradeEntity.setStatus(TradeEntity.TradeStatus.ACTIVE);
         tradeRepository.save(tradeEntity);
+        mapEntityJournal.relationChanged();
 
         // 更新双方玩家的tradeId
         String initiatorId = tradeEntity.getInitiatorId();
@@ -166,7 +177,7 @@ public class TradeServiceImpl implements TradeService {
         transitions.add(com.heibai.clawworld.domain.window.WindowTransition.of(
             receiverId, receiverCurrentWindow, "TRADE", tradeEntity.getId()));
 
-        boolean transitionSuccess = windowStateService.transitionWindows(transitions);
+        boolean transitionSuccess = windowStateService.transitionWindows(transitions, playerId);
         if (!transitionSuccess) {
             log.warn("窗口状态转换失败: tradeId={}", tradeEntity.getId());
             return TradeResult.error("窗口状态转换失败");
@@ -176,6 +187,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("接受交易: tradeId={}, playerId={}", tradeEntity.getId(), playerId);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return TradeResult.success(tradeEntity.getId(), windowId, "接受交易成功");
     }
 
@@ -204,6 +217,7 @@ public class TradeServiceImpl implements TradeService {
         // 拒绝交易
         tradeEntity.setStatus(TradeEntity.TradeStatus.CANCELLED);
         tradeRepository.save(tradeEntity);
+        mapEntityJournal.relationChanged();
 
         // 清理发起者的tradeId（拒绝时只需要清理发起者，因为接收者还没有设置tradeId）
         com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity initiatorEntity =
@@ -223,6 +237,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("拒绝交易: tradeId={}, playerId={}", tradeEntity.getId(), playerId);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("拒绝交易成功");
     }
 
@@ -305,6 +321,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("添加物品到交易: tradeId={}, playerId={}, itemName={}", tradeId, playerId, itemName);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("添加物品成功: " + itemName);
     }
 
@@ -390,6 +408,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("从交易中移除物品: tradeId={}, playerId={}, itemName={}", tradeId, playerId, itemName);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("移除物品成功: " + itemName);
     }
 
@@ -440,6 +460,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("设置交易金额: tradeId={}, playerId={}, amount={}", tradeId, playerId, amount);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("设置金额成功: " + amount);
     }
 
@@ -469,6 +491,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("锁定交易: tradeId={}, playerId={}", tradeId, playerId);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("锁定交易成功");
     }
 
@@ -504,6 +528,8 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("解锁交易: tradeId={}, playerId={}", tradeId, playerId);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("解锁交易成功");
     }
 
@@ -538,10 +564,12 @@ public class TradeServiceImpl implements TradeService {
 
         log.info("确认交易: tradeId={}, playerId={}", tradeId, playerId);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         // 检查是否双方都已确认
         if (tradeEntity.isInitiatorConfirmed() && tradeEntity.isReceiverConfirmed()) {
             // 执行交易
-            return executeTrade(tradeEntity);
+            return executeTrade(tradeEntity, playerId);
         }
 
         return OperationResult.success("确认交易成功，等待对方确认");
@@ -565,12 +593,15 @@ public class TradeServiceImpl implements TradeService {
         // 取消交易
         tradeEntity.setStatus(TradeEntity.TradeStatus.CANCELLED);
         tradeRepository.save(tradeEntity);
+        mapEntityJournal.relationChanged();
 
         // 清理双方玩家的tradeId和窗口状态
-        clearTradeState(tradeEntity.getInitiatorId(), tradeEntity.getReceiverId());
+        clearTradeState(tradeEntity.getInitiatorId(), tradeEntity.getReceiverId(), playerId);
 
         log.info("取消交易: tradeId={}, playerId={}", tradeId, playerId);
 
+        notifyCounterpart(tradeEntity, playerId);
+
         return OperationResult.success("取消交易成功");
     }
 
@@ -604,11 +635,21 @@ public class TradeServiceImpl implements TradeService {
         return false;
     }
 
+    /**
+     * 通知交易的另一方交易状态发生变化
+     */
+    private void notifyCounterpart(TradeEntity tradeEntity, String actorId) {
+        String counterpartId = actorId.equals(tradeEntity.getInitiatorId()) ?
+            tradeEntity.getReceiverId() : tradeEntity.getInitiatorId();
+        eventPublisher.publish(counterpartId, PlayerEvent.trade(tradeEntity.getId(), tradeEntity.getStatus().name()));
+    }
+
     /**
      * 执行交易 - 实际的物品和金钱转移
+     * @param actorId 最后确认交易的玩家ID
      */
     @Transactional
-    private OperationResult executeTrade(TradeEntity tradeEntity) {
+    private OperationResult executeTrade(TradeEntity tradeEntity, String actorId) {
         try {
             // 获取双方玩家状态
             Player initiator = playerSessionService.getPlayerState(tradeEntity.getInitiatorId());
@@ -641,12 +682,17 @@ public class TradeServiceImpl implements TradeService {
             // 标记交易完成
             tradeEntity.setStatus(TradeEntity.TradeStatus.COMPLETED);
             tradeRepository.save(tradeEntity);
+            mapEntityJournal.relationChanged();
 
             // 清理双方玩家的tradeId和窗口状态
-            clearTradeState(tradeEntity.getInitiatorId(), tradeEntity.getReceiverId());
+            clearTradeState(tradeEntity.getInitiatorId(), tradeEntity.getReceiverId(), actorId);
 
             log.info("交易完成: tradeId={}", tradeEntity.getId());
 
+            PlayerEvent completed = PlayerEvent.trade(tradeEntity.getId(), tradeEntity.getStatus().name());
+            eventPublisher.publish(tradeEntity.getInitiatorId(), completed);
+            eventPublisher.publish(tradeEntity.getReceiverId(), completed);
+
             return OperationResult.tradeCompleted("交易完成");
         } catch (Exception e) {
             log.error("执行交易失败: tradeId={}", tradeEntity.getId(), e);
@@ -750,8 +796,9 @@ public class TradeServiceImpl implements TradeService {
 
     /**
      * 清理交易状态：清除双方玩家的tradeId和窗口状态
+     * @param actorId 触发清理的玩家ID（只向另一方推送窗口事件）
      */
-    private void clearTradeState(String initiatorId, String receiverId) {
+    private void clearTradeState(String initiatorId, String receiverId, String actorId) {
         // 清理发起者的tradeId
         com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity initiatorEntity =
             playerRepository.findById(initiatorId).orElse(null);
@@ -778,7 +825,7 @@ public class TradeServiceImpl implements TradeService {
         transitions.add(com.heibai.clawworld.domain.window.WindowTransition.of(
             receiverId, receiverCurrentWindow, "MAP", null));
 
-        boolean transitionSuccess = windowStateService.transitionWindows(transitions);
+        boolean transitionSuccess = windowStateService.transitionWindows(transitions, actorId);
         if (!transitionSuccess) {
             log.warn("窗口状态转换失败: initiatorId={}, receiverId={}", initiatorId, receiverId);
         }
@@ -1,6 +1,8 @@
 package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.application.service.WindowStateService;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.domain.window.WindowTransition;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
@@ -21,6 +23,7 @@ import java.util.*;
 public class WindowStateServiceImpl implements WindowStateService {
 
     private final AccountRepository accountRepository;
+    private final PlayerEventPublisher eventPublisher;
 
     // 定义合法的窗口转换
     private static final Map<String, Set<String>> VALID_TRANSITIONS = new HashMap<>();
@@ -45,63 +48,69 @@ public class WindowStateServiceImpl implements WindowStateService {
     @Override
     @Transactional
     public boolean transitionWindow(String playerId, String toWindow, String windowId) {
-        Optional<AccountEntity> accountOpt = accountRepository.findByPlayerId(playerId);
-        if (accountOpt.isEmpty()) {
-            log.warn("玩家账号不存在: playerId={}", playerId);
-            return false;
+        return transitionWindows(List.of(WindowTransition.of(playerId, null, toWindow, windowId)), null);
+    }
+
+    @Override
+    @Transactional
+    public boolean transitionWindows(List<WindowTransition> transitions) {
+        return transitionWindows(transitions, null);
+    }
+
+    @Override
+    @Transactional
+    public boolean transitionWindows(List<WindowTransition> transitions, String actorId) {
+        if (transitions == null || transitions.isEmpty()) {
+            return true;
         }
 
-        AccountEntity account = accountOpt.get();
-        String fromWindow = account.getCurrentWindowType();
+        List<String> playerIds = new ArrayList<>();
+        for (WindowTransition transition : transitions) {
+            playerIds.add(transition.getPlayerId());
+        }
+        Map<String, AccountEntity> accounts = new HashMap<>();
+        for (AccountEntity account : accountRepository.findByPlayerIdIn(playerIds)) {
+            accounts.put(account.getPlayerId(), account);
+        }
 
-        // 验证转换是否合法
-        if (!validateTransition(playerId, fromWindow, toWindow)) {
-            log.warn("非法窗口转换: playerId={}, from={}, to={}", playerId, fromWindow, toWindow);
+        if (!applyTransitions(accounts, transitions)) {
             return false;
         }
 
-        // 执行转换
-        account.setCurrentWindowType(toWindow);
-        account.setCurrentWindowId(windowId);
-        accountRepository.save(account);
-
-        log.info("窗口转换成功: playerId={}, from={}, to={}, windowId={}", playerId, fromWindow, toWindow, windowId);
+        for (WindowTransition transition : transitions) {
+            AccountEntity account = accounts.get(transition.getPlayerId());
+            accountRepository.save(account);
+            notifyIfPassive(account, actorId);
+        }
         return true;
     }
 
     @Override
-    @Transactional
-    public boolean transitionWindows(List<WindowTransition> transitions) {
-        if (transitions == null || transitions.isEmpty()) {
-            return true;
-        }
-
-        // 验证所有转换是否合法
+    public boolean applyTransitions(Map<String, AccountEntity> accounts, List<WindowTransition> transitions) {
+        // 先验证所有转换是否合法，任一非法则都不转换
         for (WindowTransition transition : transitions) {
-            if (!validateTransition(transition.getPlayerId(), transition.getFromWindow(), transition.getToWindow())) {
+            AccountEntity account = accounts.get(transition.getPlayerId());
+            if (account == null) {
+                log.warn("玩家账号不存在: playerId={}", transition.getPlayerId());
+                return false;
+            }
+            if (!validateTransition(transition.getPlayerId(), account.getCurrentWindowType(), transition.getToWindow())) {
                 log.warn("非法窗口转换: playerId={}, from={}, to={}",
-                    transition.getPlayerId(), transition.getFromWindow(), transition.getToWindow());
+                    transition.getPlayerId(), account.getCurrentWindowType(), transition.getToWindow());
                 return false;
             }
         }
 
         // 执行所有转换
         for (WindowTransition transition : transitions) {
-            Optional<AccountEntity> accountOpt = accountRepository.findByPlayerId(transition.getPlayerId());
-            if (accountOpt.isEmpty()) {
-                log.warn("玩家账号不存在: playerId={}", transition.getPlayerId());
-                return false;
-            }
-
-            AccountEntity account = accountOpt.get();
+            AccountEntity account = accounts.get(transition.getPlayerId());
+            String fromWindow = account.getCurrentWindowType();
             account.setCurrentWindowType(transition.getToWindow());
             account.setCurrentWindowId(transition.getWindowId());
-            accountRepository.save(account);
 
             log.info("窗口转换成功: playerId={}, from={}, to={}, windowId={}",
-                transition.getPlayerId(), transition.getFromWindow(), transition.getToWindow(), transition.getWindowId());
+                transition.getPlayerId(), fromWindow, transition.getToWindow(), transition.getWindowId());
         }
-
         return true;
     }
 
@@ -142,4 +151,17 @@ public class WindowStateServiceImpl implements WindowStateService {
         String windowType = accountOpt.get().getCurrentWindowType();
         return windowType != null ? windowType : "MAP";
     }
+
+    /**
+     * 窗口切换后玩家上次知道的窗口与实际窗口不一致时推送窗口事件
+     * 发起指令的玩家自己的切换会在指令响应中更新lastKnownWindowType，不推送
+     */
+    private void notifyIfPassive(AccountEntity account, String actorId) {
+        if (account.getPlayerId() != null && account.getPlayerId().equals(actorId)) {
+            return;
+        }
+        if (!Objects.equals(account.getCurrentWindowType(), account.getLastKnownWindowType())) {
+            eventPublisher.publish(account.getPlayerId(), PlayerEvent.window(account.getCurrentWindowType()));
+        }
+    }
 }
@@ -2,28 +2,33 @@ package com.heibai.clawworld.application.impl.combat;
 
 import com.heibai.clawworld.application.service.WindowStateService;
 import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.domain.service.CombatSettlementService;
 import com.heibai.clawworld.domain.window.WindowTransition;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.infrastructure.config.data.map.MapConfig;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
-import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
-import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * 战斗结束处理器 - 负责处理战斗结束后的各种状态更新
+ *
+ * 结算时先一次性加载所有相关玩家和账号，各步骤只修改内存中的实体，
+ * 最后通过CombatSettlementWritePlan按集合各执行一次批量写入
  */
 @Slf4j
 @Component
@@ -33,10 +38,12 @@ public class CombatEndHandler {
     private final CombatSettlementService settlementService;
     private final ConfigDataManager configDataManager;
     private final PlayerRepository playerRepository;
-    private final EnemyInstanceRepository enemyInstanceRepository;
     private final WindowStateService windowStateService;
     private final CombatRewardDistributor rewardDistributor;
     private final AccountRepository accountRepository;
+    private final MongoTemplate mongoTemplate;
+    private final PlayerEventPublisher eventPublisher;
+    private final MapEntityJournal mapEntityJournal;
 
     // 战斗结束处理完成的信号量，用于等待处理完成
     private final Map<String, CountDownLatch> combatEndLatches = new ConcurrentHashMap<>();
@@ -62,22 +69,35 @@ public class CombatEndHandler {
             combatEndLatches.put(combatId, latch);
 
             try {
+                CombatSettlementWritePlan plan = loadSettlementPlan(combatId, distribution);
+                // 地图实体变化，写入完成后统一记录到事件日志
+                List<MapEntityJournal.Change> mapChanges = new ArrayList<>();
+
                 // 处理战利品分配
                 if (distribution.isEnemiesNeedReset()) {
-                    resetEnemyStates(distribution);
+                    resetEnemyStates(distribution, plan);
                 } else {
-                    rewardDistributor.distributeRewards(distribution);
-                    updateDefeatedEnemies(distribution);
+                    rewardDistributor.distributeRewards(distribution, plan);
+                    updateDefeatedEnemies(distribution, plan, mapChanges);
                 }
 
                 // 处理被击败玩家的传送和经验惩罚
-                handleDefeatedPlayers(distribution);
+                handleDefeatedPlayers(distribution, plan, mapChanges);
 
                 // 同步玩家的战斗后状态（生命和法力）- 只对存活玩家
-                syncPlayerFinalStates(distribution);
+                syncPlayerFinalStates(distribution, plan);
 
                 // 处理窗口状态转换
-                handleWindowTransitions(combatId, distribution);
+                List<String> transitionedPlayerIds = handleWindowTransitions(combatId, distribution, plan);
+
+                // 统一写入
+                if (!plan.isEmpty()) {
+                    plan.execute(mongoTemplate);
+                }
+                mapEntityJournal.recordAll(mapChanges);
+
+                // 写入完成后通知客户端窗口已切换回地图
+                eventPublisher.publish(transitionedPlayerIds, PlayerEvent.window("MAP"));
             } finally {
                 // 通知等待的线程处理完成
                 latch.countDown();
@@ -124,10 +144,49 @@ public class CombatEndHandler {
         }).start();
     }
 
+    /**
+     * 一次性加载结算涉及的所有玩家和账号
+     * 包括奖励接收者、队长、被击败玩家、需要同步状态的玩家以及数据库中仍处于该战斗的玩家
+     */
+    private CombatSettlementWritePlan loadSettlementPlan(String combatId, CombatInstance.RewardDistribution distribution) {
+        CombatSettlementWritePlan plan = new CombatSettlementWritePlan(combatId, mongoTemplate.getConverter());
+
+        Set<String> playerIds = new LinkedHashSet<>();
+        if (distribution.getPlayerIds() != null) {
+            playerIds.addAll(distribution.getPlayerIds());
+        }
+        if (distribution.getLeaderId() != null) {
+            playerIds.add(distribution.getLeaderId());
+        }
+        if (distribution.getDefeatedPlayers() != null) {
+            for (CombatInstance.DefeatedPlayer dp : distribution.getDefeatedPlayers()) {
+                playerIds.add(dp.getPlayerId());
+            }
+        }
+        if (distribution.getPlayerFinalStates() != null) {
+            playerIds.addAll(distribution.getPlayerFinalStates().keySet());
+        }
+
+        if (!playerIds.isEmpty()) {
+            plan.addLoadedPlayers(playerRepository.findAllById(playerIds));
+        }
+        plan.addLoadedPlayers(playerRepository.findByCombatId(combatId));
+
+        Set<String> loadedPlayerIds = new HashSet<>();
+        for (PlayerEntity player : plan.getPlayers()) {
+            loadedPlayerIds.add(player.getId());
+        }
+        if (!loadedPlayerIds.isEmpty()) {
+            plan.addLoadedAccounts(accountRepository.findByPlayerIdIn(loadedPlayerIds));
+        }
+        return plan;
+    }
+
     /**
      * 处理窗口状态转换
      */
-    private void handleWindowTransitions(String combatId, CombatInstance.RewardDistribution distribution) {
+    private List<String> handleWindowTransitions(String combatId, CombatInstance.RewardDistribution distribution,
+                                                 CombatSettlementWritePlan plan) {
         // 收集被击败玩家的ID
         Set<String> defeatedPlayerIds = new HashSet<>();
         if (distribution.getDefeatedPlayers() != null) {
@@ -136,59 +195,80 @@ public class CombatEndHandler {
             }
         }
 
-        // 从数据库中查找所有combatId匹配的玩家
-        List<PlayerEntity> playersInCombat = playerRepository.findAll().stream()
-            .filter(p -> combatId.equals(p.getCombatId()))
-            .collect(Collectors.toList());
+        // 仍处于该战斗的玩家（被击败玩家的战斗状态已在前面清除）
+        List<PlayerEntity> playersInCombat = new ArrayList<>();
+        for (PlayerEntity player : plan.getPlayers()) {
+            if (combatId.equals(player.getCombatId())) {
+                playersInCombat.add(player);
+            }
+        }
 
         if (playersInCombat.isEmpty() && defeatedPlayerIds.isEmpty()) {
             log.debug("没有找到参战玩家，可能战斗状态已被清理: combatId={}", combatId);
-            return;
+            return List.of();
         }
 
-        List<WindowTransition> transitions = new ArrayList<>();
+        List<String> transitionPlayerIds = new ArrayList<>();
         Set<String> survivingPlayerIds = new HashSet<>();
 
         // 处理存活的玩家（清除战斗状态）
         for (PlayerEntity player : playersInCombat) {
             String playerId = player.getId();
             survivingPlayerIds.add(playerId);
-            String currentWindow = windowStateService.getCurrentWindowType(playerId);
-            transitions.add(WindowTransition.of(playerId, currentWindow, "MAP", null));
+            transitionPlayerIds.add(playerId);
 
             // 清除玩家的战斗状态
             player.setInCombat(false);
             player.setCombatId(null);
-            playerRepository.save(player);
+            plan.updatePlayer(player);
         }
 
         // 为被击败的玩家也添加窗口切换
-        for (String defeatedPlayerId : defeatedPlayerIds) {
-            String currentWindow = windowStateService.getCurrentWindowType(defeatedPlayerId);
-            transitions.add(WindowTransition.of(defeatedPlayerId, currentWindow, "MAP", null));
-        }
+        transitionPlayerIds.addAll(defeatedPlayerIds);
 
         // 从存活玩家的实体快照中移除被击败的玩家
         // 因为被击败的玩家已经被传送到其他地图了
         if (!defeatedPlayerIds.isEmpty()) {
-            removeDefeatedPlayersFromSnapshots(survivingPlayerIds, defeatedPlayerIds);
+            removeDefeatedPlayersFromSnapshots(survivingPlayerIds, defeatedPlayerIds, plan);
         }
 
-        if (!transitions.isEmpty()) {
-            boolean success = windowStateService.transitionWindows(transitions);
-            if (success) {
-                log.info("战斗结束，所有玩家窗口状态已转换回MAP: combatId={}, playerCount={}",
-                    combatId, transitions.size());
-            } else {
-                log.warn("战斗结束窗口状态转换失败: combatId={}", combatId);
+        if (transitionWindowsToMap(transitionPlayerIds, plan)) {
+            log.info("战斗结束，所有玩家窗口状态已转换回MAP: combatId={}, playerCount={}",
+                combatId, transitionPlayerIds.size());
+            return transitionPlayerIds;
+        }
+        log.warn("战斗结束窗口状态转换失败: combatId={}", combatId);
+        return List.of();
+    }
+
+    /**
+     * 将玩家窗口切换回MAP（由WindowStateService校验和修改已加载的账号，账号随结算统一写入）
+     */
+    private boolean transitionWindowsToMap(List<String> playerIds, CombatSettlementWritePlan plan) {
+        Map<String, AccountEntity> accounts = new HashMap<>();
+        List<WindowTransition> transitions = new ArrayList<>();
+        for (String playerId : playerIds) {
+            AccountEntity account = plan.getAccount(playerId);
+            if (account != null) {
+                accounts.put(playerId, account);
             }
+            transitions.add(WindowTransition.of(playerId, account != null ? account.getCurrentWindowType() : null, "MAP", null));
+        }
+
+        if (!windowStateService.applyTransitions(accounts, transitions)) {
+            return false;
+        }
+        for (AccountEntity account : accounts.values()) {
+            plan.updateAccount(account);
         }
+        return true;
     }
 
     /**
      * 处理被击败玩家的传送和经验惩罚
      */
-    private void handleDefeatedPlayers(CombatInstance.RewardDistribution distribution) {
+    private void handleDefeatedPlayers(CombatInstance.RewardDistribution distribution, CombatSettlementWritePlan plan,
+                                       List<MapEntityJournal.Change> mapChanges) {
         if (distribution == null || distribution.getDefeatedPlayers() == null || distribution.getDefeatedPlayers().isEmpty()) {
             return;
         }
@@ -205,13 +285,11 @@ public class CombatEndHandler {
         }
 
         for (CombatInstance.DefeatedPlayer defeatedPlayer : distribution.getDefeatedPlayers()) {
-            Optional<PlayerEntity> playerOpt = playerRepository.findById(defeatedPlayer.getPlayerId());
-            if (playerOpt.isEmpty()) {
+            PlayerEntity player = plan.getPlayer(defeatedPlayer.getPlayerId());
+            if (player == null) {
                 continue;
             }
 
-            PlayerEntity player = playerOpt.get();
-
             // 判断是否需要经验惩罚
             boolean shouldPenalize = shouldApplyExpPenalty(distribution, defeatedPlayer, recommendedLevel);
 
@@ -223,13 +301,16 @@ public class CombatEndHandler {
             }
 
             // 传送到上次安全传送点并恢复满状态
+            String defeatedMapId = player.getCurrentMapId();
             teleportToSafeWaypoint(player);
+            mapChanges.add(new MapEntityJournal.Change(defeatedMapId, player.getId(), player.getName()));
+            mapChanges.add(new MapEntityJournal.Change(player.getCurrentMapId(), player.getId(), player.getName()));
 
             // 清除战斗状态
             player.setInCombat(false);
             player.setCombatId(null);
 
-            playerRepository.save(player);
+            plan.updatePlayer(player);
             log.info("玩家 {} 被击败处理完成，当前位置: ({}, {}) 地图: {}",
                 player.getName(), player.getX(), player.getY(), player.getCurrentMapId());
         }
@@ -309,54 +390,45 @@ public class CombatEndHandler {
     /**
      * 重置敌人状态（所有玩家撤退时调用）
      */
-    private void resetEnemyStates(CombatInstance.RewardDistribution distribution) {
+    private void resetEnemyStates(CombatInstance.RewardDistribution distribution, CombatSettlementWritePlan plan) {
         if (distribution == null || distribution.getEnemiesToReset() == null) {
             return;
         }
 
         for (CombatInstance.EnemyToReset enemyToReset : distribution.getEnemiesToReset()) {
-            Optional<EnemyInstanceEntity> enemyOpt =
-                enemyInstanceRepository.findByMapIdAndInstanceId(enemyToReset.getMapId(), enemyToReset.getInstanceId());
-
-            if (enemyOpt.isPresent()) {
-                var enemy = enemyOpt.get();
-                enemy.setInCombat(false);
-                enemy.setCombatId(null);
-                enemyInstanceRepository.save(enemy);
-                log.debug("敌人 {} 状态已重置（玩家撤退）", enemy.getDisplayName());
-            }
+            plan.updateEnemy(enemyToReset.getMapId(), enemyToReset.getInstanceId(), new Update()
+                .set("inCombat", false)
+                .set("combatId", null));
+            log.debug("敌人 {} 状态已重置（玩家撤退）", enemyToReset.getInstanceId());
         }
     }
 
     /**
      * 更新被击败敌人的状态
      */
-    private void updateDefeatedEnemies(CombatInstance.RewardDistribution distribution) {
+    private void updateDefeatedEnemies(CombatInstance.RewardDistribution distribution, CombatSettlementWritePlan plan,
+                                       List<MapEntityJournal.Change> mapChanges) {
         if (distribution == null || distribution.getDefeatedEnemies() == null) {
             return;
         }
 
+        long now = System.currentTimeMillis();
         for (CombatInstance.DefeatedEnemy defeatedEnemy : distribution.getDefeatedEnemies()) {
-            Optional<EnemyInstanceEntity> enemyOpt =
-                enemyInstanceRepository.findByMapIdAndInstanceId(defeatedEnemy.getMapId(), defeatedEnemy.getInstanceId());
-
-            if (enemyOpt.isPresent()) {
-                var enemy = enemyOpt.get();
-                enemy.setDead(true);
-                enemy.setLastDeathTime(System.currentTimeMillis());
-                enemy.setInCombat(false);
-                enemy.setCombatId(null);
-                enemyInstanceRepository.save(enemy);
-                log.debug("敌人 {} 被击败，将在 {} 秒后刷新",
-                    enemy.getDisplayName(), defeatedEnemy.getRespawnSeconds());
-            }
+            plan.updateEnemy(defeatedEnemy.getMapId(), defeatedEnemy.getInstanceId(), new Update()
+                .set("dead", true)
+                .set("lastDeathTime", now)
+                .set("inCombat", false)
+                .set("combatId", null));
+            mapChanges.add(new MapEntityJournal.Change(defeatedEnemy.getMapId(), defeatedEnemy.getInstanceId(), null));
+            log.debug("敌人 {} 被击败，将在 {} 秒后刷新",
+                defeatedEnemy.getInstanceId(), defeatedEnemy.getRespawnSeconds());
         }
     }
 
     /**
      * 同步玩家的战斗后状态（生命和法力）
      */
-    private void syncPlayerFinalStates(CombatInstance.RewardDistribution distribution) {
+    private void syncPlayerFinalStates(CombatInstance.RewardDistribution distribution, CombatSettlementWritePlan plan) {
         if (distribution == null || distribution.getPlayerFinalStates() == null) {
             return;
         }
@@ -379,12 +451,11 @@ public class CombatEndHandler {
 
             CombatInstance.PlayerFinalState finalState = entry.getValue();
 
-            Optional<PlayerEntity> playerOpt = playerRepository.findById(playerId);
-            if (playerOpt.isPresent()) {
-                PlayerEntity player = playerOpt.get();
+            PlayerEntity player = plan.getPlayer(playerId);
+            if (player != null) {
                 player.setCurrentHealth(finalState.getCurrentHealth());
                 player.setCurrentMana(finalState.getCurrentMana());
-                playerRepository.save(player);
+                plan.updatePlayer(player);
                 log.debug("同步玩家 {} 战斗后状态: HP={}, MP={}",
                     player.getName(), finalState.getCurrentHealth(), finalState.getCurrentMana());
             }
@@ -395,13 +466,14 @@ public class CombatEndHandler {
      * 从存活玩家的实体快照中移除被击败的玩家
      * 因为被击败的玩家已经被传送到其他地图了
      */
-    private void removeDefeatedPlayersFromSnapshots(Set<String> survivingPlayerIds, Set<String> defeatedPlayerIds) {
+    private void removeDefeatedPlayersFromSnapshots(Set<String> survivingPlayerIds, Set<String> defeatedPlayerIds,
+                                                    CombatSettlementWritePlan plan) {
         // 获取被击败玩家的名字
         Set<String> defeatedPlayerNames = new HashSet<>();
         for (String defeatedPlayerId : defeatedPlayerIds) {
-            Optional<PlayerEntity> playerOpt = playerRepository.findById(defeatedPlayerId);
-            if (playerOpt.isPresent()) {
-                defeatedPlayerNames.add(playerOpt.get().getName());
+            PlayerEntity player = plan.getPlayer(defeatedPlayerId);
+            if (player != null) {
+                defeatedPlayerNames.add(player.getName());
             }
         }
 
@@ -411,9 +483,8 @@ public class CombatEndHandler {
 
         // 从存活玩家的快照中移除被击败玩家
         for (String survivingPlayerId : survivingPlayerIds) {
-            Optional<AccountEntity> accountOpt = accountRepository.findByPlayerId(survivingPlayerId);
-            if (accountOpt.isPresent()) {
-                AccountEntity account = accountOpt.get();
+            AccountEntity account = plan.getAccount(survivingPlayerId);
+            if (account != null) {
                 Map<String, AccountEntity.EntitySnapshot> snapshot = account.getLastEntitySnapshot();
                 if (snapshot != null && !snapshot.isEmpty()) {
                     boolean modified = false;
@@ -424,7 +495,7 @@ public class CombatEndHandler {
                         }
                     }
                     if (modified) {
-                        accountRepository.save(account);
+                        plan.updateAccount(account);
                     }
                 }
             }
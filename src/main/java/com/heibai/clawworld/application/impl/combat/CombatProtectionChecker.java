@@ -101,17 +101,19 @@ public class CombatProtectionChecker {
         }
 
         for (CombatParty party : combat.getParties().values()) {
-            // 检查这个队伍是否是玩家队伍
-            boolean isPlayerParty = party.getCharacters().stream()
-                .anyMatch(c -> c.isPlayer() && c.isAlive());
-            if (!isPlayerParty) {
-                continue; // 跳过敌人队伍
+            // 跳过没有存活玩家的队伍（敌人队伍），存活玩家数量由参战方增量维护，大规模战斗中不需要扫描敌人
+            if (party.getAlivePlayerCount() == 0) {
+                continue;
             }
 
-            // 检查队伍中是否有高等级玩家
-            boolean hasHighLevelPlayer = party.getCharacters().stream()
-                .filter(c -> c.isPlayer() && c.isAlive())
-                .anyMatch(c -> c.getLevel() > recommendedLevel);
+            // 检查队伍中是否有高等级玩家（只遍历存活成员，找到即停止）
+            boolean hasHighLevelPlayer = false;
+            for (CombatCharacter character : party.getAliveCharacters()) {
+                if (character.isPlayer() && character.getLevel() > recommendedLevel) {
+                    hasHighLevelPlayer = true;
+                    break;
+                }
+            }
 
             if (!hasHighLevelPlayer) {
                 // 这个队伍受保护
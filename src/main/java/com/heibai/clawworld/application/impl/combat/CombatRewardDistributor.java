@@ -5,11 +5,16 @@ import com.heibai.clawworld.domain.character.Player;
 import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.domain.service.PlayerLevelService;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.mapper.ConfigMapper;
+import com.heibai.clawworld.infrastructure.persistence.mapper.PlayerMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * 战利品分配器 - 负责分配战斗胜利后的战利品
  */
@@ -22,6 +27,7 @@ public class CombatRewardDistributor {
     private final PlayerLevelService playerLevelService;
     private final ConfigDataManager configDataManager;
     private final ConfigMapper configMapper;
+    private final PlayerMapper playerMapper;
 
     /**
      * 分配战利品
@@ -29,8 +35,10 @@ public class CombatRewardDistributor {
      * - 每个玩家都获得全部经验
      * - 金钱平分
      * - 物品归队长
+     *
+     * 玩家从结算写入计划中读取，修改后写回计划，由调用方统一批量写入
      */
-    public void distributeRewards(CombatInstance.RewardDistribution distribution) {
+    public void distributeRewards(CombatInstance.RewardDistribution distribution, CombatSettlementWritePlan plan) {
         if (distribution == null || distribution.getPlayerIds() == null || distribution.getPlayerIds().isEmpty()) {
             return;
         }
@@ -42,20 +50,49 @@ public class CombatRewardDistributor {
             distribution.getItems().size(),
             distribution.getPlayerIds().size());
 
+        // 本次分配涉及的玩家（队长同时获得经验金钱和物品时只构建和写回一次）
+        Map<String, Player> players = new LinkedHashMap<>();
+
         // 为每个玩家分配经验和金钱
         for (String playerId : distribution.getPlayerIds()) {
-            Player player = playerSessionService.getPlayerState(playerId);
+            Player player = loadPlayer(playerId, plan, players);
             if (player != null) {
                 distributeToPlayer(player, distribution);
             }
         }
 
         // 物品归队长
-        distributeItemsToLeader(distribution);
+        distributeItemsToLeader(distribution, plan, players);
+
+        // 写回结算计划
+        for (Player player : players.values()) {
+            PlayerEntity loaded = plan.getPlayer(player.getId());
+            PlayerEntity entity = playerMapper.toEntity(player);
+            // 领域对象不包含安全传送点，沿用原值
+            entity.setLastSafeWaypointId(loaded.getLastSafeWaypointId());
+            plan.updatePlayer(entity);
+        }
 
         log.info("战利品分配完成");
     }
 
+    /**
+     * 从结算计划中构建玩家状态
+     */
+    private Player loadPlayer(String playerId, CombatSettlementWritePlan plan, Map<String, Player> players) {
+        Player player = players.get(playerId);
+        if (player != null) {
+            return player;
+        }
+        PlayerEntity entity = plan.getPlayer(playerId);
+        if (entity == null) {
+            return null;
+        }
+        player = playerSessionService.getPlayerState(entity);
+        players.put(playerId, player);
+        return player;
+    }
+
     /**
      * 为单个玩家分配经验和金钱
      */
@@ -75,20 +112,18 @@ public class CombatRewardDistributor {
             player.setGold(player.getGold() + distribution.getGoldPerPlayer());
             log.debug("玩家 {} 获得金钱: {}", player.getName(), distribution.getGoldPerPlayer());
         }
-
-        // 保存玩家状态
-        playerSessionService.savePlayerState(player);
     }
 
     /**
      * 将物品分配给队长
      */
-    private void distributeItemsToLeader(CombatInstance.RewardDistribution distribution) {
+    private void distributeItemsToLeader(CombatInstance.RewardDistribution distribution,
+                                         CombatSettlementWritePlan plan, Map<String, Player> players) {
         if (distribution.getItems() == null || distribution.getItems().isEmpty() || distribution.getLeaderId() == null) {
             return;
         }
 
-        Player leader = playerSessionService.getPlayerState(distribution.getLeaderId());
+        Player leader = loadPlayer(distribution.getLeaderId(), plan, players);
         if (leader == null) {
             return;
         }
@@ -97,9 +132,6 @@ public class CombatRewardDistributor {
             addItemToPlayer(leader, itemId);
             log.debug("队长 {} 获得物品: {}", leader.getName(), itemId);
         }
-
-        // 保存队长状态
-        playerSessionService.savePlayerState(leader);
     }
 
     /**
@@ -0,0 +1,226 @@
+package com.heibai.clawworld.application.impl.combat;
+
+import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
+import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 战斗结算写入计划
+ * 结算开始时一次性加载所有相关的玩家和账号，各结算步骤只修改内存中的实体并标记，
+ * 最后按集合各执行一次批量写入，所有写入都是按字段更新
+ *
+ * 玩家和账号加载时保存一份文档快照，写入时与修改后的实体比较，只$set变化的字段（变为空的字段$unset），
+ * 结算期间其他请求对同一文档其他字段的修改（如移动、聊天、组队）不会被整文档覆盖
+ * 同一个玩家被多个步骤修改（如获得奖励后又同步生命法力）时只写入一次
+ */
+@Slf4j
+public class CombatSettlementWritePlan {
+
+    private final String combatId;
+    private final MongoConverter converter;
+
+    // 已加载的玩家（key: 玩家ID）
+    private final Map<String, PlayerEntity> players = new LinkedHashMap<>();
+
+    // 已加载的账号（key: 玩家ID）
+    private final Map<String, AccountEntity> accounts = new LinkedHashMap<>();
+
+    // 加载时的文档快照（key: 玩家ID）
+    private final Map<String, Document> playerSnapshots = new HashMap<>();
+    private final Map<String, Document> accountSnapshots = new HashMap<>();
+
+    // 需要写入的玩家和账号ID
+    private final Set<String> dirtyPlayers = new LinkedHashSet<>();
+    private final Set<String> dirtyAccounts = new LinkedHashSet<>();
+
+    // 敌人实例的字段更新
+    private final List<EnemyUpdate> enemyUpdates = new ArrayList<>();
+
+    public CombatSettlementWritePlan(String combatId, MongoConverter converter) {
+        this.combatId = combatId;
+        this.converter = converter;
+    }
+
+    public String getCombatId() {
+        return combatId;
+    }
+
+    /**
+     * 放入已加载的玩家（不标记写入）
+     */
+    public void addLoadedPlayers(Collection<PlayerEntity> loaded) {
+        for (PlayerEntity player : loaded) {
+            if (players.putIfAbsent(player.getId(), player) == null) {
+                playerSnapshots.put(player.getId(), toDocument(player));
+            }
+        }
+    }
+
+    /**
+     * 放入已加载的账号（不标记写入）
+     */
+    public void addLoadedAccounts(Collection<AccountEntity> loaded) {
+        for (AccountEntity account : loaded) {
+            if (account.getPlayerId() != null && accounts.putIfAbsent(account.getPlayerId(), account) == null) {
+                accountSnapshots.put(account.getPlayerId(), toDocument(account));
+            }
+        }
+    }
+
+    /**
+     * 获取已加载的玩家
+     * @return 玩家实体；未加载（不存在）时返回null
+     */
+    public PlayerEntity getPlayer(String playerId) {
+        return players.get(playerId);
+    }
+
+    /**
+     * 所有已加载的玩家
+     */
+    public Collection<PlayerEntity> getPlayers() {
+        return players.values();
+    }
+
+    /**
+     * 获取玩家的账号
+     * @return 账号实体；不存在时返回null
+     */
+    public AccountEntity getAccount(String playerId) {
+        return accounts.get(playerId);
+    }
+
+    /**
+     * 标记玩家需要写入
+     */
+    public void updatePlayer(PlayerEntity player) {
+        players.put(player.getId(), player);
+        dirtyPlayers.add(player.getId());
+    }
+
+    /**
+     * 标记账号需要写入
+     */
+    public void updateAccount(AccountEntity account) {
+        accounts.put(account.getPlayerId(), account);
+        dirtyAccounts.add(account.getPlayerId());
+    }
+
+    /**
+     * 添加敌人实例的字段更新
+     * 只更新仍被本场战斗占用的实例，敌人已被其他战斗接管时不生效
+     */
+    public void updateEnemy(String mapId, String instanceId, Update update) {
+        enemyUpdates.add(new EnemyUpdate(mapId, instanceId, update));
+    }
+
+    public boolean isEmpty() {
+        return dirtyPlayers.isEmpty() && dirtyAccounts.isEmpty() && enemyUpdates.isEmpty();
+    }
+
+    /**
+     * 执行写入：每个集合一次批量操作
+     */
+    public void execute(MongoTemplate mongoTemplate) {
+        Map<Object, Update> playerUpdates = new LinkedHashMap<>();
+        for (String playerId : dirtyPlayers) {
+            Update update = diff(playerSnapshots.get(playerId), toDocument(players.get(playerId)));
+            if (update != null) {
+                playerUpdates.put(playerId, update);
+            }
+        }
+        writeUpdates(mongoTemplate, PlayerEntity.class, playerUpdates);
+
+        Map<Object, Update> accountUpdates = new LinkedHashMap<>();
+        for (String playerId : dirtyAccounts) {
+            AccountEntity account = accounts.get(playerId);
+            Update update = diff(accountSnapshots.get(playerId), toDocument(account));
+            if (update != null) {
+                accountUpdates.put(account.getId(), update);
+            }
+        }
+        writeUpdates(mongoTemplate, AccountEntity.class, accountUpdates);
+
+        if (!enemyUpdates.isEmpty()) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EnemyInstanceEntity.class);
+            for (EnemyUpdate enemyUpdate : enemyUpdates) {
+                ops.updateOne(Query.query(Criteria.where("mapId").is(enemyUpdate.mapId())
+                    .and("instanceId").is(enemyUpdate.instanceId())
+                    .and("combatId").is(combatId)), enemyUpdate.update());
+            }
+            ops.execute();
+        }
+
+        log.debug("战斗结算写入完成: combatId={}, players={}, accounts={}, enemies={}",
+            combatId, playerUpdates.size(), accountUpdates.size(), enemyUpdates.size());
+    }
+
+    private void writeUpdates(MongoTemplate mongoTemplate, Class<?> entityClass, Map<Object, Update> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        updates.forEach((id, update) -> ops.updateOne(Query.query(Criteria.where("_id").is(id)), update));
+        ops.execute();
+    }
+
+    private Document toDocument(Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        return document;
+    }
+
+    /**
+     * 比较加载时和修改后的文档，生成顶层字段的更新
+     * @param before 加载时的快照；为null时（未加载过的实体）写入全部字段
+     * @return 字段更新；没有变化时返回null
+     */
+    static Update diff(Document before, Document after) {
+        Update update = new Update();
+        boolean changed = false;
+        for (Map.Entry<String, Object> field : after.entrySet()) {
+            String key = field.getKey();
+            if (isMetadata(key)) {
+                continue;
+            }
+            if (before == null || !Objects.equals(before.get(key), field.getValue())) {
+                update.set(key, field.getValue());
+                changed = true;
+            }
+        }
+        if (before != null) {
+            for (String key : before.keySet()) {
+                if (!isMetadata(key) && !after.containsKey(key)) {
+                    update.unset(key);
+                    changed = true;
+                }
+            }
+        }
+        return changed ? update : null;
+    }
+
+    private static boolean isMetadata(String key) {
+        return "_id".equals(key) || "_class".equals(key);
+    }
+
+    private record EnemyUpdate(String mapId, String instanceId, Update update) {
+    }
+}
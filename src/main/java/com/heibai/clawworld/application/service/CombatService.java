@@ -1,7 +1,10 @@
 package com.heibai.clawworld.application.service;
 
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
 import com.heibai.clawworld.domain.combat.Combat;
 
+import java.util.List;
+
 /**
  * 战斗管理服务
  * 负责战斗的创建、执行、结算等
@@ -61,6 +64,25 @@ public interface CombatService {
      */
     ActionResult waitTurn(String combatId, String playerId);
 
+    /**
+     * 开启自动战斗，不等待战斗结束；战斗在本次调用内结束时返回汇总结果，否则在之后的wait中返回
+     * @param combatId 战斗ID
+     * @param playerId 玩家ID
+     * @param skillNames 技能名称，按优先级排列；为空时按角色技能列表顺序
+     * @param targetStrategy 敌方单体技能的选目标方式；为null时集火生命最低的敌人
+     * @return 操作结果
+     */
+    ActionResult autoBattle(String combatId, String playerId, List<String> skillNames,
+                            AutoBattlePolicy.TargetStrategy targetStrategy);
+
+    /**
+     * 关闭自动战斗，之后轮到该玩家时恢复手动操作
+     * @param combatId 战斗ID
+     * @param playerId 玩家ID
+     * @return 操作结果
+     */
+    ActionResult disableAutoBattle(String combatId, String playerId);
+
     /**
      * 退出战斗（角色视为死亡）
      * @param combatId 战斗ID
@@ -91,6 +113,32 @@ public interface CombatService {
      */
     long getTurnStartTime(String combatId);
 
+    /**
+     * 取走玩家尚未确认的增量战斗日志，并推进确认位置
+     * @param combatId 战斗ID
+     * @param playerId 玩家ID
+     * @return 增量日志；战斗不存在时日志为空
+     */
+    CombatLogDelta takeCombatLogDelta(String combatId, String playerId);
+
+    /**
+     * 确认玩家已经看到当前最新的战斗日志
+     * @param combatId 战斗ID
+     * @param playerId 玩家ID
+     */
+    void acknowledgeCombatLog(String combatId, String playerId);
+
+    /**
+     * 增量战斗日志
+     * @param logs 格式为 "[#序号] 内容" 的日志
+     * @param lastSequence logs中最后一条日志的序列号，没有日志时为0
+     */
+    record CombatLogDelta(List<String> logs, int lastSequence) {
+        public boolean isEmpty() {
+            return logs.isEmpty();
+        }
+    }
+
     /**
      * 战斗结果
      */
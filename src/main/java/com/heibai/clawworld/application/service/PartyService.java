@@ -2,6 +2,9 @@ package com.heibai.clawworld.application.service;
 
 import com.heibai.clawworld.domain.character.Party;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * 队伍管理服务
  * 负责队伍的创建、解散、成员管理等
@@ -92,6 +95,13 @@ public interface PartyService {
      */
     Party getPlayerParty(String playerId);
 
+    /**
+     * 批量获取玩家所在队伍（一次查询）
+     * @param playerIds 玩家ID列表
+     * @return 玩家ID -> 队伍对象，没有队伍的玩家不在结果中
+     */
+    Map<String, Party> getPlayerParties(Collection<String> playerIds);
+
     /**
      * 队伍操作结果
      */
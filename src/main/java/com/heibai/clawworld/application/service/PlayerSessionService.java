@@ -1,6 +1,7 @@
 package com.heibai.clawworld.application.service;
 
 import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 
 /**
  * 玩家会话管理服务
@@ -24,6 +25,14 @@ public interface PlayerSessionService {
      */
     Player getPlayerState(String playerId);
 
+    /**
+     * 根据已加载的玩家实体构建玩家状态（不访问数据库，不设置队伍阵营）
+     * 用于批量加载玩家后逐个处理的场景
+     * @param entity 玩家实体
+     * @return 玩家对象
+     */
+    Player getPlayerState(PlayerEntity entity);
+
     /**
      * 保存玩家状态
      * @param player 玩家对象
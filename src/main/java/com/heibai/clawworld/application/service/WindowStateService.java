@@ -1,8 +1,10 @@
 package com.heibai.clawworld.application.service;
 
 import com.heibai.clawworld.domain.window.WindowTransition;
+import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 窗口状态服务
@@ -29,6 +31,27 @@ public interface WindowStateService {
      */
     boolean transitionWindows(List<WindowTransition> transitions);
 
+    /**
+     * 多个玩家原子窗口转换，由某个玩家的指令触发
+     * 发起指令的玩家在本次指令响应中就能看到新窗口，只向其他被动切换窗口的玩家推送窗口事件
+     *
+     * @param transitions 窗口转换列表
+     * @param actorId 发起指令的玩家ID（可为null，表示没有发起者，向所有玩家推送）
+     * @return 是否转换成功
+     */
+    boolean transitionWindows(List<WindowTransition> transitions, String actorId);
+
+    /**
+     * 在已加载的账号上执行多个玩家的原子窗口转换
+     * 按账号当前的窗口校验，所有转换都合法时才修改；只修改内存中的账号，由调用方负责写入和推送窗口事件
+     * （如战斗结算把账号写入合并到一次批量操作中）
+     *
+     * @param accounts 已加载的账号（key: 玩家ID）
+     * @param transitions 窗口转换列表
+     * @return 是否转换成功
+     */
+    boolean applyTransitions(Map<String, AccountEntity> accounts, List<WindowTransition> transitions);
+
     /**
      * 验证窗口转换是否合法
      *
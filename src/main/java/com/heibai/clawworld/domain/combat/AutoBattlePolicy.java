@@ -0,0 +1,43 @@
+package com.heibai.clawworld.domain.combat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自动战斗策略
+ * 玩家开启自动战斗后，轮到其回合时由引擎按策略立即行动，不再等待指令和回合超时
+ *
+ * 技能按优先级依次尝试，第一个可用（已掌握、不在冷却、法力足够、有合适目标）的技能生效，
+ * 都不可用时使用普通攻击；优先级为空时按角色的技能列表顺序尝试
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoBattlePolicy {
+
+    // 技能ID，按优先级排列
+    private List<String> skillPriority = new ArrayList<>();
+
+    // 敌方单体技能的选目标方式
+    private TargetStrategy targetStrategy = TargetStrategy.LOWEST_HEALTH;
+
+    /**
+     * 选目标方式
+     */
+    public enum TargetStrategy {
+        LOWEST_HEALTH,  // 当前生命最低的敌人（集火）
+        HIGHEST_THREAT, // 物理防御 + 法术防御最高的敌人（与敌人AI的仇恨规则一致）
+        FIRST           // 第一个存活的敌人
+    }
+
+    /**
+     * 默认策略：按技能列表顺序释放，集火生命最低的敌人
+     */
+    public static AutoBattlePolicy defaultPolicy() {
+        return new AutoBattlePolicy();
+    }
+}
@@ -0,0 +1,91 @@
+package com.heibai.clawworld.domain.combat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自动战斗结果摘要
+ * 把自动战斗期间的逐条日志汇总为一行统计，结算、战利品等文本日志保留原文
+ */
+public final class AutoBattleSummary {
+
+    private AutoBattleSummary() {
+    }
+
+    /**
+     * 汇总指定角色视角下的战斗日志
+     * 伤害事件不带攻击者，归属于其前面最近一次技能事件的施法者
+     */
+    public static List<String> summarize(List<CombatInstance.CombatLogEntry> logs, String characterId) {
+        int actions = 0;
+        int skips = 0;
+        int damageDealt = 0;
+        int crits = 0;
+        int kills = 0;
+        int damageTaken = 0;
+        int healed = 0;
+        boolean defeated = false;
+        String currentActor = null;
+        List<String> texts = new ArrayList<>();
+
+        for (CombatInstance.CombatLogEntry entry : logs) {
+            CombatEvent event = entry.getEvent();
+            boolean byMe = characterId.equals(currentActor);
+            boolean onMe = characterId.equals(event.getTargetId());
+            switch (event.getType()) {
+                case SKILL_SELF, SKILL_TARGET, SKILL_AREA -> {
+                    currentActor = event.getActorId();
+                    if (characterId.equals(currentActor)) {
+                        actions++;
+                    }
+                }
+                case SKIP_TURN, TURN_TIMEOUT -> {
+                    currentActor = event.getActorId();
+                    if (characterId.equals(currentActor)) {
+                        skips++;
+                    }
+                }
+                case DAMAGE, AREA_DAMAGE -> {
+                    if (byMe) {
+                        damageDealt += event.getValue();
+                        if (event.isCrit()) {
+                            crits++;
+                        }
+                    }
+                    if (onMe) {
+                        damageTaken += event.getValue();
+                    }
+                }
+                case AREA_SUMMARY -> {
+                    // 大规模战斗的群体伤害只有汇总，不区分具体目标
+                    if (byMe) {
+                        damageDealt += event.getValue();
+                        crits += event.getCritCount();
+                    }
+                }
+                case HEAL -> {
+                    if (onMe) {
+                        healed += event.getValue();
+                    }
+                }
+                case DEFEATED -> {
+                    if (onMe) {
+                        defeated = true;
+                    } else if (byMe) {
+                        kills++;
+                    }
+                }
+                case TEXT -> texts.add(entry.getFormatted());
+                default -> {
+                }
+            }
+        }
+
+        List<String> lines = new ArrayList<>(texts.size() + 1);
+        lines.add("自动战斗摘要：行动" + actions + "次，空过" + skips + "次，造成伤害" + damageDealt
+            + "（暴击" + crits + "次），击败" + kills + "个目标，受到伤害" + damageTaken
+            + "，恢复生命" + healed + (defeated ? "，你被击败了" : ""));
+        lines.addAll(texts);
+        return lines;
+    }
+}
@@ -1,23 +1,33 @@
 package com.heibai.clawworld.domain.combat;
 
-import lombok.Data;
+import lombok.Builder;
+import lombok.Value;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 战斗领域对象
  * 与CombatEntity对应，但不包含持久化注解
+ * 作为战斗实例发布给其他线程的只读快照，创建后不可修改（列表由发布方以不可修改视图传入）
  */
-@Data
+@Value
+@Builder
 public class Combat {
-    private String id;
-    private String mapId;
-    private Long startTime;
-    private CombatStatus status;
-    private List<CombatParty> parties = new ArrayList<>();
-    private List<ActionBarEntry> actionBar = new ArrayList<>();
-    private List<String> combatLog = new ArrayList<>();
+    String id;
+    // 快照版本号（每次发布递增，版本相同表示状态未变化）
+    long version;
+    String mapId;
+    Long startTime;
+    CombatStatus status;
+    @Builder.Default
+    List<CombatParty> parties = List.of();
+    @Builder.Default
+    List<ActionBarEntry> actionBar = List.of();
+    @Builder.Default
+    List<String> combatLog = List.of();
+
+    // 当前应该行动的角色ID
+    String currentTurnCharacterId;
 
     /**
      * 战斗状态枚举
@@ -39,81 +49,50 @@ public class Combat {
         return elapsedMillis > 10 * 60 * 1000;
     }
 
-    /**
-     * 添加战斗日志
-     */
-    public void addLog(String log) {
-        combatLog.add(log);
-    }
-
     /**
      * 参战方
      */
-    @Data
+    @Value
+    @Builder
     public static class CombatParty {
-        private String faction;
-        private List<CombatCharacter> characters = new ArrayList<>();
+        String faction;
+        @Builder.Default
+        List<CombatCharacter> characters = List.of();
     }
 
     /**
      * 战斗中的角色
      */
-    @Data
+    @Value
+    @Builder
     public static class CombatCharacter {
-        private String characterId;
-        private String characterType;
-        private String name;
-        private int currentHealth;
-        private int maxHealth;
-        private int currentMana;
-        private int maxMana;
-        private int speed;
-        private boolean isDead;
-        private List<SkillCooldown> skillCooldowns = new ArrayList<>();
+        String characterId;
+        String characterType;
+        String name;
+        int currentHealth;
+        int maxHealth;
+        int currentMana;
+        int maxMana;
+        int speed;
+        boolean dead;
+        @Builder.Default
+        List<SkillCooldown> skillCooldowns = List.of();
 
         /**
          * 检查是否存活
          */
         public boolean isAlive() {
-            return !isDead && currentHealth > 0;
-        }
-
-        /**
-         * 受到伤害
-         */
-        public void takeDamage(int damage) {
-            currentHealth = Math.max(0, currentHealth - damage);
-            if (currentHealth == 0) {
-                isDead = true;
-            }
-        }
-
-        /**
-         * 恢复生命
-         */
-        public void heal(int amount) {
-            if (!isDead) {
-                currentHealth = Math.min(maxHealth, currentHealth + amount);
-            }
+            return !dead && currentHealth > 0;
         }
     }
 
     /**
      * 技能冷却
      */
-    @Data
+    @Value
     public static class SkillCooldown {
-        private String skillId;
-        private int remainingTurns;
-
-        /**
-         * 减少冷却回合数
-         */
-        public void decreaseCooldown() {
-            if (remainingTurns > 0) {
-                remainingTurns--;
-            }
-        }
+        String skillId;
+        int remainingTurns;
 
         /**
          * 检查技能是否可用
@@ -126,17 +105,10 @@ public class Combat {
     /**
      * 行动条条目
      */
-    @Data
+    @Value
     public static class ActionBarEntry {
-        private String characterId;
-        private int progress; // 当前进度值（0-10000）
-
-        /**
-         * 增加进度
-         */
-        public void increaseProgress(int speed) {
-            progress += speed;
-        }
+        String characterId;
+        int progress; // 当前进度值（0-10000）
 
         /**
          * 检查是否轮到行动
@@ -144,12 +116,5 @@ public class Combat {
         public boolean isReady() {
             return progress >= 10000;
         }
-
-        /**
-         * 重置行动条
-         */
-        public void reset() {
-            progress -= 10000;
-        }
     }
 }
@@ -1,6 +1,11 @@
 package com.heibai.clawworld.domain.combat;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -55,6 +60,13 @@ public class CombatCharacter {
     private boolean isDead;
     private boolean retreated; // 是否已撤退
 
+    // 所属参战方（存活状态变化时回调，用于维护阵营存活计数）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private CombatParty party;
+
     public CombatCharacter() {
         this.skillIds = new ArrayList<>();
         this.skillCooldowns = new HashMap<>();
@@ -80,17 +92,33 @@ public class CombatCharacter {
      * 设置撤退状态
      */
     public void setRetreated(boolean retreated) {
+        boolean wasAlive = isAlive();
         this.retreated = retreated;
+        onLifeStateChanged(wasAlive);
+    }
+
+    public void setDead(boolean dead) {
+        boolean wasAlive = isAlive();
+        this.isDead = dead;
+        onLifeStateChanged(wasAlive);
+    }
+
+    public void setCurrentHealth(int currentHealth) {
+        boolean wasAlive = isAlive();
+        this.currentHealth = currentHealth;
+        onLifeStateChanged(wasAlive);
     }
 
     /**
      * 受到伤害
      */
     public void takeDamage(int damage) {
+        boolean wasAlive = isAlive();
         currentHealth = Math.max(0, currentHealth - damage);
         if (currentHealth == 0) {
             isDead = true;
         }
+        onLifeStateChanged(wasAlive);
     }
 
     /**
@@ -98,7 +126,28 @@ public class CombatCharacter {
      */
     public void heal(int amount) {
         if (!isDead) {
+            boolean wasAlive = isAlive();
             currentHealth = Math.min(maxHealth, currentHealth + amount);
+            onLifeStateChanged(wasAlive);
+        }
+    }
+
+    /**
+     * 绑定所属参战方（由参战方在加入角色时调用）
+     */
+    void attachTo(CombatParty party) {
+        this.party = party;
+    }
+
+    /**
+     * 存活状态翻转时通知所属参战方
+     */
+    private void onLifeStateChanged(boolean wasAlive) {
+        if (party != null) {
+            boolean alive = isAlive();
+            if (alive != wasAlive) {
+                party.onLifeStateChanged(this, alive);
+            }
         }
     }
 
@@ -162,4 +211,41 @@ public class CombatCharacter {
     public boolean isPartyLeader() {
         return partyLeader;
     }
+
+    /**
+     * 复制当前状态（技能列表和冷却为独立副本）
+     * 用于战斗录像记录角色加入时的状态
+     */
+    public CombatCharacter copy() {
+        CombatCharacter copy = new CombatCharacter();
+        copy.characterId = characterId;
+        copy.characterType = characterType;
+        copy.name = name;
+        copy.factionId = factionId;
+        copy.partyId = partyId;
+        copy.enemyConfigId = enemyConfigId;
+        copy.partyLeader = partyLeader;
+        copy.level = level;
+        copy.enemyMapId = enemyMapId;
+        copy.enemyInstanceId = enemyInstanceId;
+        copy.enemyRespawnSeconds = enemyRespawnSeconds;
+        copy.maxHealth = maxHealth;
+        copy.currentHealth = currentHealth;
+        copy.maxMana = maxMana;
+        copy.currentMana = currentMana;
+        copy.physicalAttack = physicalAttack;
+        copy.physicalDefense = physicalDefense;
+        copy.magicAttack = magicAttack;
+        copy.magicDefense = magicDefense;
+        copy.speed = speed;
+        copy.critRate = critRate;
+        copy.critDamage = critDamage;
+        copy.hitRate = hitRate;
+        copy.dodgeRate = dodgeRate;
+        copy.skillIds = skillIds != null ? new ArrayList<>(skillIds) : new ArrayList<>();
+        copy.skillCooldowns = skillCooldowns != null ? new HashMap<>(skillCooldowns) : new HashMap<>();
+        copy.isDead = isDead;
+        copy.retreated = retreated;
+        return copy;
+    }
 }
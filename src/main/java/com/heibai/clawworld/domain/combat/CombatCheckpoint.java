@@ -0,0 +1,53 @@
+package com.heibai.clawworld.domain.combat;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 战斗检查点 - 进行中战斗的紧凑状态副本
+ * 由战斗所属分片线程在回合边界生成，之后只被异步写入线程读取，不与战斗实例共享可变对象
+ *
+ * 只保存继续战斗所需的状态：参战角色（含生命法力、技能冷却）、行动条、伤害统计、日志确认位置和自动战斗策略。
+ * 日志正文和战斗录像不保存，恢复后的战斗日志从检查点的序列号之后继续编号
+ */
+@Data
+public class CombatCheckpoint {
+    private String combatId;
+    private String mapId;
+    private long startTime;
+    private CombatInstance.CombatType combatType;
+
+    // 生成检查点时的最新日志序列号
+    private int lastLogSequence;
+
+    // 生成时间（毫秒时间戳）
+    private long savedAt;
+
+    // 参战方（保持加入顺序）
+    private List<Faction> factions = new ArrayList<>();
+
+    // 行动条
+    private List<CombatInstance.ActionBarEntry> actionBar = new ArrayList<>();
+
+    // 伤害统计
+    private List<CombatInstance.DamageRecord> damageRecords = new ArrayList<>();
+
+    // 参战者已确认的日志序列号
+    private Map<String, Integer> logCursors = new HashMap<>();
+
+    // 开启了自动战斗的玩家
+    private Map<String, AutoBattlePolicy> autoBattlePolicies = new HashMap<>();
+
+    /**
+     * 参战方
+     */
+    @Data
+    public static class Faction {
+        private String factionId;
+        private List<CombatCharacter> characters = new ArrayList<>();
+    }
+}
@@ -0,0 +1,44 @@
+package com.heibai.clawworld.domain.combat;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 战斗检查点存储
+ * 由持久化层实现，战斗引擎只通过该接口读写检查点
+ */
+public interface CombatCheckpointStore {
+
+    /**
+     * 不持久化的空实现（模拟器、重放和单元测试使用）
+     */
+    CombatCheckpointStore NONE = new CombatCheckpointStore() {
+        @Override
+        public void saveAll(Collection<CombatCheckpoint> checkpoints) {
+        }
+
+        @Override
+        public void deleteAll(Collection<String> combatIds) {
+        }
+
+        @Override
+        public List<CombatCheckpoint> loadAll() {
+            return List.of();
+        }
+    };
+
+    /**
+     * 批量保存检查点（同一战斗覆盖旧的检查点）
+     */
+    void saveAll(Collection<CombatCheckpoint> checkpoints);
+
+    /**
+     * 批量删除已结束战斗的检查点
+     */
+    void deleteAll(Collection<String> combatIds);
+
+    /**
+     * 加载所有进行中战斗的检查点
+     */
+    List<CombatCheckpoint> loadAll();
+}
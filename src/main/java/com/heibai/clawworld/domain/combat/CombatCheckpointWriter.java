@@ -0,0 +1,137 @@
+package com.heibai.clawworld.domain.combat;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 战斗检查点异步写入器
+ * 分片线程只把检查点放进待写表就返回，由后台线程定期批量写入存储，回合处理永远不会等待数据库
+ *
+ * 工作原理：
+ * 1. 待写表按战斗ID存放最新的检查点，两次写入之间的多个回合合并为一次写入
+ * 2. 战斗结束时撤销未写入的检查点，并在下次写入时删除已保存的检查点
+ * 3. 写入失败的检查点放回待写表（已有更新的检查点或战斗已结束时丢弃），下次重试
+ * 4. 关闭时同步写入剩余的检查点
+ */
+@Slf4j
+public class CombatCheckpointWriter {
+
+    private final CombatCheckpointStore store;
+
+    // 后台写入线程（存储为空实现时不启动）
+    private final ScheduledExecutorService scheduler;
+
+    // 待写入的检查点（key: combatId, value: 最新检查点）
+    private final Map<String, CombatCheckpoint> pending = new ConcurrentHashMap<>();
+
+    // 待删除检查点的战斗ID
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    public CombatCheckpointWriter(CombatCheckpointStore store, long flushIntervalMs) {
+        this.store = store;
+        if (store == CombatCheckpointStore.NONE) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "CombatCheckpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, flushIntervalMs);
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("战斗检查点写入器启动，写入间隔: {}ms", interval);
+    }
+
+    /**
+     * 是否需要生成检查点
+     */
+    public boolean isEnabled() {
+        return scheduler != null;
+    }
+
+    /**
+     * 提交检查点（覆盖同一战斗尚未写入的旧检查点，不阻塞）
+     */
+    public void offer(CombatCheckpoint checkpoint) {
+        if (scheduler == null) {
+            return;
+        }
+        pendingDeletes.remove(checkpoint.getCombatId());
+        pending.put(checkpoint.getCombatId(), checkpoint);
+    }
+
+    /**
+     * 战斗结束，撤销未写入的检查点并删除已保存的检查点（不阻塞）
+     */
+    public void discard(String combatId) {
+        if (scheduler == null) {
+            return;
+        }
+        pending.remove(combatId);
+        pendingDeletes.add(combatId);
+    }
+
+    /**
+     * 写入所有待处理的检查点和删除请求
+     */
+    public synchronized void flush() {
+        List<CombatCheckpoint> toSave = new ArrayList<>(pending.size());
+        for (String combatId : pending.keySet()) {
+            CombatCheckpoint checkpoint = pending.remove(combatId);
+            if (checkpoint != null) {
+                toSave.add(checkpoint);
+            }
+        }
+        if (!toSave.isEmpty()) {
+            try {
+                store.saveAll(toSave);
+                log.debug("写入战斗检查点 {} 个", toSave.size());
+            } catch (Exception e) {
+                log.error("写入战斗检查点失败，下次重试: {} 个", toSave.size(), e);
+                for (CombatCheckpoint checkpoint : toSave) {
+                    if (!pendingDeletes.contains(checkpoint.getCombatId())) {
+                        pending.putIfAbsent(checkpoint.getCombatId(), checkpoint);
+                    }
+                }
+            }
+        }
+
+        List<String> toDelete = new ArrayList<>(pendingDeletes);
+        if (!toDelete.isEmpty()) {
+            try {
+                store.deleteAll(toDelete);
+                toDelete.forEach(pendingDeletes::remove);
+            } catch (Exception e) {
+                log.error("删除战斗检查点失败，下次重试: {} 个", toDelete.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 关闭写入器，写入剩余的检查点
+     */
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,127 @@
+package com.heibai.clawworld.domain.combat;
+
+import lombok.Getter;
+
+/**
+ * 结构化战斗事件
+ * 战斗过程中只记录事件类型和角色ID、数值等原始数据，不拼接文本；
+ * 文本在窗口或响应真正需要时才由 {@link CombatEventFormat} 渲染
+ */
+@Getter
+public final class CombatEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        TURN_START,        // 轮到某角色的回合（actor）
+        WAITING,           // 等待某玩家行动（actor）
+        SKIP_TURN,         // 跳过回合（actor）
+        TURN_TIMEOUT,      // 回合超时自动空过（actor）
+        RETREAT,           // 撤退（actor）
+        AUTO_BATTLE,       // 开启自动战斗（actor）
+        AUTO_BATTLE_OFF,   // 关闭自动战斗（actor）
+        JOIN,              // 角色加入战斗（actor）
+        FACTION_JOIN,      // 阵营加入战斗（text为阵营ID）
+        SKILL_SELF,        // 对自己使用技能（actor, skillName）
+        SKILL_TARGET,      // 对目标使用技能（actor, target, skillName）
+        SKILL_AREA,        // 使用群体技能（actor, skillName）
+        TARGET_INVALID,    // 目标不存在或已死亡
+        HEAL,              // 恢复生命（target, value）
+        DAMAGE,            // 单体伤害（target, value, crit）
+        AREA_DAMAGE,       // 群体伤害中的一次命中（target, value, crit）
+        MISS,              // 单体攻击未命中（target）
+        AREA_MISS,         // 群体攻击中的一次未命中（target）
+        DEFEATED,          // 被击败（target）
+        AREA_SUMMARY,      // 大规模战斗中群体伤害的汇总（actor, value为总伤害, hitCount/critCount/missCount）
+        AREA_HEAL,         // 大规模战斗中群体治疗的汇总（actor, value为总治疗量, hitCount为目标数）
+        TEXT               // 其他文本（结算、物品等低频日志）
+    }
+
+    private final Type type;
+    private final String actorId;
+    private final String targetId;
+    private final String skillName;
+    private final int value;
+    private final boolean crit;
+    private final String text;
+
+    // 汇总事件的计数（其他事件为0）
+    private final int hitCount;
+    private final int critCount;
+    private final int missCount;
+
+    private CombatEvent(Type type, String actorId, String targetId, String skillName,
+                        int value, boolean crit, String text) {
+        this(type, actorId, targetId, skillName, value, crit, text, 0, 0, 0);
+    }
+
+    private CombatEvent(Type type, String actorId, String targetId, String skillName,
+                        int value, boolean crit, String text, int hitCount, int critCount, int missCount) {
+        this.type = type;
+        this.actorId = actorId;
+        this.targetId = targetId;
+        this.skillName = skillName;
+        this.value = value;
+        this.crit = crit;
+        this.text = text;
+        this.hitCount = hitCount;
+        this.critCount = critCount;
+        this.missCount = missCount;
+    }
+
+    public static CombatEvent actor(Type type, String actorId) {
+        return new CombatEvent(type, actorId, null, null, 0, false, null);
+    }
+
+    public static CombatEvent target(Type type, String targetId) {
+        return new CombatEvent(type, null, targetId, null, 0, false, null);
+    }
+
+    public static CombatEvent skill(Type type, String actorId, String targetId, String skillName) {
+        return new CombatEvent(type, actorId, targetId, skillName, 0, false, null);
+    }
+
+    public static CombatEvent heal(String targetId, int amount) {
+        return new CombatEvent(Type.HEAL, null, targetId, null, amount, false, null);
+    }
+
+    public static CombatEvent damage(Type type, String targetId, int damage, boolean crit) {
+        return new CombatEvent(type, null, targetId, null, damage, crit, null);
+    }
+
+    public static CombatEvent targetInvalid() {
+        return new CombatEvent(Type.TARGET_INVALID, null, null, null, 0, false, null);
+    }
+
+    public static CombatEvent text(String text) {
+        return new CombatEvent(Type.TEXT, null, null, null, 0, false, text);
+    }
+
+    /**
+     * 群体伤害汇总（大规模战斗中代替逐个目标的伤害事件）
+     */
+    public static CombatEvent areaSummary(String actorId, int hitCount, int critCount, int missCount, int totalDamage) {
+        return new CombatEvent(Type.AREA_SUMMARY, actorId, null, null, totalDamage, critCount > 0, null,
+            hitCount, critCount, missCount);
+    }
+
+    /**
+     * 群体治疗汇总（大规模战斗中代替逐个目标的治疗事件）
+     */
+    public static CombatEvent areaHeal(String actorId, int targetCount, int totalHeal) {
+        return new CombatEvent(Type.AREA_HEAL, actorId, null, null, totalHeal, false, null, targetCount, 0, 0);
+    }
+
+    public static CombatEvent factionJoin(String factionId) {
+        return new CombatEvent(Type.FACTION_JOIN, null, null, null, 0, false, factionId);
+    }
+
+    /**
+     * 按全部字段创建事件（用于从战斗录像中还原事件）
+     */
+    public static CombatEvent of(Type type, String actorId, String targetId, String skillName,
+                                 int value, boolean crit, String text) {
+        return new CombatEvent(type, actorId, targetId, skillName, value, crit, text);
+    }
+}
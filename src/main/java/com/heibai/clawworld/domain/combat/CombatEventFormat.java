@@ -0,0 +1,84 @@
+package com.heibai.clawworld.domain.combat;
+
+import java.util.function.Function;
+
+/**
+ * 战斗事件的渲染格式
+ * 不同的消费者可以选择不同的格式：
+ * - TEXT：面向玩家的中文文本，与原有战斗日志一致
+ * - COMPACT：面向智能体的紧凑格式，字段以空格分隔，角色用名称表示
+ */
+public enum CombatEventFormat {
+
+    TEXT {
+        @Override
+        public String render(CombatEvent event, Function<String, String> names) {
+            return switch (event.getType()) {
+                case TURN_START -> "=== 轮到 " + names.apply(event.getActorId()) + " 的回合 ===";
+                case WAITING -> names.apply(event.getActorId()) + " 等待行动...";
+                case SKIP_TURN -> names.apply(event.getActorId()) + " 跳过了回合";
+                case TURN_TIMEOUT -> names.apply(event.getActorId()) + " 回合超时，自动空过";
+                case RETREAT -> names.apply(event.getActorId()) + " 撤退了";
+                case AUTO_BATTLE -> names.apply(event.getActorId()) + " 开启了自动战斗";
+                case AUTO_BATTLE_OFF -> names.apply(event.getActorId()) + " 关闭了自动战斗";
+                case JOIN -> names.apply(event.getActorId()) + " 加入战斗！";
+                case FACTION_JOIN -> "阵营 " + event.getText() + " 加入战斗！";
+                case SKILL_SELF -> names.apply(event.getActorId()) + " 对自己使用了 " + event.getSkillName();
+                case SKILL_TARGET -> names.apply(event.getActorId()) + " 对 " + names.apply(event.getTargetId())
+                    + " 使用了 " + event.getSkillName();
+                case SKILL_AREA -> names.apply(event.getActorId()) + " 使用了 " + event.getSkillName();
+                case TARGET_INVALID -> "目标不存在或已死亡";
+                case HEAL -> names.apply(event.getTargetId()) + " 恢复了 " + event.getValue() + " 点生命值";
+                case DAMAGE -> "造成了 " + event.getValue() + " 点伤害" + (event.isCrit() ? "（暴击！）" : "");
+                case AREA_DAMAGE -> "对 " + names.apply(event.getTargetId()) + " 造成了 " + event.getValue() + " 点伤害"
+                    + (event.isCrit() ? "（暴击！）" : "");
+                case MISS -> "攻击未命中！";
+                case AREA_MISS -> "对 " + names.apply(event.getTargetId()) + " 的攻击未命中！";
+                case DEFEATED -> names.apply(event.getTargetId()) + " 被击败了！";
+                case AREA_SUMMARY -> "命中 " + event.getHitCount() + " 个目标，共造成 " + event.getValue() + " 点伤害"
+                    + (event.getCritCount() > 0 ? "（暴击 " + event.getCritCount() + " 次）" : "")
+                    + (event.getMissCount() > 0 ? "，" + event.getMissCount() + " 个目标未命中" : "");
+                case AREA_HEAL -> "为 " + event.getHitCount() + " 名友方共恢复了 " + event.getValue() + " 点生命值";
+                case TEXT -> event.getText();
+            };
+        }
+    },
+
+    COMPACT {
+        @Override
+        public String render(CombatEvent event, Function<String, String> names) {
+            return switch (event.getType()) {
+                case TURN_START -> "TURN " + names.apply(event.getActorId());
+                case WAITING -> "WAIT " + names.apply(event.getActorId());
+                case SKIP_TURN -> "SKIP " + names.apply(event.getActorId());
+                case TURN_TIMEOUT -> "TIMEOUT " + names.apply(event.getActorId());
+                case RETREAT -> "RETREAT " + names.apply(event.getActorId());
+                case AUTO_BATTLE -> "AUTO " + names.apply(event.getActorId());
+                case AUTO_BATTLE_OFF -> "AUTO_OFF " + names.apply(event.getActorId());
+                case JOIN -> "JOIN " + names.apply(event.getActorId());
+                case FACTION_JOIN -> "JOIN_FACTION " + event.getText();
+                case SKILL_SELF -> "CAST " + names.apply(event.getActorId()) + " " + event.getSkillName()
+                    + " " + names.apply(event.getActorId());
+                case SKILL_TARGET -> "CAST " + names.apply(event.getActorId()) + " " + event.getSkillName()
+                    + " " + names.apply(event.getTargetId());
+                case SKILL_AREA -> "CAST " + names.apply(event.getActorId()) + " " + event.getSkillName() + " *";
+                case TARGET_INVALID -> "INVALID_TARGET";
+                case HEAL -> "HEAL " + names.apply(event.getTargetId()) + " " + event.getValue();
+                case DAMAGE, AREA_DAMAGE -> "DMG " + names.apply(event.getTargetId()) + " " + event.getValue()
+                    + (event.isCrit() ? " CRIT" : "");
+                case MISS, AREA_MISS -> "MISS " + names.apply(event.getTargetId());
+                case DEFEATED -> "DEFEATED " + names.apply(event.getTargetId());
+                case AREA_SUMMARY -> "AREA_DMG " + event.getHitCount() + " " + event.getValue()
+                    + " CRIT " + event.getCritCount() + " MISS " + event.getMissCount();
+                case AREA_HEAL -> "AREA_HEAL " + event.getHitCount() + " " + event.getValue();
+                case TEXT -> event.getText();
+            };
+        }
+    };
+
+    /**
+     * 渲染事件
+     * @param names 角色ID到显示名称的解析函数
+     */
+    public abstract String render(CombatEvent event, Function<String, String> names);
+}
@@ -1,12 +1,18 @@
 package com.heibai.clawworld.domain.combat;
 
 import com.heibai.clawworld.domain.combat.Combat;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 /**
  * 战斗实例 - 代表一场独立的战斗
@@ -31,11 +37,11 @@ public class CombatInstance {
     // 行动条（key: 角色ID, value: 行动条进度）
     private Map<String, ActionBarEntry> actionBar;
 
-    // 战斗日志（带序列号）
-    private List<CombatLogEntry> combatLog;
+    // 战斗日志（分段追加，按序列号寻址）
+    private CombatLog combatLog;
 
-    // 日志序列号计数器
-    private int logSequence = 0;
+    // 每个参战者已确认的日志序列号（key: 角色ID, value: 序列号），用于增量返回日志
+    private Map<String, Integer> logCursors;
 
     // 伤害统计（用于判定战利品归属）
     private Map<String, DamageRecord> damageRecords;
@@ -46,28 +52,144 @@ public class CombatInstance {
     // 敌人是否需要重置状态（所有玩家撤退时为true）
     private boolean enemiesNeedReset;
 
+    // 最近发布的只读快照（由分片线程在状态变化后整体替换，读者无需加锁）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Combat snapshot;
+
+    // 最近发布的快照对应的日志序列号（与快照内容一起判断状态是否变化）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int snapshotLogSequence = -1;
+
+    // 随机种子和由其初始化的随机数生成器（命中、暴击、AI选技能、掉落都从这里取随机数）
+    // 只在战斗所属分片线程上使用，不需要同步
+    @Setter(AccessLevel.NONE)
+    private final long seed;
+
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final SplittableRandom random;
+
+    // 战斗录像（种子 + 按执行顺序记录的输入）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final CombatRecording recording;
+    // 录像的输入条数上限（为0时不记录录像），默认不限制（重放时使用），线上战斗由引擎按配置设置
+    private int recordingLimit = Integer.MAX_VALUE;
+
+    // 参战方加入顺序（存活视图按此顺序拼接，保证同一输入序列下目标顺序一致）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<FactionSlot> factionOrder = new ArrayList<>();
+
+    // 仍有存活成员的阵营数量，由参战方在整体存活状态翻转时维护
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int aliveFactionCount;
+
+    // 存活角色的实时视图（全部阵营 / 按阵营缓存的敌对视图），只在分片线程上读取
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<CombatCharacter> allAliveView = new AliveView(null);
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<String, List<CombatCharacter>> enemyViews = new ConcurrentHashMap<>();
+
+    // 全部参战方中的玩家、敌人和角色总数，在参战方加入、替换和新增成员时增量维护
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int playerCount;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int enemyCount;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int memberCount;
+
+    // 开启了自动战斗的玩家（key: 角色ID, value: 策略）
+    private Map<String, AutoBattlePolicy> autoBattlePolicies = new ConcurrentHashMap<>();
+
+    // 最近一次生成检查点时的日志序列号（没有新日志说明战斗过程没有推进）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int checkpointSequence = -1;
+
+    // 自上次生成检查点以来是否有不产生日志的状态变化（自动战斗策略、日志确认位置）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean checkpointDirty;
+
     // 战斗超时时间（10分钟）
     private static final long COMBAT_TIMEOUT_MS = 10 * 60 * 1000;
 
+    // 参战角色达到该数量时视为大规模战斗
+    public static final int RAID_PARTICIPANT_THRESHOLD = 16;
+
     public CombatInstance(String combatId, String mapId) {
+        this(combatId, mapId, ThreadLocalRandom.current().nextLong());
+    }
+
+    public CombatInstance(String combatId, String mapId, long seed) {
         this.combatId = combatId;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.recording = new CombatRecording(combatId, mapId, seed);
         this.mapId = mapId;
         this.startTime = System.currentTimeMillis();
         this.status = Combat.CombatStatus.ONGOING;
         this.combatType = CombatType.UNKNOWN; // 默认未知，需要在添加参战方时判断
         this.parties = new ConcurrentHashMap<>();
         this.actionBar = new ConcurrentHashMap<>();
-        this.combatLog = Collections.synchronizedList(new ArrayList<>());
+        this.combatLog = new CombatLog(this::resolveCharacterName);
+        this.logCursors = new ConcurrentHashMap<>();
         this.damageRecords = new ConcurrentHashMap<>();
-        this.logSequence = 0;
+        publishSnapshot();
     }
 
     /**
      * 添加参战方
      */
     public void addParty(String factionId, CombatParty party) {
-        parties.put(factionId, party);
-        addLog("阵营 " + factionId + " 加入战斗！");
+        CombatParty previous = parties.put(factionId, party);
+        if (previous != null) {
+            detachParty(previous);
+        }
+        attachParty(factionId, party);
+
+        // 新加入的角色只需要看到加入之后的日志
+        for (CombatCharacter character : party.getCharacters()) {
+            acknowledgeLog(character.getCharacterId(), getLastLogSequence());
+        }
+        addEvent(CombatEvent.factionJoin(factionId));
 
         // 初始化该阵营所有角色的行动条
         for (CombatCharacter character : party.getCharacters()) {
@@ -75,36 +197,47 @@ public class CombatInstance {
             actionBar.put(character.getCharacterId(), entry);
         }
 
-        // 判断战斗类型
-        updateCombatType();
     }
 
     /**
-     * 更新战斗类型
+     * 参战方成员组成变化（由参战方在加入、替换成员时回调，或在绑定/解绑参战方时调用）
+     * 战斗类型和规模按计数增量维护，不需要重新扫描全部参战方
      */
-    private void updateCombatType() {
-        boolean hasPlayer = false;
-        boolean hasEnemy = false;
-
-        for (CombatParty party : parties.values()) {
-            for (CombatCharacter character : party.getCharacters()) {
-                if (character.isPlayer()) {
-                    hasPlayer = true;
-                } else if (character.isEnemy()) {
-                    hasEnemy = true;
-                }
-            }
-        }
+    void onPartyMembersChanged(int playerDelta, int enemyDelta, int memberDelta) {
+        playerCount += playerDelta;
+        enemyCount += enemyDelta;
+        memberCount += memberDelta;
+        refreshCombatType();
+    }
 
-        if (hasPlayer && hasEnemy) {
+    /**
+     * 根据玩家和敌人数量更新战斗类型
+     */
+    private void refreshCombatType() {
+        if (playerCount > 0 && enemyCount > 0) {
             combatType = CombatType.PVE;
-        } else if (hasPlayer) {
+        } else if (playerCount > 0) {
             combatType = CombatType.PVP;
         } else {
             combatType = CombatType.UNKNOWN;
         }
     }
 
+    /**
+     * 参战角色总数（含已死亡和撤退的角色）
+     */
+    public int getParticipantCount() {
+        return memberCount;
+    }
+
+    /**
+     * 是否为大规模战斗
+     * 大规模战斗中群体技能只记录汇总日志，并按批量方式结算伤害
+     */
+    public boolean isRaid() {
+        return memberCount >= RAID_PARTICIPANT_THRESHOLD;
+    }
+
     /**
      * 战斗类型
      */
@@ -122,13 +255,70 @@ public class CombatInstance {
         if (party == null) {
             party = new CombatParty(factionId);
             parties.put(factionId, party);
+            attachParty(factionId, party);
         }
 
         party.addCharacter(character);
         ActionBarEntry entry = new ActionBarEntry(character.getCharacterId(), character.getSpeed());
         actionBar.put(character.getCharacterId(), entry);
+        acknowledgeLog(character.getCharacterId(), getLastLogSequence());
 
-        addLog(character.getName() + " 加入战斗！");
+        addEvent(CombatEvent.actor(CombatEvent.Type.JOIN, character.getCharacterId()));
+    }
+
+    private void attachParty(String factionId, CombatParty party) {
+        party.attachTo(this);
+        factionOrder.add(new FactionSlot(factionId, party));
+        if (party.hasAliveCharacters()) {
+            aliveFactionCount++;
+        }
+        onPartyMembersChanged(party.countPlayers(), party.countEnemies(), party.getCharacters().size());
+    }
+
+    private void detachParty(CombatParty party) {
+        factionOrder.removeIf(slot -> slot.party() == party);
+        if (party.hasAliveCharacters()) {
+            aliveFactionCount--;
+        }
+        onPartyMembersChanged(-party.countPlayers(), -party.countEnemies(), -party.getCharacters().size());
+        party.attachTo(null);
+    }
+
+    /**
+     * 阵营整体存活状态翻转（由参战方回调）
+     */
+    void onFactionLifeStateChanged(boolean alive) {
+        aliveFactionCount += alive ? 1 : -1;
+    }
+
+    /**
+     * 为玩家开启自动战斗
+     */
+    public void enableAutoBattle(String characterId, AutoBattlePolicy policy) {
+        autoBattlePolicies.put(characterId, policy);
+        checkpointDirty = true;
+        addEvent(CombatEvent.actor(CombatEvent.Type.AUTO_BATTLE, characterId));
+    }
+
+    /**
+     * 为玩家关闭自动战斗，之后轮到该玩家时恢复等待指令和回合超时计时
+     * @return 是否关闭成功；未开启自动战斗时返回false
+     */
+    public boolean disableAutoBattle(String characterId) {
+        if (autoBattlePolicies.remove(characterId) == null) {
+            return false;
+        }
+        checkpointDirty = true;
+        addEvent(CombatEvent.actor(CombatEvent.Type.AUTO_BATTLE_OFF, characterId));
+        return true;
+    }
+
+    /**
+     * 获取玩家的自动战斗策略
+     * @return 策略；未开启自动战斗时返回null
+     */
+    public AutoBattlePolicy getAutoBattlePolicy(String characterId) {
+        return autoBattlePolicies.get(characterId);
     }
 
     /**
@@ -143,19 +333,19 @@ public class CombatInstance {
      * 根据设计文档：只剩一个阵营存活时战斗结束
      */
     public boolean isFinished() {
-        long aliveFactionsCount = parties.values().stream()
-            .filter(CombatParty::hasAliveCharacters)
-            .count();
-        return aliveFactionsCount <= 1;
+        return aliveFactionCount <= 1;
     }
 
     /**
      * 获取胜利方
      */
     public Optional<CombatParty> getWinner() {
-        return parties.values().stream()
-            .filter(CombatParty::hasAliveCharacters)
-            .findFirst();
+        for (FactionSlot slot : factionOrder) {
+            if (slot.party().hasAliveCharacters()) {
+                return Optional.of(slot.party());
+            }
+        }
+        return Optional.empty();
     }
 
     /**
@@ -314,75 +504,479 @@ public class CombatInstance {
      * 添加战斗日志
      */
     public void addLog(String logMessage) {
-        CombatLogEntry entry = new CombatLogEntry(++logSequence, System.currentTimeMillis(), logMessage);
-        combatLog.add(entry);
-        log.info("[战斗 {}] #{} {}", combatId, entry.getSequence(), logMessage);
+        addEvent(CombatEvent.text(logMessage));
+    }
+
+    /**
+     * 记录结构化战斗事件（文本在读取时才渲染）
+     */
+    public void addEvent(CombatEvent event) {
+        CombatLogEntry entry = combatLog.append(System.currentTimeMillis(), event);
+        if (log.isDebugEnabled()) {
+            log.debug("[战斗 {}] #{} {}", combatId, entry.getSequence(), entry.getMessage());
+        }
+    }
+
+    /**
+     * 解析角色显示名称（找不到角色时使用ID）
+     */
+    private String resolveCharacterName(String characterId) {
+        if (characterId == null) {
+            return "";
+        }
+        CombatCharacter character = findCharacter(characterId);
+        return character != null ? character.getName() : characterId;
+    }
+
+    /**
+     * 获取当前参战角色的ID到名称的映射
+     */
+    public Map<String, String> getCharacterNames() {
+        Map<String, String> names = new HashMap<>(memberCount * 2);
+        for (CombatParty party : parties.values()) {
+            for (CombatCharacter character : party.getCharacters()) {
+                names.put(character.getCharacterId(), character.getName());
+            }
+        }
+        return names;
     }
 
     /**
-     * 获取从指定序列号之后的日志（增量获取）
+     * 获取从指定序列号之后的日志（增量获取，只读视图）
      */
     public List<CombatLogEntry> getLogsSince(int lastSequence) {
-        return combatLog.stream()
-            .filter(entry -> entry.getSequence() > lastSequence)
-            .collect(Collectors.toList());
+        return combatLog.since(lastSequence);
     }
 
     /**
-     * 获取所有日志
+     * 获取所有保留的日志（只读视图）
      */
     public List<CombatLogEntry> getAllLogs() {
-        return new ArrayList<>(combatLog);
+        return combatLog.all();
+    }
+
+    /**
+     * 获取最新的日志序列号
+     */
+    public int getLastLogSequence() {
+        return combatLog.getLastSequence();
+    }
+
+    /**
+     * 发布当前状态的只读快照（仅由战斗所属分片线程调用）
+     * 快照构建完成后通过volatile引用整体替换，读者拿到的总是一致的某个状态；
+     * 与上一份快照相比状态没有变化时不重新构建，状态没有变化的角色直接复用上一份快照中的对象
+     * @return 是否发布了新的快照
+     */
+    public boolean publishSnapshot() {
+        Combat previous = snapshot;
+        if (previous != null && !hasChangedSince(previous)) {
+            return false;
+        }
+        Map<String, Combat.CombatCharacter> previousCharacters = new HashMap<>();
+        if (previous != null) {
+            for (Combat.CombatParty party : previous.getParties()) {
+                for (Combat.CombatCharacter character : party.getCharacters()) {
+                    previousCharacters.put(character.getCharacterId(), character);
+                }
+            }
+        }
+
+        List<Combat.CombatParty> partySnapshots = new ArrayList<>(parties.size());
+        for (Map.Entry<String, CombatParty> entry : parties.entrySet()) {
+            List<CombatCharacter> members = entry.getValue().getCharacters();
+            List<Combat.CombatCharacter> characters = new ArrayList<>(members.size());
+            for (CombatCharacter cc : members) {
+                Combat.CombatCharacter reused = previousCharacters.get(cc.getCharacterId());
+                characters.add(reused != null && isUnchanged(reused, cc) ? reused : toSnapshot(cc));
+            }
+            partySnapshots.add(Combat.CombatParty.builder()
+                .faction(entry.getKey())
+                .characters(Collections.unmodifiableList(characters))
+                .build());
+        }
+
+        // 行动条按进度排序
+        List<Combat.ActionBarEntry> actionBarEntries = new ArrayList<>(actionBar.size());
+        for (ActionBarEntry abEntry : actionBar.values()) {
+            actionBarEntries.add(new Combat.ActionBarEntry(abEntry.getCharacterId(), abEntry.getProgress()));
+        }
+        actionBarEntries.sort((a, b) -> Integer.compare(b.getProgress(), a.getProgress()));
+
+        snapshotLogSequence = getLastLogSequence();
+        Map<String, String> names = getCharacterNames();
+        snapshot = Combat.builder()
+            .id(combatId)
+            .version(previous != null ? previous.getVersion() + 1 : 1)
+            .mapId(mapId)
+            .startTime(startTime)
+            .status(status)
+            .currentTurnCharacterId(getCurrentTurnCharacterId().orElse(null))
+            // 日志使用只读视图，按发布时的角色名称按需格式化
+            .combatLog(combatLog.formattedSnapshot(id -> id == null ? "" : names.getOrDefault(id, id)))
+            .parties(Collections.unmodifiableList(partySnapshots))
+            .actionBar(Collections.unmodifiableList(actionBarEntries))
+            .build();
+        return true;
+    }
+
+    /**
+     * 当前状态与上一份快照相比是否有变化（只比较，不分配对象）
+     */
+    private boolean hasChangedSince(Combat previous) {
+        if (getLastLogSequence() != snapshotLogSequence
+            || status != previous.getStatus()
+            || !Objects.equals(startTime, previous.getStartTime())
+            || parties.size() != previous.getParties().size()
+            || actionBar.size() != previous.getActionBar().size()
+            || !Objects.equals(getCurrentTurnCharacterId().orElse(null), previous.getCurrentTurnCharacterId())) {
+            return true;
+        }
+        for (Combat.ActionBarEntry entry : previous.getActionBar()) {
+            ActionBarEntry current = actionBar.get(entry.getCharacterId());
+            if (current == null || current.getProgress() != entry.getProgress()) {
+                return true;
+            }
+        }
+        for (Combat.CombatParty party : previous.getParties()) {
+            CombatParty current = parties.get(party.getFaction());
+            if (current == null || current.getCharacters().size() != party.getCharacters().size()) {
+                return true;
+            }
+            for (int i = 0; i < party.getCharacters().size(); i++) {
+                Combat.CombatCharacter character = party.getCharacters().get(i);
+                CombatCharacter cc = current.getCharacters().get(i);
+                if (!character.getCharacterId().equals(cc.getCharacterId()) || !isUnchanged(character, cc)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Combat.CombatCharacter toSnapshot(CombatCharacter cc) {
+        List<Combat.SkillCooldown> cooldowns = List.of();
+        Map<String, Integer> skillCooldowns = cc.getSkillCooldowns();
+        if (skillCooldowns != null && !skillCooldowns.isEmpty()) {
+            List<Combat.SkillCooldown> list = new ArrayList<>(skillCooldowns.size());
+            for (Map.Entry<String, Integer> cdEntry : skillCooldowns.entrySet()) {
+                list.add(new Combat.SkillCooldown(cdEntry.getKey(), cdEntry.getValue()));
+            }
+            cooldowns = Collections.unmodifiableList(list);
+        }
+        return Combat.CombatCharacter.builder()
+            .characterId(cc.getCharacterId())
+            .characterType(cc.getCharacterType())
+            .name(cc.getName())
+            .currentHealth(cc.getCurrentHealth())
+            .maxHealth(cc.getMaxHealth())
+            .currentMana(cc.getCurrentMana())
+            .maxMana(cc.getMaxMana())
+            .speed(cc.getSpeed())
+            .dead(!cc.isAlive())
+            .skillCooldowns(cooldowns)
+            .build();
+    }
+
+    private boolean isUnchanged(Combat.CombatCharacter previous, CombatCharacter cc) {
+        if (previous.getCurrentHealth() != cc.getCurrentHealth()
+            || previous.getMaxHealth() != cc.getMaxHealth()
+            || previous.getCurrentMana() != cc.getCurrentMana()
+            || previous.getMaxMana() != cc.getMaxMana()
+            || previous.getSpeed() != cc.getSpeed()
+            || previous.isDead() == cc.isAlive()) {
+            return false;
+        }
+        Map<String, Integer> skillCooldowns = cc.getSkillCooldowns();
+        int size = skillCooldowns != null ? skillCooldowns.size() : 0;
+        if (previous.getSkillCooldowns().size() != size) {
+            return false;
+        }
+        for (Combat.SkillCooldown cooldown : previous.getSkillCooldowns()) {
+            Integer current = skillCooldowns.get(cooldown.getSkillId());
+            if (current == null || current != cooldown.getRemainingTurns()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取最近发布的只读快照（任意线程可调用，不加锁，不复制）
+     * 快照及其中的列表不可修改；状态没有变化时返回同一个对象
+     */
+    public Combat getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 状态有变化时生成检查点（仅由战斗所属分片线程调用）
+     * @return 检查点；自上次生成以来没有新日志也没有其他状态变化时返回null
+     */
+    public CombatCheckpoint checkpointIfChanged() {
+        int sequence = getLastLogSequence();
+        if (sequence == checkpointSequence && !checkpointDirty) {
+            return null;
+        }
+        checkpointSequence = sequence;
+        checkpointDirty = false;
+        return toCheckpoint();
+    }
+
+    /**
+     * 生成检查点（仅由战斗所属分片线程调用）
+     * 角色、行动条和伤害统计都复制一份，检查点之后可以交给其他线程读取
+     */
+    public CombatCheckpoint toCheckpoint() {
+        CombatCheckpoint checkpoint = new CombatCheckpoint();
+        checkpoint.setCombatId(combatId);
+        checkpoint.setMapId(mapId);
+        checkpoint.setStartTime(startTime);
+        checkpoint.setCombatType(combatType);
+        checkpoint.setLastLogSequence(getLastLogSequence());
+        checkpoint.setSavedAt(System.currentTimeMillis());
+
+        for (FactionSlot slot : factionOrder) {
+            CombatCheckpoint.Faction faction = new CombatCheckpoint.Faction();
+            faction.setFactionId(slot.factionId());
+            for (CombatCharacter character : slot.party().getCharacters()) {
+                faction.getCharacters().add(character.copy());
+            }
+            checkpoint.getFactions().add(faction);
+        }
+        for (ActionBarEntry entry : actionBar.values()) {
+            checkpoint.getActionBar().add(entry.copy());
+        }
+        for (DamageRecord record : damageRecords.values()) {
+            checkpoint.getDamageRecords().add(record.copy());
+        }
+        checkpoint.getLogCursors().putAll(logCursors);
+        checkpoint.getAutoBattlePolicies().putAll(autoBattlePolicies);
+        return checkpoint;
+    }
+
+    /**
+     * 从检查点恢复战斗实例
+     * 恢复的战斗使用新的随机种子，缺少恢复前的输入，录像标记为不完整（不能重放）；
+     * 日志从检查点的序列号之后继续编号，参战者的确认位置保持不变
+     */
+    public static CombatInstance fromCheckpoint(CombatCheckpoint checkpoint) {
+        CombatInstance combat = new CombatInstance(checkpoint.getCombatId(), checkpoint.getMapId());
+        combat.startTime = checkpoint.getStartTime();
+        combat.combatLog.continueFrom(checkpoint.getLastLogSequence());
+        combat.recording.markTruncated();
+
+        for (CombatCheckpoint.Faction faction : checkpoint.getFactions()) {
+            CombatParty party = new CombatParty(faction.getFactionId());
+            for (CombatCharacter character : faction.getCharacters()) {
+                party.addCharacter(character.copy());
+            }
+            combat.parties.put(faction.getFactionId(), party);
+            combat.attachParty(faction.getFactionId(), party);
+        }
+        for (ActionBarEntry entry : checkpoint.getActionBar()) {
+            combat.actionBar.put(entry.getCharacterId(), entry.copy());
+        }
+        for (DamageRecord record : checkpoint.getDamageRecords()) {
+            combat.damageRecords.put(record.getTargetId(), record.copy());
+        }
+        combat.logCursors.putAll(checkpoint.getLogCursors());
+        combat.autoBattlePolicies.putAll(checkpoint.getAutoBattlePolicies());
+        if (checkpoint.getCombatType() != null) {
+            combat.combatType = checkpoint.getCombatType();
+        } else {
+            combat.refreshCombatType();
+        }
+        combat.checkpointSequence = checkpoint.getLastLogSequence();
+        combat.publishSnapshot();
+        return combat;
+    }
+
+    /**
+     * 记录一条外部输入（仅由战斗所属分片线程调用）
+     */
+    public void record(CombatRecording.Input input) {
+        recording.record(input, recordingLimit);
+    }
+
+    /**
+     * 导出当前的战斗录像副本，附带日志序列号和状态指纹用于重放校验（仅由战斗所属分片线程调用）
+     */
+    public CombatRecording exportRecording() {
+        return recording.export(getLastLogSequence(), CombatRecording.fingerprint(this));
+    }
+
+    /**
+     * 获取参战者已确认的日志序列号
+     */
+    public int getLogCursor(String participantId) {
+        return logCursors.getOrDefault(participantId, 0);
+    }
+
+    /**
+     * 确认参战者已经看到指定序列号之前的日志（只会前进，不会后退）
+     */
+    public void acknowledgeLog(String participantId, int sequence) {
+        Integer previous = logCursors.get(participantId);
+        if (previous == null || sequence > previous) {
+            logCursors.put(participantId, sequence);
+            checkpointDirty = true;
+        }
+    }
+
+    /**
+     * 获取参战者尚未确认的日志（只读视图）
+     */
+    public List<CombatLogEntry> getUnacknowledgedLogs(String participantId) {
+        return combatLog.since(getLogCursor(participantId));
     }
 
     /**
      * 战斗日志条目
      */
-    @Data
+    @Getter
     public static class CombatLogEntry {
         private final int sequence;      // 序列号
         private final long timestamp;    // 时间戳
-        private final String message;    // 日志内容
-
-        public CombatLogEntry(int sequence, long timestamp, String message) {
+        private final CombatEvent event; // 结构化事件
+        @Getter(AccessLevel.NONE)
+        private final Function<String, String> nameResolver;
+        @Getter(AccessLevel.NONE)
+        private String message;          // 文本内容（首次使用时渲染）
+        @Getter(AccessLevel.NONE)
+        private String formatted;        // 带序列号的显示格式（首次使用时生成）
+
+        public CombatLogEntry(int sequence, long timestamp, CombatEvent event, Function<String, String> nameResolver) {
             this.sequence = sequence;
             this.timestamp = timestamp;
-            this.message = message;
+            this.event = event;
+            this.nameResolver = nameResolver;
+        }
+
+        /**
+         * 获取文本内容，只渲染一次
+         */
+        public String getMessage() {
+            String result = message;
+            if (result == null) {
+                result = CombatEventFormat.TEXT.render(event, nameResolver);
+                message = result;
+            }
+            return result;
+        }
+
+        /**
+         * 按指定格式渲染事件内容（不带序列号）
+         */
+        public String render(CombatEventFormat format) {
+            return format == CombatEventFormat.TEXT ? getMessage() : format.render(event, nameResolver);
+        }
+
+        /**
+         * 获取显示格式 "[#序号] 内容"，只格式化一次
+         */
+        public String getFormatted() {
+            String result = formatted;
+            if (result == null) {
+                result = "[#" + sequence + "] " + getMessage();
+                formatted = result;
+            }
+            return result;
+        }
+
+        /**
+         * 使用指定的名称解析生成显示格式 "[#序号] 内容"（不读写渲染缓存）
+         */
+        public String format(Function<String, String> names) {
+            return "[#" + sequence + "] " + CombatEventFormat.TEXT.render(event, names);
+        }
+
+        /**
+         * 生成不再引用战斗实例的副本（战斗结束后缓存日志时使用）
+         * 副本的文本在首次读取时按结束时的名称渲染，没人读取的条目不会渲染
+         * @param names 战斗结束时解析好的角色ID到名称的映射
+         */
+        public CombatLogEntry detach(Map<String, String> names) {
+            return new CombatLogEntry(sequence, timestamp, event,
+                id -> id == null ? "" : names.getOrDefault(id, id));
         }
     }
 
     /**
      * 获取所有存活的角色
+     * 返回只读的实时视图：角色死亡后立即从视图中消失，遍历时如需修改存活状态请按下标处理
      */
     public List<CombatCharacter> getAllAliveCharacters() {
-        return parties.values().stream()
-            .flatMap(party -> party.getCharacters().stream())
-            .filter(CombatCharacter::isAlive)
-            .collect(Collectors.toList());
+        return allAliveView;
     }
 
     /**
-     * 获取指定阵营的所有存活角色
+     * 获取指定阵营的所有存活角色（只读的实时视图）
      */
     public List<CombatCharacter> getAliveCharactersInFaction(String factionId) {
         CombatParty party = parties.get(factionId);
         if (party == null) {
             return Collections.emptyList();
         }
-        return party.getCharacters().stream()
-            .filter(CombatCharacter::isAlive)
-            .collect(Collectors.toList());
+        return party.getAliveCharacters();
     }
 
     /**
-     * 获取敌对阵营的所有存活角色
+     * 获取敌对阵营的所有存活角色（只读的实时视图，按阵营缓存，不会复制）
      */
     public List<CombatCharacter> getEnemyCharacters(String factionId) {
-        return parties.entrySet().stream()
-            .filter(entry -> !entry.getKey().equals(factionId))
-            .flatMap(entry -> entry.getValue().getCharacters().stream())
-            .filter(CombatCharacter::isAlive)
-            .collect(Collectors.toList());
+        List<CombatCharacter> view = enemyViews.get(factionId);
+        if (view == null) {
+            view = new AliveView(factionId);
+            enemyViews.put(factionId, view);
+        }
+        return view;
+    }
+
+    /**
+     * 阵营ID和参战方
+     */
+    private record FactionSlot(String factionId, CombatParty party) {
+    }
+
+    /**
+     * 按阵营加入顺序拼接各参战方存活成员的只读视图
+     */
+    private final class AliveView extends AbstractList<CombatCharacter> {
+        private final String excludedFactionId; // 排除的阵营（null表示不排除）
+
+        private AliveView(String excludedFactionId) {
+            this.excludedFactionId = excludedFactionId;
+        }
+
+        @Override
+        public CombatCharacter get(int index) {
+            int remaining = index;
+            for (int i = 0; i < factionOrder.size(); i++) {
+                FactionSlot slot = factionOrder.get(i);
+                if (slot.factionId().equals(excludedFactionId)) {
+                    continue;
+                }
+                List<CombatCharacter> alive = slot.party().getAliveCharacters();
+                if (remaining < alive.size()) {
+                    return alive.get(remaining);
+                }
+                remaining -= alive.size();
+            }
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int i = 0; i < factionOrder.size(); i++) {
+                FactionSlot slot = factionOrder.get(i);
+                if (!slot.factionId().equals(excludedFactionId)) {
+                    size += slot.party().getAliveCount();
+                }
+            }
+            return size;
+        }
     }
 
     /**
@@ -436,6 +1030,12 @@ public class CombatInstance {
                 progress = 0;
             }
         }
+
+        public ActionBarEntry copy() {
+            ActionBarEntry copy = new ActionBarEntry(characterId, speed);
+            copy.progress = progress;
+            return copy;
+        }
     }
 
     /**
@@ -453,6 +1053,14 @@ public class CombatInstance {
             this.damageByFaction = new HashMap<>();
         }
 
+        public DamageRecord copy() {
+            DamageRecord copy = new DamageRecord(targetId);
+            copy.damageByFaction.putAll(damageByFaction);
+            copy.lastAttackerFaction = lastAttackerFaction;
+            copy.firstAttackerFaction = firstAttackerFaction;
+            return copy;
+        }
+
         public void addDamage(String factionId, int damage) {
             damageByFaction.merge(factionId, damage, Integer::sum);
             lastAttackerFaction = factionId;
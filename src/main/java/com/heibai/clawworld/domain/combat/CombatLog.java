@@ -0,0 +1,209 @@
+package com.heibai.clawworld.domain.combat;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * 分段追加式战斗日志
+ *
+ * 设计要点：
+ * 1. 日志按序列号寻址（从1开始连续递增），按固定大小分段存储
+ * 2. 单写者：只有战斗所属分片线程会追加日志，追加无锁
+ * 3. 读取增量日志时返回只读视图，不复制条目
+ * 4. 只保留最近若干段，超长战斗的日志内存有上限；读取已淘汰的序列号时从最早保留的日志开始返回
+ * 5. 条目保存结构化事件，文本在读取时才渲染
+ */
+public class CombatLog {
+
+    // 每段日志条数
+    static final int SEGMENT_SIZE = 64;
+
+    // 默认最多保留的段数（64 * 64 = 4096条）
+    static final int DEFAULT_MAX_SEGMENTS = 64;
+
+    private final int maxSegments;
+
+    // 角色ID到显示名称的解析函数（渲染事件文本时使用）
+    private final Function<String, String> nameResolver;
+
+    // 段目录（追加新段或淘汰旧段时整体替换，已发布的段内容不再修改）
+    private volatile Directory directory = new Directory(new CombatInstance.CombatLogEntry[0][], 0);
+
+    // 已发布的最大序列号（写入条目后再更新，保证读者看到的条目都已写完）
+    private volatile int lastSequence = 0;
+
+    // 最早可读取的序列号（从检查点恢复的日志不含恢复前的条目）
+    private volatile int floorSequence = 1;
+
+    public CombatLog() {
+        this(DEFAULT_MAX_SEGMENTS);
+    }
+
+    public CombatLog(int maxSegments) {
+        this(maxSegments, Function.identity());
+    }
+
+    public CombatLog(Function<String, String> nameResolver) {
+        this(DEFAULT_MAX_SEGMENTS, nameResolver);
+    }
+
+    public CombatLog(int maxSegments, Function<String, String> nameResolver) {
+        this.maxSegments = Math.max(1, maxSegments);
+        this.nameResolver = nameResolver;
+    }
+
+    /**
+     * 从指定序列号之后继续编号（仅在日志为空时调用，用于从检查点恢复战斗）
+     * 恢复前的条目不再保留，读取它们时返回恢复之后的日志
+     */
+    public void continueFrom(int sequence) {
+        if (lastSequence != 0) {
+            throw new IllegalStateException("日志不为空，无法重新设置序列号");
+        }
+        directory = new Directory(new CombatInstance.CombatLogEntry[0][], sequence / SEGMENT_SIZE);
+        floorSequence = sequence + 1;
+        lastSequence = sequence;
+    }
+
+    /**
+     * 追加文本日志（仅由战斗所属分片线程调用）
+     */
+    public CombatInstance.CombatLogEntry append(long timestamp, String message) {
+        return append(timestamp, CombatEvent.text(message));
+    }
+
+    /**
+     * 追加结构化事件（仅由战斗所属分片线程调用）
+     */
+    public CombatInstance.CombatLogEntry append(long timestamp, CombatEvent event) {
+        int sequence = lastSequence + 1;
+        int index = sequence - 1;
+        int segmentIndex = index / SEGMENT_SIZE;
+
+        Directory dir = directory;
+        if (segmentIndex - dir.baseSegment >= dir.segments.length) {
+            dir = dir.withNewSegment(maxSegments);
+            directory = dir;
+        }
+
+        CombatInstance.CombatLogEntry entry = new CombatInstance.CombatLogEntry(sequence, timestamp, event, nameResolver);
+        dir.segments[segmentIndex - dir.baseSegment][index % SEGMENT_SIZE] = entry;
+        lastSequence = sequence;
+        return entry;
+    }
+
+    /**
+     * 获取最新的日志序列号
+     */
+    public int getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * 获取仍然保留的最早日志序列号（没有日志时为lastSequence + 1）
+     */
+    public int getFirstSequence() {
+        int last = lastSequence;
+        return Math.min(Math.max(directory.baseSegment * SEGMENT_SIZE + 1, floorSequence), last + 1);
+    }
+
+    /**
+     * 获取指定序列号之后的日志（只读视图，不复制）
+     */
+    public List<CombatInstance.CombatLogEntry> since(int sequence) {
+        int last = lastSequence;
+        Directory dir = directory;
+        int from = Math.max(Math.max(sequence + 1, dir.baseSegment * SEGMENT_SIZE + 1), floorSequence);
+        if (from > last) {
+            return List.of();
+        }
+        return new View(dir, from, last);
+    }
+
+    /**
+     * 获取所有保留的日志（只读视图，不复制）
+     */
+    public List<CombatInstance.CombatLogEntry> all() {
+        return since(0);
+    }
+
+    /**
+     * 获取所有保留日志的显示格式（发布快照时调用，只读视图，不复制）
+     * 条目本身不可变，文本使用调用方捕获的名称解析渲染，不读写条目上的渲染缓存，
+     * 其他线程读取时不会访问战斗实例
+     * @param names 发布时捕获的角色ID到名称的解析函数
+     */
+    public List<String> formattedSnapshot(Function<String, String> names) {
+        List<CombatInstance.CombatLogEntry> entries = all();
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return entries.get(index).format(names);
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    /**
+     * 当前保留的日志条数
+     */
+    public int size() {
+        return lastSequence - getFirstSequence() + 1;
+    }
+
+    /**
+     * 段目录
+     * @param segments 保留的段
+     * @param baseSegment segments[0]对应的全局段号
+     */
+    private record Directory(CombatInstance.CombatLogEntry[][] segments, int baseSegment) {
+
+        Directory withNewSegment(int maxSegments) {
+            int drop = segments.length + 1 > maxSegments ? segments.length + 1 - maxSegments : 0;
+            CombatInstance.CombatLogEntry[][] next = Arrays.copyOfRange(segments, drop, segments.length + 1);
+            next[next.length - 1] = new CombatInstance.CombatLogEntry[SEGMENT_SIZE];
+            return new Directory(next, baseSegment + drop);
+        }
+
+        CombatInstance.CombatLogEntry get(int sequence) {
+            int index = sequence - 1;
+            return segments[index / SEGMENT_SIZE - baseSegment][index % SEGMENT_SIZE];
+        }
+    }
+
+    /**
+     * 序列号区间[from, to]的只读视图
+     * 持有创建时的段目录，后续的追加和淘汰不影响已创建的视图
+     */
+    private static class View extends AbstractList<CombatInstance.CombatLogEntry> implements RandomAccess {
+        private final Directory directory;
+        private final int from;
+        private final int to;
+
+        View(Directory directory, int from, int to) {
+            this.directory = directory;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public CombatInstance.CombatLogEntry get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return directory.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from + 1;
+        }
+    }
+}
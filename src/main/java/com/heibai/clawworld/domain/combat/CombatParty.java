@@ -1,34 +1,196 @@
 package com.heibai.clawworld.domain.combat;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * 参战方 - 代表战斗中的一个阵营
+ * 存活成员在角色存活状态翻转时增量维护，查询存活情况不需要扫描全部成员
  */
 @Data
 public class CombatParty {
     private String factionId;
+
+    @Setter(AccessLevel.NONE)
     private List<CombatCharacter> characters;
 
+    // 存活成员（保持加入顺序）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<CombatCharacter> aliveCharacters = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<CombatCharacter> aliveView = Collections.unmodifiableList(aliveCharacters);
+
+    // 存活的玩家成员数量（抢怪保护只需检查有存活玩家的阵营）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int alivePlayerCount;
+
+    // 所属战斗（阵营整体存活状态和成员组成变化时通知）
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private CombatInstance combat;
+
     public CombatParty(String factionId) {
         this.factionId = factionId;
         this.characters = new ArrayList<>();
     }
 
+    /**
+     * 获取全部成员（只读视图）
+     */
+    public List<CombatCharacter> getCharacters() {
+        return Collections.unmodifiableList(characters);
+    }
+
+    public void setCharacters(List<CombatCharacter> characters) {
+        boolean hadAlive = hasAliveCharacters();
+        if (combat != null) {
+            combat.onPartyMembersChanged(-countPlayers(), -countEnemies(), -this.characters.size());
+        }
+        this.characters = new ArrayList<>();
+        for (CombatCharacter character : characters) {
+            this.characters.add(character);
+            character.attachTo(this);
+        }
+        rebuildAliveCharacters();
+        if (combat != null) {
+            combat.onPartyMembersChanged(countPlayers(), countEnemies(), this.characters.size());
+        }
+        notifyCombat(hadAlive);
+    }
+
     public void addCharacter(CombatCharacter character) {
+        boolean hadAlive = hasAliveCharacters();
         characters.add(character);
+        character.attachTo(this);
+        if (character.isAlive()) {
+            aliveCharacters.add(character);
+            if (character.isPlayer()) {
+                alivePlayerCount++;
+            }
+        }
+        if (combat != null) {
+            combat.onPartyMembersChanged(character.isPlayer() ? 1 : 0, character.isEnemy() ? 1 : 0, 1);
+        }
+        notifyCombat(hadAlive);
     }
 
     public boolean hasAliveCharacters() {
-        return characters.stream().anyMatch(CombatCharacter::isAlive);
+        return !aliveCharacters.isEmpty();
+    }
+
+    /**
+     * 存活成员数量
+     */
+    public int getAliveCount() {
+        return aliveCharacters.size();
+    }
+
+    /**
+     * 存活的玩家成员数量
+     */
+    public int getAlivePlayerCount() {
+        return alivePlayerCount;
+    }
+
+    /**
+     * 全部成员中的玩家数量
+     */
+    int countPlayers() {
+        int count = 0;
+        for (CombatCharacter character : characters) {
+            if (character.isPlayer()) {
+                count++;
+            }
+        }
+        return count;
     }
 
+    /**
+     * 全部成员中的敌人数量
+     */
+    int countEnemies() {
+        int count = 0;
+        for (CombatCharacter character : characters) {
+            if (character.isEnemy()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取存活成员（只读的实时视图，随角色存活状态变化，不会复制）
+     */
     public List<CombatCharacter> getAliveCharacters() {
-        return characters.stream()
-            .filter(CombatCharacter::isAlive)
-            .toList();
+        return aliveView;
+    }
+
+    /**
+     * 绑定所属战斗（由战斗实例在加入或替换参战方时调用）
+     */
+    void attachTo(CombatInstance combat) {
+        this.combat = combat;
+    }
+
+    /**
+     * 成员存活状态翻转（由角色回调）
+     */
+    void onLifeStateChanged(CombatCharacter character, boolean alive) {
+        boolean hadAlive = hasAliveCharacters();
+        if (alive) {
+            // 复活较少见，直接重建以保持加入顺序
+            rebuildAliveCharacters();
+        } else {
+            for (int i = 0; i < aliveCharacters.size(); i++) {
+                if (aliveCharacters.get(i) == character) {
+                    aliveCharacters.remove(i);
+                    if (character.isPlayer()) {
+                        alivePlayerCount--;
+                    }
+                    break;
+                }
+            }
+        }
+        notifyCombat(hadAlive);
+    }
+
+    private void rebuildAliveCharacters() {
+        aliveCharacters.clear();
+        alivePlayerCount = 0;
+        for (CombatCharacter character : characters) {
+            if (character.isAlive()) {
+                aliveCharacters.add(character);
+                if (character.isPlayer()) {
+                    alivePlayerCount++;
+                }
+            }
+        }
+    }
+
+    private void notifyCombat(boolean hadAlive) {
+        boolean hasAlive = hasAliveCharacters();
+        if (combat != null && hadAlive != hasAlive) {
+            combat.onFactionLifeStateChanged(hasAlive);
+        }
     }
 }
@@ -0,0 +1,220 @@
+package com.heibai.clawworld.domain.combat;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 战斗录像
+ * 记录随机种子和按分片执行顺序排列的全部外部输入（参战方加入、玩家指令、回合超时等），
+ * 战斗中的随机数全部来自以种子初始化的战斗随机数生成器，因此按顺序重放输入即可逐位复现整场战斗
+ *
+ * 字段均为普通属性，可直接序列化为JSON离线保存
+ *
+ * 录像随战斗常驻内存并在结束后随结束信息缓存，因此输入条数有上限：
+ * 超过上限时清空已记录的输入并标记为不完整，之后不再记录，不完整的录像不能重放
+ */
+@Data
+@NoArgsConstructor
+public class CombatRecording {
+
+    private String combatId;
+    private String mapId;
+    private long seed;
+    private List<Input> inputs = new ArrayList<>();
+
+    // 录像导出时的最后日志序列号和状态指纹，用于校验重放结果
+    private int lastLogSequence;
+    private long fingerprint;
+
+    // 输入超过上限被丢弃，或战斗从检查点恢复（缺少恢复前的输入）
+    private boolean truncated;
+
+    public CombatRecording(String combatId, String mapId, long seed) {
+        this.combatId = combatId;
+        this.mapId = mapId;
+        this.seed = seed;
+    }
+
+    /**
+     * 输入类型
+     */
+    public enum InputType {
+        ADD_PARTY,          // 阵营加入（factionId, characters）
+        ADD_CHARACTER,      // 角色加入已有阵营（factionId, characters）
+        FIRST_TURN,         // 初始化第一个回合
+        SKILL,              // 释放技能（actorId, skillId, targetId）
+        SKIP,               // 空过（actorId）
+        TIMEOUT,            // 回合超时（actorId）
+        FORFEIT,            // 撤退（actorId）
+        AFTER_ACTION,       // 行动后处理后续回合（actorId）
+        AUTO_BATTLE,        // 开启自动战斗（actorId, autoBattlePolicy）
+        AUTO_BATTLE_OFF,    // 关闭自动战斗（actorId）
+        STATE_PATCH         // 引擎外的状态修改，如战斗中使用物品（patch）
+    }
+
+    /**
+     * 单条输入
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Input {
+        private InputType type;
+        private String actorId;
+        private String factionId;
+        private String skillId;
+        private String targetId;
+        private List<CombatCharacter> characters;
+        private StatePatch patch;
+        private AutoBattlePolicy autoBattlePolicy;
+
+        public Input(InputType type, String actorId) {
+            this.type = type;
+            this.actorId = actorId;
+        }
+    }
+
+    /**
+     * 引擎外的状态修改结果
+     * 只记录修改后的可变状态和新增的日志事件，重放时直接覆盖
+     */
+    @Data
+    @NoArgsConstructor
+    public static class StatePatch {
+        private Map<String, CharacterState> characters = new HashMap<>();
+        private Map<String, Integer> actionBarProgress = new HashMap<>();
+        private List<RecordedEvent> events = new ArrayList<>();
+    }
+
+    /**
+     * 角色的可变状态
+     */
+    @Data
+    @NoArgsConstructor
+    public static class CharacterState {
+        private int currentHealth;
+        private int currentMana;
+        private boolean dead;
+        private boolean retreated;
+        private Map<String, Integer> skillCooldowns;
+
+        public CharacterState(CombatCharacter character) {
+            this.currentHealth = character.getCurrentHealth();
+            this.currentMana = character.getCurrentMana();
+            this.dead = character.isDead();
+            this.retreated = character.isRetreated();
+            this.skillCooldowns = new HashMap<>(character.getSkillCooldowns());
+        }
+
+        public void applyTo(CombatCharacter character) {
+            character.setCurrentHealth(currentHealth);
+            character.setCurrentMana(currentMana);
+            character.setDead(dead);
+            character.setRetreated(retreated);
+            character.setSkillCooldowns(new HashMap<>(skillCooldowns));
+        }
+    }
+
+    /**
+     * 可序列化的战斗事件
+     */
+    @Data
+    @NoArgsConstructor
+    public static class RecordedEvent {
+        private CombatEvent.Type type;
+        private String actorId;
+        private String targetId;
+        private String skillName;
+        private int value;
+        private boolean crit;
+        private String text;
+
+        public RecordedEvent(CombatEvent event) {
+            this.type = event.getType();
+            this.actorId = event.getActorId();
+            this.targetId = event.getTargetId();
+            this.skillName = event.getSkillName();
+            this.value = event.getValue();
+            this.crit = event.isCrit();
+            this.text = event.getText();
+        }
+
+        public CombatEvent toEvent() {
+            return CombatEvent.of(type, actorId, targetId, skillName, value, crit, text);
+        }
+    }
+
+    /**
+     * 记录一条输入，已记录的输入达到上限时放弃整份录像
+     * @param maxInputs 输入条数上限
+     */
+    public void record(Input input, int maxInputs) {
+        if (truncated) {
+            return;
+        }
+        if (inputs.size() >= maxInputs) {
+            markTruncated();
+            return;
+        }
+        inputs.add(input);
+    }
+
+    /**
+     * 标记录像不完整并释放已记录的输入
+     */
+    public void markTruncated() {
+        truncated = true;
+        inputs = new ArrayList<>();
+    }
+
+    /**
+     * 复制一份录像并附上当前的校验信息（输入列表独立，之后的录制不影响副本）
+     */
+    public CombatRecording export(int lastLogSequence, long fingerprint) {
+        CombatRecording copy = new CombatRecording(combatId, mapId, seed);
+        copy.inputs = new ArrayList<>(inputs);
+        copy.truncated = truncated;
+        copy.lastLogSequence = lastLogSequence;
+        copy.fingerprint = fingerprint;
+        return copy;
+    }
+
+    /**
+     * 计算战斗的状态指纹
+     * 覆盖全部日志事件（不含时间戳）和所有角色的最终生命、法力，任何一次随机结果不同都会改变指纹
+     */
+    public static long fingerprint(CombatInstance combat) {
+        long hash = 0xcbf29ce484222325L;
+        for (CombatInstance.CombatLogEntry entry : combat.getAllLogs()) {
+            CombatEvent event = entry.getEvent();
+            hash = mix(hash, entry.getSequence());
+            hash = mix(hash, event.getType().ordinal());
+            hash = mix(hash, hashOf(event.getActorId()));
+            hash = mix(hash, hashOf(event.getTargetId()));
+            hash = mix(hash, hashOf(event.getSkillName()));
+            hash = mix(hash, event.getValue());
+            hash = mix(hash, event.isCrit() ? 1 : 0);
+            hash = mix(hash, hashOf(event.getText()));
+        }
+        for (CombatParty party : combat.getParties().values()) {
+            for (CombatCharacter character : party.getCharacters()) {
+                hash = mix(hash, hashOf(character.getCharacterId()));
+                hash = mix(hash, character.getCurrentHealth());
+                hash = mix(hash, character.getCurrentMana());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private static int hashOf(String value) {
+        return value != null ? value.hashCode() : 0;
+    }
+}
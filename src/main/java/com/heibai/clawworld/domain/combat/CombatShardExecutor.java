@@ -0,0 +1,164 @@
+package com.heibai.clawworld.domain.combat;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 战斗分片执行器
+ * 用固定数量的单线程事件循环替代每个战斗一把锁
+ *
+ * 工作原理：
+ * 1. 每个战斗根据combatId哈希固定分配到一个分片
+ * 2. 一个分片只有一个线程，该分片上的所有战斗实例只被这个线程修改，无需加锁
+ * 3. 玩家指令、回合超时、敌人AI都以消息形式投递到分片队列中串行执行
+ * 4. 分片数量决定并行度，内存占用与战斗数量无关
+ */
+@Slf4j
+public class CombatShardExecutor {
+
+    private final Shard[] shards;
+
+    public CombatShardExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public CombatShardExecutor(int shardCount) {
+        int count = Math.max(1, shardCount);
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+        }
+        log.info("战斗分片执行器启动，分片数: {}", count);
+    }
+
+    /**
+     * 在战斗所属分片上执行任务并等待结果
+     * 如果当前线程已经是该分片的线程，则直接执行（支持在分片内部嵌套调用）
+     */
+    public <T> T call(String combatId, Supplier<T> task) {
+        Shard shard = shardFor(combatId);
+        if (shard.isCurrentThread()) {
+            return task.get();
+        }
+
+        Future<T> future = shard.executor.submit(task::get);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("战斗分片任务执行失败: " + combatId, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("等待战斗分片任务被中断: " + combatId, e);
+        }
+    }
+
+    /**
+     * 在战斗所属分片上执行任务并等待完成
+     */
+    public void run(String combatId, Runnable task) {
+        call(combatId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 向战斗所属分片投递任务，不等待结果（用于超时回调等异步消息）
+     */
+    public void post(String combatId, Runnable task) {
+        Shard shard = shardFor(combatId);
+        try {
+            shard.executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("[战斗 {}] 分片 {} 执行异步任务失败", combatId, shard.index, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("[战斗 {}] 分片 {} 已关闭，丢弃异步任务", combatId, shard.index);
+        }
+    }
+
+    /**
+     * 当前线程是否是该战斗所属分片的线程
+     */
+    public boolean isInShard(String combatId) {
+        return shardFor(combatId).isCurrentThread();
+    }
+
+    /**
+     * 获取分片数量
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * 获取战斗所属的分片下标
+     */
+    public int shardIndexOf(String combatId) {
+        return Math.floorMod(combatId.hashCode(), shards.length);
+    }
+
+    private Shard shardFor(String combatId) {
+        return shards[shardIndexOf(combatId)];
+    }
+
+    /**
+     * 关闭所有分片
+     */
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                if (!shard.executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    shard.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                shard.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 单个分片：一个单线程事件循环
+     */
+    private static class Shard {
+        private final int index;
+        private final ExecutorService executor;
+        private volatile Thread thread;
+
+        Shard(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "CombatShard-" + index);
+                t.setDaemon(true);
+                this.thread = t;
+                return t;
+            });
+        }
+
+        boolean isCurrentThread() {
+            return Thread.currentThread() == thread;
+        }
+    }
+}
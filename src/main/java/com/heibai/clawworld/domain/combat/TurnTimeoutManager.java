@@ -39,8 +39,23 @@ public class TurnTimeoutManager {
     // 超时回调接口
     private final TurnTimeoutCallback callback;
 
+    // 是否启用计时（离线模拟不计时，也不在多个战斗之间争用锁）
+    private final boolean enabled;
+
     public TurnTimeoutManager(TurnTimeoutCallback callback) {
+        this(callback, true);
+    }
+
+    private TurnTimeoutManager(TurnTimeoutCallback callback, boolean enabled) {
         this.callback = callback;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 创建不计时的管理器：所有操作直接返回，回合开始时间始终为0
+     */
+    public static TurnTimeoutManager disabled() {
+        return new TurnTimeoutManager(null, false);
     }
 
     /**
@@ -49,22 +64,27 @@ public class TurnTimeoutManager {
      * @param combatId 战斗ID
      * @param characterId 玩家角色ID
      */
-    public synchronized void startPlayerTurn(String combatId, String characterId) {
-        // 取消之前的超时任务（如果有）
-        cancelTimeoutInternal(combatId);
+    public void startPlayerTurn(String combatId, String characterId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            // 取消之前的超时任务（如果有）
+            cancelTimeoutInternal(combatId);
 
-        // 记录当前回合玩家和开始时间
-        currentTurnPlayers.put(combatId, characterId);
-        turnStartTimes.put(combatId, System.currentTimeMillis());
+            // 记录当前回合玩家和开始时间
+            currentTurnPlayers.put(combatId, characterId);
+            turnStartTimes.put(combatId, System.currentTimeMillis());
 
-        log.debug("[战斗 {}] 开始玩家 {} 的回合计时，{}秒后超时", combatId, characterId, TURN_TIMEOUT_SECONDS);
+            log.debug("[战斗 {}] 开始玩家 {} 的回合计时，{}秒后超时", combatId, characterId, TURN_TIMEOUT_SECONDS);
 
-        // 启动超时任务
-        ScheduledFuture<?> future = scheduler.schedule(() -> {
-            handleTimeout(combatId, characterId);
-        }, TURN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            // 启动超时任务
+            ScheduledFuture<?> future = scheduler.schedule(() -> {
+                handleTimeout(combatId, characterId);
+            }, TURN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 
-        activeTimeouts.put(combatId, future);
+            activeTimeouts.put(combatId, future);
+        }
     }
 
     /**
@@ -73,13 +93,18 @@ public class TurnTimeoutManager {
      * @param combatId 战斗ID
      * @param characterId 玩家角色ID
      */
-    public synchronized void playerActed(String combatId, String characterId) {
-        String currentPlayer = currentTurnPlayers.get(combatId);
-        if (currentPlayer != null && currentPlayer.equals(characterId)) {
-            log.debug("[战斗 {}] 玩家 {} 已行动，取消超时计时", combatId, characterId);
-            cancelTimeoutInternal(combatId);
-            currentTurnPlayers.remove(combatId);
-            turnStartTimes.remove(combatId);
+    public void playerActed(String combatId, String characterId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            String currentPlayer = currentTurnPlayers.get(combatId);
+            if (currentPlayer != null && currentPlayer.equals(characterId)) {
+                log.debug("[战斗 {}] 玩家 {} 已行动，取消超时计时", combatId, characterId);
+                cancelTimeoutInternal(combatId);
+                currentTurnPlayers.remove(combatId);
+                turnStartTimes.remove(combatId);
+            }
         }
     }
 
@@ -96,17 +121,27 @@ public class TurnTimeoutManager {
     /**
      * 取消超时计时
      */
-    public synchronized void cancelTimeout(String combatId) {
-        cancelTimeoutInternal(combatId);
+    public void cancelTimeout(String combatId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            cancelTimeoutInternal(combatId);
+        }
     }
 
     /**
      * 战斗结束，清理所有相关资源
      */
-    public synchronized void combatEnded(String combatId) {
-        cancelTimeoutInternal(combatId);
-        currentTurnPlayers.remove(combatId);
-        turnStartTimes.remove(combatId);
+    public void combatEnded(String combatId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            cancelTimeoutInternal(combatId);
+            currentTurnPlayers.remove(combatId);
+            turnStartTimes.remove(combatId);
+        }
     }
 
     /**
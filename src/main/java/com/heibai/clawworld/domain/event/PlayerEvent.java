@@ -0,0 +1,56 @@
+package com.heibai.clawworld.domain.event;
+
+/**
+ * 推送给玩家的事件
+ * 只携带事件类型和少量关键字段，客户端收到后决定是否刷新窗口
+ *
+ * @param type 事件类型
+ * @param ref 关联对象（战斗ID、交易ID、聊天频道、窗口类型等）
+ * @param from 触发者昵称（邀请者、发言者等，可为空）
+ * @param text 附加文本（交易状态、聊天内容、队伍变化描述等，可为空）
+ * @param timestamp 事件时间
+ */
+public record PlayerEvent(Type type, String ref, String from, String text, long timestamp) {
+
+    public enum Type {
+        TURN,           // 轮到玩家的战斗回合
+        TRADE_INVITE,   // 收到交易请求
+        TRADE,          // 交易状态变化（对方修改了报价、锁定、确认、取消或交易完成）
+        PARTY_INVITE,   // 收到组队邀请
+        PARTY,          // 队伍变化（加入请求、成员加入、离开、被踢出、解散）
+        CHAT,           // 聊天消息
+        WINDOW          // 窗口被其他玩家或系统的操作切换
+    }
+
+    public static PlayerEvent turn(String combatId) {
+        return of(Type.TURN, combatId, null, null);
+    }
+
+    public static PlayerEvent tradeInvite(String tradeId, String requesterName) {
+        return of(Type.TRADE_INVITE, tradeId, requesterName, null);
+    }
+
+    public static PlayerEvent trade(String tradeId, String status) {
+        return of(Type.TRADE, tradeId, null, status);
+    }
+
+    public static PlayerEvent partyInvite(String partyId, String inviterName) {
+        return of(Type.PARTY_INVITE, partyId, inviterName, null);
+    }
+
+    public static PlayerEvent party(String partyId, String text) {
+        return of(Type.PARTY, partyId, null, text);
+    }
+
+    public static PlayerEvent chat(String channel, String senderName, String message, long timestamp) {
+        return new PlayerEvent(Type.CHAT, channel, senderName, message, timestamp);
+    }
+
+    public static PlayerEvent window(String windowType) {
+        return of(Type.WINDOW, windowType, null, null);
+    }
+
+    private static PlayerEvent of(Type type, String ref, String from, String text) {
+        return new PlayerEvent(type, ref, from, text, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,62 @@
+package com.heibai.clawworld.domain.event;
+
+import java.util.Collection;
+
+/**
+ * 玩家事件推送
+ * 由接口层实现（按会话维护推送连接），领域和应用服务只通过该接口发布事件
+ * 发布不阻塞调用方，玩家没有推送连接时事件直接丢弃
+ */
+public interface PlayerEventPublisher {
+
+    /**
+     * 不推送的空实现（模拟器、重放和单元测试使用）
+     */
+    PlayerEventPublisher NONE = new PlayerEventPublisher() {
+        @Override
+        public void publish(String playerId, PlayerEvent event) {
+        }
+
+        @Override
+        public void publishAll(PlayerEvent event) {
+        }
+
+        @Override
+        public boolean hasSubscribers() {
+            return false;
+        }
+    };
+
+    /**
+     * 向单个玩家推送事件
+     */
+    void publish(String playerId, PlayerEvent event);
+
+    /**
+     * 向所有在线连接推送事件（世界频道等）
+     */
+    void publishAll(PlayerEvent event);
+
+    /**
+     * 是否有任何推送连接，没有时调用方可以跳过为查找接收者而做的查询
+     */
+    default boolean hasSubscribers() {
+        return true;
+    }
+
+    /**
+     * 断开玩家不属于指定会话的推送连接（登出或重新登录后调用，旧会话的连接不再接收事件）
+     * @param activeSessionId 仍然有效的会话ID，为null时断开该玩家的全部连接
+     */
+    default void disconnect(String playerId, String activeSessionId) {
+    }
+
+    /**
+     * 向多个玩家推送同一事件
+     */
+    default void publish(Collection<String> playerIds, PlayerEvent event) {
+        for (String playerId : playerIds) {
+            publish(playerId, event);
+        }
+    }
+}
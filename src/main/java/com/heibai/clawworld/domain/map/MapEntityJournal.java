@@ -0,0 +1,212 @@
+package com.heibai.clawworld.domain.map;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 地图实体事件日志
+ * 每张地图一个有界的追加日志，记录实体的加入、离开、移动和状态变化（敌人死亡与刷新、宝箱开启与刷新），
+ * 读取方按序号游标取“上次之后变化过的实体”，不必每次重建整张地图的实体快照
+ *
+ * 工作原理：
+ * 1. 移动、传送、战斗结算、敌人刷新、宝箱开启等写入方在数据落库后记录变化的实体，每条事件分配地图内递增的序号
+ * 2. 每张地图只保留最近 {@link #CAPACITY} 条事件，游标早于最旧事件时返回null，由读取方完整重新同步
+ * 3. 只随时间发生的变化（大宝箱刷新）由写入方登记到期时间，到期后下一次读取时转为普通事件
+ * 4. 组队、交易状态变化会影响玩家之间的交互选项，与地图无关，只递增全局的关系版本号
+ * 5. 日志只保存在内存中，服务重启后读取方没有游标，自然完整同步一次
+ */
+@Component
+public class MapEntityJournal {
+
+    /**
+     * 每张地图保留的事件数
+     */
+    static final int CAPACITY = 512;
+
+    private final ConcurrentHashMap<String, MapLog> maps = new ConcurrentHashMap<>();
+    private final AtomicLong relationVersion = new AtomicLong();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * 记录实体变化
+     * @param mapId 地图ID
+     * @param entityId 实体ID（玩家ID、敌人或宝箱实例ID）
+     * @param entityName 实体名称；不知道名称时为null（读取方按ID匹配）
+     */
+    public void record(String mapId, String entityId, String entityName) {
+        if (mapId == null) {
+            return;
+        }
+        mapLog(mapId).append(entityId, entityName);
+        recorded.increment();
+    }
+
+    /**
+     * 批量记录实体变化
+     */
+    public void recordAll(Collection<Change> changes) {
+        for (Change change : changes) {
+            record(change.mapId(), change.entityId(), change.entityName());
+        }
+    }
+
+    /**
+     * 登记到期时才发生的变化（如大宝箱刷新），到期后视为一条普通事件
+     * @param dueAtMs 变化发生的时间
+     */
+    public void recordAt(String mapId, String entityId, String entityName, long dueAtMs) {
+        if (mapId == null) {
+            return;
+        }
+        mapLog(mapId).schedule(entityId, entityName, dueAtMs);
+    }
+
+    /**
+     * 玩家之间的关系（组队、交易）发生变化
+     */
+    public void relationChanged() {
+        relationVersion.incrementAndGet();
+    }
+
+    /**
+     * 当前的关系版本号
+     */
+    public long relationVersion() {
+        return relationVersion.get();
+    }
+
+    /**
+     * 地图当前的最新序号，读取方在读取实体之前取得，作为下一次读取的游标
+     */
+    public long head(String mapId) {
+        return mapLog(mapId).head(System.currentTimeMillis());
+    }
+
+    /**
+     * 获取游标之后变化过的实体
+     * @param cursor 上次读取时的序号
+     * @return 变化的实体；游标已过期（早于保留的最旧事件）时返回null
+     */
+    public Changes since(String mapId, long cursor) {
+        reads.increment();
+        Changes changes = mapLog(mapId).since(cursor, System.currentTimeMillis());
+        if (changes == null) {
+            expired.increment();
+        }
+        return changes;
+    }
+
+    private MapLog mapLog(String mapId) {
+        return maps.computeIfAbsent(mapId, k -> new MapLog());
+    }
+
+    /**
+     * 获取统计数据
+     */
+    public Stats getStats() {
+        return new Stats(maps.size(), recorded.sum(), reads.sum(), expired.sum(), relationVersion.get());
+    }
+
+    /**
+     * 事件日志统计
+     */
+    public record Stats(int maps, long recorded, long reads, long expired, long relationVersion) {
+
+        @Override
+        public String toString() {
+            return String.format("地图事件日志: 地图%d，记录%d，读取%d，游标过期%d，关系版本%d",
+                maps, recorded, reads, expired, relationVersion);
+        }
+    }
+
+    /**
+     * 待记录的实体变化（写入方在数据落库前收集，落库后统一记录）
+     */
+    public record Change(String mapId, String entityId, String entityName) {
+    }
+
+    /**
+     * 游标之后变化过的实体
+     * @param entityIds 变化实体的ID
+     * @param entityNames 变化实体的名称（已知时）
+     * @param head 读取时的最新序号
+     */
+    public record Changes(Set<String> entityIds, Set<String> entityNames, long head) {
+
+        public boolean isEmpty() {
+            return entityIds.isEmpty() && entityNames.isEmpty();
+        }
+    }
+
+    /**
+     * 单张地图的事件环形缓冲区
+     */
+    private static final class MapLog {
+        private final String[] ids = new String[CAPACITY];
+        private final String[] names = new String[CAPACITY];
+        // 最新事件的序号，第一条事件序号为1
+        private long head;
+        // 到期变化，按到期时间排序
+        private final PriorityQueue<Scheduled> scheduled = new PriorityQueue<>();
+
+        private synchronized void append(String entityId, String entityName) {
+            head++;
+            int slot = (int) (head % CAPACITY);
+            ids[slot] = entityId;
+            names[slot] = entityName;
+        }
+
+        private synchronized void schedule(String entityId, String entityName, long dueAtMs) {
+            scheduled.add(new Scheduled(dueAtMs, entityId, entityName));
+        }
+
+        private synchronized long head(long now) {
+            promoteDue(now);
+            return head;
+        }
+
+        private synchronized Changes since(long cursor, long now) {
+            promoteDue(now);
+            if (cursor > head || head - cursor > CAPACITY) {
+                return null;
+            }
+            Set<String> changedIds = new HashSet<>();
+            Set<String> changedNames = new HashSet<>();
+            for (long seq = cursor + 1; seq <= head; seq++) {
+                int slot = (int) (seq % CAPACITY);
+                if (ids[slot] != null) {
+                    changedIds.add(ids[slot]);
+                }
+                if (names[slot] != null) {
+                    changedNames.add(names[slot]);
+                }
+            }
+            return new Changes(changedIds, changedNames, head);
+        }
+
+        private void promoteDue(long now) {
+            while (!scheduled.isEmpty() && scheduled.peek().dueAtMs() <= now) {
+                Scheduled due = scheduled.poll();
+                append(due.entityId(), due.entityName());
+            }
+        }
+    }
+
+    private record Scheduled(long dueAtMs, String entityId, String entityName) implements Comparable<Scheduled> {
+
+        @Override
+        public int compareTo(Scheduled other) {
+            return Long.compare(dueAtMs, other.dueAtMs);
+        }
+    }
+}
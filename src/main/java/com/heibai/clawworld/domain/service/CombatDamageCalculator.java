@@ -5,15 +5,19 @@ import lombok.Data;
 import org.springframework.stereotype.Component;
 
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * 伤害计算器
  * 根据设计文档实现伤害计算公式
+ *
+ * 战斗中应传入战斗实例自带的随机数生成器，使同一场战斗的随机结果可以按种子复现；
+ * 不传时使用计算器自身的随机数生成器
  */
 @Component
 public class CombatDamageCalculator {
 
-    private final Random random;
+    private final RandomGenerator random;
 
     public CombatDamageCalculator() {
         this.random = new Random();
@@ -32,10 +36,18 @@ public class CombatDamageCalculator {
      * - 命中率公式：命中率 - 闪避率
      */
     public DamageResult calculateDamage(CombatCharacter attacker, CombatCharacter target, boolean isPhysical, double damageMultiplier) {
+        return calculateDamage(attacker, target, isPhysical, damageMultiplier, random);
+    }
+
+    /**
+     * 使用指定的随机数生成器计算伤害
+     */
+    public DamageResult calculateDamage(CombatCharacter attacker, CombatCharacter target, boolean isPhysical,
+                                        double damageMultiplier, RandomGenerator random) {
         DamageResult result = new DamageResult();
 
         // 1. 判断是否命中
-        boolean hit = checkHit(attacker.getHitRate(), target.getDodgeRate());
+        boolean hit = checkHit(attacker.getHitRate(), target.getDodgeRate(), random);
         result.setHit(hit);
 
         if (!hit) {
@@ -45,7 +57,7 @@ public class CombatDamageCalculator {
         }
 
         // 2. 判断是否暴击
-        boolean crit = checkCrit(attacker.getCritRate());
+        boolean crit = checkCrit(attacker.getCritRate(), random);
         result.setCrit(crit);
 
         // 3. 计算基础伤害
@@ -72,11 +84,56 @@ public class CombatDamageCalculator {
         return result;
     }
 
+    /**
+     * 批量计算群体伤害（大规模战斗使用）
+     * 先把目标的防御和闪避读入基本类型数组，再在一个循环里依次判定命中、暴击并计算伤害，
+     * 不为每个目标创建DamageResult。公式和随机数的消耗顺序与逐个调用calculateDamage完全相同
+     * @param targets 目标（前count个有效）
+     * @param defenses 临时数组，长度不小于count
+     * @param dodgeRates 临时数组，长度不小于count
+     * @param damages 输出：每个目标的伤害，未命中为-1
+     * @param crits 输出：每个目标是否暴击
+     */
+    public void calculateAreaDamage(CombatCharacter attacker, CombatCharacter[] targets, int count,
+                                    boolean isPhysical, double damageMultiplier, RandomGenerator random,
+                                    int[] defenses, double[] dodgeRates, int[] damages, boolean[] crits) {
+        for (int i = 0; i < count; i++) {
+            CombatCharacter target = targets[i];
+            defenses[i] = isPhysical ? target.getPhysicalDefense() : target.getMagicDefense();
+            dodgeRates[i] = target.getDodgeRate();
+        }
+
+        int attack = isPhysical ? attacker.getPhysicalAttack() : attacker.getMagicAttack();
+        double hitRate = attacker.getHitRate();
+        double critRate = attacker.getCritRate();
+        double critFactor = 1.5 + attacker.getCritDamage();
+
+        for (int i = 0; i < count; i++) {
+            if (!(random.nextDouble() < hitRate - dodgeRates[i])) {
+                damages[i] = -1;
+                crits[i] = false;
+                continue;
+            }
+            boolean crit = random.nextDouble() < critRate;
+            int baseDamage = attack - defenses[i];
+            if (baseDamage <= 0) {
+                baseDamage = 1;
+            }
+            baseDamage = (int) (baseDamage * damageMultiplier);
+            damages[i] = crit ? (int) (baseDamage * critFactor) : baseDamage;
+            crits[i] = crit;
+        }
+    }
+
     /**
      * 判断是否命中
      * 根据设计文档：命中率 - 闪避率
      */
     public boolean checkHit(double hitRate, double dodgeRate) {
+        return checkHit(hitRate, dodgeRate, random);
+    }
+
+    private boolean checkHit(double hitRate, double dodgeRate, RandomGenerator random) {
         double finalHitRate = hitRate - dodgeRate;
         return random.nextDouble() < finalHitRate;
     }
@@ -85,6 +142,10 @@ public class CombatDamageCalculator {
      * 判断是否暴击
      */
     public boolean checkCrit(double critRate) {
+        return checkCrit(critRate, random);
+    }
+
+    private boolean checkCrit(double critRate, RandomGenerator random) {
         return random.nextDouble() < critRate;
     }
 
@@ -1,10 +1,20 @@
 package com.heibai.clawworld.domain.service;
 
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
 import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatCheckpoint;
+import com.heibai.clawworld.domain.combat.CombatCheckpointStore;
+import com.heibai.clawworld.domain.combat.CombatCheckpointWriter;
+import com.heibai.clawworld.domain.combat.CombatEvent;
 import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.domain.combat.CombatParty;
+import com.heibai.clawworld.domain.combat.CombatRecording;
+import com.heibai.clawworld.domain.combat.CombatShardExecutor;
 import com.heibai.clawworld.domain.combat.CombatTurnWaiter;
 import com.heibai.clawworld.domain.combat.TurnTimeoutManager;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
+import com.heibai.clawworld.domain.service.ai.AutoBattleAI;
 import com.heibai.clawworld.domain.service.ai.EnemyAI;
 import com.heibai.clawworld.domain.service.ai.SimpleEnemyAI;
 import com.heibai.clawworld.domain.service.skill.SkillExecutor;
@@ -14,13 +24,17 @@ import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import lombok.Data;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 战斗引擎 - 管理所有活跃的战斗
@@ -33,6 +47,11 @@ import java.util.stream.Collectors;
  * 5. 处理玩家指令的阻塞等待
  * 6. 自动触发敌人AI
  * 7. 管理玩家回合超时（10秒自动空过）
+ * 8. 开启自动战斗的玩家由AI按策略代为行动，不等待指令也不计时
+ * 9. 在回合边界生成检查点并异步持久化，启动时从检查点恢复进行中的战斗
+ *
+ * 并发模型：每个战斗固定归属一个分片（单线程事件循环），
+ * 对战斗实例的所有修改都在所属分片线程上串行执行，热路径上没有锁
  */
 @Slf4j
 @Component
@@ -45,12 +64,15 @@ public class CombatEngine {
     @Getter
     private final Map<String, CombatTurnWaiter> turnWaiters = new ConcurrentHashMap<>();
 
-    // 每个战斗的锁（确保同一战斗的操作是串行的）
-    private final Map<String, ReentrantLock> combatLocks = new ConcurrentHashMap<>();
+    // 战斗分片执行器（确保同一战斗的操作是串行的）
+    private final CombatShardExecutor shards;
 
     // 敌人AI（使用带配置的版本）
     private final EnemyAI enemyAI;
 
+    // 玩家自动战斗AI
+    private final EnemyAI autoBattleAI;
+
     // 技能解析器
     private final SkillResolver skillResolver;
 
@@ -63,81 +85,253 @@ public class CombatEngine {
     // 战斗结算服务
     private final CombatSettlementService settlementService;
 
+    // 检查点存储和异步写入器
+    private final CombatCheckpointStore checkpointStore;
+    private final CombatCheckpointWriter checkpointWriter;
+
+    // 玩家事件推送（轮到回合时通知客户端）
+    private final PlayerEventPublisher eventPublisher;
+
+    // 每场战斗录像的输入条数上限，超过后录像标记为不完整；为0时不记录录像
+    public static final int DEFAULT_RECORDING_MAX_INPUTS = 5000;
+    private final int recordingMaxInputs;
+
     public CombatEngine(ConfigDataManager configDataManager, SkillResolver skillResolver,
                         SkillExecutor skillExecutor, CombatSettlementService settlementService) {
+        this(configDataManager, skillResolver, skillExecutor, settlementService, CombatCheckpointStore.NONE, 0);
+    }
+
+    public CombatEngine(ConfigDataManager configDataManager, SkillResolver skillResolver,
+                        SkillExecutor skillExecutor, CombatSettlementService settlementService,
+                        CombatCheckpointStore checkpointStore, long checkpointFlushIntervalMs) {
+        this(configDataManager, skillResolver, skillExecutor, settlementService, checkpointStore,
+            checkpointFlushIntervalMs, PlayerEventPublisher.NONE, DEFAULT_RECORDING_MAX_INPUTS);
+    }
+
+    @Autowired
+    public CombatEngine(ConfigDataManager configDataManager, SkillResolver skillResolver,
+                        SkillExecutor skillExecutor, CombatSettlementService settlementService,
+                        CombatCheckpointStore checkpointStore,
+                        @Value("${combat.checkpoint.flush-interval-ms:1000}") long checkpointFlushIntervalMs,
+                        PlayerEventPublisher eventPublisher,
+                        @Value("${combat.recording.max-inputs:5000}") int recordingMaxInputs) {
+        this(configDataManager, skillResolver, skillExecutor, settlementService, checkpointStore,
+            checkpointFlushIntervalMs, eventPublisher, recordingMaxInputs, true);
+    }
+
+    private CombatEngine(ConfigDataManager configDataManager, SkillResolver skillResolver,
+                         SkillExecutor skillExecutor, CombatSettlementService settlementService,
+                         CombatCheckpointStore checkpointStore, long checkpointFlushIntervalMs,
+                         PlayerEventPublisher eventPublisher, int recordingMaxInputs, boolean turnTimeouts) {
         this.skillResolver = skillResolver;
         this.skillExecutor = skillExecutor;
         this.settlementService = settlementService;
         this.enemyAI = new SimpleEnemyAI(configDataManager);
-        this.turnTimeoutManager = new TurnTimeoutManager(this::handleTurnTimeout);
+        this.autoBattleAI = new AutoBattleAI(skillResolver);
+        this.shards = new CombatShardExecutor();
+        this.turnTimeoutManager = turnTimeouts
+            ? new TurnTimeoutManager(this::handleTurnTimeout) : TurnTimeoutManager.disabled();
+        this.checkpointStore = checkpointStore;
+        this.checkpointWriter = new CombatCheckpointWriter(checkpointStore, checkpointFlushIntervalMs);
+        this.eventPublisher = eventPublisher;
+        this.recordingMaxInputs = recordingMaxInputs;
+    }
+
+    /**
+     * 创建离线模拟使用的引擎
+     * 不启动回合超时计时、不缓存已结束战斗的信息、不写检查点、不推送事件、不记录录像，
+     * 模拟测得的耗时只包含战斗逻辑本身
+     */
+    public static CombatEngine forSimulation(ConfigDataManager configDataManager, SkillResolver skillResolver,
+                                             SkillExecutor skillExecutor) {
+        return new CombatEngine(configDataManager, skillResolver, skillExecutor,
+            CombatSettlementService.withoutEndedCombatCache(configDataManager),
+            CombatCheckpointStore.NONE, 0, PlayerEventPublisher.NONE, 0, false);
     }
 
     @PreDestroy
     public void destroy() {
         turnTimeoutManager.shutdown();
+        shards.shutdown();
+        checkpointWriter.shutdown();
+    }
+
+    /**
+     * 从检查点恢复进行中的战斗（启动时调用）
+     * 恢复后按当前状态继续：已超时或已分出胜负的直接结算，轮到手动玩家的重新开始计时，轮到AI的继续执行
+     */
+    @PostConstruct
+    public void restoreCheckpoints() {
+        List<CombatCheckpoint> checkpoints;
+        try {
+            checkpoints = checkpointStore.loadAll();
+        } catch (Exception e) {
+            log.error("加载战斗检查点失败", e);
+            return;
+        }
+
+        int restored = 0;
+        for (CombatCheckpoint checkpoint : checkpoints) {
+            String combatId = checkpoint.getCombatId();
+            if (activeCombats.containsKey(combatId)) {
+                continue;
+            }
+            try {
+                CombatInstance combat = CombatInstance.fromCheckpoint(checkpoint);
+                activeCombats.put(combatId, combat);
+                turnWaiters.put(combatId, new CombatTurnWaiter());
+                runAndPublish(combatId, () -> resumeRestoredCombatInternal(combat));
+                restored++;
+            } catch (Exception e) {
+                log.error("恢复战斗失败: combatId={}", combatId, e);
+                activeCombats.remove(combatId);
+                turnWaiters.remove(combatId);
+                checkpointWriter.discard(combatId);
+            }
+        }
+        if (!checkpoints.isEmpty()) {
+            log.info("从检查点恢复战斗 {} 场（共 {} 个检查点）", restored, checkpoints.size());
+        }
     }
 
     /**
-     * 获取战斗锁（如果不存在则创建）
+     * 继续从检查点恢复的战斗（在分片线程上执行）
      */
-    private ReentrantLock getCombatLock(String combatId) {
-        return combatLocks.computeIfAbsent(combatId, k -> new ReentrantLock());
+    private void resumeRestoredCombatInternal(CombatInstance combat) {
+        String combatId = combat.getCombatId();
+        combat.addLog("服务器重启，战斗已恢复");
+
+        if (combat.isTimeout()) {
+            settlementService.handleCombatTimeout(combat, turnTimeoutManager, turnWaiters, createRemover(combatId));
+            return;
+        }
+        if (combat.isFinished()) {
+            settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combatId));
+            return;
+        }
+
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        if (currentTurn.isEmpty()) {
+            return;
+        }
+        CombatInstance.ActionBarEntry entry = combat.getActionBar().get(currentTurn.get());
+        if (entry == null || !entry.isReady()) {
+            // 检查点生成于第一个回合开始之前
+            initializeFirstTurnInternal(combat);
+            return;
+        }
+        CombatCharacter character = combat.findCharacter(currentTurn.get());
+        if (character == null) {
+            return;
+        }
+        EnemyAI ai = resolveAI(combat, character);
+        if (ai == null && character.isPlayer()) {
+            turnTimeoutManager.startPlayerTurn(combatId, character.getCharacterId());
+        } else if (ai != null) {
+            processNextTurnsAfterTimeoutInternal(combat);
+        }
     }
 
     /**
      * 处理回合超时回调
-     * 当玩家回合超时时，自动执行空过
+     * 超时线程只负责把消息投递到战斗所属分片，由分片线程执行空过
      */
     private void handleTurnTimeout(String combatId, String characterId) {
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            CombatInstance combat = activeCombats.get(combatId);
-            if (combat == null) {
-                return;
-            }
+        shards.post(combatId, () -> {
+            handleTurnTimeoutInternal(combatId, characterId);
+            publishSnapshot(combatId);
+        });
+    }
 
-            // 检查是否确实轮到该角色（双重检查，防止竞态条件）
-            Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
-            if (currentTurn.isEmpty() || !currentTurn.get().equals(characterId)) {
-                return;
-            }
+    /**
+     * 处理回合超时（在分片线程上执行）
+     * 当玩家回合超时时，自动执行空过
+     */
+    private void handleTurnTimeoutInternal(String combatId, String characterId) {
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat == null) {
+            return;
+        }
+        combat.record(new CombatRecording.Input(CombatRecording.InputType.TIMEOUT, characterId));
 
-            CombatCharacter character = combat.findCharacter(characterId);
-            if (character == null || !character.isAlive()) {
-                return;
-            }
+        // 检查是否确实轮到该角色（双重检查，防止竞态条件）
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        if (currentTurn.isEmpty() || !currentTurn.get().equals(characterId)) {
+            return;
+        }
 
-            log.info("[战斗 {}] 玩家 {} 回合超时，自动空过", combatId, character.getName());
+        CombatCharacter character = combat.findCharacter(characterId);
+        if (character == null || !character.isAlive()) {
+            return;
+        }
 
-            // 记录超时空过日志
-            combat.addLog(character.getName() + " 回合超时，自动空过");
+        log.info("[战斗 {}] 玩家 {} 回合超时，自动空过", combatId, character.getName());
 
-            // 执行空过
-            skipTurnInternal(combat, characterId);
+        // 记录超时空过日志
+        combat.addEvent(CombatEvent.actor(CombatEvent.Type.TURN_TIMEOUT, characterId));
 
-            // 通知所有等待的玩家
-            CombatTurnWaiter waiter = turnWaiters.get(combatId);
-            if (waiter != null) {
-                waiter.notifyAllWaiting();
+        // 执行空过
+        skipTurnInternal(combat, characterId);
+
+        // 通知所有等待的玩家
+        CombatTurnWaiter waiter = turnWaiters.get(combatId);
+        if (waiter != null) {
+            waiter.notifyAllWaiting();
+        }
+
+        // 继续处理后续回合（敌人AI等）
+        processNextTurnsAfterTimeoutInternal(combat);
+    }
+
+    /**
+     * 在战斗所属分片上执行会修改状态的任务，完成后发布新的只读快照
+     */
+    private <T> T callAndPublish(String combatId, Supplier<T> task) {
+        return shards.call(combatId, () -> {
+            try {
+                return task.get();
+            } finally {
+                publishSnapshot(combatId);
             }
+        });
+    }
 
-            // 继续处理后续回合（敌人AI等）
-            processNextTurnsAfterTimeoutInternal(combat);
-        } finally {
-            lock.unlock();
+    private void runAndPublish(String combatId, Runnable task) {
+        callAndPublish(combatId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 发布战斗的只读快照（在分片线程上执行；已结束移除的战斗不再发布）
+     * 状态有变化时同时提交检查点，由后台线程合并写入
+     */
+    private void publishSnapshot(String combatId) {
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat != null) {
+            combat.publishSnapshot();
+            if (checkpointWriter.isEnabled()) {
+                CombatCheckpoint checkpoint = combat.checkpointIfChanged();
+                if (checkpoint != null) {
+                    checkpointWriter.offer(checkpoint);
+                }
+            }
         }
     }
 
     /**
-     * 创建从活跃战斗中移除的回调
+     * 创建从活跃战斗中移除的回调（同时删除检查点）
      */
     private Runnable createRemover(String combatId) {
-        return () -> activeCombats.remove(combatId);
+        return () -> {
+            activeCombats.remove(combatId);
+            checkpointWriter.discard(combatId);
+        };
     }
 
     /**
-     * 超时后继续处理后续回合（内部方法，已持有锁）
+     * 超时后继续处理后续回合（内部方法，在分片线程上执行）
      * 这个方法会处理敌人AI回合，直到轮到下一个玩家或战斗结束
      */
     private void processNextTurnsAfterTimeoutInternal(CombatInstance combat) {
@@ -166,23 +360,22 @@ public class CombatEngine {
             }
 
             // 记录回合开始
-            combat.addLog("=== 轮到 " + nextCharacter.getName() + " 的回合 ===");
+            combat.addEvent(CombatEvent.actor(CombatEvent.Type.TURN_START, nextCharacterId));
 
-            // 如果是玩家回合，启动超时计时并返回
-            if (nextCharacter.isPlayer()) {
+            EnemyAI ai = resolveAI(combat, nextCharacter);
+
+            // 如果是手动操作的玩家回合，启动超时计时并返回
+            if (ai == null && nextCharacter.isPlayer()) {
                 turnTimeoutManager.startPlayerTurn(combat.getCombatId(), nextCharacterId);
 
                 // 通知该玩家
-                CombatTurnWaiter waiter = turnWaiters.get(combat.getCombatId());
-                if (waiter != null) {
-                    waiter.notifyTurn(nextCharacterId);
-                }
+                notifyPlayerTurn(combat.getCombatId(), turnWaiters.get(combat.getCombatId()), nextCharacterId);
                 return;
             }
 
-            // 敌人回合，执行AI
-            if (nextCharacter.isEnemy()) {
-                executeEnemyAIInternal(combat, nextCharacter);
+            // 敌人或自动战斗玩家的回合，执行AI
+            if (ai != null) {
+                executeAIInternal(combat, nextCharacter, ai);
 
                 // 检查战斗是否结束
                 if (combat.isFinished()) {
@@ -197,15 +390,34 @@ public class CombatEngine {
      * 创建新战斗
      */
     public String createCombat(String mapId) {
+        return createCombat(mapId, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * 使用指定的随机种子创建新战斗（离线模拟使用，相同种子和相同输入得到相同结果）
+     */
+    public String createCombat(String mapId, long seed) {
         String combatId = UUID.randomUUID().toString();
-        CombatInstance combat = new CombatInstance(combatId, mapId);
+        CombatInstance combat = new CombatInstance(combatId, mapId, seed);
+        combat.setRecordingLimit(recordingMaxInputs);
         activeCombats.put(combatId, combat);
         turnWaiters.put(combatId, new CombatTurnWaiter());
-        combatLocks.put(combatId, new ReentrantLock());
         log.info("创建战斗: combatId={}, mapId={}", combatId, mapId);
         return combatId;
     }
 
+    /**
+     * 丢弃尚未开始的战斗（发起方没能占用目标时调用）
+     * 战斗尚未初始化第一个回合，没有计时和等待者，只需从活跃战斗中移除
+     */
+    public void discardCombat(String combatId) {
+        if (activeCombats.containsKey(combatId)) {
+            shards.run(combatId, createRemover(combatId));
+            turnWaiters.remove(combatId);
+            log.info("丢弃未开始的战斗: combatId={}", combatId);
+        }
+    }
+
     /**
      * 获取战斗实例
      */
@@ -222,20 +434,26 @@ public class CombatEngine {
             throw new IllegalArgumentException("战斗不存在: " + combatId);
         }
 
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            CombatParty party = new CombatParty(factionId);
-            for (CombatCharacter character : characters) {
-                character.setFactionId(factionId);
-                party.addCharacter(character);
-            }
+        runAndPublish(combatId, () -> addPartyInternal(combat, factionId, characters));
+    }
 
-            combat.addParty(factionId, party);
-            log.info("阵营 {} 加入战斗 {}", factionId, combatId);
-        } finally {
-            lock.unlock();
+    /**
+     * 添加参战方（在分片线程上执行）
+     */
+    private void addPartyInternal(CombatInstance combat, String factionId, List<CombatCharacter> characters) {
+        CombatParty party = new CombatParty(factionId);
+        for (CombatCharacter character : characters) {
+            character.setFactionId(factionId);
+            party.addCharacter(character);
         }
+
+        CombatRecording.Input input = new CombatRecording.Input(CombatRecording.InputType.ADD_PARTY, null);
+        input.setFactionId(factionId);
+        input.setCharacters(copyCharacters(characters));
+        combat.record(input);
+
+        combat.addParty(factionId, party);
+        log.info("阵营 {} 加入战斗 {}", factionId, combat.getCombatId());
     }
 
     /**
@@ -248,39 +466,45 @@ public class CombatEngine {
             return;
         }
 
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            // 推进行动条到第一个回合
-            combat.advanceToNextTurn();
+        runAndPublish(combatId, () -> initializeFirstTurnInternal(combat));
+    }
 
-            // 获取第一个行动的角色
-            Optional<String> firstTurnOpt = combat.getCurrentTurnCharacterId();
-            if (firstTurnOpt.isEmpty()) {
-                return;
-            }
+    /**
+     * 初始化第一个回合（在分片线程上执行）
+     */
+    private void initializeFirstTurnInternal(CombatInstance combat) {
+        String combatId = combat.getCombatId();
+        combat.record(new CombatRecording.Input(CombatRecording.InputType.FIRST_TURN, null));
 
-            String firstCharacterId = firstTurnOpt.get();
-            CombatCharacter firstCharacter = combat.findCharacter(firstCharacterId);
+        // 推进行动条到第一个回合
+        combat.advanceToNextTurn();
 
-            if (firstCharacter == null || !firstCharacter.isAlive()) {
-                return;
-            }
+        // 获取第一个行动的角色
+        Optional<String> firstTurnOpt = combat.getCurrentTurnCharacterId();
+        if (firstTurnOpt.isEmpty()) {
+            return;
+        }
 
-            // 如果第一个行动的是玩家，启动超时计时
-            if (firstCharacter.isPlayer()) {
-                turnTimeoutManager.startPlayerTurn(combatId, firstCharacterId);
-                log.debug("[战斗 {}] 第一个回合: 玩家 {} 开始行动", combatId, firstCharacter.getName());
-            } else if (firstCharacter.isEnemy()) {
-                // 如果第一个行动的是敌人，执行AI并继续处理
-                combat.addLog("=== 轮到 " + firstCharacter.getName() + " 的回合 ===");
-                executeEnemyAIInternal(combat, firstCharacter);
-
-                // 继续处理后续回合直到轮到玩家
-                processNextTurnsAfterTimeoutInternal(combat);
-            }
-        } finally {
-            lock.unlock();
+        String firstCharacterId = firstTurnOpt.get();
+        CombatCharacter firstCharacter = combat.findCharacter(firstCharacterId);
+
+        if (firstCharacter == null || !firstCharacter.isAlive()) {
+            return;
+        }
+
+        EnemyAI ai = resolveAI(combat, firstCharacter);
+
+        // 如果第一个行动的是手动操作的玩家，启动超时计时
+        if (ai == null && firstCharacter.isPlayer()) {
+            turnTimeoutManager.startPlayerTurn(combatId, firstCharacterId);
+            log.debug("[战斗 {}] 第一个回合: 玩家 {} 开始行动", combatId, firstCharacter.getName());
+        } else if (ai != null) {
+            // 如果第一个行动的是敌人或自动战斗的玩家，执行AI并继续处理
+            combat.addEvent(CombatEvent.actor(CombatEvent.Type.TURN_START, firstCharacterId));
+            executeAIInternal(combat, firstCharacter, ai);
+
+            // 继续处理后续回合直到轮到玩家
+            processNextTurnsAfterTimeoutInternal(combat);
         }
     }
 
@@ -294,9 +518,22 @@ public class CombatEngine {
             throw new IllegalArgumentException("战斗不存在: " + combatId);
         }
 
+        runAndPublish(combatId, () -> addCharacterInternal(combat, factionId, character));
+    }
+
+    /**
+     * 添加角色到现有阵营（在分片线程上执行）
+     */
+    private void addCharacterInternal(CombatInstance combat, String factionId, CombatCharacter character) {
         character.setFactionId(factionId);
+
+        CombatRecording.Input input = new CombatRecording.Input(CombatRecording.InputType.ADD_CHARACTER, null);
+        input.setFactionId(factionId);
+        input.setCharacters(copyCharacters(List.of(character)));
+        combat.record(input);
+
         combat.addCharacterToParty(factionId, character);
-        log.info("角色 {} 加入战斗 {} 的阵营 {}", character.getName(), combatId, factionId);
+        log.info("角色 {} 加入战斗 {} 的阵营 {}", character.getName(), combat.getCombatId(), factionId);
     }
 
     /**
@@ -305,7 +542,7 @@ public class CombatEngine {
      *
      * 流程：
      * 1. 检查战斗是否已结束（返回缓存的结束信息）
-     * 2. 获取战斗锁，确保操作的原子性
+     * 2. 投递到战斗所属分片，确保操作的原子性
      * 3. 检查是否轮到该玩家（不推进行动条，只查询）
      * 4. 执行技能
      * 5. 取消该玩家的计时
@@ -330,84 +567,102 @@ public class CombatEngine {
             return CombatActionResult.error("战斗不存在");
         }
 
-        // 获取战斗锁
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            // 再次检查战斗是否存在（可能在等待锁期间被移除）
-            combat = activeCombats.get(combatId);
-            if (combat == null) {
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), casterId);
-                }
-                return CombatActionResult.error("战斗不存在");
+        // 投递到战斗所属分片执行
+        return callAndPublish(combatId, () -> executeSkillOnShard(combatId, casterId, skillId, targetId));
+    }
+
+    /**
+     * 执行技能（在分片线程上执行）
+     */
+    private CombatActionResult executeSkillOnShard(String combatId, String casterId, String skillId, String targetId) {
+        // 再次检查战斗是否存在（可能在排队期间被移除）
+        CombatInstance combat = activeCombats.get(combatId);
+        Optional<CombatSettlementService.CombatEndInfo> endInfoOpt;
+        if (combat == null) {
+            endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+            if (endInfoOpt.isPresent()) {
+                return settlementService.createCombatEndedResult(endInfoOpt.get(), casterId);
             }
+            return CombatActionResult.error("战斗不存在");
+        }
 
-            CombatCharacter caster = combat.findCharacter(casterId);
-            if (caster == null || !caster.isAlive()) {
-                log.info("[战斗 {}] 玩家 {} 已死亡或不存在，检查战斗状态", combatId, casterId);
-                // 玩家已死亡，检查战斗是否已结束
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    log.info("[战斗 {}] 从缓存中找到战斗结束信息", combatId);
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), casterId);
-                }
-                // 检查战斗实例是否已标记为结束
-                boolean isFinished = combat.isFinished();
-                log.info("[战斗 {}] combat.isFinished() = {}", combatId, isFinished);
-                if (isFinished) {
-                    // 战斗已结束，调用finishCombat进行结算
-                    log.info("[战斗 {}] 战斗已结束，调用finishCombat进行结算", combatId);
-                    List<String> endLogs = settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combatId));
-                    CombatActionResult result = CombatActionResult.error("施法者不存在或已死亡");
-                    result.setCombatEnded(true);
-                    result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                    log.info("[战斗 {}] 返回战斗结束结果，combatEnded={}", combatId, result.isCombatEnded());
-                    return result;
-                }
-                // 战斗未结束但玩家已死亡（不应该发生，但作为兜底）
-                log.warn("[战斗 {}] 战斗未结束但玩家已死亡", combatId);
+        CombatRecording.Input input = new CombatRecording.Input(CombatRecording.InputType.SKILL, casterId);
+        input.setSkillId(skillId);
+        input.setTargetId(targetId);
+        combat.record(input);
+
+        CombatCharacter caster = combat.findCharacter(casterId);
+        if (caster == null || !caster.isAlive()) {
+            log.info("[战斗 {}] 玩家 {} 已死亡或不存在，检查战斗状态", combatId, casterId);
+            // 玩家已死亡，检查战斗是否已结束
+            endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+            if (endInfoOpt.isPresent()) {
+                log.info("[战斗 {}] 从缓存中找到战斗结束信息", combatId);
+                return settlementService.createCombatEndedResult(endInfoOpt.get(), casterId);
+            }
+            // 检查战斗实例是否已标记为结束
+            boolean isFinished = combat.isFinished();
+            log.info("[战斗 {}] combat.isFinished() = {}", combatId, isFinished);
+            if (isFinished) {
+                // 战斗已结束，调用finishCombat进行结算
+                log.info("[战斗 {}] 战斗已结束，调用finishCombat进行结算", combatId);
+                settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combatId));
                 CombatActionResult result = CombatActionResult.error("施法者不存在或已死亡");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                result.setCombatEnded(true);
+                attachPendingLogs(combat, casterId, result);
+                log.info("[战斗 {}] 返回战斗结束结果，combatEnded={}", combatId, result.isCombatEnded());
                 return result;
             }
+            // 战斗未结束但玩家已死亡（不应该发生，但作为兜底）
+            log.warn("[战斗 {}] 战斗未结束但玩家已死亡", combatId);
+            CombatActionResult result = CombatActionResult.error("施法者不存在或已死亡");
+            attachPendingLogs(combat, casterId, result);
+            return result;
+        }
 
-            // 检查是否轮到该角色（不推进行动条，只查询当前状态）
-            Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
-            if (currentTurn.isEmpty() || !currentTurn.get().equals(casterId)) {
-                // 不是该玩家的回合，返回当前战斗状态但拒绝执行
-                CombatActionResult result = CombatActionResult.error("还未轮到你的回合");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
-            }
+        // 检查是否轮到该角色（不推进行动条，只查询当前状态）
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        if (currentTurn.isEmpty() || !currentTurn.get().equals(casterId)) {
+            // 不是该玩家的回合，返回当前战斗状态但拒绝执行
+            CombatActionResult result = CombatActionResult.error("还未轮到你的回合");
+            attachPendingLogs(combat, casterId, result);
+            return result;
+        }
 
-            // 玩家行动，取消超时计时
-            turnTimeoutManager.playerActed(combatId, casterId);
+        // 玩家行动，取消超时计时
+        turnTimeoutManager.playerActed(combatId, casterId);
 
-            // 执行技能
-            CombatActionResult result = executeSkillInternal(combat, casterId, skillId, targetId);
+        // 执行技能
+        CombatActionResult result = executeSkillInternal(combat, casterId, skillId, targetId);
 
-            if (!result.isSuccess()) {
-                return result;
-            }
+        if (!result.isSuccess()) {
+            return result;
+        }
 
-            // 如果战斗已结束，直接返回
-            if (result.isCombatEnded()) {
-                return result;
-            }
+        // 如果战斗已结束，直接返回
+        if (result.isCombatEnded()) {
+            attachPendingLogs(combat, casterId, result);
+            return result;
+        }
 
-            // 通知所有等待的玩家，让他们重新检查是否轮到自己
-            CombatTurnWaiter waiter = turnWaiters.get(combatId);
-            if (waiter != null) {
-                waiter.notifyAllWaiting();
-            }
+        // 通知所有等待的玩家，让他们重新检查是否轮到自己
+        CombatTurnWaiter waiter = turnWaiters.get(combatId);
+        if (waiter != null) {
+            waiter.notifyAllWaiting();
+        }
+
+        // 处理后续回合（敌人AI等）直到轮到玩家或战斗结束
+        return processUntilPlayerTurnOrEndInternal(combat, casterId, result);
+    }
 
-            // 处理后续回合（敌人AI等）直到轮到玩家或战斗结束
-            return processUntilPlayerTurnOrEndInternal(combat, casterId, result);
-        } finally {
-            lock.unlock();
+    /**
+     * 通知玩家轮到回合：唤醒阻塞等待的wait指令，并向推送连接发送回合事件
+     */
+    private void notifyPlayerTurn(String combatId, CombatTurnWaiter waiter, String characterId) {
+        if (waiter != null) {
+            waiter.notifyTurn(characterId);
         }
+        eventPublisher.publish(characterId, PlayerEvent.turn(combatId));
     }
 
     /**
@@ -430,15 +685,10 @@ public class CombatEngine {
         while (true) {
             // 检查战斗是否结束
             if (combat.isFinished()) {
-                List<String> endLogs = settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combat.getCombatId()));
+                settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combat.getCombatId()));
                 result.setCombatEnded(true);
-                if (endLogs != null) {
-                    for (String log : endLogs) {
-                        result.addLog(log);
-                    }
-                }
-                // 即使endLogs为null（战斗已经被处理过），也要设置战斗日志
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                // 即使战斗已经被结算过，也要设置战斗日志（结算日志已写入战斗实例）
+                attachPendingLogs(combat, playerId, result);
                 return result;
             }
 
@@ -446,7 +696,7 @@ public class CombatEngine {
             if (combat.isTimeout()) {
                 settlementService.handleCombatTimeout(combat, turnTimeoutManager, turnWaiters, createRemover(combat.getCombatId()));
                 result.setCombatEnded(true);
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                attachPendingLogs(combat, playerId, result);
                 return result;
             }
 
@@ -468,49 +718,44 @@ public class CombatEngine {
             }
 
             // 记录回合开始
-            combat.addLog("=== 轮到 " + nextCharacter.getName() + " 的回合 ===");
+            combat.addEvent(CombatEvent.actor(CombatEvent.Type.TURN_START, nextCharacterId));
+
+            EnemyAI ai = resolveAI(combat, nextCharacter);
 
-            // 如果是玩家回合
-            if (nextCharacter.isPlayer()) {
+            // 如果是手动操作的玩家回合
+            if (ai == null && nextCharacter.isPlayer()) {
                 // 启动该玩家的回合超时计时
                 turnTimeoutManager.startPlayerTurn(combat.getCombatId(), nextCharacterId);
 
                 if (nextCharacterId.equals(playerId)) {
                     // 轮到当前玩家，返回等待输入
                     result.setMessage("轮到你的回合");
-                    result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                    attachPendingLogs(combat, playerId, result);
                     return result;
                 } else {
                     // 轮到其他玩家，记录日志并立即返回（不阻塞）
-                    combat.addLog(nextCharacter.getName() + " 等待行动...");
+                    combat.addEvent(CombatEvent.actor(CombatEvent.Type.WAITING, nextCharacterId));
 
                     // 通知轮到回合的玩家
-                    if (waiter != null) {
-                        waiter.notifyTurn(nextCharacterId);
-                    }
+                    notifyPlayerTurn(combat.getCombatId(), waiter, nextCharacterId);
 
                     // 当前玩家立即返回，告知需要等待
                     result.setMessage("未轮到你的回合，请输入wait继续等待");
-                    result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                    attachPendingLogs(combat, playerId, result);
                     return result;
                 }
             }
 
-            // 敌人回合，执行AI
-            if (nextCharacter.isEnemy()) {
-                executeEnemyAIInternal(combat, nextCharacter);
+            // 敌人或自动战斗玩家的回合，执行AI
+            if (ai != null) {
+                executeAIInternal(combat, nextCharacter, ai);
 
                 // 检查战斗是否因敌人行动而结束
                 if (combat.isFinished()) {
-                    List<String> endLogs = settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combat.getCombatId()));
+                    settlementService.finishCombat(combat, turnTimeoutManager, turnWaiters, createRemover(combat.getCombatId()));
                     result.setCombatEnded(true);
-                    if (endLogs != null) {
-                        for (String log : endLogs) {
-                            result.addLog(log);
-                        }
-                    }
-                    // 即使endLogs为null（战斗已经被处理过），也要设置战斗日志
-                    result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                    // 即使战斗已经被结算过，也要设置战斗日志（结算日志已写入战斗实例）
+                    attachPendingLogs(combat, playerId, result);
                     return result;
                 }
             }
@@ -518,26 +763,45 @@ public class CombatEngine {
     }
 
     /**
-     * 执行敌人AI（内部方法，不带result参数）
+     * 获取代为行动的AI：敌人使用敌人AI，开启自动战斗的玩家使用自动战斗AI
+     * @return AI；需要等待玩家指令时返回null
+     */
+    private EnemyAI resolveAI(CombatInstance combat, CombatCharacter character) {
+        if (character.isEnemy()) {
+            return enemyAI;
+        }
+        if (character.isPlayer() && combat.getAutoBattlePolicy(character.getCharacterId()) != null) {
+            return autoBattleAI;
+        }
+        return null;
+    }
+
+    /**
+     * 执行AI决策（内部方法，不带result参数）
+     * 技能执行失败（冷却、法力不足等）时改为跳过回合，保证行动条一定前进
      */
-    private void executeEnemyAIInternal(CombatInstance combat, CombatCharacter enemy) {
+    private void executeAIInternal(CombatInstance combat, CombatCharacter character, EnemyAI ai) {
         try {
-            log.debug("敌人 {} 开始AI决策", enemy.getName());
+            log.debug("{} 开始AI决策", character.getName());
 
             // AI决策
-            EnemyAI.AIDecision decision = enemyAI.makeDecision(combat, enemy);
+            EnemyAI.AIDecision decision = ai.makeDecision(combat, character);
 
             if (decision.getType() == EnemyAI.DecisionType.ATTACK) {
                 // 执行攻击
-                executeSkillInternal(combat, enemy.getCharacterId(), decision.getSkillId(), decision.getTargetId());
+                CombatActionResult result = executeSkillInternal(combat, character.getCharacterId(),
+                    decision.getSkillId(), decision.getTargetId());
+                if (!result.isSuccess()) {
+                    skipTurnInternal(combat, character.getCharacterId());
+                }
             } else {
                 // 跳过回合
-                skipTurnInternal(combat, enemy.getCharacterId());
+                skipTurnInternal(combat, character.getCharacterId());
             }
         } catch (Exception e) {
-            log.error("敌人AI执行失败", e);
+            log.error("AI执行失败", e);
             // 出错时跳过回合
-            skipTurnInternal(combat, enemy.getCharacterId());
+            skipTurnInternal(combat, character.getCharacterId());
         }
     }
 
@@ -551,73 +815,161 @@ public class CombatEngine {
             return CombatActionResult.error("战斗不存在");
         }
 
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            // 再次检查战斗是否存在
-            combat = activeCombats.get(combatId);
-            if (combat == null) {
-                return CombatActionResult.error("战斗不存在");
-            }
-
-            // 通知所有等待的玩家，让他们重新检查是否轮到自己
-            CombatTurnWaiter waiter = turnWaiters.get(combatId);
-            if (waiter != null) {
-                waiter.notifyAllWaiting();
-            }
+        return callAndPublish(combatId, () -> processAfterActionOnShard(combatId, playerId));
+    }
 
-            CombatActionResult result = CombatActionResult.success("行动完成");
-            result.setBattleLog(new ArrayList<>());
+    /**
+     * 处理行动后的后续回合（在分片线程上执行）
+     */
+    private CombatActionResult processAfterActionOnShard(String combatId, String playerId) {
+        // 再次检查战斗是否存在
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat == null) {
+            return CombatActionResult.error("战斗不存在");
+        }
+        combat.record(new CombatRecording.Input(CombatRecording.InputType.AFTER_ACTION, playerId));
 
-            // 处理后续回合直到轮到玩家或战斗结束
-            return processUntilPlayerTurnOrEndInternal(combat, playerId, result);
-        } finally {
-            lock.unlock();
+        // 通知所有等待的玩家，让他们重新检查是否轮到自己
+        CombatTurnWaiter waiter = turnWaiters.get(combatId);
+        if (waiter != null) {
+            waiter.notifyAllWaiting();
         }
+
+        CombatActionResult result = CombatActionResult.success("行动完成");
+        result.setBattleLog(new ArrayList<>());
+
+        // 处理后续回合直到轮到玩家或战斗结束
+        return processUntilPlayerTurnOrEndInternal(combat, playerId, result);
     }
 
     /**
      * 将日志条目转换为字符串列表
      */
     private List<String> convertLogsToStrings(List<CombatInstance.CombatLogEntry> logs) {
-        return logs.stream()
-            .map(entry -> String.format("[#%d] %s", entry.getSequence(), entry.getMessage()))
-            .collect(Collectors.toList());
+        List<String> result = new ArrayList<>(logs.size());
+        for (CombatInstance.CombatLogEntry entry : logs) {
+            result.add(entry.getFormatted());
+        }
+        return result;
     }
 
     /**
-     * 执行技能（内部方法，不阻塞）
+     * 设置结果中的日志序列号，并在需要时附带参战者尚未确认的增量日志
+     * 战斗进行中的成功行动不渲染日志，由展示层通过takeUnacknowledgedLogs一次取走；
+     * 失败或战斗结束时日志随结果直接返回，在当前分片任务中一并确认，避免展示层重复输出
      */
-    private CombatActionResult executeSkillInternal(CombatInstance combat, String casterId, String skillId, String targetId) {
-        log.debug("[战斗 {}] executeSkillInternal - 施法者={} 技能={} 目标={}",
-            combat.getCombatId(), casterId, skillId, targetId);
-
-        CombatCharacter caster = combat.findCharacter(casterId);
-        if (caster == null || !caster.isAlive()) {
-            CombatActionResult result = CombatActionResult.error("施法者不存在或已死亡");
-            result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-            return result;
+    private void attachPendingLogs(CombatInstance combat, String participantId, CombatActionResult result) {
+        result.setLogSequence(combat.getLastLogSequence());
+        if (result.isSuccess() && !result.isCombatEnded()) {
+            result.setBattleLog(new ArrayList<>());
+            return;
         }
-
-        // 检查技能冷却
-        if (caster.isSkillOnCooldown(skillId)) {
-            CombatActionResult result = CombatActionResult.error("技能冷却中");
-            result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-            return result;
+        result.setBattleLog(convertLogsToStrings(combat.getUnacknowledgedLogs(participantId)));
+        combat.acknowledgeLog(participantId, result.getLogSequence());
+        if (result.isCombatEnded()) {
+            settlementService.getEndedCombatInfo(combat.getCombatId())
+                .ifPresent(endInfo -> endInfo.acknowledgeLog(participantId, result.getLogSequence()));
         }
+    }
 
-        // 从技能配置中获取技能信息
-        Skill skill = skillResolver.getSkillById(skillId);
-        if (skill == null) {
-            CombatActionResult result = CombatActionResult.error("技能不存在");
-            result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-            return result;
+    /**
+     * 获取参战者尚未确认的增量日志（不推进确认位置，在战斗所属分片上读取）
+     * @return 增量日志；战斗不存在时返回空列表
+     */
+    public List<CombatInstance.CombatLogEntry> getUnacknowledgedLogs(String combatId, String participantId) {
+        if (!activeCombats.containsKey(combatId)) {
+            return List.of();
         }
+        return shards.call(combatId, () -> {
+            CombatInstance combat = activeCombats.get(combatId);
+            return combat != null ? List.copyOf(combat.getUnacknowledgedLogs(participantId)) : List.<CombatInstance.CombatLogEntry>of();
+        });
+    }
 
-        // 检查法力值
-        if (!caster.consumeMana(skill.getManaCost())) {
-            CombatActionResult result = CombatActionResult.error("法力值不足");
-            result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+    /**
+     * 取走参战者尚未确认的增量日志并推进确认位置
+     * 读取和确认在同一个分片任务中完成，展示层每次响应只需一次分片往返
+     * @return 增量日志；战斗不存在时返回空列表
+     */
+    public List<CombatInstance.CombatLogEntry> takeUnacknowledgedLogs(String combatId, String participantId) {
+        if (!activeCombats.containsKey(combatId)) {
+            return List.of();
+        }
+        return callAndPublish(combatId, () -> {
+            CombatInstance combat = activeCombats.get(combatId);
+            if (combat == null) {
+                return List.<CombatInstance.CombatLogEntry>of();
+            }
+            List<CombatInstance.CombatLogEntry> pending = List.copyOf(combat.getUnacknowledgedLogs(participantId));
+            combat.acknowledgeLog(participantId, combat.getLastLogSequence());
+            return pending;
+        });
+    }
+
+    /**
+     * 确认参战者已经看到指定序列号之前的日志
+     * 由展示层在请求线程上调用，确认位置的修改投递到战斗所属分片执行，并随检查点持久化
+     */
+    public void acknowledgeLogs(String combatId, String participantId, int sequence) {
+        if (!activeCombats.containsKey(combatId)) {
+            return;
+        }
+        runAndPublish(combatId, () -> {
+            CombatInstance combat = activeCombats.get(combatId);
+            if (combat != null) {
+                combat.acknowledgeLog(participantId, sequence);
+            }
+        });
+    }
+
+    /**
+     * 确认参战者已经看到当前最新的日志（窗口内容已展示完整状态时使用）
+     */
+    public void acknowledgeAllLogs(String combatId, String participantId) {
+        if (!activeCombats.containsKey(combatId)) {
+            return;
+        }
+        runAndPublish(combatId, () -> {
+            CombatInstance combat = activeCombats.get(combatId);
+            if (combat != null) {
+                combat.acknowledgeLog(participantId, combat.getLastLogSequence());
+            }
+        });
+    }
+
+    /**
+     * 执行技能（内部方法，不阻塞）
+     */
+    private CombatActionResult executeSkillInternal(CombatInstance combat, String casterId, String skillId, String targetId) {
+        log.debug("[战斗 {}] executeSkillInternal - 施法者={} 技能={} 目标={}",
+            combat.getCombatId(), casterId, skillId, targetId);
+
+        CombatCharacter caster = combat.findCharacter(casterId);
+        if (caster == null || !caster.isAlive()) {
+            CombatActionResult result = CombatActionResult.error("施法者不存在或已死亡");
+            attachPendingLogs(combat, casterId, result);
+            return result;
+        }
+
+        // 检查技能冷却
+        if (caster.isSkillOnCooldown(skillId)) {
+            CombatActionResult result = CombatActionResult.error("技能冷却中");
+            attachPendingLogs(combat, casterId, result);
+            return result;
+        }
+
+        // 从技能配置中获取技能信息
+        Skill skill = skillResolver.getSkillById(skillId);
+        if (skill == null) {
+            CombatActionResult result = CombatActionResult.error("技能不存在");
+            attachPendingLogs(combat, casterId, result);
+            return result;
+        }
+
+        // 检查法力值
+        if (!caster.consumeMana(skill.getManaCost())) {
+            CombatActionResult result = CombatActionResult.error("法力值不足");
+            attachPendingLogs(combat, casterId, result);
             return result;
         }
 
@@ -626,9 +978,10 @@ public class CombatEngine {
         result.setBattleLog(new ArrayList<>());
 
         // 使用SkillExecutor执行技能
+        // 技能事件直接记录到战斗实例，文本在需要展示时才渲染
         SkillExecutor.SkillExecutionResult execResult = skillExecutor.executeSkill(combat, caster, skill, targetId);
-        for (String logMsg : execResult.getLogs()) {
-            addBattleLog(combat, result, logMsg);
+        for (CombatEvent event : execResult.getEvents()) {
+            combat.addEvent(event);
         }
 
         // 设置技能冷却
@@ -654,14 +1007,6 @@ public class CombatEngine {
         return result;
     }
 
-    /**
-     * 添加战斗日志（同时添加到战斗实例和结果中）
-     */
-    private void addBattleLog(CombatInstance combat, CombatActionResult result, String message) {
-        combat.addLog(message);
-        result.addLog(message);
-    }
-
     /**
      * 跳过回合（带后续处理）
      * 这个方法也用于玩家在非自己回合时发送wait指令等待
@@ -683,69 +1028,72 @@ public class CombatEngine {
             return CombatActionResult.error("战斗不存在");
         }
 
-        // 获取战斗锁
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            // 再次检查战斗是否存在
-            combat = activeCombats.get(combatId);
-            if (combat == null) {
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
-                }
-                return CombatActionResult.error("战斗不存在");
-            }
+        // 投递到战斗所属分片执行；返回null表示不是该玩家的回合，需要在分片外阻塞等待
+        CombatActionResult result = callAndPublish(combatId, () -> skipTurnOnShard(combatId, characterId));
+        if (result == null) {
+            return waitForTurn(combatId, characterId);
+        }
+        return result;
+    }
 
-            CombatCharacter character = combat.findCharacter(characterId);
-            if (character == null || !character.isAlive()) {
-                // 角色不存在或已死亡，检查战斗是否已结束
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
-                }
-                // 战斗未结束但角色已死亡
-                CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
+    /**
+     * 跳过回合（在分片线程上执行）
+     * @return 跳过结果；如果不是该玩家的回合返回null，由调用方在分片外等待
+     */
+    private CombatActionResult skipTurnOnShard(String combatId, String characterId) {
+        // 再次检查战斗是否存在
+        CombatInstance combat = activeCombats.get(combatId);
+        Optional<CombatSettlementService.CombatEndInfo> endInfoOpt;
+        if (combat == null) {
+            endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+            if (endInfoOpt.isPresent()) {
+                return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
             }
+            return CombatActionResult.error("战斗不存在");
+        }
 
-            // 检查当前回合（不推进行动条）
-            Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
-
-            // 如果不是该玩家的回合，释放锁后阻塞等待
-            if (currentTurn.isEmpty() || !currentTurn.get().equals(characterId)) {
-                // 释放锁后调用阻塞等待
-                lock.unlock();
-                try {
-                    return waitForTurn(combatId, characterId);
-                } finally {
-                    // 重新获取锁以便finally块正常释放
-                    lock.lock();
-                }
+        CombatCharacter character = combat.findCharacter(characterId);
+        if (character == null || !character.isAlive()) {
+            // 角色不存在或已死亡，检查战斗是否已结束
+            endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+            if (endInfoOpt.isPresent()) {
+                return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
             }
+            // 战斗未结束但角色已死亡
+            CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
+            attachPendingLogs(combat, characterId, result);
+            return result;
+        }
 
-            // 玩家行动（跳过回合），取消超时计时
-            turnTimeoutManager.playerActed(combatId, characterId);
+        // 检查当前回合（不推进行动条）
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
 
-            // 跳过回合
-            CombatActionResult result = skipTurnInternal(combat, characterId);
+        // 如果不是该玩家的回合，交给调用方在分片外阻塞等待（不能占用分片线程）
+        if (currentTurn.isEmpty() || !currentTurn.get().equals(characterId)) {
+            return null;
+        }
 
-            if (result.isCombatEnded()) {
-                return result;
-            }
+        combat.record(new CombatRecording.Input(CombatRecording.InputType.SKIP, characterId));
 
-            // 通知所有等待的玩家，让他们重新检查是否轮到自己
-            CombatTurnWaiter waiter = turnWaiters.get(combatId);
-            if (waiter != null) {
-                waiter.notifyAllWaiting();
-            }
+        // 玩家行动（跳过回合），取消超时计时
+        turnTimeoutManager.playerActed(combatId, characterId);
 
-            // 处理后续回合直到轮到玩家或战斗结束
-            return processUntilPlayerTurnOrEndInternal(combat, characterId, result);
-        } finally {
-            lock.unlock();
+        // 跳过回合
+        CombatActionResult result = skipTurnInternal(combat, characterId);
+
+        if (result.isCombatEnded()) {
+            attachPendingLogs(combat, characterId, result);
+            return result;
+        }
+
+        // 通知所有等待的玩家，让他们重新检查是否轮到自己
+        CombatTurnWaiter waiter = turnWaiters.get(combatId);
+        if (waiter != null) {
+            waiter.notifyAllWaiting();
         }
+
+        // 处理后续回合直到轮到玩家或战斗结束
+        return processUntilPlayerTurnOrEndInternal(combat, characterId, result);
     }
 
     /**
@@ -775,49 +1123,10 @@ public class CombatEngine {
             return CombatActionResult.error("战斗不存在");
         }
 
-        // 先检查当前状态
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            combat = activeCombats.get(combatId);
-            if (combat == null) {
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
-                }
-                return CombatActionResult.error("战斗不存在");
-            }
-
-            CombatCharacter character = combat.findCharacter(characterId);
-            if (character == null || !character.isAlive()) {
-                // 角色不存在或已死亡，检查战斗是否已结束
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
-                }
-                // 战斗未结束但角色已死亡
-                CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
-            }
-
-            // 检查战斗是否结束
-            if (combat.isFinished()) {
-                CombatActionResult result = CombatActionResult.success("战斗已结束");
-                result.setCombatEnded(true);
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
-            }
-
-            // 检查当前回合，如果已经轮到自己则立即返回
-            Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
-            if (currentTurn.isPresent() && currentTurn.get().equals(characterId)) {
-                CombatActionResult result = CombatActionResult.success("轮到你的回合");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
-            }
-        } finally {
-            lock.unlock();
+        // 先在分片上检查当前状态；返回null表示需要阻塞等待
+        CombatActionResult immediate = shards.call(combatId, () -> checkTurnStateOnShard(combatId, characterId, true));
+        if (immediate != null) {
+            return immediate;
         }
 
         // 不是自己的回合，阻塞等待状态变化
@@ -844,38 +1153,62 @@ public class CombatEngine {
         }
 
         // 返回当前状态，让前端根据状态决定下一步
-        lock.lock();
-        try {
-            combat = activeCombats.get(combatId);
-            if (combat == null) {
-                endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+        return shards.call(combatId, () -> checkTurnStateOnShard(combatId, characterId, false));
+    }
+
+    /**
+     * 检查玩家当前的回合状态（在分片线程上执行）
+     * @param beforeWait 是否是等待前的检查；等待前如果仍未轮到该玩家返回null表示需要阻塞等待
+     */
+    private CombatActionResult checkTurnStateOnShard(String combatId, String characterId, boolean beforeWait) {
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat == null) {
+            Optional<CombatSettlementService.CombatEndInfo> endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+            if (endInfoOpt.isPresent()) {
+                return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
+            }
+            return CombatActionResult.error("战斗不存在");
+        }
+
+        if (beforeWait) {
+            CombatCharacter character = combat.findCharacter(characterId);
+            if (character == null || !character.isAlive()) {
+                // 角色不存在或已死亡，检查战斗是否已结束
+                Optional<CombatSettlementService.CombatEndInfo> endInfoOpt = settlementService.getEndedCombatInfo(combatId);
                 if (endInfoOpt.isPresent()) {
                     return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
                 }
-                return CombatActionResult.error("战斗不存在");
-            }
-
-            if (combat.isFinished()) {
-                CombatActionResult result = CombatActionResult.success("战斗已结束");
-                result.setCombatEnded(true);
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
+                // 战斗未结束但角色已死亡
+                CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
+                attachPendingLogs(combat, characterId, result);
                 return result;
             }
+        }
 
-            Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
-            if (currentTurn.isPresent() && currentTurn.get().equals(characterId)) {
-                CombatActionResult result = CombatActionResult.success("轮到你的回合");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
-            } else {
-                // 仍然不是自己的回合，返回状态让前端继续wait
-                CombatActionResult result = CombatActionResult.success("未轮到你的回合，请输入wait继续等待");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
-            }
-        } finally {
-            lock.unlock();
+        // 检查战斗是否结束
+        if (combat.isFinished()) {
+            CombatActionResult result = CombatActionResult.success("战斗已结束");
+            result.setCombatEnded(true);
+            attachPendingLogs(combat, characterId, result);
+            return result;
+        }
+
+        // 检查当前回合，如果已经轮到自己则立即返回
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        if (currentTurn.isPresent() && currentTurn.get().equals(characterId)) {
+            CombatActionResult result = CombatActionResult.success("轮到你的回合");
+            attachPendingLogs(combat, characterId, result);
+            return result;
         }
+
+        if (beforeWait) {
+            return null;
+        }
+
+        // 仍然不是自己的回合，返回状态让前端继续wait
+        CombatActionResult result = CombatActionResult.success("未轮到你的回合，请输入wait继续等待");
+        attachPendingLogs(combat, characterId, result);
+        return result;
     }
 
     /**
@@ -887,7 +1220,7 @@ public class CombatEngine {
             return CombatActionResult.error("角色不存在");
         }
 
-        combat.addLog(character.getName() + " 跳过了回合");
+        combat.addEvent(CombatEvent.actor(CombatEvent.Type.SKIP_TURN, characterId));
 
         // 重置行动条（会自动减少冷却）
         combat.resetActionBar(characterId);
@@ -926,64 +1259,324 @@ public class CombatEngine {
             return CombatActionResult.error("战斗不存在");
         }
 
-        ReentrantLock lock = getCombatLock(combatId);
-        lock.lock();
-        try {
-            combat = activeCombats.get(combatId);
-            if (combat == null) {
-                return CombatActionResult.error("战斗不存在");
+        return callAndPublish(combatId, () -> forfeitOnShard(combatId, characterId));
+    }
+
+    /**
+     * 撤退（在分片线程上执行）
+     */
+    private CombatActionResult forfeitOnShard(String combatId, String characterId) {
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat == null) {
+            return CombatActionResult.error("战斗不存在");
+        }
+        combat.record(new CombatRecording.Input(CombatRecording.InputType.FORFEIT, characterId));
+
+        // 检查战斗类型，只有PVE战斗才能撤退
+        if (combat.getCombatType() != CombatInstance.CombatType.PVE) {
+            return CombatActionResult.error("PVP战斗中不能撤退");
+        }
+
+        CombatCharacter character = combat.findCharacter(characterId);
+        if (character == null || !character.isAlive()) {
+            // 角色不存在或已死亡，检查战斗是否已结束
+            Optional<CombatSettlementService.CombatEndInfo> endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+            if (endInfoOpt.isPresent()) {
+                return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
+            }
+            // 战斗未结束但角色已死亡
+            CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
+            attachPendingLogs(combat, characterId, result);
+            return result;
+        }
+
+        // 只有玩家可以撤退
+        if (!character.isPlayer()) {
+            return CombatActionResult.error("只有玩家可以撤退");
+        }
+
+        // 撤退：标记为已撤退，但不设置死亡，保留当前生命和法力
+        character.setRetreated(true);
+        combat.addEvent(CombatEvent.actor(CombatEvent.Type.RETREAT, characterId));
+
+        // 从行动条中移除该角色
+        combat.getActionBar().remove(characterId);
+
+        CombatActionResult result = CombatActionResult.success("撤退成功");
+
+        // 检查战斗是否结束
+        List<String> endLogs = settlementService.finishCombatWithRetreat(combat, turnTimeoutManager, turnWaiters, createRemover(combatId));
+        if (endLogs != null) {
+            result.setCombatEnded(true);
+            attachPendingLogs(combat, characterId, result);
+        } else {
+            // 战斗没有结束，通知所有等待的玩家
+            CombatTurnWaiter waiter = turnWaiters.get(combatId);
+            if (waiter != null) {
+                waiter.notifyAllWaiting();
             }
+        }
+
+        return result;
+    }
 
-            // 检查战斗类型，只有PVE战斗才能撤退
-            if (combat.getCombatType() != CombatInstance.CombatType.PVE) {
-                return CombatActionResult.error("PVP战斗中不能撤退");
+    /**
+     * 开启自动战斗（不阻塞等待战斗结束）
+     * 开启后轮到该玩家时由自动战斗AI按策略立即行动，不再等待指令，也不启动回合超时计时。
+     * 战斗中没有其他手动操作的玩家时，整场战斗在本次调用内打完并返回汇总结果；
+     * 否则开启后立即返回，战斗结束后由玩家下一次wait取得汇总结果
+     * @return 战斗在本次调用内结束时返回汇总后的结果（一行统计 + 结算日志），否则返回开启结果
+     */
+    public CombatActionResult autoBattle(String combatId, String playerId, AutoBattlePolicy policy) {
+        Optional<CombatSettlementService.CombatEndInfo> endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+        if (endInfoOpt.isPresent()) {
+            return settlementService.createCombatEndedResult(endInfoOpt.get(), playerId);
+        }
+        if (!activeCombats.containsKey(combatId)) {
+            return CombatActionResult.error("战斗不存在");
+        }
+
+        // 记录开启前已确认的位置，战斗在本次调用内结束时摘要从这里开始统计（结束时引擎会推进确认位置）
+        int[] startSequence = new int[1];
+        CombatActionResult result = callAndPublish(combatId, () -> {
+            CombatInstance combat = activeCombats.get(combatId);
+            if (combat != null) {
+                startSequence[0] = combat.getLogCursor(playerId);
             }
+            return enableAutoBattleOnShard(combatId, playerId, policy);
+        });
 
-            CombatCharacter character = combat.findCharacter(characterId);
-            if (character == null || !character.isAlive()) {
-                // 角色不存在或已死亡，检查战斗是否已结束
-                Optional<CombatSettlementService.CombatEndInfo> endInfoOpt = settlementService.getEndedCombatInfo(combatId);
-                if (endInfoOpt.isPresent()) {
-                    return settlementService.createCombatEndedResult(endInfoOpt.get(), characterId);
-                }
-                // 战斗未结束但角色已死亡
-                CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
-                result.setBattleLog(convertLogsToStrings(combat.getAllLogs()));
-                return result;
+        endInfoOpt = settlementService.getEndedCombatInfo(combatId);
+        if (result.isCombatEnded() && endInfoOpt.isPresent()) {
+            return settlementService.createAutoBattleEndedResult(endInfoOpt.get(), playerId, startSequence[0]);
+        }
+        return result;
+    }
+
+    /**
+     * 关闭自动战斗
+     * 如果当前正轮到该玩家，重新开始回合计时并通知玩家行动
+     */
+    public CombatActionResult disableAutoBattle(String combatId, String playerId) {
+        if (!activeCombats.containsKey(combatId)) {
+            return settlementService.getEndedCombatInfo(combatId)
+                .map(endInfo -> settlementService.createCombatEndedResult(endInfo, playerId))
+                .orElseGet(() -> CombatActionResult.error("战斗不存在"));
+        }
+        return callAndPublish(combatId, () -> disableAutoBattleOnShard(combatId, playerId));
+    }
+
+    /**
+     * 关闭自动战斗（在分片线程上执行）
+     */
+    private CombatActionResult disableAutoBattleOnShard(String combatId, String playerId) {
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat == null) {
+            return CombatActionResult.error("战斗不存在");
+        }
+        if (combat.getAutoBattlePolicy(playerId) == null) {
+            return CombatActionResult.error("未开启自动战斗");
+        }
+
+        combat.record(new CombatRecording.Input(CombatRecording.InputType.AUTO_BATTLE_OFF, playerId));
+        combat.disableAutoBattle(playerId);
+        log.info("[战斗 {}] 玩家 {} 关闭自动战斗", combatId, playerId);
+
+        CombatActionResult result = CombatActionResult.success("已关闭自动战斗");
+        result.setBattleLog(new ArrayList<>());
+
+        // 正轮到该玩家：恢复手动操作，开始回合计时
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        if (currentTurn.isPresent() && currentTurn.get().equals(playerId)) {
+            turnTimeoutManager.startPlayerTurn(combatId, playerId);
+            notifyPlayerTurn(combatId, turnWaiters.get(combatId), playerId);
+        }
+        return result;
+    }
+
+    /**
+     * 开启自动战斗（在分片线程上执行）
+     * 如果当前正轮到该玩家，立即代为行动并处理后续回合
+     */
+    private CombatActionResult enableAutoBattleOnShard(String combatId, String playerId, AutoBattlePolicy policy) {
+        CombatInstance combat = activeCombats.get(combatId);
+        if (combat == null) {
+            return CombatActionResult.error("战斗不存在");
+        }
+
+        CombatCharacter character = combat.findCharacter(playerId);
+        if (character == null || !character.isAlive()) {
+            CombatActionResult result = CombatActionResult.error("角色不存在或已死亡");
+            attachPendingLogs(combat, playerId, result);
+            return result;
+        }
+        if (!character.isPlayer()) {
+            return CombatActionResult.error("只有玩家可以开启自动战斗");
+        }
+
+        CombatRecording.Input input = new CombatRecording.Input(CombatRecording.InputType.AUTO_BATTLE, playerId);
+        input.setAutoBattlePolicy(policy);
+        combat.record(input);
+
+        combat.enableAutoBattle(playerId, policy);
+        log.info("[战斗 {}] 玩家 {} 开启自动战斗", combatId, character.getName());
+
+        CombatActionResult result = CombatActionResult.success("已开启自动战斗，发送 wait 查看战况，auto off 关闭");
+        result.setBattleLog(new ArrayList<>());
+
+        Optional<String> currentTurn = combat.getCurrentTurnCharacterId();
+        if (currentTurn.isEmpty() || !currentTurn.get().equals(playerId)) {
+            return result;
+        }
+
+        // 正轮到该玩家：取消超时计时，立即行动
+        turnTimeoutManager.playerActed(combatId, playerId);
+        executeAIInternal(combat, character, autoBattleAI);
+
+        CombatTurnWaiter waiter = turnWaiters.get(combatId);
+        if (waiter != null) {
+            waiter.notifyAllWaiting();
+        }
+
+        return processUntilPlayerTurnOrEndInternal(combat, playerId, result);
+    }
+
+    /**
+     * 在战斗所属分片上执行针对战斗实例的操作
+     * 供交互层在战斗中修改状态时使用（如使用物品），保证与回合处理串行
+     * 操作逻辑不在引擎内，录像中记录的是操作后的状态和新增日志
+     * @return 操作结果；战斗不存在时返回null
+     */
+    public <T> T executeOnCombat(String combatId, Function<CombatInstance, T> action) {
+        return callAndPublish(combatId, () -> {
+            CombatInstance combat = activeCombats.get(combatId);
+            if (combat == null) {
+                return null;
             }
+            int sequenceBefore = combat.getLastLogSequence();
+            T result = action.apply(combat);
+            recordStatePatch(combat, sequenceBefore);
+            return result;
+        });
+    }
 
-            // 只有玩家可以撤退
-            if (!character.isPlayer()) {
-                return CombatActionResult.error("只有玩家可以撤退");
+    /**
+     * 记录引擎外修改后的状态
+     */
+    private void recordStatePatch(CombatInstance combat, int sequenceBefore) {
+        CombatRecording.StatePatch patch = new CombatRecording.StatePatch();
+        for (CombatParty party : combat.getParties().values()) {
+            for (CombatCharacter character : party.getCharacters()) {
+                patch.getCharacters().put(character.getCharacterId(), new CombatRecording.CharacterState(character));
             }
+        }
+        for (CombatInstance.ActionBarEntry entry : combat.getActionBar().values()) {
+            patch.getActionBarProgress().put(entry.getCharacterId(), entry.getProgress());
+        }
+        for (CombatInstance.CombatLogEntry entry : combat.getLogsSince(sequenceBefore)) {
+            patch.getEvents().add(new CombatRecording.RecordedEvent(entry.getEvent()));
+        }
 
-            // 撤退：标记为已撤退，但不设置死亡，保留当前生命和法力
-            character.setRetreated(true);
-            combat.addLog(character.getName() + " 撤退了");
+        CombatRecording.Input input = new CombatRecording.Input(CombatRecording.InputType.STATE_PATCH, null);
+        input.setPatch(patch);
+        combat.record(input);
+    }
 
-            // 从行动条中移除该角色
-            combat.getActionBar().remove(characterId);
+    private static List<CombatCharacter> copyCharacters(List<CombatCharacter> characters) {
+        List<CombatCharacter> copies = new ArrayList<>(characters.size());
+        for (CombatCharacter character : characters) {
+            copies.add(character.copy());
+        }
+        return copies;
+    }
 
-            CombatActionResult result = CombatActionResult.success("撤退成功");
+    /**
+     * 导出战斗录像
+     * 进行中的战斗导出截至当前的录像，已结束的战斗返回结束时导出的录像
+     */
+    public Optional<CombatRecording> getRecording(String combatId) {
+        if (activeCombats.containsKey(combatId)) {
+            CombatRecording recording = shards.call(combatId, () -> {
+                CombatInstance combat = activeCombats.get(combatId);
+                return combat != null ? combat.exportRecording() : null;
+            });
+            if (recording != null) {
+                return Optional.of(recording);
+            }
+        }
+        return settlementService.getEndedCombatInfo(combatId).map(CombatSettlementService.CombatEndInfo::getRecording);
+    }
 
-            // 检查战斗是否结束
-            List<String> endLogs = settlementService.finishCombatWithRetreat(combat, turnTimeoutManager, turnWaiters, createRemover(combatId));
-            if (endLogs != null) {
-                result.setCombatEnded(true);
-                for (String log : endLogs) {
-                    result.addLog(log);
-                }
-            } else {
-                // 战斗没有结束，通知所有等待的玩家
-                CombatTurnWaiter waiter = turnWaiters.get(combatId);
-                if (waiter != null) {
-                    waiter.notifyAllWaiting();
+    /**
+     * 重放战斗录像
+     * 以录像中的战斗ID和种子新建战斗，在所属分片上按顺序执行全部输入，走的是与线上完全相同的处理逻辑。
+     * 应在独立的引擎实例上调用，避免与线上战斗ID冲突
+     * @return 重放后导出的录像，其日志序列号和状态指纹应与原录像一致
+     * @throws IllegalArgumentException 录像不完整（输入超过上限或战斗从检查点恢复）
+     */
+    public CombatRecording replay(CombatRecording recording) {
+        String combatId = recording.getCombatId();
+        if (recording.isTruncated()) {
+            throw new IllegalArgumentException("录像不完整，无法重放: " + combatId);
+        }
+        if (activeCombats.containsKey(combatId)) {
+            throw new IllegalStateException("战斗已存在: " + combatId);
+        }
+        CombatInstance combat = new CombatInstance(combatId, recording.getMapId(), recording.getSeed());
+        activeCombats.put(combatId, combat);
+        turnWaiters.put(combatId, new CombatTurnWaiter());
+
+        return shards.call(combatId, () -> {
+            try {
+                for (CombatRecording.Input input : recording.getInputs()) {
+                    replayInput(combat, input);
                 }
+                return combat.exportRecording();
+            } finally {
+                // 录像可能在战斗结束前导出，重放完成后统一清理
+                turnTimeoutManager.combatEnded(combatId);
+                activeCombats.remove(combatId);
+                turnWaiters.remove(combatId);
             }
+        });
+    }
 
-            return result;
-        } finally {
-            lock.unlock();
+    /**
+     * 重放单条输入（在分片线程上执行）
+     */
+    private void replayInput(CombatInstance combat, CombatRecording.Input input) {
+        String combatId = combat.getCombatId();
+        switch (input.getType()) {
+            case ADD_PARTY -> addPartyInternal(combat, input.getFactionId(), copyCharacters(input.getCharacters()));
+            case ADD_CHARACTER -> addCharacterInternal(combat, input.getFactionId(), input.getCharacters().get(0).copy());
+            case FIRST_TURN -> initializeFirstTurnInternal(combat);
+            case SKILL -> executeSkillOnShard(combatId, input.getActorId(), input.getSkillId(), input.getTargetId());
+            case SKIP -> skipTurnOnShard(combatId, input.getActorId());
+            case TIMEOUT -> handleTurnTimeoutInternal(combatId, input.getActorId());
+            case FORFEIT -> forfeitOnShard(combatId, input.getActorId());
+            case AFTER_ACTION -> processAfterActionOnShard(combatId, input.getActorId());
+            case AUTO_BATTLE -> enableAutoBattleOnShard(combatId, input.getActorId(), input.getAutoBattlePolicy());
+            case AUTO_BATTLE_OFF -> disableAutoBattleOnShard(combatId, input.getActorId());
+            case STATE_PATCH -> {
+                int sequenceBefore = combat.getLastLogSequence();
+                CombatRecording.StatePatch patch = input.getPatch();
+                patch.getCharacters().forEach((characterId, state) -> {
+                    CombatCharacter character = combat.findCharacter(characterId);
+                    if (character != null) {
+                        state.applyTo(character);
+                    }
+                });
+                patch.getActionBarProgress().forEach((characterId, progress) -> {
+                    CombatInstance.ActionBarEntry entry = combat.getActionBar().get(characterId);
+                    if (entry != null) {
+                        entry.setProgress(progress);
+                    }
+                });
+                for (CombatRecording.RecordedEvent event : patch.getEvents()) {
+                    combat.addEvent(event.toEvent());
+                }
+                recordStatePatch(combat, sequenceBefore);
+            }
         }
     }
 
@@ -1011,7 +1604,10 @@ public class CombatEngine {
     public static class CombatActionResult {
         private boolean success;
         private String message;
+        // 增量战斗日志（调用方上次确认之后的日志）
         private List<String> battleLog;
+        // battleLog对应的最新日志序列号
+        private int logSequence;
         private boolean combatEnded;
 
         public static CombatActionResult success(String message) {
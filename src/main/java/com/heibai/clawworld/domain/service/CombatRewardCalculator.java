@@ -9,6 +9,7 @@ import lombok.Data;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * 战利品计算器
@@ -18,7 +19,7 @@ import java.util.Random;
  */
 public class CombatRewardCalculator {
 
-    private final Random random;
+    private final RandomGenerator random;
     private final ConfigDataManager configDataManager;
 
     public CombatRewardCalculator() {
@@ -48,6 +49,13 @@ public class CombatRewardCalculator {
      * - 战利品归属于对敌人造成最后攻击的队伍
      */
     public CombatReward calculateEnemyReward(CombatCharacter enemy, String winnerPartyId) {
+        return calculateEnemyReward(enemy, winnerPartyId, random);
+    }
+
+    /**
+     * 使用指定的随机数生成器计算击败敌人的战利品（战斗结算时传入战斗实例的随机数生成器）
+     */
+    public CombatReward calculateEnemyReward(CombatCharacter enemy, String winnerPartyId, RandomGenerator random) {
         CombatReward reward = new CombatReward();
         reward.setPartyId(winnerPartyId);
 
@@ -1,14 +1,19 @@
 package com.heibai.clawworld.domain.service;
 
+import com.heibai.clawworld.domain.combat.AutoBattleSummary;
 import com.heibai.clawworld.domain.combat.Combat;
 import com.heibai.clawworld.domain.combat.CombatCharacter;
 import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.domain.combat.CombatParty;
+import com.heibai.clawworld.domain.combat.CombatRecording;
 import com.heibai.clawworld.domain.combat.CombatTurnWaiter;
 import com.heibai.clawworld.domain.combat.TurnTimeoutManager;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.util.ExpiringCache;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -23,7 +28,7 @@ import java.util.stream.Collectors;
  * 2. 确定胜负方
  * 3. 计算战利品
  * 4. 生成战斗结束日志
- * 5. 管理战斗结束缓存
+ * 5. 管理战斗结束缓存（有容量上限，定时清理过期条目）
  * 6. 处理撤退/超时结束逻辑
  */
 @Slf4j
@@ -33,18 +38,54 @@ public class CombatSettlementService {
     private final CombatRewardCalculator rewardCalculator;
     private final ConfigDataManager configDataManager;
 
+    // 已结束战斗缓存的过期时间（5分钟）和容量上限
+    private static final long ENDED_COMBAT_CACHE_EXPIRE_MS = 5 * 60 * 1000;
+    private static final int ENDED_COMBAT_CACHE_MAX_SIZE = 10000;
+
+    // 战利品分配结果缓存的过期时间（10分钟，长于已结束战斗缓存，玩家能查到结束信息时一定还能领取奖励）和容量上限
+    private static final long REWARD_DISTRIBUTION_CACHE_EXPIRE_MS = 10 * 60 * 1000;
+    private static final int REWARD_DISTRIBUTION_CACHE_MAX_SIZE = 10000;
+
+    // 缓存统计的输出间隔（5分钟）
+    private static final long CACHE_STATS_INTERVAL_MS = 5 * 60 * 1000;
+
     // 已结束战斗的信息缓存（供后续玩家查询）
-    private final Map<String, CombatEndInfo> endedCombatCache = new ConcurrentHashMap<>();
+    private final ExpiringCache<String, CombatEndInfo> endedCombatCache =
+        new ExpiringCache<>("已结束战斗缓存", ENDED_COMBAT_CACHE_MAX_SIZE, ENDED_COMBAT_CACHE_EXPIRE_MS);
 
-    // 战利品分配结果缓存
-    private final Map<String, CombatInstance.RewardDistribution> rewardDistributionCache = new ConcurrentHashMap<>();
+    // 战利品分配结果缓存（由CombatService在参战玩家下一次请求时取走，无人领取的按时淘汰）
+    private final ExpiringCache<String, CombatInstance.RewardDistribution> rewardDistributionCache =
+        new ExpiringCache<>("战利品分配缓存", REWARD_DISTRIBUTION_CACHE_MAX_SIZE, REWARD_DISTRIBUTION_CACHE_EXPIRE_MS,
+            (combatId, distribution) -> log.warn("战斗 {} 的战利品分配结果无人领取，已从缓存淘汰", combatId));
 
-    // 已结束战斗缓存的过期时间（5分钟）
-    private static final long ENDED_COMBAT_CACHE_EXPIRE_MS = 5 * 60 * 1000;
+    // 是否缓存已结束战斗的信息（离线模拟没有后续查询，不需要缓存）
+    private final boolean cacheEndedCombats;
 
+    @Autowired
     public CombatSettlementService(ConfigDataManager configDataManager) {
+        this(configDataManager, true);
+    }
+
+    private CombatSettlementService(ConfigDataManager configDataManager, boolean cacheEndedCombats) {
         this.configDataManager = configDataManager;
         this.rewardCalculator = new CombatRewardCalculator(configDataManager);
+        this.cacheEndedCombats = cacheEndedCombats;
+    }
+
+    /**
+     * 创建不缓存已结束战斗信息的结算服务（离线模拟使用，战利品分配结果仍然缓存）
+     */
+    public static CombatSettlementService withoutEndedCombatCache(ConfigDataManager configDataManager) {
+        return new CombatSettlementService(configDataManager, false);
+    }
+
+    /**
+     * 缓存战斗结束信息，供后续玩家查询
+     */
+    private void cacheEndInfo(CombatInstance combat, CombatInstance.RewardDistribution distribution) {
+        if (cacheEndedCombats) {
+            endedCombatCache.put(combat.getCombatId(), new CombatEndInfo(combat, distribution));
+        }
     }
 
     /**
@@ -64,21 +105,44 @@ public class CombatSettlementService {
 
     /**
      * 创建战斗已结束的结果
-     * 用于玩家在战斗结束后发送请求时返回结束信息
+     * 用于玩家在战斗结束后发送请求时返回结束信息；战斗结束时开着自动战斗的玩家返回汇总结果
      */
     public CombatEngine.CombatActionResult createCombatEndedResult(CombatEndInfo endInfo, String playerId) {
+        if (endInfo.isAutoBattle(playerId)) {
+            return createAutoBattleEndedResult(endInfo, playerId, endInfo.getLogCursor(playerId));
+        }
+        // 只返回该玩家尚未确认的日志
+        return createCombatEndedResult(endInfo, playerId, convertLogsToStrings(endInfo.getUnacknowledgedLogs(playerId)));
+    }
+
+    /**
+     * 创建自动战斗结束的结果：指定序列号之后的日志汇总为一行统计，结算等文本日志保留原文
+     */
+    public CombatEngine.CombatActionResult createAutoBattleEndedResult(CombatEndInfo endInfo, String playerId,
+                                                                       int sinceSequence) {
+        List<String> summary = AutoBattleSummary.summarize(endInfo.getLogsSince(sinceSequence), playerId);
+        CombatEngine.CombatActionResult result = createCombatEndedResult(endInfo, playerId, summary);
+        result.setMessage("自动战斗结束");
+        return result;
+    }
+
+    /**
+     * 创建战斗已结束的结果，日志内容由调用方给出（如自动战斗只返回摘要）
+     * 同样会推进该玩家的日志确认位置
+     */
+    public CombatEngine.CombatActionResult createCombatEndedResult(CombatEndInfo endInfo, String playerId,
+                                                                   List<String> battleLog) {
         CombatEngine.CombatActionResult result = new CombatEngine.CombatActionResult();
         result.setSuccess(true);
         result.setCombatEnded(true);
         result.setMessage("战斗已结束");
-        result.setBattleLog(new ArrayList<>(endInfo.getFinalBattleLog()));
+        result.setBattleLog(battleLog);
+        result.setLogSequence(endInfo.getLastLogSequence());
+        endInfo.acknowledgeLog(playerId, endInfo.getLastLogSequence());
 
         // 标记该玩家已获取结束信息
         endInfo.markPlayerNotified(playerId);
 
-        // 清理过期的缓存
-        cleanExpiredEndedCombatCache();
-
         return result;
     }
 
@@ -86,11 +150,39 @@ public class CombatSettlementService {
      * 清理过期的战斗结束缓存
      */
     public void cleanExpiredEndedCombatCache() {
-        endedCombatCache.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        endedCombatCache.evictExpired();
+    }
+
+    /**
+     * 定时清理两个缓存中的过期条目
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void evictExpiredCaches() {
+        int evicted = endedCombatCache.evictExpired() + rewardDistributionCache.evictExpired();
+        if (evicted > 0) {
+            log.debug("清理过期战斗缓存 {} 条", evicted);
+        }
+    }
+
+    /**
+     * 定时输出缓存统计（不论期间是否有淘汰），用于观察缓存容量和命中率
+     */
+    @Scheduled(fixedRate = CACHE_STATS_INTERVAL_MS, initialDelay = CACHE_STATS_INTERVAL_MS)
+    public void logCacheStats() {
+        for (ExpiringCache.Stats stats : getCacheStats()) {
+            log.info("{}", stats);
+        }
+    }
+
+    /**
+     * 获取缓存统计（已结束战斗缓存、战利品分配缓存）
+     */
+    public List<ExpiringCache.Stats> getCacheStats() {
+        return List.of(endedCombatCache.getStats(), rewardDistributionCache.getStats());
     }
 
     /**
-     * 结束战斗并处理奖励
+     * 结束战斗并处理奖励（在战斗所属分片上调用）
      * @param combat 战斗实例
      * @param turnTimeoutManager 回合超时管理器
      * @param turnWaiters 回合等待器映射
@@ -107,19 +199,17 @@ public class CombatSettlementService {
 
         String combatId = combat.getCombatId();
 
-        // 使用 synchronized 确保战斗只被处理一次
-        synchronized (combat) {
-            if (combat.getStatus() == Combat.CombatStatus.FINISHED) {
-                return null;
-            }
-            combat.setStatus(Combat.CombatStatus.FINISHED);
+        // 结算只在战斗所属分片上执行，同一战斗的操作串行，检查状态即可保证只处理一次
+        if (combat.getStatus() == Combat.CombatStatus.FINISHED) {
+            return null;
         }
+        combat.setStatus(Combat.CombatStatus.FINISHED);
 
         // 取消回合超时计时
         turnTimeoutManager.combatEnded(combatId);
 
-        // 记录当前日志数量，用于获取新增的日志
-        int logCountBefore = combat.getAllLogs().size();
+        // 记录当前日志序列号，用于获取新增的日志
+        int sequenceBefore = combat.getLastLogSequence();
 
         Optional<CombatParty> winner = combat.getWinner();
         if (winner.isPresent()) {
@@ -135,17 +225,10 @@ public class CombatSettlementService {
         }
 
         // 获取新增的日志
-        List<CombatInstance.CombatLogEntry> allLogs = combat.getAllLogs();
-        List<String> newLogs = new ArrayList<>();
-        for (int i = logCountBefore; i < allLogs.size(); i++) {
-            CombatInstance.CombatLogEntry entry = allLogs.get(i);
-            newLogs.add(String.format("[#%d] %s", entry.getSequence(), entry.getMessage()));
-        }
+        List<String> newLogs = convertLogsToStrings(combat.getLogsSince(sequenceBefore));
 
         // 缓存战斗结束信息，供后续玩家查询
-        List<String> finalBattleLog = convertLogsToStrings(combat.getAllLogs());
-        CombatEndInfo endInfo = new CombatEndInfo(combatId, finalBattleLog, combat.getRewardDistribution());
-        endedCombatCache.put(combatId, endInfo);
+        cacheEndInfo(combat, combat.getRewardDistribution());
 
         // 通知所有等待的玩家
         CombatTurnWaiter waiter = turnWaiters.get(combatId);
@@ -224,9 +307,7 @@ public class CombatSettlementService {
             rewardDistributionCache.put(combatId, distribution);
 
             // 缓存战斗结束信息
-            List<String> finalBattleLog = convertLogsToStrings(combat.getAllLogs());
-            CombatEndInfo endInfo = new CombatEndInfo(combatId, finalBattleLog, distribution);
-            endedCombatCache.put(combatId, endInfo);
+            cacheEndInfo(combat, distribution);
 
             // 通知所有等待的玩家
             CombatTurnWaiter waiter = turnWaiters.get(combatId);
@@ -279,9 +360,7 @@ public class CombatSettlementService {
         }
 
         // 缓存战斗结束信息
-        List<String> finalBattleLog = convertLogsToStrings(combat.getAllLogs());
-        CombatEndInfo endInfo = new CombatEndInfo(combatId, finalBattleLog, combat.getRewardDistribution());
-        endedCombatCache.put(combatId, endInfo);
+        cacheEndInfo(combat, combat.getRewardDistribution());
 
         // 通知所有等待的玩家
         CombatTurnWaiter waiter = turnWaiters.get(combatId);
@@ -320,7 +399,7 @@ public class CombatSettlementService {
             for (CombatCharacter character : party.getCharacters()) {
                 if (!character.isAlive() && character.isEnemy()) {
                     // 计算这个敌人的战利品
-                    CombatRewardCalculator.CombatReward reward = rewardCalculator.calculateEnemyReward(character, winner.getFactionId());
+                    CombatRewardCalculator.CombatReward reward = rewardCalculator.calculateEnemyReward(character, winner.getFactionId(), combat.getRandom());
                     totalExp += reward.getExperience();
                     totalGold += reward.getGold();
                     if (reward.getItems() != null) {
@@ -465,7 +544,7 @@ public class CombatSettlementService {
      */
     private List<String> convertLogsToStrings(List<CombatInstance.CombatLogEntry> logs) {
         return logs.stream()
-            .map(entry -> String.format("[#%d] %s", entry.getSequence(), entry.getMessage()))
+            .map(CombatInstance.CombatLogEntry::getFormatted)
             .collect(Collectors.toList());
     }
 
@@ -498,20 +577,81 @@ public class CombatSettlementService {
     public static class CombatEndInfo {
         private String combatId;
         private long endTime;
-        private List<String> finalBattleLog;
+        private List<CombatInstance.CombatLogEntry> finalLogs;
+        // 最终的日志序列号（保留的日志可能只是其中最后一段）
+        private int lastLogSequence;
+        private Map<String, Integer> logCursors;
         private CombatInstance.RewardDistribution rewardDistribution;
         private Set<String> notifiedPlayers;
+        // 战斗结束时开着自动战斗的玩家（结束信息以汇总形式返回）
+        private Set<String> autoBattlePlayers;
+        // 战斗录像（结束时导出，可离线重放）
+        private CombatRecording recording;
 
-        public CombatEndInfo(String combatId, List<String> finalBattleLog, CombatInstance.RewardDistribution rewardDistribution) {
-            this.combatId = combatId;
+        public CombatEndInfo(CombatInstance combat, CombatInstance.RewardDistribution rewardDistribution) {
+            this.combatId = combat.getCombatId();
             this.endTime = System.currentTimeMillis();
-            this.finalBattleLog = finalBattleLog;
+            // 名称在结束时解析，缓存条目不再引用战斗实例；文本在玩家读取时才渲染
+            // 所有玩家都已确认的日志不会再被读取，只保留最早确认位置之后的条目
+            Map<String, String> names = combat.getCharacterNames();
+            List<CombatInstance.CombatLogEntry> logs = combat.getLogsSince(lowestPlayerCursor(combat));
+            List<CombatInstance.CombatLogEntry> detached = new ArrayList<>(logs.size());
+            for (CombatInstance.CombatLogEntry entry : logs) {
+                detached.add(entry.detach(names));
+            }
+            this.finalLogs = detached;
+            this.lastLogSequence = combat.getLastLogSequence();
+            this.logCursors = new ConcurrentHashMap<>(combat.getLogCursors());
             this.rewardDistribution = rewardDistribution;
             this.notifiedPlayers = ConcurrentHashMap.newKeySet();
+            this.autoBattlePlayers = Set.copyOf(combat.getAutoBattlePolicies().keySet());
+            this.recording = combat.exportRecording();
+        }
+
+        /**
+         * 所有玩家中最早的日志确认位置（没有玩家时为最新序列号）
+         */
+        private static int lowestPlayerCursor(CombatInstance combat) {
+            int lowest = combat.getLastLogSequence();
+            for (CombatParty party : combat.getParties().values()) {
+                for (CombatCharacter character : party.getCharacters()) {
+                    if (character.isPlayer()) {
+                        lowest = Math.min(lowest, combat.getLogCursor(character.getCharacterId()));
+                    }
+                }
+            }
+            return lowest;
+        }
+
+        /**
+         * 获取玩家尚未确认的日志
+         */
+        public List<CombatInstance.CombatLogEntry> getUnacknowledgedLogs(String playerId) {
+            return getLogsSince(getLogCursor(playerId));
+        }
+
+        /**
+         * 获取玩家已确认的日志序列号
+         */
+        public int getLogCursor(String playerId) {
+            return logCursors.getOrDefault(playerId, 0);
+        }
+
+        /**
+         * 获取指定序列号之后的日志
+         */
+        public List<CombatInstance.CombatLogEntry> getLogsSince(int cursor) {
+            int firstSequence = finalLogs.isEmpty() ? lastLogSequence + 1 : finalLogs.get(0).getSequence();
+            int from = Math.max(0, cursor - firstSequence + 1);
+            return from >= finalLogs.size() ? List.of() : finalLogs.subList(from, finalLogs.size());
+        }
+
+        public void acknowledgeLog(String playerId, int sequence) {
+            logCursors.merge(playerId, sequence, Math::max);
         }
 
-        public boolean isExpired() {
-            return System.currentTimeMillis() - endTime > ENDED_COMBAT_CACHE_EXPIRE_MS;
+        public boolean isAutoBattle(String playerId) {
+            return autoBattlePlayers.contains(playerId);
         }
 
         public boolean hasPlayerBeenNotified(String playerId) {
@@ -0,0 +1,145 @@
+package com.heibai.clawworld.domain.service.ai;
+
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
+import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.domain.skill.Skill;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * 玩家自动战斗AI
+ * 按玩家在战斗中设置的 {@link AutoBattlePolicy} 决策，只使用确定性规则，不消耗战斗随机数
+ *
+ * 决策逻辑：
+ * 1. 按优先级依次检查技能：已掌握、不在冷却、法力足够
+ * 2. 友方治疗技能只在有友方生命低于一半时使用
+ * 3. 敌方单体技能按策略选目标，友方单体技能选生命比例最低的友方
+ * 4. 没有可用技能时使用普通攻击
+ */
+@Slf4j
+public class AutoBattleAI implements EnemyAI {
+
+    // 普通攻击技能ID（与CombatEngine中的识别保持一致）
+    private static final String BASIC_ATTACK_SKILL_ID = "basic_attack";
+
+    // 友方生命比例低于该值时才使用治疗技能
+    private static final double HEAL_THRESHOLD = 0.5;
+
+    private final SkillResolver skillResolver;
+
+    public AutoBattleAI(SkillResolver skillResolver) {
+        this.skillResolver = skillResolver;
+    }
+
+    @Override
+    public AIDecision makeDecision(CombatInstance combat, CombatCharacter character) {
+        AutoBattlePolicy policy = combat.getAutoBattlePolicy(character.getCharacterId());
+        if (policy == null) {
+            policy = AutoBattlePolicy.defaultPolicy();
+        }
+
+        List<String> candidates = policy.getSkillPriority() != null && !policy.getSkillPriority().isEmpty()
+            ? policy.getSkillPriority()
+            : character.getSkillIds();
+
+        if (candidates != null) {
+            for (String skillId : candidates) {
+                AIDecision decision = tryDecide(combat, character, policy, skillId);
+                if (decision != null) {
+                    return decision;
+                }
+            }
+        }
+
+        AIDecision fallback = tryDecide(combat, character, policy, BASIC_ATTACK_SKILL_ID);
+        if (fallback != null) {
+            return fallback;
+        }
+        log.debug("自动战斗 {} 没有可用的行动", character.getName());
+        return AIDecision.skip();
+    }
+
+    /**
+     * 检查技能是否可用并选出目标
+     * @return 决策；技能不可用或没有合适目标时返回null
+     */
+    private AIDecision tryDecide(CombatInstance combat, CombatCharacter character,
+                                 AutoBattlePolicy policy, String skillId) {
+        if (!BASIC_ATTACK_SKILL_ID.equals(skillId)
+            && (character.getSkillIds() == null || !character.getSkillIds().contains(skillId))) {
+            return null;
+        }
+        if (character.isSkillOnCooldown(skillId)) {
+            return null;
+        }
+        Skill skill = skillResolver.getSkillById(skillId);
+        if (skill == null || character.getCurrentMana() < skill.getManaCost()) {
+            return null;
+        }
+
+        String factionId = character.getFactionId();
+        return switch (skill.getTargetType()) {
+            case ENEMY_SINGLE -> {
+                CombatCharacter target = selectEnemy(combat.getEnemyCharacters(factionId), policy.getTargetStrategy());
+                yield target != null ? AIDecision.attack(skillId, target.getCharacterId()) : null;
+            }
+            case ENEMY_ALL -> combat.getEnemyCharacters(factionId).isEmpty() ? null : AIDecision.attack(skillId, null);
+            case ALLY_SINGLE -> {
+                CombatCharacter target = selectWoundedAlly(combat.getAliveCharactersInFaction(factionId));
+                yield target != null ? AIDecision.attack(skillId, target.getCharacterId()) : null;
+            }
+            case ALLY_ALL -> selectWoundedAlly(combat.getAliveCharactersInFaction(factionId)) != null
+                ? AIDecision.attack(skillId, null) : null;
+            case SELF -> skill.getDamageType() == Skill.DamageType.NONE && !isWounded(character)
+                ? null : AIDecision.attack(skillId, null);
+        };
+    }
+
+    private CombatCharacter selectEnemy(List<CombatCharacter> enemies, AutoBattlePolicy.TargetStrategy strategy) {
+        if (enemies.isEmpty()) {
+            return null;
+        }
+        if (strategy == null || strategy == AutoBattlePolicy.TargetStrategy.FIRST) {
+            return enemies.get(0);
+        }
+        CombatCharacter best = enemies.get(0);
+        for (int i = 1; i < enemies.size(); i++) {
+            CombatCharacter enemy = enemies.get(i);
+            boolean better = strategy == AutoBattlePolicy.TargetStrategy.LOWEST_HEALTH
+                ? enemy.getCurrentHealth() < best.getCurrentHealth()
+                : threat(enemy) > threat(best);
+            if (better) {
+                best = enemy;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 生命比例最低且低于治疗阈值的友方
+     */
+    private CombatCharacter selectWoundedAlly(List<CombatCharacter> allies) {
+        CombatCharacter best = null;
+        for (CombatCharacter ally : allies) {
+            if (isWounded(ally) && (best == null || healthRatio(ally) < healthRatio(best))) {
+                best = ally;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isWounded(CombatCharacter character) {
+        return healthRatio(character) < HEAL_THRESHOLD;
+    }
+
+    private static double healthRatio(CombatCharacter character) {
+        return character.getMaxHealth() > 0 ? (double) character.getCurrentHealth() / character.getMaxHealth() : 1.0;
+    }
+
+    private static int threat(CombatCharacter character) {
+        return character.getPhysicalDefense() + character.getMagicDefense();
+    }
+}
@@ -8,7 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
 
 /**
  * 简单敌人AI实现
@@ -21,7 +20,6 @@ import java.util.Random;
 @Slf4j
 public class SimpleEnemyAI implements EnemyAI {
 
-    private final Random random = new Random();
     private final ConfigDataManager configDataManager;
 
     // 普通攻击技能ID（与CombatEngine中的识别保持一致）
@@ -49,7 +47,7 @@ public class SimpleEnemyAI implements EnemyAI {
         CombatCharacter target = selectTargetByThreat(targets);
 
         // 选择技能
-        String skillId = selectSkill(enemy);
+        String skillId = selectSkill(combat, enemy);
 
         log.debug("敌人 {} 决定使用技能 {} 攻击 {}", enemy.getName(), skillId, target.getName());
 
@@ -69,8 +67,9 @@ public class SimpleEnemyAI implements EnemyAI {
     /**
      * 选择技能
      * 优先选择可用的技能，如果没有则使用普通攻击
+     * 随机数取自战斗实例，保证同一种子下AI的选择可以复现
      */
-    private String selectSkill(CombatCharacter enemy) {
+    private String selectSkill(CombatInstance combat, CombatCharacter enemy) {
         // 获取所有技能
         List<String> skills = enemy.getSkillIds();
 
@@ -99,6 +98,6 @@ public class SimpleEnemyAI implements EnemyAI {
         }
 
         // 随机选择一个可用技能
-        return availableSkills.get(random.nextInt(availableSkills.size()));
+        return availableSkills.get(combat.getRandom().nextInt(availableSkills.size()));
     }
 }
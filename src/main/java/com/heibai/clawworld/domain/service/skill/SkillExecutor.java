@@ -1,6 +1,7 @@
 package com.heibai.clawworld.domain.service.skill;
 
 import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatEvent;
 import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.domain.service.CombatDamageCalculator;
 import com.heibai.clawworld.domain.skill.Skill;
@@ -20,9 +21,12 @@ public class SkillExecutor {
 
     private final CombatDamageCalculator damageCalculator;
 
+    // 大规模战斗群体技能的临时数组（技能在战斗分片线程上执行，每个线程复用一份）
+    private static final ThreadLocal<AreaBuffer> AREA_BUFFER = ThreadLocal.withInitial(AreaBuffer::new);
+
     /**
      * 执行技能
-     * @return 执行结果，包含日志信息
+     * @return 执行结果，包含结构化战斗事件
      */
     public SkillExecutionResult executeSkill(CombatInstance combat, CombatCharacter caster,
                                               Skill skill, String targetId) {
@@ -45,13 +49,13 @@ public class SkillExecutor {
      */
     private void executeSelfSkill(CombatInstance combat, CombatCharacter caster,
                                    Skill skill, SkillExecutionResult result) {
-        result.addLog(caster.getName() + " 对自己使用了 " + skill.getName());
+        result.addEvent(CombatEvent.skill(CombatEvent.Type.SKILL_SELF, caster.getCharacterId(), caster.getCharacterId(), skill.getName()));
 
         if (skill.getDamageType() == Skill.DamageType.NONE) {
             // 治疗或增益技能
             int healAmount = (int) (caster.getMagicAttack() * skill.getDamageMultiplier());
             caster.heal(healAmount);
-            result.addLog(caster.getName() + " 恢复了 " + healAmount + " 点生命值");
+            result.addEvent(CombatEvent.heal(caster.getCharacterId(), healAmount));
         }
     }
 
@@ -62,17 +66,17 @@ public class SkillExecutor {
                                          String targetId, Skill skill, SkillExecutionResult result) {
         CombatCharacter target = combat.findCharacter(targetId);
         if (target == null || !target.isAlive()) {
-            result.addLog("目标不存在或已死亡");
+            result.addEvent(CombatEvent.targetInvalid());
             return;
         }
 
-        result.addLog(caster.getName() + " 对 " + target.getName() + " 使用了 " + skill.getName());
+        result.addEvent(CombatEvent.skill(CombatEvent.Type.SKILL_TARGET, caster.getCharacterId(), target.getCharacterId(), skill.getName()));
 
         if (skill.getDamageType() == Skill.DamageType.NONE) {
             // 治疗技能
             int healAmount = (int) (caster.getMagicAttack() * skill.getDamageMultiplier());
             target.heal(healAmount);
-            result.addLog(target.getName() + " 恢复了 " + healAmount + " 点生命值");
+            result.addEvent(CombatEvent.heal(target.getCharacterId(), healAmount));
         }
     }
 
@@ -83,15 +87,25 @@ public class SkillExecutor {
                                       Skill skill, SkillExecutionResult result) {
         List<CombatCharacter> allies = combat.getAliveCharactersInFaction(caster.getFactionId());
 
-        result.addLog(caster.getName() + " 使用了 " + skill.getName());
+        result.addEvent(CombatEvent.skill(CombatEvent.Type.SKILL_AREA, caster.getCharacterId(), null, skill.getName()));
+
+        if (skill.getDamageType() != Skill.DamageType.NONE) {
+            return;
+        }
 
-        for (CombatCharacter ally : allies) {
-            if (skill.getDamageType() == Skill.DamageType.NONE) {
-                int healAmount = (int) (caster.getMagicAttack() * skill.getDamageMultiplier());
-                ally.heal(healAmount);
-                result.addLog(ally.getName() + " 恢复了 " + healAmount + " 点生命值");
+        int healAmount = (int) (caster.getMagicAttack() * skill.getDamageMultiplier());
+        for (int i = 0; i < allies.size(); i++) {
+            CombatCharacter ally = allies.get(i);
+            ally.heal(healAmount);
+            if (!combat.isRaid()) {
+                result.addEvent(CombatEvent.heal(ally.getCharacterId(), healAmount));
             }
         }
+
+        // 大规模战斗只记录一条汇总
+        if (combat.isRaid() && !allies.isEmpty()) {
+            result.addEvent(CombatEvent.areaHeal(caster.getCharacterId(), allies.size(), healAmount * allies.size()));
+        }
     }
 
     /**
@@ -101,31 +115,28 @@ public class SkillExecutor {
                                           String targetId, Skill skill, SkillExecutionResult result) {
         CombatCharacter target = combat.findCharacter(targetId);
         if (target == null || !target.isAlive()) {
-            result.addLog("目标不存在或已死亡");
+            result.addEvent(CombatEvent.targetInvalid());
             return;
         }
 
-        result.addLog(caster.getName() + " 对 " + target.getName() + " 使用了 " + skill.getName());
+        result.addEvent(CombatEvent.skill(CombatEvent.Type.SKILL_TARGET, caster.getCharacterId(), target.getCharacterId(), skill.getName()));
 
         boolean isPhysical = skill.getDamageType() == Skill.DamageType.PHYSICAL;
         CombatDamageCalculator.DamageResult damageResult = damageCalculator.calculateDamage(
-            caster, target, isPhysical, skill.getDamageMultiplier()
+            caster, target, isPhysical, skill.getDamageMultiplier(), combat.getRandom()
         );
 
         if (damageResult.isMissed()) {
-            result.addLog("攻击未命中！");
+            result.addEvent(CombatEvent.target(CombatEvent.Type.MISS, target.getCharacterId()));
         } else {
             target.takeDamage(damageResult.getDamage());
             combat.recordDamage(caster.getFactionId(), target.getCharacterId(), damageResult.getDamage());
 
-            String damageLog = String.format("造成了 %d 点伤害", damageResult.getDamage());
-            if (damageResult.isCrit()) {
-                damageLog += "（暴击！）";
-            }
-            result.addLog(damageLog);
+            result.addEvent(CombatEvent.damage(CombatEvent.Type.DAMAGE, target.getCharacterId(),
+                damageResult.getDamage(), damageResult.isCrit()));
 
             if (!target.isAlive()) {
-                result.addLog(target.getName() + " 被击败了！");
+                result.addEvent(CombatEvent.target(CombatEvent.Type.DEFEATED, target.getCharacterId()));
             }
         }
     }
@@ -137,31 +148,103 @@ public class SkillExecutor {
                                        Skill skill, SkillExecutionResult result) {
         List<CombatCharacter> enemies = combat.getEnemyCharacters(caster.getFactionId());
 
-        result.addLog(caster.getName() + " 使用了 " + skill.getName());
+        result.addEvent(CombatEvent.skill(CombatEvent.Type.SKILL_AREA, caster.getCharacterId(), null, skill.getName()));
 
         boolean isPhysical = skill.getDamageType() == Skill.DamageType.PHYSICAL;
 
-        for (CombatCharacter enemy : enemies) {
+        if (combat.isRaid()) {
+            executeRaidAreaDamage(combat, caster, enemies, isPhysical, skill.getDamageMultiplier(), result);
+            return;
+        }
+
+        // 敌人列表是存活视图，被击杀的角色会立即移出，后一个角色补到当前下标
+        for (int i = 0; i < enemies.size(); ) {
+            CombatCharacter enemy = enemies.get(i);
             CombatDamageCalculator.DamageResult damageResult = damageCalculator.calculateDamage(
-                caster, enemy, isPhysical, skill.getDamageMultiplier()
+                caster, enemy, isPhysical, skill.getDamageMultiplier(), combat.getRandom()
             );
 
             if (damageResult.isMissed()) {
-                result.addLog("对 " + enemy.getName() + " 的攻击未命中！");
+                result.addEvent(CombatEvent.target(CombatEvent.Type.AREA_MISS, enemy.getCharacterId()));
             } else {
                 enemy.takeDamage(damageResult.getDamage());
                 combat.recordDamage(caster.getFactionId(), enemy.getCharacterId(), damageResult.getDamage());
 
-                String damageLog = String.format("对 %s 造成了 %d 点伤害", enemy.getName(), damageResult.getDamage());
-                if (damageResult.isCrit()) {
-                    damageLog += "（暴击！）";
-                }
-                result.addLog(damageLog);
+                result.addEvent(CombatEvent.damage(CombatEvent.Type.AREA_DAMAGE, enemy.getCharacterId(),
+                    damageResult.getDamage(), damageResult.isCrit()));
 
                 if (!enemy.isAlive()) {
-                    result.addLog(enemy.getName() + " 被击败了！");
+                    result.addEvent(CombatEvent.target(CombatEvent.Type.DEFEATED, enemy.getCharacterId()));
+                    continue;
                 }
             }
+            i++;
+        }
+    }
+
+    /**
+     * 大规模战斗中的群体伤害：批量计算后统一结算，只记录一条汇总和各目标的击败事件
+     */
+    private void executeRaidAreaDamage(CombatInstance combat, CombatCharacter caster, List<CombatCharacter> enemies,
+                                        boolean isPhysical, double damageMultiplier, SkillExecutionResult result) {
+        // 存活视图会随击杀变化，先把目标固定到数组里
+        int count = enemies.size();
+        AreaBuffer buffer = AREA_BUFFER.get().ensureCapacity(count);
+        CombatCharacter[] targets = buffer.targets;
+        for (int i = 0; i < count; i++) {
+            targets[i] = enemies.get(i);
+        }
+
+        damageCalculator.calculateAreaDamage(caster, targets, count, isPhysical, damageMultiplier, combat.getRandom(),
+            buffer.defenses, buffer.dodgeRates, buffer.damages, buffer.crits);
+
+        int hitCount = 0;
+        int critCount = 0;
+        int totalDamage = 0;
+        String factionId = caster.getFactionId();
+        for (int i = 0; i < count; i++) {
+            int damage = buffer.damages[i];
+            if (damage < 0) {
+                continue;
+            }
+            targets[i].takeDamage(damage);
+            combat.recordDamage(factionId, targets[i].getCharacterId(), damage);
+            hitCount++;
+            totalDamage += damage;
+            if (buffer.crits[i]) {
+                critCount++;
+            }
+        }
+
+        result.addEvent(CombatEvent.areaSummary(caster.getCharacterId(), hitCount, critCount, count - hitCount, totalDamage));
+        for (int i = 0; i < count; i++) {
+            if (buffer.damages[i] >= 0 && !targets[i].isAlive()) {
+                result.addEvent(CombatEvent.target(CombatEvent.Type.DEFEATED, targets[i].getCharacterId()));
+            }
+            targets[i] = null;
+        }
+    }
+
+    /**
+     * 群体伤害的临时数组（按需扩容，不缩小）
+     */
+    private static final class AreaBuffer {
+        private CombatCharacter[] targets = new CombatCharacter[0];
+        private int[] defenses = new int[0];
+        private double[] dodgeRates = new double[0];
+        private int[] damages = new int[0];
+        private boolean[] crits = new boolean[0];
+
+        AreaBuffer ensureCapacity(int count) {
+            if (targets.length < count) {
+                int capacity = Math.max(count, targets.length * 2);
+                targets = new CombatCharacter[capacity];
+                defenses = new int[capacity];
+                dodgeRates = new double[capacity];
+                damages = new int[capacity];
+                crits = new boolean[capacity];
+            }
+            return this;
         }
     }
 
@@ -171,10 +254,10 @@ public class SkillExecutor {
     @Data
     public static class SkillExecutionResult {
         private boolean success;
-        private List<String> logs = new ArrayList<>();
+        private List<CombatEvent> events = new ArrayList<>();
 
-        public void addLog(String log) {
-            logs.add(log);
+        public void addEvent(CombatEvent event) {
+            events.add(event);
         }
     }
 }
@@ -5,9 +5,11 @@ import com.heibai.clawworld.infrastructure.config.data.item.*;
 import com.heibai.clawworld.infrastructure.config.data.map.*;
 import com.heibai.clawworld.infrastructure.config.data.skill.SkillConfig;
 import com.heibai.clawworld.infrastructure.config.loader.*;
+import com.heibai.clawworld.infrastructure.util.CsvReader;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -36,6 +38,22 @@ public class ConfigDataManager {
 
     private final Map<String, String> fileChecksums = new HashMap<>();
 
+    /**
+     * 不启动Spring容器，直接从classpath下的CSV加载配置（供战斗重放、模拟和基准测试等离线工具使用）
+     */
+    public static ConfigDataManager loadFromClasspath() {
+        CsvReader csvReader = new CsvReader();
+        ResourceLoader resourceLoader = new DefaultResourceLoader();
+        ConfigDataManager configDataManager = new ConfigDataManager(
+            new ItemConfigLoader(csvReader, resourceLoader),
+            new SkillConfigLoader(csvReader, resourceLoader),
+            new CharacterConfigLoader(csvReader, resourceLoader),
+            new MapConfigLoader(csvReader, resourceLoader),
+            resourceLoader);
+        configDataManager.init();
+        return configDataManager;
+    }
+
     @PostConstruct
     public void init() {
         log.info("Initializing ConfigDataManager...");
@@ -0,0 +1,55 @@
+package com.heibai.clawworld.infrastructure.persistence;
+
+import com.heibai.clawworld.domain.combat.CombatCheckpoint;
+import com.heibai.clawworld.domain.combat.CombatCheckpointStore;
+import com.heibai.clawworld.infrastructure.persistence.entity.CombatEntity;
+import com.heibai.clawworld.infrastructure.persistence.mapper.CombatCheckpointMapper;
+import com.heibai.clawworld.infrastructure.persistence.repository.CombatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于CombatRepository的战斗检查点存储
+ * 每场进行中的战斗对应combats集合中的一个文档，战斗结束后删除
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CombatCheckpointRepositoryStore implements CombatCheckpointStore {
+
+    private final CombatRepository combatRepository;
+    private final CombatCheckpointMapper combatCheckpointMapper;
+
+    @Override
+    public void saveAll(Collection<CombatCheckpoint> checkpoints) {
+        List<CombatEntity> entities = new ArrayList<>(checkpoints.size());
+        for (CombatCheckpoint checkpoint : checkpoints) {
+            entities.add(combatCheckpointMapper.toEntity(checkpoint));
+        }
+        combatRepository.saveAll(entities);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> combatIds) {
+        combatRepository.deleteAllById(combatIds);
+    }
+
+    @Override
+    public List<CombatCheckpoint> loadAll() {
+        List<CombatEntity> entities = combatRepository.findByStatus(CombatEntity.CombatStatus.ONGOING);
+        List<CombatCheckpoint> checkpoints = new ArrayList<>(entities.size());
+        for (CombatEntity entity : entities) {
+            try {
+                checkpoints.add(combatCheckpointMapper.toCheckpoint(entity));
+            } catch (RuntimeException e) {
+                log.error("战斗检查点无法解析，已跳过: combatId={}", entity.getId(), e);
+            }
+        }
+        return checkpoints;
+    }
+}
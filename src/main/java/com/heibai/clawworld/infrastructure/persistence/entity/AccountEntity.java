@@ -58,9 +58,6 @@ public class AccountEntity {
     // 上次状态的地图ID（用于检测地图切换）
     private String lastMapId;
 
-    // 上次获取的战斗日志序列号（用于增量获取战斗日志）
-    private Integer lastCombatLogSequence;
-
     // 上次的队伍状态快照（用于追踪队伍变化）
     private PartySnapshot lastPartySnapshot;
 
@@ -5,7 +5,9 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 战斗状态持久化实体
@@ -33,6 +35,21 @@ public class CombatEntity {
      */
     private CombatStatus status;
 
+    /**
+     * 战斗类型（PVP, PVE, UNKNOWN）
+     */
+    private String combatType;
+
+    /**
+     * 检查点生成时的最新日志序列号（恢复后日志从这里继续编号）
+     */
+    private int lastLogSequence;
+
+    /**
+     * 检查点生成时间（毫秒时间戳）
+     */
+    private Long savedAt;
+
     /**
      * 参战方列表
      */
@@ -48,6 +65,21 @@ public class CombatEntity {
      */
     private List<String> combatLog = new ArrayList<>();
 
+    /**
+     * 伤害统计（用于判定战利品归属）
+     */
+    private List<DamageRecord> damageRecords = new ArrayList<>();
+
+    /**
+     * 参战者已确认的日志序列号（角色ID -> 序列号）
+     */
+    private Map<String, Integer> logCursors = new HashMap<>();
+
+    /**
+     * 开启了自动战斗的玩家
+     */
+    private List<AutoBattleEntry> autoBattles = new ArrayList<>();
+
     /**
      * 战斗状态枚举
      */
@@ -93,6 +125,29 @@ public class CombatEntity {
          */
         private String name;
 
+        /**
+         * 队伍ID（用于战利品分配）
+         */
+        private String partyId;
+
+        /**
+         * 是否是队长
+         */
+        private boolean partyLeader;
+
+        /**
+         * 角色等级
+         */
+        private int level;
+
+        /**
+         * 敌人配置ID和实例信息（仅敌人使用）
+         */
+        private String enemyConfigId;
+        private String enemyMapId;
+        private String enemyInstanceId;
+        private int enemyRespawnSeconds;
+
         /**
          * 当前生命值
          */
@@ -113,11 +168,34 @@ public class CombatEntity {
          */
         private int maxMana;
 
+        /**
+         * 战斗属性
+         */
+        private int physicalAttack;
+        private int physicalDefense;
+        private int magicAttack;
+        private int magicDefense;
+        private int speed;
+        private double critRate;
+        private double critDamage;
+        private double hitRate;
+        private double dodgeRate;
+
+        /**
+         * 技能列表
+         */
+        private List<String> skillIds = new ArrayList<>();
+
         /**
          * 是否已死亡
          */
         private boolean isDead;
 
+        /**
+         * 是否已撤退
+         */
+        private boolean retreated;
+
         /**
          * 技能冷却状态（技能ID -> 剩余冷却回合数）
          */
@@ -140,5 +218,27 @@ public class CombatEntity {
     public static class ActionBarEntry {
         private String characterId;
         private int progress; // 当前进度值（0-10000）
+        private int speed;
+    }
+
+    /**
+     * 伤害记录
+     */
+    @Data
+    public static class DamageRecord {
+        private String targetId;
+        private Map<String, Integer> damageByFaction = new HashMap<>();
+        private String lastAttackerFaction;
+        private String firstAttackerFaction;
+    }
+
+    /**
+     * 自动战斗设置
+     */
+    @Data
+    public static class AutoBattleEntry {
+        private String characterId;
+        private List<String> skillPriority = new ArrayList<>();
+        private String targetStrategy;
     }
 }
@@ -0,0 +1,219 @@
+package com.heibai.clawworld.infrastructure.persistence.mapper;
+
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
+import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatCheckpoint;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.infrastructure.persistence.entity.CombatEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 战斗检查点与持久化实体之间的映射器
+ */
+@Component
+public class CombatCheckpointMapper {
+
+    /**
+     * 将检查点转换为持久化实体
+     */
+    public CombatEntity toEntity(CombatCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            return null;
+        }
+
+        CombatEntity entity = new CombatEntity();
+        entity.setId(checkpoint.getCombatId());
+        entity.setMapId(checkpoint.getMapId());
+        entity.setStartTime(checkpoint.getStartTime());
+        entity.setStatus(CombatEntity.CombatStatus.ONGOING);
+        entity.setCombatType(checkpoint.getCombatType() != null ? checkpoint.getCombatType().name() : null);
+        entity.setLastLogSequence(checkpoint.getLastLogSequence());
+        entity.setSavedAt(checkpoint.getSavedAt());
+
+        for (CombatCheckpoint.Faction faction : checkpoint.getFactions()) {
+            CombatEntity.CombatParty party = new CombatEntity.CombatParty();
+            party.setFaction(faction.getFactionId());
+            for (CombatCharacter character : faction.getCharacters()) {
+                party.getCharacters().add(toEntity(character));
+            }
+            entity.getParties().add(party);
+        }
+
+        for (CombatInstance.ActionBarEntry entry : checkpoint.getActionBar()) {
+            CombatEntity.ActionBarEntry actionBarEntry = new CombatEntity.ActionBarEntry();
+            actionBarEntry.setCharacterId(entry.getCharacterId());
+            actionBarEntry.setProgress(entry.getProgress());
+            actionBarEntry.setSpeed(entry.getSpeed());
+            entity.getActionBar().add(actionBarEntry);
+        }
+
+        for (CombatInstance.DamageRecord record : checkpoint.getDamageRecords()) {
+            CombatEntity.DamageRecord damageRecord = new CombatEntity.DamageRecord();
+            damageRecord.setTargetId(record.getTargetId());
+            damageRecord.setDamageByFaction(new HashMap<>(record.getDamageByFaction()));
+            damageRecord.setLastAttackerFaction(record.getLastAttackerFaction());
+            damageRecord.setFirstAttackerFaction(record.getFirstAttackerFaction());
+            entity.getDamageRecords().add(damageRecord);
+        }
+
+        entity.setLogCursors(new HashMap<>(checkpoint.getLogCursors()));
+
+        for (Map.Entry<String, AutoBattlePolicy> policyEntry : checkpoint.getAutoBattlePolicies().entrySet()) {
+            AutoBattlePolicy policy = policyEntry.getValue();
+            CombatEntity.AutoBattleEntry autoBattle = new CombatEntity.AutoBattleEntry();
+            autoBattle.setCharacterId(policyEntry.getKey());
+            if (policy.getSkillPriority() != null) {
+                autoBattle.setSkillPriority(new ArrayList<>(policy.getSkillPriority()));
+            }
+            autoBattle.setTargetStrategy(policy.getTargetStrategy() != null ? policy.getTargetStrategy().name() : null);
+            entity.getAutoBattles().add(autoBattle);
+        }
+
+        return entity;
+    }
+
+    /**
+     * 将持久化实体转换为检查点
+     */
+    public CombatCheckpoint toCheckpoint(CombatEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        CombatCheckpoint checkpoint = new CombatCheckpoint();
+        checkpoint.setCombatId(entity.getId());
+        checkpoint.setMapId(entity.getMapId());
+        checkpoint.setStartTime(entity.getStartTime() != null ? entity.getStartTime() : 0L);
+        checkpoint.setCombatType(entity.getCombatType() != null
+            ? CombatInstance.CombatType.valueOf(entity.getCombatType()) : null);
+        checkpoint.setLastLogSequence(entity.getLastLogSequence());
+        checkpoint.setSavedAt(entity.getSavedAt() != null ? entity.getSavedAt() : 0L);
+
+        for (CombatEntity.CombatParty party : entity.getParties()) {
+            CombatCheckpoint.Faction faction = new CombatCheckpoint.Faction();
+            faction.setFactionId(party.getFaction());
+            for (CombatEntity.CombatCharacter character : party.getCharacters()) {
+                faction.getCharacters().add(toDomain(character, party.getFaction()));
+            }
+            checkpoint.getFactions().add(faction);
+        }
+
+        for (CombatEntity.ActionBarEntry actionBarEntry : entity.getActionBar()) {
+            CombatInstance.ActionBarEntry entry =
+                new CombatInstance.ActionBarEntry(actionBarEntry.getCharacterId(), actionBarEntry.getSpeed());
+            entry.setProgress(actionBarEntry.getProgress());
+            checkpoint.getActionBar().add(entry);
+        }
+
+        for (CombatEntity.DamageRecord damageRecord : entity.getDamageRecords()) {
+            CombatInstance.DamageRecord record = new CombatInstance.DamageRecord(damageRecord.getTargetId());
+            if (damageRecord.getDamageByFaction() != null) {
+                record.getDamageByFaction().putAll(damageRecord.getDamageByFaction());
+            }
+            record.setLastAttackerFaction(damageRecord.getLastAttackerFaction());
+            record.setFirstAttackerFaction(damageRecord.getFirstAttackerFaction());
+            checkpoint.getDamageRecords().add(record);
+        }
+
+        if (entity.getLogCursors() != null) {
+            checkpoint.getLogCursors().putAll(entity.getLogCursors());
+        }
+
+        for (CombatEntity.AutoBattleEntry autoBattle : entity.getAutoBattles()) {
+            AutoBattlePolicy policy = AutoBattlePolicy.defaultPolicy();
+            if (autoBattle.getSkillPriority() != null) {
+                policy.setSkillPriority(new ArrayList<>(autoBattle.getSkillPriority()));
+            }
+            if (autoBattle.getTargetStrategy() != null) {
+                policy.setTargetStrategy(AutoBattlePolicy.TargetStrategy.valueOf(autoBattle.getTargetStrategy()));
+            }
+            checkpoint.getAutoBattlePolicies().put(autoBattle.getCharacterId(), policy);
+        }
+
+        return checkpoint;
+    }
+
+    private CombatEntity.CombatCharacter toEntity(CombatCharacter character) {
+        CombatEntity.CombatCharacter entity = new CombatEntity.CombatCharacter();
+        entity.setCharacterId(character.getCharacterId());
+        entity.setCharacterType(character.getCharacterType());
+        entity.setName(character.getName());
+        entity.setPartyId(character.getPartyId());
+        entity.setPartyLeader(character.isPartyLeader());
+        entity.setLevel(character.getLevel());
+        entity.setEnemyConfigId(character.getEnemyConfigId());
+        entity.setEnemyMapId(character.getEnemyMapId());
+        entity.setEnemyInstanceId(character.getEnemyInstanceId());
+        entity.setEnemyRespawnSeconds(character.getEnemyRespawnSeconds());
+        entity.setCurrentHealth(character.getCurrentHealth());
+        entity.setMaxHealth(character.getMaxHealth());
+        entity.setCurrentMana(character.getCurrentMana());
+        entity.setMaxMana(character.getMaxMana());
+        entity.setPhysicalAttack(character.getPhysicalAttack());
+        entity.setPhysicalDefense(character.getPhysicalDefense());
+        entity.setMagicAttack(character.getMagicAttack());
+        entity.setMagicDefense(character.getMagicDefense());
+        entity.setSpeed(character.getSpeed());
+        entity.setCritRate(character.getCritRate());
+        entity.setCritDamage(character.getCritDamage());
+        entity.setHitRate(character.getHitRate());
+        entity.setDodgeRate(character.getDodgeRate());
+        entity.setSkillIds(character.getSkillIds() != null ? new ArrayList<>(character.getSkillIds()) : new ArrayList<>());
+        entity.setDead(character.isDead());
+        entity.setRetreated(character.isRetreated());
+
+        if (character.getSkillCooldowns() != null) {
+            for (Map.Entry<String, Integer> cooldownEntry : character.getSkillCooldowns().entrySet()) {
+                CombatEntity.SkillCooldown cooldown = new CombatEntity.SkillCooldown();
+                cooldown.setSkillId(cooldownEntry.getKey());
+                cooldown.setRemainingTurns(cooldownEntry.getValue());
+                entity.getSkillCooldowns().add(cooldown);
+            }
+        }
+        return entity;
+    }
+
+    private CombatCharacter toDomain(CombatEntity.CombatCharacter entity, String factionId) {
+        CombatCharacter character = new CombatCharacter();
+        character.setCharacterId(entity.getCharacterId());
+        character.setCharacterType(entity.getCharacterType());
+        character.setName(entity.getName());
+        character.setFactionId(factionId);
+        character.setPartyId(entity.getPartyId());
+        character.setPartyLeader(entity.isPartyLeader());
+        character.setLevel(entity.getLevel());
+        character.setEnemyConfigId(entity.getEnemyConfigId());
+        character.setEnemyMapId(entity.getEnemyMapId());
+        character.setEnemyInstanceId(entity.getEnemyInstanceId());
+        character.setEnemyRespawnSeconds(entity.getEnemyRespawnSeconds());
+        character.setMaxHealth(entity.getMaxHealth());
+        character.setCurrentHealth(entity.getCurrentHealth());
+        character.setMaxMana(entity.getMaxMana());
+        character.setCurrentMana(entity.getCurrentMana());
+        character.setPhysicalAttack(entity.getPhysicalAttack());
+        character.setPhysicalDefense(entity.getPhysicalDefense());
+        character.setMagicAttack(entity.getMagicAttack());
+        character.setMagicDefense(entity.getMagicDefense());
+        character.setSpeed(entity.getSpeed());
+        character.setCritRate(entity.getCritRate());
+        character.setCritDamage(entity.getCritDamage());
+        character.setHitRate(entity.getHitRate());
+        character.setDodgeRate(entity.getDodgeRate());
+        character.setSkillIds(entity.getSkillIds() != null ? new ArrayList<>(entity.getSkillIds()) : new ArrayList<>());
+        character.setDead(entity.isDead());
+        character.setRetreated(entity.isRetreated());
+
+        Map<String, Integer> cooldowns = new HashMap<>();
+        if (entity.getSkillCooldowns() != null) {
+            for (CombatEntity.SkillCooldown cooldown : entity.getSkillCooldowns()) {
+                cooldowns.put(cooldown.getSkillId(), cooldown.getRemainingTurns());
+            }
+        }
+        character.setSkillCooldowns(cooldowns);
+        return character;
+    }
+}
@@ -4,6 +4,8 @@ import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -41,4 +43,9 @@ public interface AccountRepository extends MongoRepository<AccountEntity, String
      * 根据玩家ID查找账号
      */
     Optional<AccountEntity> findByPlayerId(String playerId);
+
+    /**
+     * 根据玩家ID批量查找账号
+     */
+    List<AccountEntity> findByPlayerIdIn(Collection<String> playerIds);
 }
@@ -11,7 +11,7 @@ import java.util.Optional;
  * 敌人实例持久化仓储接口
  */
 @Repository
-public interface EnemyInstanceRepository extends MongoRepository<EnemyInstanceEntity, String> {
+public interface EnemyInstanceRepository extends MongoRepository<EnemyInstanceEntity, String>, EnemyInstanceRepositoryCustom {
 
     /**
      * 根据地图ID和实例ID查找敌人
@@ -23,6 +23,16 @@ public interface EnemyInstanceRepository extends MongoRepository<EnemyInstanceEn
      */
     List<EnemyInstanceEntity> findByMapId(String mapId);
 
+    /**
+     * 根据地图ID和显示名称查找敌人
+     */
+    Optional<EnemyInstanceEntity> findFirstByMapIdAndDisplayName(String mapId, String displayName);
+
+    /**
+     * 查找地图上指定格子的敌人
+     */
+    List<EnemyInstanceEntity> findByMapIdAndXAndY(String mapId, int x, int y);
+
     /**
      * 查找所有已死亡的敌人
      */
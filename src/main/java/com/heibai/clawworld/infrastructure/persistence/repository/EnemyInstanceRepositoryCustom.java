@@ -0,0 +1,25 @@
+package com.heibai.clawworld.infrastructure.persistence.repository;
+
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
+
+import java.util.Optional;
+
+/**
+ * 敌人实例仓储的自定义操作（条件原子更新）
+ */
+public interface EnemyInstanceRepositoryCustom {
+
+    /**
+     * 原子地将敌人占用到指定战斗
+     * 只有敌人未死亡、且当前占用与预期一致时才会成功：
+     * expectedCombatId为null时要求敌人不在战斗中；否则要求敌人仍被该战斗占用（用于接管已失效的战斗）
+     * @return 占用成功时返回更新后的敌人；条件不满足时返回空
+     */
+    Optional<EnemyInstanceEntity> claimForCombat(String mapId, String instanceId, String expectedCombatId, String combatId);
+
+    /**
+     * 释放敌人的战斗占用（仅当敌人仍被该战斗占用时）
+     * @return 是否释放成功
+     */
+    boolean releaseCombatClaim(String mapId, String instanceId, String combatId);
+}
@@ -0,0 +1,51 @@
+package com.heibai.clawworld.infrastructure.persistence.repository;
+
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+/**
+ * 敌人实例仓储自定义操作的实现
+ * 占用和释放都是带条件的单文档原子更新，同时攻击同一个敌人的多个请求中只有一个能占用成功
+ */
+@RequiredArgsConstructor
+public class EnemyInstanceRepositoryCustomImpl implements EnemyInstanceRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<EnemyInstanceEntity> claimForCombat(String mapId, String instanceId, String expectedCombatId, String combatId) {
+        Criteria criteria = Criteria.where("mapId").is(mapId)
+            .and("instanceId").is(instanceId)
+            .and("dead").is(false);
+        if (expectedCombatId == null) {
+            criteria.and("inCombat").is(false);
+        } else {
+            criteria.and("inCombat").is(true).and("combatId").is(expectedCombatId);
+        }
+
+        Update update = new Update()
+            .set("inCombat", true)
+            .set("combatId", combatId);
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(Query.query(criteria), update,
+            FindAndModifyOptions.options().returnNew(true), EnemyInstanceEntity.class));
+    }
+
+    @Override
+    public boolean releaseCombatClaim(String mapId, String instanceId, String combatId) {
+        Query query = Query.query(Criteria.where("mapId").is(mapId)
+            .and("instanceId").is(instanceId)
+            .and("combatId").is(combatId));
+        Update update = new Update()
+            .set("inCombat", false)
+            .set("combatId", null);
+        return mongoTemplate.updateFirst(query, update, EnemyInstanceEntity.class).getModifiedCount() > 0;
+    }
+}
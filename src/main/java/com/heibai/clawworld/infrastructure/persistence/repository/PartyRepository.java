@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,11 @@ public interface PartyRepository extends MongoRepository<PartyEntity, String> {
      */
     Optional<PartyEntity> findByMemberIdsContaining(String memberId);
 
+    /**
+     * 查找包含任一指定成员的队伍
+     */
+    List<PartyEntity> findByMemberIdsIn(Collection<String> memberIds);
+
     /**
      * 根据阵营名称查找队伍
      */
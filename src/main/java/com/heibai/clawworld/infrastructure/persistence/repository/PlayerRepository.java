@@ -4,6 +4,8 @@ import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * 玩家持久化仓储接口
  */
@@ -11,4 +13,14 @@ import org.springframework.stereotype.Repository;
 public interface PlayerRepository extends MongoRepository<PlayerEntity, String> {
     // 玩家仓储只负责游戏数据的持久化
     // 账号相关的查询（用户名、昵称、会话ID）请使用AccountRepository
+
+    /**
+     * 根据战斗ID查找参战玩家
+     */
+    List<PlayerEntity> findByCombatId(String combatId);
+
+    /**
+     * 查找当前在指定地图上的玩家
+     */
+    List<PlayerEntity> findByCurrentMapId(String mapId);
 }
@@ -3,6 +3,7 @@ package com.heibai.clawworld.infrastructure.scheduler;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -21,6 +22,7 @@ public class EnemyRespawnScheduler {
 
     private final EnemyInstanceRepository enemyInstanceRepository;
     private final ConfigDataManager configDataManager;
+    private final MapEntityJournal mapEntityJournal;
 
     /**
      * 每10秒检查一次是否有敌人需要刷新
@@ -59,6 +61,7 @@ public class EnemyRespawnScheduler {
                 enemy.setInCombat(false);
                 enemy.setCombatId(null);
                 enemyInstanceRepository.save(enemy);
+                mapEntityJournal.record(enemy.getMapId(), enemy.getInstanceId(), enemy.getDisplayName());
                 respawnedCount++;
                 log.debug("敌人 {} 已刷新", enemy.getDisplayName());
             }
@@ -6,6 +6,7 @@ import com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.PartyRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -28,6 +29,7 @@ public class InvitationCleanupScheduler {
     private final PartyRepository partyRepository;
     private final PlayerRepository playerRepository;
     private final TradeRepository tradeRepository;
+    private final MapEntityJournal mapEntityJournal;
 
     private static final long EXPIRATION_TIME_MS = 60 * 1000; // 1分钟
 
@@ -77,6 +79,7 @@ public class InvitationCleanupScheduler {
                 log.info("解散了空的单人队伍: {}", party.getId());
             } else if (modified) {
                 partyRepository.save(party);
+                mapEntityJournal.relationChanged();
             }
         }
     }
@@ -93,6 +96,7 @@ public class InvitationCleanupScheduler {
                 // 取消过期的交易请求
                 trade.setStatus(TradeEntity.TradeStatus.CANCELLED);
                 tradeRepository.save(trade);
+                mapEntityJournal.relationChanged();
 
                 // 清理发起者的tradeId
                 Optional<PlayerEntity> initiatorOpt = playerRepository.findById(trade.getInitiatorId());
@@ -126,5 +130,6 @@ public class InvitationCleanupScheduler {
 
         // 删除队伍
         partyRepository.delete(party);
+        mapEntityJournal.relationChanged();
     }
 }
@@ -0,0 +1,95 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+import com.heibai.clawworld.domain.combat.CombatRecording;
+import com.heibai.clawworld.domain.service.CombatDamageCalculator;
+import com.heibai.clawworld.domain.service.CombatEngine;
+import com.heibai.clawworld.domain.service.CombatSettlementService;
+import com.heibai.clawworld.domain.service.skill.SkillExecutor;
+import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+
+/**
+ * 战斗录像重放工具
+ * 在独立的战斗引擎上按录像重放整场战斗，校验日志序列号和状态指纹与录制时一致，
+ * 用于离线分析异常战斗和验证引擎优化没有改变战斗结果
+ *
+ * 用法：
+ * mvn -q compile exec:java -Dexec.mainClass=com.heibai.clawworld.infrastructure.simulation.CombatReplayer \
+ *     -Dexec.args="recording.json"
+ */
+public class CombatReplayer {
+
+    // 录像中的角色会带上isAlive()等派生属性，读取时忽略
+    private static final JsonMapper MAPPER = JsonMapper.builder()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .build();
+
+    private final ConfigDataManager configDataManager;
+
+    public CombatReplayer(ConfigDataManager configDataManager) {
+        this.configDataManager = configDataManager;
+    }
+
+    /**
+     * 重放结果
+     * @param expected 原始录像
+     * @param actual   重放后导出的录像
+     * @param nanos    重放耗时
+     */
+    public record ReplayResult(CombatRecording expected, CombatRecording actual, long nanos) {
+
+        public boolean matches() {
+            return expected.getLastLogSequence() == actual.getLastLogSequence()
+                && expected.getFingerprint() == actual.getFingerprint();
+        }
+    }
+
+    /**
+     * 重放录像（每次使用新的引擎实例，与其他重放互不影响）
+     */
+    public ReplayResult replay(CombatRecording recording) {
+        CombatEngine engine = new CombatEngine(configDataManager, new SkillResolver(configDataManager),
+            new SkillExecutor(new CombatDamageCalculator()), new CombatSettlementService(configDataManager));
+        try {
+            long start = System.nanoTime();
+            CombatRecording actual = engine.replay(recording);
+            return new ReplayResult(recording, actual, System.nanoTime() - start);
+        } finally {
+            engine.destroy();
+        }
+    }
+
+    public static void write(CombatRecording recording, Path path) {
+        MAPPER.writeValue(path.toFile(), recording);
+    }
+
+    public static CombatRecording read(Path path) {
+        return MAPPER.readValue(path.toFile(), CombatRecording.class);
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("用法: CombatReplayer <录像文件>");
+            System.exit(1);
+        }
+
+        CombatRecording recording = read(Path.of(args[0]));
+        CombatReplayer replayer = new CombatReplayer(ConfigDataManager.loadFromClasspath());
+        ReplayResult result = replayer.replay(recording);
+
+        System.out.printf("战斗 %s：种子 %d，输入 %d 条，重放耗时 %.3f ms%n",
+            recording.getCombatId(), recording.getSeed(), recording.getInputs().size(), result.nanos() / 1e6);
+        System.out.printf("日志序列号: 录制 %d / 重放 %d%n",
+            recording.getLastLogSequence(), result.actual().getLastLogSequence());
+        System.out.printf("状态指纹: 录制 %016x / 重放 %016x%n",
+            recording.getFingerprint(), result.actual().getFingerprint());
+        System.out.println(result.matches() ? "重放结果一致" : "重放结果不一致");
+        if (!result.matches()) {
+            System.exit(2);
+        }
+    }
+}
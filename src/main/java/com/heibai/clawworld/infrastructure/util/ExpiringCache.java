@@ -0,0 +1,214 @@
+package com.heibai.clawworld.infrastructure.util;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 有容量上限、按写入时间过期的并发缓存
+ *
+ * 工作原理：
+ * 1. 所有条目的存活时间相同，写入队列按写入顺序排列，队首总是最早过期的条目
+ * 2. 读取时发现过期的条目当场移除并视为未命中；其余过期条目由定时调用的evictExpired从队首批量清理
+ * 3. 写入后超过容量上限时从队首淘汰最早写入的条目
+ * 4. 覆盖或移除条目时不修改队列，队列中失效的节点在清理时跳过
+ * 5. 读写不加锁，只有从队首清理时加锁（保证多个清理者不会互相抢走节点）
+ * 6. 记录命中、未命中、过期淘汰和容量淘汰的次数
+ */
+public class ExpiringCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMs;
+    private final LongSupplier clock;
+
+    // 条目被过期或容量淘汰时的回调（主动移除不回调）
+    private final BiConsumer<K, V> evictionListener;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // 写入队列（按写入顺序，可能包含已被覆盖或移除的失效节点）
+    private final Queue<Node<K, V>> writeOrder = new ConcurrentLinkedQueue<>();
+
+    // 队首清理锁
+    private final Object evictionLock = new Object();
+
+    // 当前条目数（ConcurrentHashMap.size()需要汇总计数，这里单独维护）
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+
+    public ExpiringCache(String name, int maxSize, long ttlMs) {
+        this(name, maxSize, ttlMs, (key, value) -> { }, System::currentTimeMillis);
+    }
+
+    public ExpiringCache(String name, int maxSize, long ttlMs, BiConsumer<K, V> evictionListener) {
+        this(name, maxSize, ttlMs, evictionListener, System::currentTimeMillis);
+    }
+
+    public ExpiringCache(String name, int maxSize, long ttlMs, BiConsumer<K, V> evictionListener, LongSupplier clock) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = ttlMs;
+        this.evictionListener = evictionListener;
+        this.clock = clock;
+    }
+
+    /**
+     * 写入条目（覆盖同键的旧条目并重新计时）
+     */
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, clock.getAsLong() + ttlMs);
+        if (entries.put(key, entry) == null) {
+            size.incrementAndGet();
+        }
+        writeOrder.add(new Node<>(key, entry));
+        if (size.get() > maxSize) {
+            evictOverflow();
+        }
+    }
+
+    /**
+     * 读取条目
+     * @return 值；不存在或已过期时返回null
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(clock.getAsLong())) {
+            if (entries.remove(key, entry)) {
+                size.decrementAndGet();
+                expirations.increment();
+                evictionListener.accept(key, entry.value);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 读取并移除条目
+     * @return 值；不存在或已过期时返回null
+     */
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        size.decrementAndGet();
+        if (entry.isExpired(clock.getAsLong())) {
+            expirations.increment();
+            misses.increment();
+            evictionListener.accept(key, entry.value);
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 清理所有过期条目（供定时任务调用）
+     * @return 本次清理的条目数
+     */
+    public int evictExpired() {
+        synchronized (evictionLock) {
+            long now = clock.getAsLong();
+            int evicted = 0;
+            Node<K, V> node;
+            while ((node = writeOrder.peek()) != null && node.entry.isExpired(now)) {
+                writeOrder.poll();
+                if (evict(node)) {
+                    expirations.increment();
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+    }
+
+    /**
+     * 超过容量时从队首淘汰，优先淘汰的就是最早写入的条目
+     */
+    private void evictOverflow() {
+        synchronized (evictionLock) {
+            long now = clock.getAsLong();
+            Node<K, V> node;
+            while (size.get() > maxSize && (node = writeOrder.poll()) != null) {
+                boolean expired = node.entry.isExpired(now);
+                if (evict(node)) {
+                    if (expired) {
+                        expirations.increment();
+                    } else {
+                        sizeEvictions.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除节点对应的条目（节点已失效时返回false）
+     */
+    private boolean evict(Node<K, V> node) {
+        if (entries.remove(node.key, node.entry)) {
+            size.decrementAndGet();
+            evictionListener.accept(node.key, node.entry.value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前条目数（可能包含尚未清理的过期条目）
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * 获取统计数据
+     */
+    public Stats getStats() {
+        return new Stats(name, size.get(), hits.sum(), misses.sum(), expirations.sum(), sizeEvictions.sum());
+    }
+
+    /**
+     * 缓存统计
+     */
+    public record Stats(String name, int size, long hits, long misses, long expirations, long sizeEvictions) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: 条目%d，命中%d，未命中%d（命中率%.1f%%），过期淘汰%d，容量淘汰%d",
+                name, size, hits, misses, hitRate() * 100, expirations, sizeEvictions);
+        }
+    }
+
+    private record Entry<V>(V value, long expireAt) {
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+
+    private record Node<K, V>(K key, Entry<V> entry) {
+    }
+}
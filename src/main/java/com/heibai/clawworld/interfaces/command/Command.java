@@ -70,6 +70,8 @@ public abstract class Command {
         USE_ITEM_COMBAT,
         WAIT_COMBAT,
         END_COMBAT,
+        AUTO_BATTLE,
+        AUTO_BATTLE_OFF,
 
         // 交易窗口
         TRADE_ADD,
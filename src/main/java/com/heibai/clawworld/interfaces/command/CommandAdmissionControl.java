@@ -0,0 +1,207 @@
+package com.heibai.clawworld.interfaces.command;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 指令准入控制
+ * 在指令进入玩家通道之前做限流和过载保护，过载时快速拒绝而不是占满请求线程
+ *
+ * 工作原理：
+ * 1. 每个会话一个令牌桶，按固定速率补充令牌，每条指令消耗一个令牌（批量请求按指令数消耗），令牌不足时拒绝
+ * 2. 全局限制同时执行（包括在通道中排队）的请求数，超过上限时立即拒绝
+ * 3. 全局上限中为优先请求（战斗中的指令）预留一部分名额，地图查看等普通请求用不到预留名额，
+ *    过载时普通请求先被拒绝，战斗指令仍能及时执行
+ * 4. 长时间没有请求的会话令牌桶定期清理
+ */
+@Slf4j
+@Component
+public class CommandAdmissionControl {
+
+    // 令牌桶空闲多久后清理
+    private static final long BUCKET_IDLE_MS = 10 * 60 * 1000;
+
+    private final double tokensPerSecond;
+    private final int burst;
+    private final int maxConcurrent;
+    private final int normalLimit;
+
+    // 会话的令牌桶（key: 会话ID）
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    // 上次输出统计时的拒绝数
+    private long lastReportedRejected;
+
+    public CommandAdmissionControl(
+            @Value("${command.admission.rate-per-second:2}") double tokensPerSecond,
+            @Value("${command.admission.burst:20}") int burst,
+            @Value("${command.admission.max-concurrent:150}") int maxConcurrent,
+            @Value("${command.admission.priority-reserved:30}") int priorityReserved) {
+        this.tokensPerSecond = Math.max(0.01, tokensPerSecond);
+        this.burst = Math.max(1, burst);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.normalLimit = Math.max(1, this.maxConcurrent - Math.max(0, priorityReserved));
+    }
+
+    /**
+     * 申请执行许可
+     * @param sessionId 会话ID
+     * @param cost 消耗的令牌数（单条指令为1，批量请求为指令数）
+     * @param priority 是否为优先请求（战斗中的指令）
+     * @return 执行许可，执行完成后必须关闭
+     * @throws RejectedException 令牌不足或系统过载
+     */
+    public Permit acquire(String sessionId, int cost, boolean priority) {
+        TokenBucket bucket = buckets.computeIfAbsent(sessionId, k -> new TokenBucket(burst));
+        int tokens = Math.min(cost, burst);
+        long waitMs = bucket.tryConsume(tokens, tokensPerSecond, burst, System.currentTimeMillis());
+        if (waitMs > 0) {
+            rateLimited.increment();
+            throw new RejectedException("指令发送过于频繁，请稍后再试", waitMs);
+        }
+
+        int limit = priority ? maxConcurrent : normalLimit;
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                // 没有执行的请求不消耗令牌
+                bucket.refund(tokens, burst);
+                shed.increment();
+                throw new RejectedException("服务器繁忙，请稍后再试", 1000);
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        maxObservedInFlight.accumulateAndGet(current + 1, Math::max);
+        admitted.increment();
+        return new Permit(this);
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 清理空闲会话的令牌桶，有拒绝发生时输出统计
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        buckets.entrySet().removeIf(e -> now - e.getValue().lastAccessMs() > BUCKET_IDLE_MS);
+
+        Stats stats = getStats();
+        long rejected = stats.rateLimited() + stats.shed();
+        if (rejected > lastReportedRejected) {
+            log.info("{}", stats);
+            lastReportedRejected = rejected;
+        }
+    }
+
+    /**
+     * 获取统计数据
+     */
+    public Stats getStats() {
+        return new Stats(inFlight.get(), maxObservedInFlight.get(), maxConcurrent, normalLimit,
+            buckets.size(), admitted.sum(), rateLimited.sum(), shed.sum());
+    }
+
+    /**
+     * 准入统计
+     */
+    public record Stats(int inFlight, int maxObservedInFlight, int maxConcurrent, int normalLimit,
+                        int sessions, long admitted, long rateLimited, long shed) {
+
+        @Override
+        public String toString() {
+            return String.format("指令准入: 执行中%d（峰值%d，上限%d，普通%d），会话%d，已放行%d，限流拒绝%d，过载拒绝%d",
+                inFlight, maxObservedInFlight, maxConcurrent, normalLimit, sessions, admitted, rateLimited, shed);
+        }
+    }
+
+    /**
+     * 执行许可，关闭时归还全局名额
+     */
+    public static final class Permit implements AutoCloseable {
+        private CommandAdmissionControl owner;
+
+        private Permit(CommandAdmissionControl owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void close() {
+            // 重复关闭不会多次归还
+            if (owner != null) {
+                owner.release();
+                owner = null;
+            }
+        }
+    }
+
+    /**
+     * 单个会话的令牌桶
+     */
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefillMs;
+
+        private TokenBucket(int burst) {
+            this.tokens = burst;
+            this.lastRefillMs = System.currentTimeMillis();
+        }
+
+        /**
+         * 尝试消耗令牌
+         * @return 0表示成功；否则为令牌补足还需等待的毫秒数
+         */
+        private synchronized long tryConsume(int cost, double tokensPerSecond, int burst, long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefillMs) / 1000.0 * tokensPerSecond);
+            lastRefillMs = now;
+            if (tokens >= cost) {
+                tokens -= cost;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((cost - tokens) / tokensPerSecond * 1000));
+        }
+
+        private synchronized void refund(int cost, int burst) {
+            tokens = Math.min(burst, tokens + cost);
+        }
+
+        private synchronized long lastAccessMs() {
+            return lastRefillMs;
+        }
+    }
+
+    /**
+     * 请求被拒绝（令牌不足或系统过载）
+     */
+    public static class RejectedException extends RuntimeException {
+        private final long retryAfterMs;
+
+        public RejectedException(String message, long retryAfterMs) {
+            super(message);
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        /**
+         * 建议的重试等待时间（秒，向上取整）
+         */
+        public long getRetryAfterSeconds() {
+            return Math.max(1, (retryAfterMs + 999) / 1000);
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package com.heibai.clawworld.interfaces.command;
 
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
 import com.heibai.clawworld.interfaces.command.impl.combat.*;
 import com.heibai.clawworld.interfaces.command.impl.map.*;
 import com.heibai.clawworld.interfaces.command.impl.party.*;
-import com.heibai.clawworld.interfaces.command.impl.map.AttributeAddCommand;
-import com.heibai.clawworld.interfaces.command.impl.map.EquipCommand;
-import com.heibai.clawworld.interfaces.command.impl.map.UnequipCommand;
 import com.heibai.clawworld.interfaces.command.impl.shop.ShopBuyCommand;
 import com.heibai.clawworld.interfaces.command.impl.shop.ShopLeaveCommand;
 import com.heibai.clawworld.interfaces.command.impl.shop.ShopSellCommand;
 import com.heibai.clawworld.interfaces.command.impl.trade.*;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
 /**
  * 指令解析器
  * 根据设计文档第三章第5节：指令遵循既定的语法，类似shell
+ *
+ * 工作原理：
+ * 1. 启动时为每种窗口构建一张指令表（指令名 -> 解析规则），带子命令的指令（party、trade、shop）再嵌套一张子命令表
+ * 2. 解析时对指令做一次分词，只记录参数位置，按窗口的指令表逐级查找规则
+ * 3. 规则直接在原始指令上比较、取值和解析整数，返回解析结果；参数错误作为结果返回，不依赖异常控制流程
  */
 @Component
 public class CommandParser {
 
+    private final Map<CommandContext.WindowType, Rule> windowTables = new EnumMap<>(CommandContext.WindowType.class);
+
+    public CommandParser() {
+        windowTables.put(CommandContext.WindowType.REGISTER, registerTable());
+        windowTables.put(CommandContext.WindowType.MAP, mapTable());
+        windowTables.put(CommandContext.WindowType.COMBAT, combatTable());
+        windowTables.put(CommandContext.WindowType.TRADE, tradeWindowTable());
+        windowTables.put(CommandContext.WindowType.SHOP, shopWindowTable());
+    }
+
     /**
      * 解析指令字符串
      * @param commandStr 指令字符串
@@ -27,545 +46,369 @@ public class CommandParser {
      * @throws CommandParseException 解析失败时抛出
      */
     public Command parse(String commandStr, CommandContext.WindowType windowType) throws CommandParseException {
-        if (commandStr == null || commandStr.trim().isEmpty()) {
-            throw new CommandParseException("指令不能为空");
+        ParseResult result = tryParse(commandStr, windowType);
+        if (!result.isSuccess()) {
+            throw new CommandParseException(result.error());
         }
+        return result.command();
+    }
 
+    /**
+     * 解析指令字符串，失败时返回错误信息而不抛出异常
+     * @param commandStr 指令字符串
+     * @param windowType 当前窗口类型
+     * @return 解析结果
+     */
+    public ParseResult tryParse(String commandStr, CommandContext.WindowType windowType) {
+        if (commandStr == null) {
+            return ParseResult.fail("指令不能为空");
+        }
         String trimmed = commandStr.trim();
-        String[] parts = parseCommandParts(trimmed);
-
-        if (parts.length == 0) {
-            throw new CommandParseException("无效的指令格式");
+        if (trimmed.isEmpty()) {
+            return ParseResult.fail("指令不能为空");
         }
 
-        String commandName = parts[0].toLowerCase();
-
-        try {
-            switch (windowType) {
-                case REGISTER:
-                    return parseRegisterCommand(commandName, parts, trimmed);
-                case MAP:
-                    return parseMapCommand(commandName, parts, trimmed);
-                case COMBAT:
-                    return parseCombatCommand(commandName, parts, trimmed);
-                case TRADE:
-                    return parseTradeCommand(commandName, parts, trimmed);
-                case SHOP:
-                    return parseShopCommand(commandName, parts, trimmed);
-                default:
-                    throw new CommandParseException("未知的窗口类型: " + windowType);
-            }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            throw new CommandParseException("指令参数不足");
+        Rule table = windowType != null ? windowTables.get(windowType) : null;
+        if (table == null) {
+            return ParseResult.fail("未知的窗口类型: " + windowType);
         }
+        return table.parse(CommandTokens.tokenize(trimmed), trimmed);
     }
 
     /**
-     * 解析注册窗口指令
+     * 注册窗口指令表
      */
-    private Command parseRegisterCommand(String commandName, String[] parts, String rawCommand) throws CommandParseException {
-        if ("register".equals(commandName)) {
-            if (parts.length < 3) {
-                throw new CommandParseException("register 指令需要2个参数: register [role_name] [player_name]");
-            }
-            return RegisterCommand.builder()
-                    .roleName(parts[1])
-                    .playerName(parts[2])
-                    .rawCommand(rawCommand)
-                    .build();
-        }
-        throw new CommandParseException("注册窗口不支持的指令: " + commandName);
+    private Rule registerTable() {
+        return new CommandTable(0, true, null, name -> "注册窗口不支持的指令: " + name)
+            .add("register", (t, raw) -> t.count() < 3
+                ? ParseResult.fail("register 指令需要2个参数: register [role_name] [player_name]")
+                : ParseResult.ok(new RegisterCommand(t.get(1), t.get(2), raw)));
     }
 
     /**
-     * 解析地图窗口指令
+     * 地图窗口指令表
      */
-    private Command parseMapCommand(String commandName, String[] parts, String rawCommand) throws CommandParseException {
-        switch (commandName) {
-            case "inspect":
-                if (parts.length < 2) {
-                    throw new CommandParseException("inspect 指令需要1个参数");
+    private Rule mapTable() {
+        CommandTable party = new CommandTable(1, false, "party 指令需要子命令", sub -> "未知的 party 子命令: " + sub)
+            .add("invite", playerArg("party invite 指令需要1个参数: party invite [player_name]", PartyInviteCommand::new))
+            .add("accept", playerArg("party accept 指令需要1个参数: party accept [player_name]", PartyAcceptInviteCommand::new))
+            .add("reject", playerArg("party reject 指令需要1个参数: party reject [player_name]", PartyRejectInviteCommand::new))
+            .add("request", playerArg("party request 指令需要1个参数: party request [player_name]", PartyRequestJoinCommand::new))
+            .add("acceptrequest", playerArg("party acceptrequest 指令需要1个参数: party acceptrequest [player_name]", PartyAcceptRequestCommand::new))
+            .add("rejectrequest", playerArg("party rejectrequest 指令需要1个参数: party rejectrequest [player_name]", PartyRejectRequestCommand::new))
+            .add("kick", playerArg("party kick 指令需要1个参数: party kick [player_name]", PartyKickCommand::new))
+            .add("end", (t, raw) -> ParseResult.ok(new PartyEndCommand(raw)))
+            .add("leave", (t, raw) -> ParseResult.ok(new PartyLeaveCommand(raw)));
+
+        CommandTable trade = new CommandTable(1, false, "trade 指令需要子命令", sub -> "未知的 trade 子命令: " + sub)
+            .add("request", playerArg("trade request 指令需要1个参数: trade request [player_name]", TradeRequestCommand::new))
+            .add("accept", playerArg("trade accept 指令需要1个参数: trade accept [player_name]", TradeAcceptRequestCommand::new))
+            .add("reject", playerArg("trade reject 指令需要1个参数: trade reject [player_name]", TradeRejectRequestCommand::new));
+
+        return new CommandTable(0, true, null, name -> "地图窗口不支持的指令: " + name)
+            .add("inspect", (t, raw) -> {
+                if (t.count() < 2) {
+                    return ParseResult.fail("inspect 指令需要1个参数");
                 }
-                if ("self".equals(parts[1])) {
-                    return InspectSelfCommand.builder()
-                            .rawCommand(rawCommand)
-                            .build();
-                } else {
-                    // inspect [物品名称] - 查看物品详情
-                    String inspectItemName = extractItemName(rawCommand, "inspect");
-                    return InspectItemCommand.builder()
-                            .itemName(inspectItemName)
-                            .rawCommand(rawCommand)
-                            .build();
+                if (t.is(1, "self")) {
+                    return ParseResult.ok(new InspectSelfCommand(raw));
                 }
-
-            case "say":
-                if (parts.length < 2) {
-                    throw new CommandParseException("say 指令需要至少1个参数");
+                // inspect [物品名称] - 查看物品详情
+                return ParseResult.ok(new InspectItemCommand(itemName(t, 1), raw));
+            })
+            .add("say", (t, raw) -> {
+                if (t.count() < 2) {
+                    return ParseResult.fail("say 指令需要至少1个参数");
                 }
-                if ("to".equals(parts[1])) {
+                if (t.is(1, "to")) {
                     // say to [player_name] [message]
-                    if (parts.length < 4) {
-                        throw new CommandParseException("say to 指令需要2个参数: say to [player_name] [message]");
+                    if (t.count() < 4) {
+                        return ParseResult.fail("say to 指令需要2个参数: say to [player_name] [message]");
                     }
-                    String targetPlayer = parts[2];
-                    String message = extractMessage(rawCommand, "say to " + targetPlayer);
-                    return SayToCommand.builder()
-                            .targetPlayer(targetPlayer)
-                            .message(message)
-                            .rawCommand(rawCommand)
-                            .build();
-                } else {
-                    // say [channel] [message]
-                    String channel = parts[1];
-                    String message = extractMessage(rawCommand, "say " + channel);
-                    return SayCommand.builder()
-                            .channel(channel)
-                            .message(message)
-                            .rawCommand(rawCommand)
-                            .build();
+                    return ParseResult.ok(new SayToCommand(t.get(2), t.rest(3), raw));
                 }
-
-            case "interact":
-                if (parts.length < 3) {
-                    throw new CommandParseException("interact 指令需要2个参数: interact [target_name] [option]");
+                // say [channel] [message]
+                return ParseResult.ok(new SayCommand(t.get(1), t.rest(2), raw));
+            })
+            .add("interact", (t, raw) -> t.count() < 3
+                ? ParseResult.fail("interact 指令需要2个参数: interact [target_name] [option]")
+                : ParseResult.ok(new InteractCommand(t.get(1), t.get(2), raw)))
+            .add("move", (t, raw) -> {
+                if (t.count() < 3) {
+                    return ParseResult.fail("move 指令需要2个参数: move [x] [y]");
                 }
-                return InteractCommand.builder()
-                        .targetName(parts[1])
-                        .option(parts[2])
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "move":
-                if (parts.length < 3) {
-                    throw new CommandParseException("move 指令需要2个参数: move [x] [y]");
+                if (!t.isInt(1) || !t.isInt(2)) {
+                    return ParseResult.fail("move 指令的坐标必须是整数");
                 }
-                try {
-                    int x = Integer.parseInt(parts[1]);
-                    int y = Integer.parseInt(parts[2]);
-                    return MoveCommand.builder()
-                            .targetX(x)
-                            .targetY(y)
-                            .rawCommand(rawCommand)
-                            .build();
-                } catch (NumberFormatException e) {
-                    throw new CommandParseException("move 指令的坐标必须是整数");
+                return ParseResult.ok(new MoveCommand(t.intValue(1), t.intValue(2), raw));
+            })
+            .add("use", (t, raw) -> t.count() < 2
+                ? ParseResult.fail("use 指令需要1个参数: use [item_name]")
+                : ParseResult.ok(new UseItemCommand(itemName(t, 1), raw)))
+            .add("equip", (t, raw) -> t.count() < 2
+                ? ParseResult.fail("equip 指令需要1个参数: equip [item_name]")
+                : ParseResult.ok(new EquipCommand(itemName(t, 1), raw)))
+            .add("unequip", (t, raw) -> t.count() < 2
+                ? ParseResult.fail("unequip 指令需要1个参数: unequip [slot_name]")
+                : ParseResult.ok(new UnequipCommand(itemName(t, 1), raw)))
+            .add("attribute", (t, raw) -> {
+                if (t.count() < 4 || !t.is(1, "add")) {
+                    return ParseResult.fail("attribute 指令格式: attribute add [str/agi/int/vit] [amount]");
                 }
-
-            case "use":
-                if (parts.length < 2) {
-                    throw new CommandParseException("use 指令需要1个参数: use [item_name]");
-                }
-                String itemName = extractItemName(rawCommand, "use");
-                return UseItemCommand.builder()
-                        .itemName(itemName)
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "equip":
-                if (parts.length < 2) {
-                    throw new CommandParseException("equip 指令需要1个参数: equip [item_name]");
-                }
-                String equipName = extractItemName(rawCommand, "equip");
-                return EquipCommand.builder()
-                        .itemName(equipName)
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "unequip":
-                if (parts.length < 2) {
-                    throw new CommandParseException("unequip 指令需要1个参数: unequip [slot_name]");
+                if (!t.isInt(3)) {
+                    return ParseResult.fail("attribute add 指令的数量必须是整数");
                 }
-                String slotName = extractItemName(rawCommand, "unequip");
-                return UnequipCommand.builder()
-                        .slotName(slotName)
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "attribute":
-                if (parts.length < 4 || !"add".equals(parts[1])) {
-                    throw new CommandParseException("attribute 指令格式: attribute add [str/agi/int/vit] [amount]");
+                return ParseResult.ok(new AttributeAddCommand(t.get(2), t.intValue(3), raw));
+            })
+            .add("party", party)
+            .add("trade", trade)
+            .add("wait", (t, raw) -> {
+                if (t.count() < 2) {
+                    return ParseResult.fail("wait 指令需要1个参数: wait [seconds]");
                 }
-                try {
-                    String attributeType = parts[2];
-                    int amount = Integer.parseInt(parts[3]);
-                    return AttributeAddCommand.builder()
-                            .attributeType(attributeType)
-                            .amount(amount)
-                            .rawCommand(rawCommand)
-                            .build();
-                } catch (NumberFormatException e) {
-                    throw new CommandParseException("attribute add 指令的数量必须是整数");
+                if (!t.isInt(1)) {
+                    return ParseResult.fail("wait 指令的秒数必须是整数");
                 }
+                return ParseResult.ok(new WaitCommand(t.intValue(1), raw));
+            })
+            .add("leave", (t, raw) -> ParseResult.ok(new LeaveCommand(raw)));
+    }
 
-            case "party":
-                if (parts.length < 2) {
-                    throw new CommandParseException("party 指令需要子命令");
-                }
-                String subCommand = parts[1];
-                switch (subCommand) {
-                    case "invite":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party invite 指令需要1个参数: party invite [player_name]");
-                        }
-                        return PartyInviteCommand.builder()
-                                .playerName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "accept":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party accept 指令需要1个参数: party accept [player_name]");
-                        }
-                        return PartyAcceptInviteCommand.builder()
-                                .inviterName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "reject":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party reject 指令需要1个参数: party reject [player_name]");
-                        }
-                        return PartyRejectInviteCommand.builder()
-                                .inviterName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "request":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party request 指令需要1个参数: party request [player_name]");
-                        }
-                        return PartyRequestJoinCommand.builder()
-                                .playerName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "acceptrequest":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party acceptrequest 指令需要1个参数: party acceptrequest [player_name]");
-                        }
-                        return PartyAcceptRequestCommand.builder()
-                                .requesterName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "rejectrequest":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party rejectrequest 指令需要1个参数: party rejectrequest [player_name]");
-                        }
-                        return PartyRejectRequestCommand.builder()
-                                .requesterName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "kick":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("party kick 指令需要1个参数: party kick [player_name]");
-                        }
-                        return PartyKickCommand.builder()
-                                .playerName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "end":
-                        return PartyEndCommand.builder()
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "leave":
-                        return PartyLeaveCommand.builder()
-                                .rawCommand(rawCommand)
-                                .build();
-                    default:
-                        throw new CommandParseException("未知的 party 子命令: " + subCommand);
+    /**
+     * 战斗窗口指令表
+     */
+    private Rule combatTable() {
+        return new CommandTable(0, true, null, name -> "战斗窗口不支持的指令: " + name)
+            .add("cast", (t, raw) -> {
+                if (t.count() < 2) {
+                    return ParseResult.fail("cast 指令需要至少1个参数");
                 }
-
-            case "trade":
-                if (parts.length < 2) {
-                    throw new CommandParseException("trade 指令需要子命令");
+                if (t.count() == 2) {
+                    // cast [skill_name] - 非指向技能
+                    return ParseResult.ok(new CastCommand(t.get(1), raw));
                 }
-                String tradeSubCommand = parts[1];
-                switch (tradeSubCommand) {
-                    case "request":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("trade request 指令需要1个参数: trade request [player_name]");
-                        }
-                        return TradeRequestCommand.builder()
-                                .playerName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "accept":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("trade accept 指令需要1个参数: trade accept [player_name]");
-                        }
-                        return TradeAcceptRequestCommand.builder()
-                                .requesterName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    case "reject":
-                        if (parts.length < 3) {
-                            throw new CommandParseException("trade reject 指令需要1个参数: trade reject [player_name]");
-                        }
-                        return TradeRejectRequestCommand.builder()
-                                .requesterName(parts[2])
-                                .rawCommand(rawCommand)
-                                .build();
-                    default:
-                        throw new CommandParseException("未知的 trade 子命令: " + tradeSubCommand);
+                // cast [skill_name] [target_name] - 指向技能
+                return ParseResult.ok(new CastTargetCommand(t.get(1), t.get(2), raw));
+            })
+            .add("use", (t, raw) -> t.count() < 2
+                ? ParseResult.fail("use 指令需要1个参数: use [item_name]")
+                : ParseResult.ok(new UseItemCombatCommand(itemName(t, 1), raw)))
+            .add("wait", (t, raw) -> ParseResult.ok(new WaitCombatCommand(raw)))
+            .add("end", (t, raw) -> ParseResult.ok(new EndCombatCommand(raw)))
+            .add("auto", (t, raw) -> {
+                // auto off - 关闭自动战斗
+                if (t.count() == 2 && t.isIgnoreCase(1, "off")) {
+                    return ParseResult.ok(new AutoBattleOffCommand(raw));
                 }
-
-            case "wait":
-                if (parts.length < 2) {
-                    throw new CommandParseException("wait 指令需要1个参数: wait [seconds]");
+                // auto [lowest|threat|first] [技能名称...]
+                int index = 1;
+                AutoBattlePolicy.TargetStrategy targetStrategy = null;
+                if (t.count() > 1) {
+                    targetStrategy = parseTargetStrategy(t, 1);
+                    if (targetStrategy != null) {
+                        index = 2;
+                    }
                 }
-                try {
-                    int seconds = Integer.parseInt(parts[1]);
-                    return WaitCommand.builder()
-                            .seconds(seconds)
-                            .rawCommand(rawCommand)
-                            .build();
-                } catch (NumberFormatException e) {
-                    throw new CommandParseException("wait 指令的秒数必须是整数");
+                List<String> skillNames = new ArrayList<>(Math.max(0, t.count() - index));
+                for (int i = index; i < t.count(); i++) {
+                    skillNames.add(t.get(i));
                 }
+                return ParseResult.ok(new AutoBattleCommand(skillNames, targetStrategy, raw));
+            });
+    }
 
-            case "leave":
-                return LeaveCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
-
-            default:
-                throw new CommandParseException("地图窗口不支持的指令: " + commandName);
+    /**
+     * 解析自动战斗的选目标方式关键字
+     * @return 选目标方式；不是关键字时返回null
+     */
+    private AutoBattlePolicy.TargetStrategy parseTargetStrategy(CommandTokens t, int i) {
+        if (t.isIgnoreCase(i, "lowest")) {
+            return AutoBattlePolicy.TargetStrategy.LOWEST_HEALTH;
+        }
+        if (t.isIgnoreCase(i, "threat")) {
+            return AutoBattlePolicy.TargetStrategy.HIGHEST_THREAT;
+        }
+        if (t.isIgnoreCase(i, "first")) {
+            return AutoBattlePolicy.TargetStrategy.FIRST;
         }
+        return null;
     }
 
     /**
-     * 解析战斗窗口指令
+     * 交易窗口指令表
      */
-    private Command parseCombatCommand(String commandName, String[] parts, String rawCommand) throws CommandParseException {
-        switch (commandName) {
-            case "cast":
-                if (parts.length < 2) {
-                    throw new CommandParseException("cast 指令需要至少1个参数");
+    private Rule tradeWindowTable() {
+        CommandTable trade = new CommandTable(1, false, "trade 指令需要子命令", sub -> "未知的 trade 子命令: " + sub)
+            .add("add", (t, raw) -> t.count() < 3
+                ? ParseResult.fail("trade add 指令需要1个参数: trade add [item_name]")
+                : ParseResult.ok(new TradeAddCommand(itemName(t, 2), raw)))
+            .add("remove", (t, raw) -> t.count() < 3
+                ? ParseResult.fail("trade remove 指令需要1个参数: trade remove [item_name]")
+                : ParseResult.ok(new TradeRemoveCommand(itemName(t, 2), raw)))
+            .add("money", (t, raw) -> {
+                if (t.count() < 3) {
+                    return ParseResult.fail("trade money 指令需要1个参数: trade money [amount]");
                 }
-                if (parts.length == 2) {
-                    // cast [skill_name] - 非指向技能
-                    return CastCommand.builder()
-                            .skillName(parts[1])
-                            .rawCommand(rawCommand)
-                            .build();
-                } else {
-                    // cast [skill_name] [target_name] - 指向技能
-                    return CastTargetCommand.builder()
-                            .skillName(parts[1])
-                            .targetName(parts[2])
-                            .rawCommand(rawCommand)
-                            .build();
+                if (!t.isInt(2)) {
+                    return ParseResult.fail("trade money 指令的金额必须是整数");
                 }
-
-            case "use":
-                if (parts.length < 2) {
-                    throw new CommandParseException("use 指令需要1个参数: use [item_name]");
+                return ParseResult.ok(new TradeMoneyCommand(t.intValue(2), raw));
+            })
+            .add("lock", (t, raw) -> ParseResult.ok(new TradeLockCommand(raw)))
+            .add("unlock", (t, raw) -> ParseResult.ok(new TradeUnlockCommand(raw)))
+            .add("confirm", (t, raw) -> ParseResult.ok(new TradeConfirmCommand(raw)))
+            .add("end", (t, raw) -> ParseResult.ok(new TradeEndCommand(raw)))
+            .add("wait", (t, raw) -> {
+                int waitSeconds = 1; // 默认等待1秒
+                if (t.count() >= 3) {
+                    if (!t.isInt(2)) {
+                        return ParseResult.fail("trade wait 指令的秒数必须是整数");
+                    }
+                    waitSeconds = t.intValue(2);
                 }
-                String itemName = extractItemName(rawCommand, "use");
-                return UseItemCombatCommand.builder()
-                        .itemName(itemName)
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "wait":
-                return WaitCombatCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "end":
-                return EndCombatCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
+                return ParseResult.ok(new TradeWaitCommand(waitSeconds, raw));
+            });
 
-            default:
-                throw new CommandParseException("战斗窗口不支持的指令: " + commandName);
-        }
+        return new CommandTable(0, true, null, name -> "交易窗口只支持 trade 指令")
+            .add("trade", trade);
     }
 
     /**
-     * 解析交易窗口指令
+     * 商店窗口指令表
      */
-    private Command parseTradeCommand(String commandName, String[] parts, String rawCommand) throws CommandParseException {
-        if (!"trade".equals(commandName)) {
-            throw new CommandParseException("交易窗口只支持 trade 指令");
-        }
-
-        if (parts.length < 2) {
-            throw new CommandParseException("trade 指令需要子命令");
-        }
-
-        String subCommand = parts[1];
-        switch (subCommand) {
-            case "add":
-                if (parts.length < 3) {
-                    throw new CommandParseException("trade add 指令需要1个参数: trade add [item_name]");
+    private Rule shopWindowTable() {
+        CommandTable shop = new CommandTable(1, false, "shop 指令需要子命令", sub -> "未知的 shop 子命令: " + sub)
+            .add("buy", (t, raw) -> {
+                if (t.count() < 4) {
+                    return ParseResult.fail("shop buy 指令需要2个参数: shop buy [item_name] [quantity]");
                 }
-                String addItemName = extractItemName(rawCommand, "trade add");
-                return TradeAddCommand.builder()
-                        .itemName(addItemName)
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "remove":
-                if (parts.length < 3) {
-                    throw new CommandParseException("trade remove 指令需要1个参数: trade remove [item_name]");
+                if (!t.isInt(3)) {
+                    return ParseResult.fail("shop buy 指令的数量必须是整数");
                 }
-                String removeItemName = extractItemName(rawCommand, "trade remove");
-                return TradeRemoveCommand.builder()
-                        .itemName(removeItemName)
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "money":
-                if (parts.length < 3) {
-                    throw new CommandParseException("trade money 指令需要1个参数: trade money [amount]");
+                return ParseResult.ok(new ShopBuyCommand(t.get(2), t.intValue(3), raw));
+            })
+            .add("sell", (t, raw) -> {
+                if (t.count() < 4) {
+                    return ParseResult.fail("shop sell 指令需要2个参数: shop sell [item_name] [quantity]");
                 }
-                try {
-                    int amount = Integer.parseInt(parts[2]);
-                    return TradeMoneyCommand.builder()
-                            .amount(amount)
-                            .rawCommand(rawCommand)
-                            .build();
-                } catch (NumberFormatException e) {
-                    throw new CommandParseException("trade money 指令的金额必须是整数");
+                if (!t.isInt(3)) {
+                    return ParseResult.fail("shop sell 指令的数量必须是整数");
                 }
+                return ParseResult.ok(new ShopSellCommand(t.get(2), t.intValue(3), raw));
+            })
+            .add("leave", (t, raw) -> ParseResult.ok(new ShopLeaveCommand(raw)));
 
-            case "lock":
-                return TradeLockCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
-
-            case "unlock":
-                return TradeUnlockCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
+        return new CommandTable(0, true, null, name -> "商店窗口只支持 shop 指令")
+            .add("shop", shop);
+    }
 
-            case "confirm":
-                return TradeConfirmCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
+    /**
+     * 只带一个玩家名参数的子命令（如 party invite [player_name]）
+     */
+    private static Rule playerArg(String usage, PlayerCommandFactory factory) {
+        return (t, raw) -> t.count() < 3
+            ? ParseResult.fail(usage)
+            : ParseResult.ok(factory.create(t.get(2), raw));
+    }
 
-            case "end":
-                return TradeEndCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
+    /**
+     * 提取物品名称（从第i个参数到指令末尾，支持带空格的物品名）
+     * 同时兼容带槽位前缀的装备名称，如 "[头部]新手头盔#1" -> "新手头盔#1"
+     */
+    private static String itemName(CommandTokens t, int i) {
+        String itemName = t.rest(i);
+        // 移除槽位前缀，如 "[头部]新手头盔#1" -> "新手头盔#1"
+        if (itemName.startsWith("[")) {
+            int bracketEnd = itemName.indexOf(']');
+            if (bracketEnd >= 0) {
+                itemName = itemName.substring(bracketEnd + 1);
+            }
+        }
+        return itemName;
+    }
 
-            case "wait":
-                int waitSeconds = 1; // 默认等待1秒
-                if (parts.length >= 3) {
-                    try {
-                        waitSeconds = Integer.parseInt(parts[2]);
-                    } catch (NumberFormatException e) {
-                        throw new CommandParseException("trade wait 指令的秒数必须是整数");
-                    }
-                }
-                return TradeWaitCommand.builder()
-                        .seconds(waitSeconds)
-                        .rawCommand(rawCommand)
-                        .build();
+    /**
+     * 解析规则
+     */
+    @FunctionalInterface
+    private interface Rule {
+        ParseResult parse(CommandTokens tokens, String rawCommand);
+    }
 
-            default:
-                throw new CommandParseException("未知的 trade 子命令: " + subCommand);
-        }
+    /**
+     * 玩家名参数的指令构造
+     */
+    @FunctionalInterface
+    private interface PlayerCommandFactory {
+        Command create(String playerName, String rawCommand);
     }
 
     /**
-     * 解析商店窗口指令
+     * 指令表：按第tokenIndex个参数查找规则
+     * 表项很少（最多十几个），按长度和内容顺序比较即可，不需要为查找截取子串
      */
-    private Command parseShopCommand(String commandName, String[] parts, String rawCommand) throws CommandParseException {
-        if (!"shop".equals(commandName)) {
-            throw new CommandParseException("商店窗口只支持 shop 指令");
+    private static final class CommandTable implements Rule {
+        private final int tokenIndex;
+        private final boolean ignoreCase;
+        private final String missingMessage;
+        private final UnaryOperator<String> unknownMessage;
+        private final List<String> names = new ArrayList<>();
+        private final List<Rule> rules = new ArrayList<>();
+
+        private CommandTable(int tokenIndex, boolean ignoreCase, String missingMessage, UnaryOperator<String> unknownMessage) {
+            this.tokenIndex = tokenIndex;
+            this.ignoreCase = ignoreCase;
+            this.missingMessage = missingMessage;
+            this.unknownMessage = unknownMessage;
         }
 
-        if (parts.length < 2) {
-            throw new CommandParseException("shop 指令需要子命令");
+        private CommandTable add(String name, Rule rule) {
+            names.add(name);
+            rules.add(rule);
+            return this;
         }
 
-        String subCommand = parts[1];
-        switch (subCommand) {
-            case "buy":
-                if (parts.length < 4) {
-                    throw new CommandParseException("shop buy 指令需要2个参数: shop buy [item_name] [quantity]");
-                }
-                try {
-                    String itemName = parts[2];
-                    int quantity = Integer.parseInt(parts[3]);
-                    return ShopBuyCommand.builder()
-                            .itemName(itemName)
-                            .quantity(quantity)
-                            .rawCommand(rawCommand)
-                            .build();
-                } catch (NumberFormatException e) {
-                    throw new CommandParseException("shop buy 指令的数量必须是整数");
-                }
-
-            case "sell":
-                if (parts.length < 4) {
-                    throw new CommandParseException("shop sell 指令需要2个参数: shop sell [item_name] [quantity]");
-                }
-                try {
-                    String itemName = parts[2];
-                    int quantity = Integer.parseInt(parts[3]);
-                    return ShopSellCommand.builder()
-                            .itemName(itemName)
-                            .quantity(quantity)
-                            .rawCommand(rawCommand)
-                            .build();
-                } catch (NumberFormatException e) {
-                    throw new CommandParseException("shop sell 指令的数量必须是整数");
+        @Override
+        public ParseResult parse(CommandTokens tokens, String rawCommand) {
+            if (tokens.count() <= tokenIndex) {
+                return ParseResult.fail(missingMessage);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (ignoreCase ? tokens.isIgnoreCase(tokenIndex, name) : tokens.is(tokenIndex, name)) {
+                    return rules.get(i).parse(tokens, rawCommand);
                 }
-
-            case "leave":
-                return ShopLeaveCommand.builder()
-                        .rawCommand(rawCommand)
-                        .build();
-
-            default:
-                throw new CommandParseException("未知的 shop 子命令: " + subCommand);
+            }
+            String token = tokens.get(tokenIndex);
+            return ParseResult.fail(unknownMessage.apply(ignoreCase ? token.toLowerCase() : token));
         }
     }
 
     /**
-     * 解析指令部分
-     * 支持引号包裹的参数
+     * 解析结果：成功时包含指令，失败时包含错误信息
      */
-    private String[] parseCommandParts(String command) {
-        // 简单实现：按空格分割，后续可以增强支持引号
-        return command.split("\\s+");
-    }
+    public record ParseResult(Command command, String error) {
 
-    /**
-     * 提取消息内容（从指令中提取最后的消息部分）
-     */
-    private String extractMessage(String rawCommand, String prefix) {
-        int startIndex = rawCommand.indexOf(prefix) + prefix.length();
-        if (startIndex < rawCommand.length()) {
-            return rawCommand.substring(startIndex).trim();
+        public static ParseResult ok(Command command) {
+            return new ParseResult(command, null);
         }
-        return "";
-    }
 
-    /**
-     * 提取物品名称（支持带空格的物品名）
-     * 同时兼容带槽位前缀的装备名称，如 "[头部]新手头盔#1" -> "新手头盔#1"
-     */
-    private String extractItemName(String rawCommand, String prefix) {
-        int startIndex = rawCommand.indexOf(prefix) + prefix.length();
-        if (startIndex < rawCommand.length()) {
-            String itemName = rawCommand.substring(startIndex).trim();
-            // 移除槽位前缀，如 "[头部]新手头盔#1" -> "新手头盔#1"
-            if (itemName.startsWith("[") && itemName.contains("]")) {
-                int bracketEnd = itemName.indexOf("]");
-                itemName = itemName.substring(bracketEnd + 1);
-            }
-            return itemName;
+        public static ParseResult fail(String error) {
+            return new ParseResult(null, error);
+        }
+
+        public boolean isSuccess() {
+            return command != null;
         }
-        return "";
     }
 
     /**
      * 指令解析异常
+     * 只用于向调用方报告解析失败，不需要堆栈
      */
     public static class CommandParseException extends Exception {
         public CommandParseException(String message) {
-            super(message);
+            super(message, null, false, false);
         }
     }
 }
@@ -0,0 +1,139 @@
+package com.heibai.clawworld.interfaces.command;
+
+/**
+ * 指令分词结果
+ * 一次扫描记录每个参数在原始指令中的起止位置，不切分字符串；
+ * 只有真正需要参数值时才截取子串，比较、取剩余部分、解析整数都直接在原始指令上进行
+ *
+ * 空白字符与原先按 \s+ 切分的规则一致：空格、制表符、换行、回车、换页和垂直制表符
+ */
+final class CommandTokens {
+
+    // 绝大多数指令不超过8个参数
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final String source;
+
+    // 第i个参数的起止位置为 bounds[2i], bounds[2i+1]
+    private int[] bounds = new int[INITIAL_CAPACITY * 2];
+    private int count;
+
+    private CommandTokens(String source) {
+        this.source = source;
+    }
+
+    /**
+     * 对指令分词
+     * @param source 已去除首尾空白的指令
+     */
+    static CommandTokens tokenize(String source) {
+        CommandTokens tokens = new CommandTokens(source);
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSpace(source.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !isSpace(source.charAt(i))) {
+                i++;
+            }
+            tokens.add(start, i);
+        }
+        return tokens;
+    }
+
+    private void add(int start, int end) {
+        if (count * 2 == bounds.length) {
+            int[] grown = new int[bounds.length * 2];
+            System.arraycopy(bounds, 0, grown, 0, bounds.length);
+            bounds = grown;
+        }
+        bounds[count * 2] = start;
+        bounds[count * 2 + 1] = end;
+        count++;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * 参数个数（包括指令名）
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * 第i个参数的值
+     */
+    String get(int i) {
+        return source.substring(bounds[i * 2], bounds[i * 2 + 1]);
+    }
+
+    /**
+     * 第i个参数是否等于给定文本（区分大小写）
+     */
+    boolean is(int i, String text) {
+        int start = bounds[i * 2];
+        int length = bounds[i * 2 + 1] - start;
+        return length == text.length() && source.startsWith(text, start);
+    }
+
+    /**
+     * 第i个参数是否等于给定文本（忽略大小写）
+     */
+    boolean isIgnoreCase(int i, String text) {
+        int start = bounds[i * 2];
+        int length = bounds[i * 2 + 1] - start;
+        return length == text.length() && source.regionMatches(true, start, text, 0, length);
+    }
+
+    /**
+     * 从第i个参数开始到指令末尾的原始文本（保留中间的空白）
+     * @return 剩余文本；i超出参数个数时返回空字符串
+     */
+    String rest(int i) {
+        if (i >= count) {
+            return "";
+        }
+        return source.substring(bounds[i * 2]);
+    }
+
+    /**
+     * 第i个参数是否是int范围内的十进制整数（允许正负号）
+     * 数字的判断与 {@link Integer#parseInt(CharSequence, int, int, int)} 一致，全角数字等Unicode数字也可以
+     */
+    boolean isInt(int i) {
+        int start = bounds[i * 2];
+        int end = bounds[i * 2 + 1];
+        char first = source.charAt(start);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            start++;
+        }
+        if (start == end || end - start > 10) {
+            return false;
+        }
+        long value = 0;
+        for (int p = start; p < end; p++) {
+            int digit = Character.digit(source.charAt(p), 10);
+            if (digit < 0) {
+                return false;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value >= Integer.MIN_VALUE : value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * 第i个参数的整数值，调用前须用 {@link #isInt(int)} 检查
+     */
+    int intValue(int i) {
+        return Integer.parseInt(source, bounds[i * 2], bounds[i * 2 + 1], 10);
+    }
+}
@@ -0,0 +1,137 @@
+package com.heibai.clawworld.interfaces.command;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 玩家指令调度器
+ * 同一个玩家的指令严格按到达顺序逐条执行，不同玩家的指令完全并行
+ *
+ * 工作原理：
+ * 1. 每个玩家（未注册时按会话）对应一条通道，通道内用公平锁排队，先到的请求先执行
+ * 2. 指令在请求线程上执行，不占用共享线程池，一个玩家的慢指令（如战斗中等待回合）不会阻塞其他玩家
+ * 3. 通道排队数（包括正在执行的）超过上限时直接拒绝，避免同一玩家堆积大量请求
+ * 4. 通道在没有排队请求时移除，内存占用只与同时在执行指令的玩家数有关
+ *
+ * 同一玩家的指令不会交错执行，服务层对玩家数据的读-改-写无需再防御性地重新读取
+ */
+@Slf4j
+@Component
+public class PlayerCommandDispatcher {
+
+    private final int maxQueueDepth;
+
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger maxObservedDepth = new AtomicInteger();
+
+    public PlayerCommandDispatcher(@Value("${command.queue.max-depth:8}") int maxQueueDepth) {
+        this.maxQueueDepth = Math.max(1, maxQueueDepth);
+    }
+
+    /**
+     * 在玩家的通道上执行任务并返回结果
+     * @param key 通道键（玩家ID，未注册时为会话ID）
+     * @throws QueueFullException 通道排队数已达上限
+     */
+    public <T> T submit(String key, Supplier<T> task) {
+        Lane lane = enqueue(key);
+        lane.lock.lock();
+        try {
+            dispatched.increment();
+            return task.get();
+        } finally {
+            lane.lock.unlock();
+            dequeue(key);
+        }
+    }
+
+    /**
+     * 通道键：已注册的玩家按玩家ID，未注册时按会话ID
+     */
+    public static String laneKey(String playerId, String sessionId) {
+        return playerId != null ? playerId : "session:" + sessionId;
+    }
+
+    private Lane enqueue(String key) {
+        boolean[] full = new boolean[1];
+        Lane lane = lanes.compute(key, (k, existing) -> {
+            Lane l = existing != null ? existing : new Lane();
+            if (l.pending >= maxQueueDepth) {
+                full[0] = true;
+                return l;
+            }
+            l.pending++;
+            maxObservedDepth.accumulateAndGet(l.pending, Math::max);
+            return l;
+        });
+        if (full[0]) {
+            rejected.increment();
+            log.warn("玩家 {} 的指令队列已满（{}），拒绝新指令", key, maxQueueDepth);
+            throw new QueueFullException("指令排队过多，请等待之前的指令执行完成");
+        }
+        return lane;
+    }
+
+    private void dequeue(String key) {
+        lanes.computeIfPresent(key, (k, lane) -> --lane.pending == 0 ? null : lane);
+    }
+
+    /**
+     * 获取统计数据
+     */
+    public Stats getStats() {
+        return new Stats(lanes.size(), dispatched.sum(), rejected.sum(), maxObservedDepth.get(), maxQueueDepth);
+    }
+
+    /**
+     * 调度统计
+     */
+    public record Stats(int activeLanes, long dispatched, long rejected, int maxObservedDepth, int maxQueueDepth) {
+
+        @Override
+        public String toString() {
+            return String.format("指令调度: 活跃通道%d，已执行%d，已拒绝%d，最大排队%d/%d",
+                activeLanes, dispatched, rejected, maxObservedDepth, maxQueueDepth);
+        }
+    }
+
+    /**
+     * 单个玩家的通道
+     * pending只在ConcurrentHashMap.compute内修改，由同一个键的原子性保护
+     */
+    private static class Lane {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int pending;
+    }
+
+    /**
+     * 通道排队数已达上限
+     */
+    public static class QueueFullException extends RuntimeException {
+        /**
+         * 建议的重试等待时间（秒）：排在前面的指令通常在一秒内执行完成
+         */
+        private static final long RETRY_AFTER_SECONDS = 1;
+
+        public QueueFullException(String message) {
+            super(message);
+        }
+
+        /**
+         * 建议的重试等待时间（秒）
+         */
+        public long getRetryAfterSeconds() {
+            return RETRY_AFTER_SECONDS;
+        }
+    }
+}
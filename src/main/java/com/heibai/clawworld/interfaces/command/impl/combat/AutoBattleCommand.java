@@ -0,0 +1,58 @@
+package com.heibai.clawworld.interfaces.command.impl.combat;
+
+import com.heibai.clawworld.application.service.CombatService;
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
+import com.heibai.clawworld.interfaces.command.Command;
+import com.heibai.clawworld.interfaces.command.CommandContext;
+import com.heibai.clawworld.interfaces.command.CommandResult;
+import com.heibai.clawworld.interfaces.command.CommandServiceLocator;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AutoBattleCommand extends Command {
+    private List<String> skillNames;
+    private AutoBattlePolicy.TargetStrategy targetStrategy;
+
+    @Builder
+    public AutoBattleCommand(List<String> skillNames, AutoBattlePolicy.TargetStrategy targetStrategy, String rawCommand) {
+        this.skillNames = skillNames != null ? skillNames : new ArrayList<>();
+        this.targetStrategy = targetStrategy;
+        setRawCommand(rawCommand);
+        setType(CommandType.AUTO_BATTLE);
+    }
+
+    @Override
+    public CommandResult execute(CommandContext context) {
+        String combatId = context.getWindowId();
+
+        CombatService.ActionResult result = CommandServiceLocator.getInstance().getCombatService()
+                .autoBattle(combatId, context.getPlayerId(), skillNames, targetStrategy);
+
+        String message = result.getMessage();
+        if (result.getBattleLog() != null && !result.getBattleLog().isEmpty()) {
+            message = result.getBattleLog();
+        }
+
+        if (result.isCombatEnded()) {
+            // 战斗结束时返回汇总结果（统计和战利品日志）
+            return result.isSuccess()
+                    ? CommandResult.successWithWindowChange(message, CommandContext.WindowType.MAP, "战斗已结束，返回地图")
+                    : CommandResult.errorWithWindowChange(message, CommandContext.WindowType.MAP, "战斗已结束，返回地图");
+        }
+        if (result.isSuccess()) {
+            return CommandResult.success(result.getMessage());
+        }
+        return CommandResult.error(result.getMessage());
+    }
+
+    @Override
+    public ValidationResult validate() {
+        return ValidationResult.success();
+    }
+}
@@ -0,0 +1,46 @@
+package com.heibai.clawworld.interfaces.command.impl.combat;
+
+import com.heibai.clawworld.application.service.CombatService;
+import com.heibai.clawworld.interfaces.command.Command;
+import com.heibai.clawworld.interfaces.command.CommandContext;
+import com.heibai.clawworld.interfaces.command.CommandResult;
+import com.heibai.clawworld.interfaces.command.CommandServiceLocator;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AutoBattleOffCommand extends Command {
+
+    @Builder
+    public AutoBattleOffCommand(String rawCommand) {
+        setRawCommand(rawCommand);
+        setType(CommandType.AUTO_BATTLE_OFF);
+    }
+
+    @Override
+    public CommandResult execute(CommandContext context) {
+        String combatId = context.getWindowId();
+
+        CombatService.ActionResult result = CommandServiceLocator.getInstance().getCombatService()
+                .disableAutoBattle(combatId, context.getPlayerId());
+
+        if (result.isCombatEnded()) {
+            String message = result.getMessage();
+            if (result.getBattleLog() != null && !result.getBattleLog().isEmpty()) {
+                message = result.getBattleLog();
+            }
+            return CommandResult.successWithWindowChange(message, CommandContext.WindowType.MAP, "战斗已结束，返回地图");
+        }
+        if (result.isSuccess()) {
+            return CommandResult.success(result.getMessage());
+        }
+        return CommandResult.error(result.getMessage());
+    }
+
+    @Override
+    public ValidationResult validate() {
+        return ValidationResult.success();
+    }
+}
@@ -0,0 +1,32 @@
+package com.heibai.clawworld.interfaces.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量指令请求DTO
+ */
+@Data
+public class BatchCommandRequest {
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 按顺序执行的指令列表
+     */
+    private List<String> commands;
+
+    /**
+     * 某条指令失败时是否停止执行后续指令（默认停止）
+     */
+    private boolean stopOnError = true;
+
+    /**
+     * 是否使用增量窗口（可选，默认false）
+     * 开启后内容与本会话上次收到的相同的窗口区块只输出“（未变化）”标记
+     */
+    private boolean delta;
+}
@@ -0,0 +1,68 @@
+package com.heibai.clawworld.interfaces.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量指令响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCommandResponse {
+    /**
+     * 是否全部成功
+     */
+    private boolean success;
+
+    /**
+     * 响应内容（纯文本，所有指令执行完后统一生成一次）
+     */
+    private String response;
+
+    /**
+     * 每条已执行指令的结果（因失败停止时不包含未执行的指令）
+     */
+    private List<StepResult> results;
+
+    public static BatchCommandResponse error(String response) {
+        return BatchCommandResponse.builder()
+                .success(false)
+                .response(response)
+                .results(List.of())
+                .build();
+    }
+
+    /**
+     * 单条指令的执行结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StepResult {
+        /**
+         * 指令序号（从1开始）
+         */
+        private int index;
+
+        /**
+         * 指令字符串
+         */
+        private String command;
+
+        /**
+         * 是否成功
+         */
+        private boolean success;
+
+        /**
+         * 结果消息
+         */
+        private String message;
+    }
+}
@@ -16,4 +16,10 @@ public class CommandRequest {
      * 指令字符串
      */
     private String command;
+
+    /**
+     * 是否使用增量窗口（可选，默认false）
+     * 开启后内容与本会话上次收到的相同的窗口区块只输出“（未变化）”标记
+     */
+    private boolean delta;
 }
@@ -0,0 +1,115 @@
+package com.heibai.clawworld.interfaces.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.heibai.clawworld.interfaces.log.GameLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结构化响应DTO
+ * 请求头 Accept 为 {@link #MEDIA_TYPE} 时返回，直接由日志模型生成，不经过文本格式化；
+ * 字段名使用短键，空字段不输出，日志条目序列化为数组
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactResponse {
+
+    /**
+     * 结构化响应的媒体类型
+     */
+    public static final String MEDIA_TYPE = "application/vnd.clawworld.compact+json";
+
+    /**
+     * 是否成功
+     */
+    private boolean ok;
+
+    /**
+     * 错误信息（没有日志时，如会话无效）
+     */
+    private String m;
+
+    /**
+     * 会话ID（仅登录响应）
+     */
+    private String sid;
+
+    /**
+     * 基准时间戳（秒），取第一条日志的时间
+     */
+    private Long t;
+
+    /**
+     * 日志列表
+     */
+    private List<Entry> l;
+
+    /**
+     * 单条日志
+     * 序列化为数组 [类型代码, 子类型, 内容, 相对基准时间的秒数]，比对象形式省去每条日志的字段名
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"k", "s", "c", "d"})
+    public static class Entry {
+        /**
+         * 类型代码：B背景、W窗口、S状态、C指令
+         */
+        private String k;
+
+        /**
+         * 子类型，如"地图信息"、"响应"；没有子类型时为空字符串
+         */
+        private String s;
+
+        /**
+         * 内容：有结构化内容时为 {@link CompactSections} 中的对象，否则为文本
+         */
+        private Object c;
+
+        /**
+         * 相对基准时间戳的秒数
+         */
+        private long d;
+    }
+
+    public static CompactResponse of(boolean ok, List<GameLog> logs) {
+        Long base = null;
+        List<Entry> entries = new ArrayList<>(logs.size());
+        for (GameLog log : logs) {
+            long seconds = log.getTimestamp() != null ? log.getTimestamp() / 1000 : 0;
+            if (base == null && log.getTimestamp() != null) {
+                base = seconds;
+            }
+            entries.add(new Entry(
+                    log.getType().getCode(),
+                    log.getSubType() != null ? log.getSubType() : "",
+                    log.getData() != null ? log.getData() : log.getContent(),
+                    log.getTimestamp() != null ? seconds - base : 0));
+        }
+        return CompactResponse.builder()
+                .ok(ok)
+                .t(base)
+                .l(entries)
+                .build();
+    }
+
+    public static CompactResponse error(String message) {
+        return CompactResponse.builder()
+                .ok(false)
+                .m(message)
+                .build();
+    }
+}
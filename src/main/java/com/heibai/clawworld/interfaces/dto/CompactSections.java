@@ -0,0 +1,153 @@
+package com.heibai.clawworld.interfaces.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.item.Equipment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结构化响应中的窗口区块
+ * 数据量大的窗口（实体列表、玩家状态、背包）直接由实体数据生成，结构化响应中代替文本内容输出
+ */
+public final class CompactSections {
+
+    private CompactSections() {
+    }
+
+    /**
+     * 实体列表中的一行
+     * 序列化为数组 [名称, 等级, x, y, 状态, 类型, 交互选项]，非角色实体等级为 null
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"n", "lv", "x", "y", "st", "tp", "op"})
+    public static class EntityRow {
+        private String n;
+        private Integer lv;
+        private int x;
+        private int y;
+        private String st;
+        private String tp;
+        private List<String> op;
+    }
+
+    /**
+     * 玩家状态，四维已包含装备加成，比率为小数
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class PlayerStatus {
+        private String n;
+        private String r;
+        private int lv;
+        private int x;
+        private int y;
+        private int exp;
+        private int nx;
+        private int g;
+        private int str;
+        private int agi;
+        private int intl;
+        private int vit;
+        private int hp;
+        private int mhp;
+        private int mp;
+        private int mmp;
+        private int pa;
+        private int pd;
+        private int ma;
+        private int md;
+        private int spd;
+        private double cr;
+        private double cd;
+        private double hr;
+        private double dr;
+        /**
+         * 可用属性点，为 0 时不输出
+         */
+        private Integer pts;
+
+        public static PlayerStatus of(Player player, String roleName) {
+            int strength = player.getStrength();
+            int agility = player.getAgility();
+            int intelligence = player.getIntelligence();
+            int vitality = player.getVitality();
+            if (player.getEquipment() != null) {
+                for (Equipment eq : player.getEquipment().values()) {
+                    if (eq != null) {
+                        strength += eq.getStrength();
+                        agility += eq.getAgility();
+                        intelligence += eq.getIntelligence();
+                        vitality += eq.getVitality();
+                    }
+                }
+            }
+            return PlayerStatus.builder()
+                .n(player.getName())
+                .r(roleName)
+                .lv(player.getLevel())
+                .x(player.getX())
+                .y(player.getY())
+                .exp(player.getExperience())
+                .nx(player.getExperienceForNextLevel())
+                .g(player.getGold())
+                .str(strength)
+                .agi(agility)
+                .intl(intelligence)
+                .vit(vitality)
+                .hp(player.getCurrentHealth())
+                .mhp(player.getMaxHealth())
+                .mp(player.getCurrentMana())
+                .mmp(player.getMaxMana())
+                .pa(player.getPhysicalAttack())
+                .pd(player.getPhysicalDefense())
+                .ma(player.getMagicAttack())
+                .md(player.getMagicDefense())
+                .spd(player.getSpeed())
+                .cr(player.getCritRate())
+                .cd(player.getCritDamage())
+                .hr(player.getHitRate())
+                .dr(player.getDodgeRate())
+                .pts(player.getFreeAttributePoints() > 0 ? player.getFreeAttributePoints() : null)
+                .build();
+        }
+    }
+
+    /**
+     * 背包：金币和物品列表，物品序列化为 [名称, 数量]，装备名称含槽位和编号
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Inventory {
+        private int g;
+        private List<Object[]> i;
+
+        public static Inventory of(Player player) {
+            List<Object[]> items = new ArrayList<>();
+            if (player.getInventory() != null) {
+                for (Player.InventorySlot slot : player.getInventory()) {
+                    if (slot.isItem()) {
+                        items.add(new Object[]{slot.getItem().getName(), slot.getQuantity()});
+                    } else if (slot.isEquipment()) {
+                        items.add(new Object[]{slot.getEquipment().getDisplayName(), 1});
+                    }
+                }
+            }
+            return new Inventory(player.getGold(), items);
+        }
+    }
+}
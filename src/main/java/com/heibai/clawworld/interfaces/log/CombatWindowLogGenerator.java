@@ -52,7 +52,7 @@ public class CombatWindowLogGenerator {
             }
             partiesInfo.append("\n");
         }
-        builder.addWindow("参战方", partiesInfo.toString().trim());
+        builder.addWindow("参战方", GameLogBuilder.trim(partiesInfo));
 
         // 3. 所有参战角色状态
         StringBuilder participantsStatus = new StringBuilder();
@@ -75,7 +75,7 @@ public class CombatWindowLogGenerator {
                 participantsStatus.append("\n");
             }
         }
-        builder.addWindow("角色状态", participantsStatus.toString().trim());
+        builder.addWindow("角色状态", GameLogBuilder.trim(participantsStatus));
 
         // 4. 行动条顺序（使用百分比显示）
         StringBuilder turnOrder = new StringBuilder();
@@ -98,7 +98,7 @@ public class CombatWindowLogGenerator {
                 }
             }
         }
-        builder.addWindow("行动条", turnOrder.toString().trim());
+        builder.addWindow("行动条", GameLogBuilder.trim(turnOrder));
 
         // 5. 当前玩家的技能（去重）
         StringBuilder skills = new StringBuilder();
@@ -140,7 +140,7 @@ public class CombatWindowLogGenerator {
         }
         // 普通攻击总是可用，放在最后
         skills.append("- 普通攻击 [敌方单体] (消耗:0MP, 无CD)\n");
-        builder.addWindow("技能列表", skills.toString().trim());
+        builder.addWindow("技能列表", GameLogBuilder.trim(skills));
 
         // 注意：可用指令已移至系统上下文，不再在每次窗口刷新时输出
 
@@ -166,38 +166,27 @@ public class CombatWindowLogGenerator {
      * （3）行动条情况
      * （4）自己的可选操作
      *
-     * @param lastLogSequence 上次获取的日志序列号，用于增量获取
-     * @return 当前最新的日志序列号
+     * @param newLogs 玩家上次确认之后的增量日志
      */
-    public int generateCombatStateLogs(GameLogBuilder builder, Combat combat, String playerId,
-                                       String commandResult, int lastLogSequence) {
-        return generateCombatStateLogs(builder, combat, playerId, commandResult, lastLogSequence, 0);
+    public void generateCombatStateLogs(GameLogBuilder builder, Combat combat, String playerId,
+                                        String commandResult, List<String> newLogs) {
+        generateCombatStateLogs(builder, combat, playerId, commandResult, newLogs, 0);
     }
 
     /**
      * 生成战斗状态日志（增量）
      * @param turnStartTime 当前回合开始时间戳（毫秒），0表示使用当前时间
      */
-    public int generateCombatStateLogs(GameLogBuilder builder, Combat combat, String playerId,
-                                       String commandResult, int lastLogSequence, long turnStartTime) {
+    public void generateCombatStateLogs(GameLogBuilder builder, Combat combat, String playerId,
+                                        String commandResult, List<String> newLogs, long turnStartTime) {
         // 1. 响应（不再单独添加，因为战斗日志中已经包含了行动信息）
         // 只有当没有新的战斗日志时才显示响应
-        boolean hasNewLogs = false;
+        boolean hasNewLogs = newLogs != null && !newLogs.isEmpty();
 
-        // 2. 增量战斗日志（每条日志单独作为一条状态日志）
-        int currentMaxSequence = lastLogSequence;
-        if (combat.getCombatLog() != null && !combat.getCombatLog().isEmpty()) {
-            for (String log : combat.getCombatLog()) {
-                // 日志格式为 "[#序号] 内容"
-                int sequence = parseLogSequence(log);
-                if (sequence > lastLogSequence) {
-                    hasNewLogs = true;
-                    // 每条战斗日志单独添加，这样每条都会有完整的格式
-                    builder.addState("战斗日志", log);
-                    if (sequence > currentMaxSequence) {
-                        currentMaxSequence = sequence;
-                    }
-                }
+        // 2. 增量战斗日志（每条日志单独作为一条状态日志，这样每条都会有完整的格式）
+        if (hasNewLogs) {
+            for (String log : newLogs) {
+                builder.addState("战斗日志", log);
             }
         }
 
@@ -216,7 +205,7 @@ public class CombatWindowLogGenerator {
             }
             partiesInfo.append("\n");
         }
-        builder.addState("参战方", partiesInfo.toString().trim());
+        builder.addState("参战方", GameLogBuilder.trim(partiesInfo));
 
         // 3. 角色状态
         StringBuilder statusChanges = new StringBuilder();
@@ -237,7 +226,7 @@ public class CombatWindowLogGenerator {
                 statusChanges.append("\n");
             }
         }
-        builder.addState("角色状态", statusChanges.toString().trim());
+        builder.addState("角色状态", GameLogBuilder.trim(statusChanges));
 
         // 4. 行动条更新（使用百分比显示）
         if (combat.getActionBar() != null && !combat.getActionBar().isEmpty()) {
@@ -258,7 +247,7 @@ public class CombatWindowLogGenerator {
                     turnOrderUpdate.append(String.format("  %d. %s (%.1f%%)%s\n", i + 1, characterName, percent, marker));
                 }
             }
-            builder.addState("行动条", turnOrderUpdate.toString().trim());
+            builder.addState("行动条", GameLogBuilder.trim(turnOrderUpdate));
         }
 
         // 5. 当前回合提示
@@ -273,27 +262,6 @@ public class CombatWindowLogGenerator {
                 builder.addStateWithTimestamp("当前状态", "等待 " + currentTurnName + " 行动...\n未轮到你的回合，请输入wait继续等待", logTimestamp);
             }
         }
-
-        return currentMaxSequence;
-    }
-
-    /**
-     * 解析日志序列号
-     * 日志格式为 "[#序号] 内容"
-     */
-    private int parseLogSequence(String log) {
-        if (log == null || !log.startsWith("[#")) {
-            return 0;
-        }
-        int endIndex = log.indexOf(']');
-        if (endIndex <= 2) {
-            return 0;
-        }
-        try {
-            return Integer.parseInt(log.substring(2, endIndex));
-        } catch (NumberFormatException e) {
-            return 0;
-        }
     }
 
     /**
@@ -37,20 +37,29 @@ public class GameLog {
      * 日志类型
      */
     public enum Type {
-        BACKGROUND("背景"),      // 背景信息（游戏说明、规则等）
-        WINDOW("窗口"),          // 窗口内容
-        STATE("状态"),           // 状态更新
-        COMMAND("发送指令");     // 玩家发送的指令
+        BACKGROUND("背景", "B"),      // 背景信息（游戏说明、规则等）
+        WINDOW("窗口", "W"),          // 窗口内容
+        STATE("状态", "S"),           // 状态更新
+        COMMAND("发送指令", "C");     // 玩家发送的指令
 
         private final String displayName;
+        private final String code;
 
-        Type(String displayName) {
+        Type(String displayName, String code) {
             this.displayName = displayName;
+            this.code = code;
         }
 
         public String getDisplayName() {
             return displayName;
         }
+
+        /**
+         * 结构化响应中使用的单字母代码
+         */
+        public String getCode() {
+            return code;
+        }
     }
 
     private Source source;
@@ -59,44 +68,83 @@ public class GameLog {
     private String subType;  // 子类型，如"系统说明"、"地图窗口"、"环境变化"等
     private String content;
 
+    /**
+     * 结构化内容（可选），仅结构化响应输出，文本格式化时忽略
+     */
+    private Object data;
+
     /**
      * 格式化为日志字符串
      */
     public String format() {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(estimateLength());
+        appendTo(sb);
+        return sb.toString();
+    }
 
-        // [时间] - 只显示小时和分钟
-        sb.append(formatTimestamp(timestamp));
+    /**
+     * 把格式化结果追加到缓冲区，不生成中间字符串
+     */
+    public void appendTo(StringBuilder sb) {
+        // [时间] - 显示小时、分钟和秒
+        if (timestamp != null) {
+            sb.append(TimestampPrefix.of(timestamp));
+        }
 
         // [类型]
-        sb.append("[").append(type.getDisplayName()).append("]");
+        sb.append('[').append(type.getDisplayName()).append(']');
 
         // [子类型]
         if (subType != null && !subType.isEmpty()) {
-            sb.append("[").append(subType).append("]");
+            sb.append('[').append(subType).append(']');
         }
 
         // 内容
         sb.append(content);
+    }
 
-        return sb.toString();
+    /**
+     * 格式化结果的预估长度，用于预分配缓冲区
+     */
+    int estimateLength() {
+        return 24 + (subType != null ? subType.length() : 0) + (content != null ? content.length() : 4);
     }
 
     /**
-     * 格式化时间戳 - 显示小时、分钟和秒
+     * 时间前缀缓存
+     * 同一秒内的日志共用一个 [时:分:秒] 字符串，跨秒时才重新计算；
+     * 只缓存最近一秒，并发刷新时各线程自行计算，结果相同
      */
-    private String formatTimestamp(Long timestamp) {
-        if (timestamp == null) {
-            return "";
+    private static final class TimestampPrefix {
+
+        private static volatile TimestampPrefix last = new TimestampPrefix(Long.MIN_VALUE, "");
+
+        private final long epochSecond;
+        private final String text;
+
+        private TimestampPrefix(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+
+        static String of(long timestampMs) {
+            long epochSecond = Math.floorDiv(timestampMs, 1000);
+            TimestampPrefix cached = last;
+            if (cached.epochSecond == epochSecond) {
+                return cached.text;
+            }
+            LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+            char[] chars = {'[',
+                (char) ('0' + dateTime.getHour() / 10), (char) ('0' + dateTime.getHour() % 10), ':',
+                (char) ('0' + dateTime.getMinute() / 10), (char) ('0' + dateTime.getMinute() % 10), ':',
+                (char) ('0' + dateTime.getSecond() / 10), (char) ('0' + dateTime.getSecond() % 10), ']'};
+            String text = new String(chars);
+            // 只向前推进，避免乱序的旧时间戳覆盖当前秒
+            if (epochSecond > cached.epochSecond) {
+                last = new TimestampPrefix(epochSecond, text);
+            }
+            return text;
         }
-        Instant instant = Instant.ofEpochMilli(timestamp);
-        ZoneId zoneId = ZoneId.systemDefault();
-        LocalDateTime dateTime = LocalDateTime.ofInstant(instant, zoneId);
-
-        return String.format("[%02d:%02d:%02d]",
-            dateTime.getHour(),
-            dateTime.getMinute(),
-            dateTime.getSecond());
     }
 
     /**
@@ -125,6 +173,20 @@ public class GameLog {
             .build();
     }
 
+    /**
+     * 创建带结构化内容的服务端窗口日志
+     */
+    public static GameLog serverWindow(String subType, String content, Object data) {
+        return GameLog.builder()
+            .source(Source.SERVER)
+            .timestamp(System.currentTimeMillis())
+            .type(Type.WINDOW)
+            .subType(subType)
+            .content(content)
+            .data(data)
+            .build();
+    }
+
     /**
      * 创建服务端窗口日志（自定义时间戳）
      */
@@ -2,7 +2,6 @@ package com.heibai.clawworld.interfaces.log;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 游戏日志构建器
@@ -10,6 +9,12 @@ import java.util.stream.Collectors;
  */
 public class GameLogBuilder {
 
+    // 线程复用的格式化缓冲区；超过上限的缓冲区用完后丢弃，避免个别超大响应长期占用内存
+    private static final int BUFFER_INITIAL_CAPACITY = 8 * 1024;
+    private static final int BUFFER_MAX_RETAINED = 256 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER =
+        ThreadLocal.withInitial(() -> new StringBuilder(BUFFER_INITIAL_CAPACITY));
+
     private final List<GameLog> logs = new ArrayList<>();
 
     /**
@@ -36,6 +41,14 @@ public class GameLogBuilder {
         return this;
     }
 
+    /**
+     * 添加服务端窗口日志，同时附带结构化内容
+     */
+    public GameLogBuilder addWindow(String subType, String content, Object data) {
+        logs.add(GameLog.serverWindow(subType, content, data));
+        return this;
+    }
+
     /**
      * 添加服务端窗口日志（自定义时间戳）
      */
@@ -64,9 +77,62 @@ public class GameLogBuilder {
      * 构建最终的日志字符串
      */
     public String build() {
-        return logs.stream()
-            .map(GameLog::format)
-            .collect(Collectors.joining("\n"));
+        return format(logs);
+    }
+
+    /**
+     * 把日志格式化为文本，每条一行
+     * 所有日志直接写入同一个线程复用的缓冲区，最后只复制一次生成结果字符串
+     */
+    public static String format(List<GameLog> logs) {
+        StringBuilder sb = BUFFER.get();
+        try {
+            appendTo(sb, logs);
+            return sb.toString();
+        } finally {
+            release(sb);
+        }
+    }
+
+    /**
+     * 把日志格式化结果追加到缓冲区，每条一行
+     */
+    public static void appendTo(StringBuilder sb, List<GameLog> logs) {
+        int estimated = sb.length();
+        for (GameLog log : logs) {
+            estimated += log.estimateLength() + 1;
+        }
+        sb.ensureCapacity(estimated);
+
+        for (int i = 0; i < logs.size(); i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            logs.get(i).appendTo(sb);
+        }
+    }
+
+    private static void release(StringBuilder sb) {
+        if (sb.capacity() > BUFFER_MAX_RETAINED) {
+            BUFFER.remove();
+        } else {
+            sb.setLength(0);
+        }
+    }
+
+    /**
+     * 取缓冲区去除首尾空白后的内容，结果与 toString().trim() 相同但只复制一次
+     */
+    public static String trim(StringBuilder sb) {
+        int start = 0;
+        int end = sb.length();
+        while (start < end && sb.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && sb.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return sb.substring(start, end);
     }
 
     /**
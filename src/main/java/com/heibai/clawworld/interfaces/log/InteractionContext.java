@@ -0,0 +1,205 @@
+package com.heibai.clawworld.interfaces.log;
+
+import com.heibai.clawworld.application.service.PartyService;
+import com.heibai.clawworld.domain.character.Party;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity;
+import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一次响应生成中某个玩家（观察者）的交互上下文
+ * 观察者的交易状态、队伍以及地图上其他玩家的队伍在本次响应内只查询一次，
+ * 环境变化比较、地图窗口和组队邀请检测共用同一份结果，查询次数不随地图上的玩家数增长
+ *
+ * 工作原理：
+ * 1. 交易状态在第一次需要时查询（待处理、进行中各一次），收到的交易请求从待处理交易中筛选
+ * 2. {@link #prefetch} 用一次查询批量取得实体列表中所有玩家和观察者自己的队伍，之后按玩家ID直接读取
+ * 3. 每个目标玩家的组队、交易选项只计算一次，同一响应中再次需要时直接复用
+ * 4. 只在一次响应内使用，不跨响应缓存，组队、交易状态变化后下一次响应自然重新查询
+ */
+public class InteractionContext {
+
+    private final String viewerId;
+    private final PartyService partyService;
+    private final TradeRepository tradeRepository;
+
+    // 玩家ID -> 所在队伍（没有队伍时值为null，表示已查询过）
+    private final Map<String, Party> parties = new HashMap<>();
+    // 目标玩家ID -> 组队、交易相关的交互选项
+    private final Map<String, List<String>> playerOptions = new HashMap<>();
+
+    // 观察者是否有进行中或待处理的交易；为null表示尚未查询
+    private Boolean tradeBusy;
+    // 观察者发起或收到的待处理交易；为null表示尚未查询
+    private List<TradeEntity> pendingTrades;
+    // 发给观察者的待处理交易请求
+    private List<TradeEntity> receivedTradeRequests;
+    // 向观察者发起交易请求的玩家ID
+    private Set<String> tradeRequesterIds;
+
+    public InteractionContext(String viewerId, PartyService partyService, TradeRepository tradeRepository) {
+        this.viewerId = viewerId;
+        this.partyService = partyService;
+        this.tradeRepository = tradeRepository;
+    }
+
+    /**
+     * 批量查询实体列表中玩家的队伍（连同观察者自己），已查询过的玩家不再重复查询
+     */
+    public void prefetch(Collection<? extends MapEntity> entities) {
+        Set<String> playerIds = new HashSet<>();
+        if (!parties.containsKey(viewerId)) {
+            playerIds.add(viewerId);
+        }
+        for (MapEntity entity : entities) {
+            if (entity instanceof Player && entity.getId() != null && !parties.containsKey(entity.getId())) {
+                playerIds.add(entity.getId());
+            }
+        }
+        if (playerIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Party> loaded = partyService.getPlayerParties(playerIds);
+        for (String playerId : playerIds) {
+            parties.put(playerId, loaded.get(playerId));
+        }
+    }
+
+    /**
+     * 获取玩家所在队伍，未预先查询的玩家单独查询一次
+     * @return 队伍对象，如果没有队伍返回null
+     */
+    public Party getParty(String playerId) {
+        if (!parties.containsKey(playerId)) {
+            parties.put(playerId, partyService.getPlayerParty(playerId));
+        }
+        return parties.get(playerId);
+    }
+
+    /**
+     * 获取发给观察者的待处理交易请求
+     */
+    public List<TradeEntity> getReceivedTradeRequests() {
+        loadPendingTrades();
+        return receivedTradeRequests;
+    }
+
+    /**
+     * 获取实体对观察者的交互选项
+     * @param baseOptions 实体本身的交互选项（与地图是否安全、观察者阵营有关）
+     */
+    public List<String> getInteractionOptions(MapEntity entity, List<String> baseOptions) {
+        List<String> options = new ArrayList<>(baseOptions);
+        if ("PLAYER".equals(entity.getEntityType()) && entity instanceof Player) {
+            options.addAll(getPlayerOptions((Player) entity));
+        }
+        return options;
+    }
+
+    /**
+     * 获取目标玩家的组队、交易相关交互选项
+     */
+    public List<String> getPlayerOptions(Player target) {
+        List<String> options = playerOptions.get(target.getId());
+        if (options == null) {
+            options = Collections.unmodifiableList(computePlayerOptions(target));
+            playerOptions.put(target.getId(), options);
+        }
+        return options;
+    }
+
+    private List<String> computePlayerOptions(Player target) {
+        List<String> options = new ArrayList<>();
+        Party viewerParty = getParty(viewerId);
+        Party targetParty = getParty(target.getId());
+
+        // 检查是否在同一个队伍
+        boolean inSameParty = viewerParty != null && targetParty != null
+                && viewerParty.getId().equals(targetParty.getId());
+
+        // 如果不在同一个队伍，才显示组队相关选项
+        if (!inSameParty) {
+            // 目标没有队伍或只有临时队伍（等待被邀请者加入），可以邀请组队
+            if (targetParty == null || targetParty.isSolo()) {
+                options.add("邀请组队");
+            }
+
+            // 检查是否有来自目标的组队邀请（邀请存储在目标的队伍中）
+            if (targetParty != null && targetParty.getPendingInvitations() != null) {
+                boolean hasInvitation = targetParty.getPendingInvitations().stream()
+                        .anyMatch(inv -> inv.getInviterId().equals(target.getId())
+                                && inv.getInviteeId().equals(viewerId)
+                                && !inv.isExpired());
+                if (hasInvitation) {
+                    options.add("接受组队邀请");
+                    options.add("拒绝组队邀请");
+                }
+            }
+
+            // 目标有真正的队伍（2人以上），可以请求加入
+            if (targetParty != null && !targetParty.isSolo()) {
+                options.add("请求加入队伍");
+            }
+
+            // 检查是否有来自目标的加入请求（viewer是队长时）
+            if (viewerParty != null && viewerParty.isLeader(viewerId) && viewerParty.getPendingRequests() != null) {
+                boolean hasRequest = viewerParty.getPendingRequests().stream()
+                        .anyMatch(req -> req.getRequesterId().equals(target.getId()) && !req.isExpired());
+                if (hasRequest) {
+                    options.add("接受组队请求");
+                    options.add("拒绝组队请求");
+                }
+            }
+        }
+
+        loadTrades();
+        if (!tradeBusy) {
+            options.add("请求交易");
+        }
+
+        // 检查viewer是否收到了来自target的交易请求
+        if (tradeRequesterIds.contains(target.getId())) {
+            options.add("接受交易请求");
+            options.add("拒绝交易请求");
+        }
+        return options;
+    }
+
+    private void loadTrades() {
+        if (tradeBusy != null) {
+            return;
+        }
+        loadPendingTrades();
+        List<TradeEntity> activeTrades = tradeRepository.findActiveTradesByPlayerId(
+                TradeEntity.TradeStatus.ACTIVE, viewerId);
+        tradeBusy = !activeTrades.isEmpty() || !pendingTrades.isEmpty();
+    }
+
+    private void loadPendingTrades() {
+        if (pendingTrades != null) {
+            return;
+        }
+        // 观察者发起或收到的待处理交易，收到的交易请求从中筛选
+        pendingTrades = tradeRepository.findActiveTradesByPlayerId(
+                TradeEntity.TradeStatus.PENDING, viewerId);
+        receivedTradeRequests = new ArrayList<>();
+        tradeRequesterIds = new HashSet<>();
+        for (TradeEntity trade : pendingTrades) {
+            if (viewerId.equals(trade.getReceiverId())) {
+                receivedTradeRequests.add(trade);
+                tradeRequesterIds.add(trade.getInitiatorId());
+            }
+        }
+    }
+}
@@ -4,15 +4,14 @@ import com.heibai.clawworld.application.service.CharacterInfoService;
 import com.heibai.clawworld.application.service.MapEntityService;
 import com.heibai.clawworld.application.service.PartyService;
 import com.heibai.clawworld.domain.character.Character;
-import com.heibai.clawworld.domain.character.Party;
 import com.heibai.clawworld.domain.character.Player;
 import com.heibai.clawworld.domain.chat.ChatMessage;
 import com.heibai.clawworld.domain.map.GameMap;
 import com.heibai.clawworld.domain.map.MapEntity;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.infrastructure.config.data.map.MapTerrainConfig;
-import com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+import com.heibai.clawworld.interfaces.dto.CompactSections;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +35,16 @@ public class MapWindowLogGenerator {
      * 生成地图窗口日志
      */
     public void generateMapWindowLogs(GameLogBuilder builder, Player player, GameMap map, List<MapEntity> allEntities, List<ChatMessage> chatHistory) {
+        generateMapWindowLogs(builder, player, map, allEntities, chatHistory,
+            new InteractionContext(player.getId(), partyService, tradeRepository));
+    }
+
+    /**
+     * 生成地图窗口日志
+     * @param interactions 本次响应的交互上下文，与同一响应中的环境变化共用
+     */
+    public void generateMapWindowLogs(GameLogBuilder builder, Player player, GameMap map, List<MapEntity> allEntities,
+                                      List<ChatMessage> chatHistory, InteractionContext interactions) {
         // 预计算可达性地图（一次BFS，后续直接查询）
         java.util.Set<String> reachabilityMap = mapEntityService.calculateReachabilityMap(player.getId());
 
@@ -58,7 +67,9 @@ public class MapWindowLogGenerator {
         }
 
         // 3. 玩家状态（包含当前位置）
-        builder.addWindow("玩家状态", characterInfoService.generatePlayerStatus(player));
+        var role = configDataManager.getRole(player.getRoleId());
+        builder.addWindow("玩家状态", characterInfoService.generatePlayerStatus(player),
+            CompactSections.PlayerStatus.of(player, role != null ? role.getName() : null));
 
         // 4. 技能
         builder.addWindow("技能列表", "你的技能：\n" + characterInfoService.generateSkills(player));
@@ -67,19 +78,20 @@ public class MapWindowLogGenerator {
         builder.addWindow("装备栏", "你的装备：\n" + characterInfoService.generateEquipment(player));
 
         // 6. 背包
-        builder.addWindow("背包", "你的背包：\n" + characterInfoService.generateInventory(player));
+        builder.addWindow("背包", "你的背包：\n" + characterInfoService.generateInventory(player),
+            CompactSections.Inventory.of(player));
 
         // 7. 组队情况
         builder.addWindow("队伍信息", "你的组队情况：\n" + characterInfoService.generatePartyInfo(player));
 
         // 8. 地图实体
-        builder.addWindow("实体列表", map.getName() + "的地图实体：\n" + generateMapEntities(player, allEntities, map, reachabilityMap));
+        addMapEntities(builder, player, allEntities, map, reachabilityMap, interactions);
 
         // 9. 可达目标
-        builder.addWindow("可达目标", "你移动后可以交互的实体：\n" + generateReachableTargets(player, allEntities, map, reachabilityMap));
+        builder.addWindow("可达目标", generateReachableTargets(player, allEntities, map, reachabilityMap));
 
         // 10. 聊天记录
-        builder.addWindow("聊天记录", "新增聊天：\n" + generateChatHistory(chatHistory));
+        builder.addWindow("聊天记录", generateChatHistory(chatHistory));
 
         // 注意：可用指令已移至系统上下文，不再在每次窗口刷新时输出
     }
@@ -104,7 +116,7 @@ public class MapWindowLogGenerator {
                 tc.getX1(), tc.getY1(),
                 tc.getX2(), tc.getY2()));
         }
-        return sb.toString().trim();
+        return GameLogBuilder.trim(sb);
     }
 
     /**
@@ -134,101 +146,104 @@ public class MapWindowLogGenerator {
     }
 
 
-    private String generateMapEntities(Player player, List<MapEntity> allEntities, GameMap map, java.util.Set<String> reachabilityMap) {
-        StringBuilder sb = new StringBuilder();
-        boolean hasEntities = false;
+    /**
+     * 生成地图实体窗口，文本和结构化行由同一份实体数据生成，整个窗口文本写入同一个缓冲区
+     */
+    private void addMapEntities(GameLogBuilder builder, Player player, List<MapEntity> allEntities, GameMap map,
+                                java.util.Set<String> reachabilityMap, InteractionContext interactions) {
+        interactions.prefetch(allEntities);
+        StringBuilder sb = new StringBuilder(64 + allEntities.size() * 64);
+        List<CompactSections.EntityRow> rows = new ArrayList<>(allEntities.size());
+        sb.append(map.getName()).append("的地图实体：\n");
         for (MapEntity entity : allEntities) {
             if (entity.getName().equals(player.getName())) {
                 continue;
             }
 
-            hasEntities = true;
-            sb.append(entity.getName());
-
             // 如果是角色类型，显示等级
-            if (entity instanceof Character) {
-                Character character = (Character) entity;
-                sb.append(String.format(" Lv.%d", character.getLevel()));
+            Integer level = entity instanceof Character character ? character.getLevel() : null;
+            String status = getEntityStatus(player, entity, map, reachabilityMap);
+            String type = entity.getEntityType() != null ? getEntityTypeDisplayName(entity) : null;
+            List<String> options = null;
+            if (entity.isInteractable()) {
+                options = interactions.getInteractionOptions(
+                    entity, entity.getInteractionOptions(player.getFaction(), map.isSafe()));
+                if (options != null && options.isEmpty()) {
+                    options = null;
+                }
             }
+            rows.add(new CompactSections.EntityRow(entity.getName(), level, entity.getX(), entity.getY(), status, type, options));
 
-            sb.append(String.format(" (%d,%d)", entity.getX(), entity.getY()));
-
-            // 检查敌人是否死亡
-            if (entity instanceof com.heibai.clawworld.domain.character.Enemy) {
-                com.heibai.clawworld.domain.character.Enemy enemy = (com.heibai.clawworld.domain.character.Enemy) entity;
-                if (enemy.isDead()) {
-                    long remainingSeconds = enemy.getRemainingRespawnSeconds();
-                    sb.append(String.format(" [已死亡，%d秒后刷新]", remainingSeconds));
-                } else {
-                    appendAccessibilityStatus(sb, player, entity, map, reachabilityMap);
-                }
+            sb.append(entity.getName());
+            if (level != null) {
+                sb.append(" Lv.").append(level);
             }
-            // 检查宝箱状态
-            else if (entity instanceof com.heibai.clawworld.domain.map.Chest) {
-                com.heibai.clawworld.domain.map.Chest chest = (com.heibai.clawworld.domain.map.Chest) entity;
-                if (chest.getChestType() == com.heibai.clawworld.domain.map.Chest.ChestType.SMALL) {
-                    // 小宝箱：检查当前玩家是否已开启
-                    if (chest.isOpenedByCurrentPlayer()) {
-                        sb.append(" [已打开]");
-                    } else {
-                        appendAccessibilityStatus(sb, player, entity, map, reachabilityMap);
-                    }
-                } else {
-                    // 大宝箱：检查是否已被开启且未刷新
-                    if (chest.isOpened() && !chest.canOpen()) {
-                        int remainingSeconds = chest.getRemainingRespawnSeconds();
-                        sb.append(String.format(" [已打开，%d秒后刷新]", remainingSeconds));
-                    } else {
-                        appendAccessibilityStatus(sb, player, entity, map, reachabilityMap);
+            sb.append(" (").append(entity.getX()).append(',').append(entity.getY()).append(')');
+            sb.append(" [").append(status).append(']');
+            if (type != null) {
+                sb.append(" [类型：").append(type).append("]");
+            }
+            if (options != null) {
+                sb.append(" [交互选项: ");
+                for (int i = 0; i < options.size(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
                     }
+                    sb.append(options.get(i));
                 }
-            } else {
-                appendAccessibilityStatus(sb, player, entity, map, reachabilityMap);
+                sb.append(']');
             }
+            sb.append('\n');
+        }
 
-            if (entity.getEntityType() != null) {
-                sb.append(" [类型：").append(getEntityTypeDisplayName(entity)).append("]");
-            }
+        if (rows.isEmpty()) {
+            sb.append("地图上没有其他实体");
+        }
+        builder.addWindow("实体列表", sb.toString(), rows);
+    }
 
-            if (entity.isInteractable()) {
-                List<String> options = getEntityInteractionOptions(entity, player, map);
-                if (options != null && !options.isEmpty()) {
-                    sb.append(" [交互选项: ");
-                    sb.append(String.join(", ", options));
-                    sb.append("]");
-                }
+    /**
+     * 实体状态：已死亡、已打开等刷新状态，否则为可达性状态
+     */
+    private String getEntityStatus(Player player, MapEntity entity, GameMap map, java.util.Set<String> reachabilityMap) {
+        // 检查敌人是否死亡
+        if (entity instanceof com.heibai.clawworld.domain.character.Enemy enemy) {
+            if (enemy.isDead()) {
+                return "已死亡，" + enemy.getRemainingRespawnSeconds() + "秒后刷新";
             }
-
-            sb.append("\n");
         }
-
-        if (!hasEntities) {
-            sb.append("地图上没有其他实体");
+        // 检查宝箱状态
+        else if (entity instanceof com.heibai.clawworld.domain.map.Chest chest) {
+            if (chest.getChestType() == com.heibai.clawworld.domain.map.Chest.ChestType.SMALL) {
+                // 小宝箱：检查当前玩家是否已开启
+                if (chest.isOpenedByCurrentPlayer()) {
+                    return "已打开";
+                }
+            } else if (chest.isOpened() && !chest.canOpen()) {
+                // 大宝箱：已被开启且未刷新
+                return "已打开，" + chest.getRemainingRespawnSeconds() + "秒后刷新";
+            }
         }
-        return sb.toString();
+        return getAccessibilityStatus(player, entity, map, reachabilityMap);
     }
 
     /**
-     * 添加可达性状态
+     * 可达性状态
      */
-    private void appendAccessibilityStatus(StringBuilder sb, Player player, MapEntity entity, GameMap map, java.util.Set<String> reachabilityMap) {
+    private String getAccessibilityStatus(Player player, MapEntity entity, GameMap map, java.util.Set<String> reachabilityMap) {
         int dx = Math.abs(entity.getX() - player.getX());
         int dy = Math.abs(entity.getY() - player.getY());
         if (dx <= 1 && dy <= 1) {
-            sb.append(" [可直接交互]");
-        } else {
-            // 检查是否有可达路径
-            int[] nearestPos = findNearestReachablePosition(player, entity, map, reachabilityMap);
-            if (nearestPos == null) {
-                sb.append(" [无可达路径]");
-            } else {
-                sb.append(" [需移动至周边交互]");
-            }
+            return "可直接交互";
         }
+        // 检查是否有可达路径
+        int[] nearestPos = findNearestReachablePosition(player, entity, map, reachabilityMap);
+        return nearestPos == null ? "无可达路径" : "需移动至周边交互";
     }
 
     private String generateReachableTargets(Player player, List<MapEntity> allEntities, GameMap map, java.util.Set<String> reachabilityMap) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(64 + allEntities.size() * 32);
+        sb.append("你移动后可以交互的实体：\n");
         boolean hasReachableTarget = false;
         for (MapEntity entity : allEntities) {
             if (entity.getName().equals(player.getName())) {
@@ -241,8 +256,8 @@ public class MapWindowLogGenerator {
                 // 找到最近的可达位置
                 int[] nearestPos = findNearestReachablePosition(player, entity, map, reachabilityMap);
                 if (nearestPos != null) {
-                    sb.append(String.format("%s: 移动到 (%d,%d) 可交互\n",
-                        entity.getName(), nearestPos[0], nearestPos[1]));
+                    sb.append(entity.getName()).append(": 移动到 (")
+                        .append(nearestPos[0]).append(',').append(nearestPos[1]).append(") 可交互\n");
                     hasReachableTarget = true;
                 }
                 // 如果没有可达位置，不显示在这个列表中
@@ -310,7 +325,8 @@ public class MapWindowLogGenerator {
     }
 
     private String generateChatHistory(List<ChatMessage> chatHistory) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("新增聊天：\n");
         if (chatHistory != null && !chatHistory.isEmpty()) {
             int count = 0;
             for (ChatMessage msg : chatHistory) {
@@ -321,7 +337,7 @@ public class MapWindowLogGenerator {
                     case PARTY -> "[队伍]";
                     case PRIVATE -> "[私聊]";
                 };
-                sb.append(String.format("%s %s: %s\n", channelPrefix, msg.getSenderNickname(), msg.getMessage()));
+                sb.append(channelPrefix).append(' ').append(msg.getSenderNickname()).append(": ").append(msg.getMessage()).append('\n');
                 count++;
             }
         } else {
@@ -330,79 +346,6 @@ public class MapWindowLogGenerator {
         return sb.toString();
     }
 
-    private List<String> getEntityInteractionOptions(MapEntity entity, Player viewer, GameMap map) {
-        List<String> options = new ArrayList<>(entity.getInteractionOptions(viewer.getFaction(), map.isSafe()));
-
-        if ("PLAYER".equals(entity.getEntityType()) && entity instanceof Player) {
-            Player targetPlayer = (Player) entity;
-            addPlayerSpecificOptions(options, viewer, targetPlayer);
-        }
-
-        return options;
-    }
-
-    private void addPlayerSpecificOptions(List<String> options, Player viewer, Player target) {
-        Party viewerParty = partyService.getPlayerParty(viewer.getId());
-        Party targetParty = partyService.getPlayerParty(target.getId());
-
-        // 检查是否在同一个队伍
-        boolean inSameParty = viewerParty != null && targetParty != null
-                && viewerParty.getId().equals(targetParty.getId());
-
-        // 如果不在同一个队伍，才显示组队相关选项
-        if (!inSameParty) {
-            // 目标没有队伍或只有临时队伍（等待被邀请者加入），可以邀请组队
-            if (targetParty == null || targetParty.isSolo()) {
-                options.add("邀请组队");
-            }
-
-            // 检查是否有来自目标的组队邀请（邀请存储在目标的队伍中）
-            if (targetParty != null && targetParty.getPendingInvitations() != null) {
-                boolean hasInvitation = targetParty.getPendingInvitations().stream()
-                        .anyMatch(inv -> inv.getInviterId().equals(target.getId())
-                                && inv.getInviteeId().equals(viewer.getId())
-                                && !inv.isExpired());
-                if (hasInvitation) {
-                    options.add("接受组队邀请");
-                    options.add("拒绝组队邀请");
-                }
-            }
-
-            // 目标有真正的队伍（2人以上），可以请求加入
-            if (targetParty != null && !targetParty.isSolo()) {
-                options.add("请求加入队伍");
-            }
-
-            // 检查是否有来自目标的加入请求（viewer是队长时）
-            if (viewerParty != null && viewerParty.isLeader(viewer.getId()) && viewerParty.getPendingRequests() != null) {
-                boolean hasRequest = viewerParty.getPendingRequests().stream()
-                        .anyMatch(req -> req.getRequesterId().equals(target.getId()) && !req.isExpired());
-                if (hasRequest) {
-                    options.add("接受组队请求");
-                    options.add("拒绝组队请求");
-                }
-            }
-        }
-
-        List<TradeEntity> activeTrades = tradeRepository.findActiveTradesByPlayerId(
-                TradeEntity.TradeStatus.ACTIVE, viewer.getId());
-        List<TradeEntity> pendingTrades = tradeRepository.findActiveTradesByPlayerId(
-                TradeEntity.TradeStatus.PENDING, viewer.getId());
-
-        if (activeTrades.isEmpty() && pendingTrades.isEmpty()) {
-            options.add("请求交易");
-        }
-
-        List<TradeEntity> targetPendingTrades = tradeRepository.findByStatusAndReceiverId(
-                TradeEntity.TradeStatus.PENDING, viewer.getId());
-        boolean hasTradeRequest = targetPendingTrades.stream()
-                .anyMatch(t -> t.getInitiatorId().equals(target.getId()));
-        if (hasTradeRequest) {
-            options.add("接受交易请求");
-            options.add("拒绝交易请求");
-        }
-    }
-
     /**
      * 获取实体类型的中文显示名称
      */
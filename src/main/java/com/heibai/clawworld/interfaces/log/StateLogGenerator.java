@@ -7,13 +7,16 @@ import com.heibai.clawworld.domain.character.Party;
 import com.heibai.clawworld.domain.character.Player;
 import com.heibai.clawworld.domain.chat.ChatMessage;
 import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.infrastructure.config.data.map.MapConfig;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+import com.heibai.clawworld.infrastructure.util.ExpiringCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -37,11 +40,31 @@ public class StateLogGenerator {
     private final ConfigDataManager configDataManager;
     private final com.heibai.clawworld.application.service.PartyService partyService;
     private final TradeRepository tradeRepository;
+    private final MapEntityJournal mapEntityJournal;
+
+    // 组队邀请的有效期，与 Party.PartyInvitation.isExpired 一致
+    private static final long INVITATION_EXPIRE_MS = 60 * 1000;
+
+    private static final int MAX_CURSORS = 10000;
+    private static final long CURSOR_EXPIRE_MS = 30 * 60 * 1000;
+
+    // 玩家在地图事件日志中的游标（key: 玩家ID），过期或服务重启后完整同步一次
+    private final ExpiringCache<String, MapCursor> mapCursors =
+        new ExpiringCache<>("地图事件游标", MAX_CURSORS, CURSOR_EXPIRE_MS);
 
     /**
      * 生成地图状态日志
      */
     public void generateMapStateLogs(GameLogBuilder builder, String playerId, String commandResult) {
+        generateMapStateLogs(builder, playerId, commandResult, new InteractionContext(playerId, partyService, tradeRepository));
+    }
+
+    /**
+     * 生成地图状态日志
+     * @param interactions 本次响应的交互上下文，与同一响应中的地图窗口共用
+     */
+    public void generateMapStateLogs(GameLogBuilder builder, String playerId, String commandResult,
+                                     InteractionContext interactions) {
         Optional<AccountEntity> accountOpt = accountRepository.findByPlayerId(playerId);
         if (!accountOpt.isPresent()) {
             builder.addState("响应", "错误: 无法获取玩家状态");
@@ -58,74 +81,47 @@ public class StateLogGenerator {
 
         // 2. 收集环境变化
         Player currentPlayer = playerSessionService.getPlayerState(playerId);
+        // 地图上的实体和玩家关系自上次以来都没有变化
+        boolean mapUnchanged = false;
         if (currentPlayer != null && currentPlayer.getMapId() != null) {
             String currentMapId = currentPlayer.getMapId();
             String lastMapId = account.getLastMapId();
             boolean isMapChanged = lastMapId != null && !lastMapId.equals(currentMapId);
+            // 首次创建快照时（lastSnapshot为空表示初始化，不是真正的变化）
+            boolean isFirstSnapshot = lastSnapshot.isEmpty();
+            long relationVersion = mapEntityJournal.relationVersion();
 
-            List<MapEntity> entitiesOnMap = mapEntityService.getMapEntities(currentMapId, playerId);
-
-            // 构建当前实体快照
-            Map<String, AccountEntity.EntitySnapshot> currentSnapshot = new HashMap<>();
-            Map<String, MapEntity> currentEntitiesMap = new HashMap<>();
-
-            for (MapEntity entity : entitiesOnMap) {
-                if (entity.getName().equals(currentPlayer.getName())) {
-                    continue;
-                }
-
-                currentEntitiesMap.put(entity.getName(), entity);
-
-                AccountEntity.EntitySnapshot snapshot = new AccountEntity.EntitySnapshot();
-                snapshot.setX(entity.getX());
-                snapshot.setY(entity.getY());
-                snapshot.setEntityType(entity.getEntityType());
-
-                // 记录敌人的死亡状态
-                if (entity instanceof com.heibai.clawworld.domain.character.Enemy) {
-                    com.heibai.clawworld.domain.character.Enemy enemy = (com.heibai.clawworld.domain.character.Enemy) entity;
-                    snapshot.setIsDead(enemy.isDead());
-                }
-
-                // 记录宝箱的开启状态
-                if (entity instanceof com.heibai.clawworld.domain.map.Chest) {
-                    com.heibai.clawworld.domain.map.Chest chest = (com.heibai.clawworld.domain.map.Chest) entity;
-                    // 小宝箱：检查当前玩家是否已开启
-                    // 大宝箱：检查是否已被开启且未刷新
-                    if (chest.getChestType() == com.heibai.clawworld.domain.map.Chest.ChestType.SMALL) {
-                        snapshot.setIsOpened(chest.isOpenedByCurrentPlayer());
-                    } else {
-                        snapshot.setIsOpened(chest.isOpened() && !chest.canOpen());
-                    }
-                }
+            // 同一地图上有游标时，只处理游标之后变化过的实体
+            MapCursor cursor = mapCursors.get(playerId);
+            MapEntityJournal.Changes changes = null;
+            if (cursor != null && cursor.mapId().equals(currentMapId) && !isMapChanged && !isFirstSnapshot) {
+                changes = mapEntityJournal.since(currentMapId, cursor.sequence());
+            }
 
-                if (entity.isInteractable()) {
-                    List<String> options = getEntityInteractionOptions(entity, currentPlayer);
-                    snapshot.setInteractionOptions(options);
+            long head;
+            if (changes != null) {
+                boolean relationChanged = cursor.relationVersion() != relationVersion;
+                if (!changes.isEmpty() || relationChanged) {
+                    applyEntityChanges(builder, account, lastSnapshot, currentPlayer, changes, relationChanged, interactions);
                 } else {
-                    snapshot.setInteractionOptions(new ArrayList<>());
+                    mapUnchanged = true;
                 }
-
-                currentSnapshot.put(entity.getName(), snapshot);
-            }
-
-            // 分析变化并生成日志
-            // 跳过条件：1. 地图切换时  2. 首次创建快照时（lastSnapshot为空表示初始化，不是真正的变化）
-            boolean isFirstSnapshot = lastSnapshot.isEmpty();
-            if (!isMapChanged && !isFirstSnapshot) {
-                generateEntityChangeLogs(builder, lastSnapshot, currentSnapshot, currentEntitiesMap);
+                head = changes.head();
+            } else {
+                // 没有游标或游标已过期，完整同步（序号在读取实体之前取得，之后的变化下次再处理）
+                head = mapEntityJournal.head(currentMapId);
+                syncAllEntities(builder, account, lastSnapshot, currentPlayer, isMapChanged || isFirstSnapshot, interactions);
             }
 
-            // 保存当前快照和地图ID
-            account.setLastEntitySnapshot(currentSnapshot);
+            mapCursors.put(playerId, new MapCursor(currentMapId, head, relationVersion));
             account.setLastMapId(currentMapId);
         }
 
         // 3. 队伍状态变化
-        generatePartyChangeLogs(builder, account, currentPlayer);
+        generatePartyChangeLogs(builder, account, currentPlayer, mapUnchanged, interactions);
 
         // 4. 交易邀请变化
-        generateTradeInvitationChangeLogs(builder, account, currentPlayer);
+        generateTradeInvitationChangeLogs(builder, account, currentPlayer, interactions);
 
         // 5. 聊天消息变化
         generateChatChangeLogs(builder, playerId, lastTimestamp);
@@ -138,6 +134,142 @@ public class StateLogGenerator {
         accountRepository.save(account);
     }
 
+    /**
+     * 清理过期的地图事件游标
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredCursors() {
+        mapCursors.evictExpired();
+    }
+
+    /**
+     * 完整同步：重建整张地图的实体快照并与上次快照比较
+     * @param skipLogs 地图切换或首次创建快照时只保存快照，不输出变化
+     */
+    private void syncAllEntities(GameLogBuilder builder, AccountEntity account,
+                                 Map<String, AccountEntity.EntitySnapshot> lastSnapshot,
+                                 Player currentPlayer, boolean skipLogs, InteractionContext interactions) {
+        List<MapEntity> entitiesOnMap = mapEntityService.getMapEntities(currentPlayer.getMapId(), currentPlayer.getId());
+        interactions.prefetch(entitiesOnMap);
+
+        // 构建当前实体快照
+        Map<String, AccountEntity.EntitySnapshot> currentSnapshot = new HashMap<>();
+        Map<String, MapEntity> currentEntitiesMap = new HashMap<>();
+        for (MapEntity entity : entitiesOnMap) {
+            if (entity.getName().equals(currentPlayer.getName())) {
+                continue;
+            }
+            currentEntitiesMap.put(entity.getName(), entity);
+            currentSnapshot.put(entity.getName(), buildEntitySnapshot(entity, currentPlayer, interactions));
+        }
+
+        if (!skipLogs) {
+            generateEntityChangeLogs(builder, lastSnapshot, currentSnapshot, currentEntitiesMap);
+        }
+        account.setLastEntitySnapshot(currentSnapshot);
+    }
+
+    /**
+     * 增量同步：只重建事件日志中变化过的实体的快照，关系版本变化时另外重建所有玩家的快照
+     * 比较范围限定在这些实体上，其余实体的快照原样保留
+     */
+    private void applyEntityChanges(GameLogBuilder builder, AccountEntity account,
+                                    Map<String, AccountEntity.EntitySnapshot> lastSnapshot,
+                                    Player currentPlayer, MapEntityJournal.Changes changes,
+                                    boolean relationChanged, InteractionContext interactions) {
+        List<MapEntity> entitiesOnMap = mapEntityService.getMapEntities(currentPlayer.getMapId(), currentPlayer.getId());
+        interactions.prefetch(entitiesOnMap);
+
+        Map<String, AccountEntity.EntitySnapshot> lastChanged = new HashMap<>();
+        Map<String, AccountEntity.EntitySnapshot> currentChanged = new HashMap<>();
+        Map<String, MapEntity> changedEntitiesMap = new HashMap<>();
+        for (MapEntity entity : entitiesOnMap) {
+            String name = entity.getName();
+            if (name.equals(currentPlayer.getName())) {
+                continue;
+            }
+            boolean changed = changes.entityIds().contains(entity.getId())
+                || changes.entityNames().contains(name)
+                || (relationChanged && "PLAYER".equals(entity.getEntityType()));
+            if (!changed) {
+                continue;
+            }
+            changedEntitiesMap.put(name, entity);
+            currentChanged.put(name, buildEntitySnapshot(entity, currentPlayer, interactions));
+            AccountEntity.EntitySnapshot last = lastSnapshot.get(name);
+            if (last != null) {
+                lastChanged.put(name, last);
+            }
+        }
+
+        // 事件中出现但已不在地图上的实体（离开地图）
+        for (String name : changes.entityNames()) {
+            if (!currentChanged.containsKey(name) && !name.equals(currentPlayer.getName())) {
+                AccountEntity.EntitySnapshot last = lastSnapshot.get(name);
+                if (last != null) {
+                    lastChanged.put(name, last);
+                }
+            }
+        }
+
+        if (lastChanged.isEmpty() && currentChanged.isEmpty()) {
+            return;
+        }
+
+        generateEntityChangeLogs(builder, lastChanged, currentChanged, changedEntitiesMap);
+
+        Map<String, AccountEntity.EntitySnapshot> updated = new HashMap<>(lastSnapshot);
+        updated.keySet().removeAll(lastChanged.keySet());
+        updated.putAll(currentChanged);
+        account.setLastEntitySnapshot(updated);
+    }
+
+    /**
+     * 构建单个实体的快照
+     */
+    private AccountEntity.EntitySnapshot buildEntitySnapshot(MapEntity entity, Player currentPlayer,
+                                                             InteractionContext interactions) {
+        AccountEntity.EntitySnapshot snapshot = new AccountEntity.EntitySnapshot();
+        snapshot.setX(entity.getX());
+        snapshot.setY(entity.getY());
+        snapshot.setEntityType(entity.getEntityType());
+
+        // 记录敌人的死亡状态
+        if (entity instanceof com.heibai.clawworld.domain.character.Enemy) {
+            com.heibai.clawworld.domain.character.Enemy enemy = (com.heibai.clawworld.domain.character.Enemy) entity;
+            snapshot.setIsDead(enemy.isDead());
+        }
+
+        // 记录宝箱的开启状态
+        if (entity instanceof com.heibai.clawworld.domain.map.Chest) {
+            com.heibai.clawworld.domain.map.Chest chest = (com.heibai.clawworld.domain.map.Chest) entity;
+            // 小宝箱：检查当前玩家是否已开启
+            // 大宝箱：检查是否已被开启且未刷新
+            if (chest.getChestType() == com.heibai.clawworld.domain.map.Chest.ChestType.SMALL) {
+                snapshot.setIsOpened(chest.isOpenedByCurrentPlayer());
+            } else {
+                snapshot.setIsOpened(chest.isOpened() && !chest.canOpen());
+            }
+        }
+
+        if (entity.isInteractable()) {
+            List<String> options = getEntityInteractionOptions(entity, currentPlayer, interactions);
+            snapshot.setInteractionOptions(options);
+        } else {
+            snapshot.setInteractionOptions(new ArrayList<>());
+        }
+        return snapshot;
+    }
+
+    /**
+     * 会话在地图事件日志中的游标
+     * @param mapId 游标所在地图
+     * @param sequence 已处理到的事件序号
+     * @param relationVersion 已处理到的关系版本号
+     */
+    private record MapCursor(String mapId, long sequence, long relationVersion) {
+    }
+
     /**
      * 生成实体变化日志
      */
@@ -294,13 +426,17 @@ public class StateLogGenerator {
     /**
      * 生成队伍变化日志
      */
-    private void generatePartyChangeLogs(GameLogBuilder builder, AccountEntity account, Player currentPlayer) {
+    private void generatePartyChangeLogs(GameLogBuilder builder, AccountEntity account, Player currentPlayer,
+                                         boolean mapUnchanged, InteractionContext interactions) {
         if (currentPlayer == null) {
             return;
         }
 
         AccountEntity.PartySnapshot lastSnapshot = account.getLastPartySnapshot();
-        AccountEntity.PartySnapshot currentSnapshot = buildCurrentPartySnapshot(currentPlayer);
+        // 地图和玩家关系都没有变化时，收到的组队邀请只可能因过期而减少，沿用上次的结果
+        Map<String, Long> reusableInvitations = mapUnchanged && lastSnapshot != null
+            ? lastSnapshot.getPendingInvitationsReceived() : null;
+        AccountEntity.PartySnapshot currentSnapshot = buildCurrentPartySnapshot(currentPlayer, reusableInvitations, interactions);
 
         // 检测队伍状态变化
         if (lastSnapshot == null) {
@@ -420,10 +556,11 @@ public class StateLogGenerator {
     /**
      * 构建当前队伍状态快照
      */
-    private AccountEntity.PartySnapshot buildCurrentPartySnapshot(Player player) {
+    private AccountEntity.PartySnapshot buildCurrentPartySnapshot(Player player, Map<String, Long> reusableInvitations,
+                                                                  InteractionContext interactions) {
         AccountEntity.PartySnapshot snapshot = new AccountEntity.PartySnapshot();
 
-        Party party = partyService.getPlayerParty(player.getId());
+        Party party = interactions.getParty(player.getId());
         if (party != null && !party.isSolo()) {
             snapshot.setPartyId(party.getId());
             snapshot.setLeader(party.isLeader(player.getId()));
@@ -446,8 +583,20 @@ public class StateLogGenerator {
 
         // 收集所有发给当前玩家的待处理邀请
         Map<String, Long> pendingInvitations = new HashMap<>();
+        if (reusableInvitations != null) {
+            long now = System.currentTimeMillis();
+            reusableInvitations.forEach((inviterName, inviteTime) -> {
+                if (inviteTime != null && now - inviteTime <= INVITATION_EXPIRE_MS) {
+                    pendingInvitations.put(inviterName, inviteTime);
+                }
+            });
+            snapshot.setPendingInvitationsReceived(pendingInvitations);
+            return snapshot;
+        }
+
         // 遍历所有可能的邀请者（地图上的其他玩家）
         List<MapEntity> entitiesOnMap = mapEntityService.getMapEntities(player.getMapId(), player.getId());
+        interactions.prefetch(entitiesOnMap);
         for (MapEntity entity : entitiesOnMap) {
             if ("PLAYER".equals(entity.getEntityType()) && !entity.getName().equals(player.getName())) {
                 // 获取这个玩家的完整信息
@@ -457,7 +606,7 @@ public class StateLogGenerator {
                 }
 
                 if (otherPlayer != null && otherPlayer.getId() != null) {
-                    Party otherParty = partyService.getPlayerParty(otherPlayer.getId());
+                    Party otherParty = interactions.getParty(otherPlayer.getId());
                     if (otherParty != null && otherParty.getPendingInvitations() != null) {
                         for (Party.PartyInvitation inv : otherParty.getPendingInvitations()) {
                             if (inv.getInviteeId().equals(player.getId()) && !inv.isExpired()) {
@@ -476,13 +625,14 @@ public class StateLogGenerator {
     /**
      * 生成交易邀请变化日志
      */
-    private void generateTradeInvitationChangeLogs(GameLogBuilder builder, AccountEntity account, Player currentPlayer) {
+    private void generateTradeInvitationChangeLogs(GameLogBuilder builder, AccountEntity account, Player currentPlayer,
+                                                   InteractionContext interactions) {
         if (currentPlayer == null) {
             return;
         }
 
         AccountEntity.TradeInvitationSnapshot lastSnapshot = account.getLastTradeInvitationSnapshot();
-        AccountEntity.TradeInvitationSnapshot currentSnapshot = buildCurrentTradeInvitationSnapshot(currentPlayer);
+        AccountEntity.TradeInvitationSnapshot currentSnapshot = buildCurrentTradeInvitationSnapshot(currentPlayer, interactions);
 
         Map<String, Long> lastInvitations = lastSnapshot != null && lastSnapshot.getPendingTradeInvitations() != null
             ? lastSnapshot.getPendingTradeInvitations() : new HashMap<>();
@@ -503,15 +653,13 @@ public class StateLogGenerator {
     /**
      * 构建当前交易邀请状态快照
      */
-    private AccountEntity.TradeInvitationSnapshot buildCurrentTradeInvitationSnapshot(Player player) {
+    private AccountEntity.TradeInvitationSnapshot buildCurrentTradeInvitationSnapshot(Player player,
+                                                                                 InteractionContext interactions) {
         AccountEntity.TradeInvitationSnapshot snapshot = new AccountEntity.TradeInvitationSnapshot();
         Map<String, Long> pendingInvitations = new HashMap<>();
 
         // 查找所有发给当前玩家的待处理交易请求
-        List<TradeEntity> pendingTrades = tradeRepository.findByStatusAndReceiverId(
-            TradeEntity.TradeStatus.PENDING, player.getId());
-
-        for (TradeEntity trade : pendingTrades) {
+        for (TradeEntity trade : interactions.getReceivedTradeRequests()) {
             // 获取发起者的名字
             Player initiator = playerSessionService.getPlayerState(trade.getInitiatorId());
             if (initiator != null) {
@@ -549,85 +697,11 @@ public class StateLogGenerator {
     /**
      * 获取实体的交互选项
      */
-    private List<String> getEntityInteractionOptions(MapEntity entity, Player viewer) {
+    private List<String> getEntityInteractionOptions(MapEntity entity, Player viewer, InteractionContext interactions) {
         MapConfig mapConfig = configDataManager.getMap(viewer.getMapId());
         if (mapConfig == null) {
             return entity.getInteractionOptions();
         }
-
-        List<String> options = new ArrayList<>(entity.getInteractionOptions(viewer.getFaction(), mapConfig.isSafe()));
-
-        if ("PLAYER".equals(entity.getEntityType()) && entity instanceof Player) {
-            Player targetPlayer = (Player) entity;
-            addPlayerSpecificOptions(options, viewer, targetPlayer);
-        }
-
-        return options;
-    }
-
-    /**
-     * 添加玩家特定的交互选项
-     */
-    private void addPlayerSpecificOptions(List<String> options, Player viewer, Player target) {
-        Party viewerParty = partyService.getPlayerParty(viewer.getId());
-        Party targetParty = partyService.getPlayerParty(target.getId());
-
-        // 检查是否在同一个队伍
-        boolean inSameParty = viewerParty != null && targetParty != null
-                && viewerParty.getId().equals(targetParty.getId());
-
-        // 如果不在同一个队伍，才显示组队相关选项
-        if (!inSameParty) {
-            // 目标没有队伍或只有临时队伍（等待被邀请者加入），可以邀请组队
-            if (targetParty == null || targetParty.isSolo()) {
-                options.add("邀请组队");
-            }
-
-            // 检查是否有来自目标的组队邀请（邀请存储在目标的队伍中）
-            if (targetParty != null && targetParty.getPendingInvitations() != null) {
-                boolean hasInvitation = targetParty.getPendingInvitations().stream()
-                        .anyMatch(inv -> inv.getInviterId().equals(target.getId())
-                                && inv.getInviteeId().equals(viewer.getId())
-                                && !inv.isExpired());
-                if (hasInvitation) {
-                    options.add("接受组队邀请");
-                    options.add("拒绝组队邀请");
-                }
-            }
-
-            // 目标有真正的队伍（2人以上），可以请求加入
-            if (targetParty != null && !targetParty.isSolo()) {
-                options.add("请求加入队伍");
-            }
-
-            // 检查是否有来自目标的加入请求（viewer是队长时）
-            if (viewerParty != null && viewerParty.isLeader(viewer.getId()) && viewerParty.getPendingRequests() != null) {
-                boolean hasRequest = viewerParty.getPendingRequests().stream()
-                        .anyMatch(req -> req.getRequesterId().equals(target.getId()) && !req.isExpired());
-                if (hasRequest) {
-                    options.add("接受组队请求");
-                    options.add("拒绝组队请求");
-                }
-            }
-        }
-
-        List<TradeEntity> activeTrades = tradeRepository.findActiveTradesByPlayerId(
-                TradeEntity.TradeStatus.ACTIVE, viewer.getId());
-        List<TradeEntity> pendingTrades = tradeRepository.findActiveTradesByPlayerId(
-                TradeEntity.TradeStatus.PENDING, viewer.getId());
-
-        if (activeTrades.isEmpty() && pendingTrades.isEmpty()) {
-            options.add("请求交易");
-        }
-
-        // 检查viewer是否收到了来自target的交易请求
-        List<TradeEntity> viewerPendingTrades = tradeRepository.findByStatusAndReceiverId(
-                TradeEntity.TradeStatus.PENDING, viewer.getId());
-        boolean hasTradeRequest = viewerPendingTrades.stream()
-                .anyMatch(t -> t.getInitiatorId().equals(target.getId()));
-        if (hasTradeRequest) {
-            options.add("接受交易请求");
-            options.add("拒绝交易请求");
-        }
+        return interactions.getInteractionOptions(entity, entity.getInteractionOptions(viewer.getFaction(), mapConfig.isSafe()));
     }
 }
@@ -2,7 +2,9 @@ package com.heibai.clawworld.interfaces.log;
 
 import com.heibai.clawworld.application.service.CharacterInfoService;
 import com.heibai.clawworld.application.service.ChatService;
+import com.heibai.clawworld.application.service.CombatService;
 import com.heibai.clawworld.application.service.MapEntityService;
+import com.heibai.clawworld.application.service.PartyService;
 import com.heibai.clawworld.application.service.PlayerSessionService;
 import com.heibai.clawworld.domain.character.Player;
 import com.heibai.clawworld.domain.chat.ChatMessage;
@@ -11,6 +13,7 @@ import com.heibai.clawworld.domain.map.MapEntity;
 import com.heibai.clawworld.infrastructure.factory.MapInitializationService;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
+import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
 import com.heibai.clawworld.interfaces.command.CommandContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -41,6 +44,9 @@ public class UnifiedResponseGenerator {
     private final com.heibai.clawworld.application.service.TradeService tradeService;
     private final com.heibai.clawworld.application.service.ShopService shopService;
     private final CharacterInfoService characterInfoService;
+    private final WindowSectionTracker windowSectionTracker;
+    private final PartyService partyService;
+    private final TradeRepository tradeRepository;
 
     /**
      * 生成完整的响应（包含客户端指令日志 + 状态日志 + 可选的窗口日志）
@@ -59,7 +65,39 @@ public class UnifiedResponseGenerator {
                                    CommandContext.WindowType currentWindowType,
                                    CommandContext.WindowType newWindowType,
                                    boolean inventoryChanged) {
+        return generateResponse(playerId, command, commandResult, currentWindowType, newWindowType, inventoryChanged, null, false);
+    }
+
+    /**
+     * 生成完整的响应（包含客户端指令日志 + 状态日志 + 可选的窗口日志）
+     * @param inventoryChanged 是否需要刷新背包
+     * @param sessionId 会话ID，用于记录窗口区块摘要；为null时不记录
+     * @param delta 是否开启增量模式，开启时内容未变化的窗口区块只输出标记
+     */
+    public String generateResponse(String playerId, String command, String commandResult,
+                                   CommandContext.WindowType currentWindowType,
+                                   CommandContext.WindowType newWindowType,
+                                   boolean inventoryChanged,
+                                   String sessionId, boolean delta) {
+        return GameLogBuilder.format(generateResponseLogs(
+            playerId, command, commandResult, currentWindowType, newWindowType, inventoryChanged, sessionId, delta));
+    }
+
+    /**
+     * 生成响应日志（不格式化为文本，供结构化响应使用）
+     * @param inventoryChanged 是否需要刷新背包
+     * @param sessionId 会话ID，用于记录窗口区块摘要；为null时不记录
+     * @param delta 是否开启增量模式，开启时内容未变化的窗口区块替换为标记
+     */
+    public List<GameLog> generateResponseLogs(String playerId, String command, String commandResult,
+                                              CommandContext.WindowType currentWindowType,
+                                              CommandContext.WindowType newWindowType,
+                                              boolean inventoryChanged,
+                                              String sessionId, boolean delta) {
         GameLogBuilder builder = new GameLogBuilder();
+        // 本次响应的交互上下文，环境变化和新窗口内容共用同一份组队、交易查询结果
+        InteractionContext interactions = playerId != null
+            ? new InteractionContext(playerId, partyService, tradeRepository) : null;
 
         // 只有当 playerId 不为 null 时才查询账号信息
         // 避免查询 playerId=null 时返回多个未注册账号的问题
@@ -99,7 +137,7 @@ public class UnifiedResponseGenerator {
             // 地图窗口：生成环境变化和响应
             // 只有当 playerId 不为 null 时才调用，避免 findById(null) 异常
             if (playerId != null) {
-                stateLogGenerator.generateMapStateLogs(builder, playerId, commandResult);
+                stateLogGenerator.generateMapStateLogs(builder, playerId, commandResult, interactions);
             } else {
                 builder.addState("响应", commandResult);
             }
@@ -111,19 +149,12 @@ public class UnifiedResponseGenerator {
                 if (player != null && player.getCombatId() != null) {
                     com.heibai.clawworld.domain.combat.Combat combat = combatService.getCombatState(player.getCombatId());
                     if (combat != null) {
-                        // 获取上次的日志序列号
-                        int lastLogSequence = account != null && account.getLastCombatLogSequence() != null
-                            ? account.getLastCombatLogSequence() : 0;
+                        // 取走玩家上次确认之后的增量日志（读取和确认在战斗所属分片上一次完成）
+                        CombatService.CombatLogDelta logDelta = combatService.takeCombatLogDelta(player.getCombatId(), playerId);
                         // 获取当前回合开始时间
                         long turnStartTime = combatService.getTurnStartTime(player.getCombatId());
-                        // 生成增量日志并获取新的序列号
-                        int newLogSequence = combatWindowLogGenerator.generateCombatStateLogs(
-                            builder, combat, playerId, commandResult, lastLogSequence, turnStartTime);
-                        // 保存新的序列号
-                        if (account != null && newLogSequence > lastLogSequence) {
-                            account.setLastCombatLogSequence(newLogSequence);
-                            // 稍后统一保存
-                        }
+                        combatWindowLogGenerator.generateCombatStateLogs(
+                            builder, combat, playerId, commandResult, logDelta.logs(), turnStartTime);
                     } else {
                         // 战斗已结束（combat为null），commandResult可能包含完整的战斗日志
                         // 直接使用commandResult，它已经在CastCommand中被设置为battleLog
@@ -192,7 +223,7 @@ public class UnifiedResponseGenerator {
             // 生成新窗口的内容
             // 只有当 playerId 不为 null 时才调用，避免 findById(null) 异常
             if (playerId != null) {
-                generateNewWindowContent(builder, playerId, newWindowType);
+                generateNewWindowContent(builder, playerId, newWindowType, interactions);
             }
         }
 
@@ -204,7 +235,7 @@ public class UnifiedResponseGenerator {
             }
         }
 
-        // 4. 更新玩家的 lastKnownWindowType 和 lastCombatLogSequence
+        // 4. 更新玩家的 lastKnownWindowType
         // 这样下次请求时可以检测到被动窗口变化
         if (account != null) {
             boolean needSave = false;
@@ -214,17 +245,12 @@ public class UnifiedResponseGenerator {
                 account.setLastKnownWindowType(finalWindowType);
                 needSave = true;
             }
-            // 如果 lastCombatLogSequence 被更新了，也需要保存
-            // 注意：在战斗中，每次指令执行后都需要保存新的日志序列号
-            if (actualCurrentWindowType == CommandContext.WindowType.COMBAT) {
-                needSave = true;
-            }
             if (needSave) {
                 accountRepository.save(account);
             }
         }
 
-        return builder.build();
+        return windowSectionTracker.apply(builder, sessionId, delta);
     }
 
     /**
@@ -234,6 +260,30 @@ public class UnifiedResponseGenerator {
      * @param currentWindowType 命令执行时的窗口类型（可能与实际窗口类型不一致）
      */
     public String generateErrorResponse(String playerId, String errorMessage, CommandContext.WindowType currentWindowType) {
+        return generateErrorResponse(playerId, errorMessage, currentWindowType, null);
+    }
+
+    /**
+     * 生成错误响应
+     * @param playerId 玩家ID
+     * @param errorMessage 错误消息
+     * @param currentWindowType 命令执行时的窗口类型（可能与实际窗口类型不一致）
+     * @param sessionId 会话ID，错误响应中的窗口内容总是完整输出并记录摘要；为null时不记录
+     */
+    public String generateErrorResponse(String playerId, String errorMessage, CommandContext.WindowType currentWindowType,
+                                        String sessionId) {
+        return GameLogBuilder.format(generateErrorResponseLogs(playerId, errorMessage, currentWindowType, sessionId));
+    }
+
+    /**
+     * 生成错误响应日志（不格式化为文本，供结构化响应使用）
+     * @param playerId 玩家ID
+     * @param errorMessage 错误消息
+     * @param currentWindowType 命令执行时的窗口类型（可能与实际窗口类型不一致）
+     * @param sessionId 会话ID，错误响应中的窗口内容总是完整输出并记录摘要；为null时不记录
+     */
+    public List<GameLog> generateErrorResponseLogs(String playerId, String errorMessage, CommandContext.WindowType currentWindowType,
+                                                   String sessionId) {
         GameLogBuilder builder = new GameLogBuilder();
 
         CommandContext.WindowType newWindowType = null;
@@ -276,7 +326,8 @@ public class UnifiedResponseGenerator {
 
             // 生成新窗口的内容
             if (playerId != null) {
-                generateNewWindowContent(builder, playerId, newWindowType);
+                generateNewWindowContent(builder, playerId, newWindowType,
+                    new InteractionContext(playerId, partyService, tradeRepository));
             }
         }
 
@@ -286,7 +337,7 @@ public class UnifiedResponseGenerator {
             accountRepository.save(account);
         }
 
-        return builder.build();
+        return windowSectionTracker.apply(builder, sessionId, false);
     }
 
     /**
@@ -300,7 +351,7 @@ public class UnifiedResponseGenerator {
      * 生成新窗口内容
      */
     private void generateNewWindowContent(GameLogBuilder builder, String playerId,
-                                          CommandContext.WindowType windowType) {
+                                          CommandContext.WindowType windowType, InteractionContext interactions) {
         Player player = playerSessionService.getPlayerState(playerId);
         if (player == null) {
             return;
@@ -314,7 +365,7 @@ public class UnifiedResponseGenerator {
                 List<MapEntity> allEntities = mapEntityService.getMapEntities(player.getMapId(), playerId);
 
                 List<ChatMessage> chatHistory = chatService.getChatHistory(playerId);
-                mapWindowLogGenerator.generateMapWindowLogs(builder, player, map, allEntities, chatHistory);
+                mapWindowLogGenerator.generateMapWindowLogs(builder, player, map, allEntities, chatHistory, interactions);
             }
         } else if (windowType == CommandContext.WindowType.TRADE) {
             // 生成交易窗口内容
@@ -340,24 +391,8 @@ public class UnifiedResponseGenerator {
                     // 获取当前回合开始时间
                     long turnStartTime = combatService.getTurnStartTime(player.getCombatId());
                     combatWindowLogGenerator.generateCombatWindowLogs(builder, combat, playerId, turnStartTime);
-                    // 进入战斗窗口时，重置日志序列号为0，这样第一次获取状态时会获取所有日志
-                    // 但由于窗口内容已经显示了初始状态，所以设置为当前最大序列号
-                    Optional<AccountEntity> accountOpt = accountRepository.findByPlayerId(playerId);
-                    if (accountOpt.isPresent()) {
-                        AccountEntity account = accountOpt.get();
-                        // 获取当前最大日志序列号
-                        int maxSequence = 0;
-                        if (combat.getCombatLog() != null) {
-                            for (String log : combat.getCombatLog()) {
-                                int seq = parseLogSequence(log);
-                                if (seq > maxSequence) {
-                                    maxSequence = seq;
-                                }
-                            }
-                        }
-                        account.setLastCombatLogSequence(maxSequence);
-                        accountRepository.save(account);
-                    }
+                    // 窗口内容已经显示了初始状态，确认到当前最新的日志
+                    combatService.acknowledgeCombatLog(player.getCombatId(), playerId);
                 }
             } else {
                 builder.addWindow("战斗窗口", "战斗窗口已打开");
@@ -376,25 +411,6 @@ public class UnifiedResponseGenerator {
         }
     }
 
-    /**
-     * 解析日志序列号
-     * 日志格式为 "[#序号] 内容"
-     */
-    private int parseLogSequence(String log) {
-        if (log == null || !log.startsWith("[#")) {
-            return 0;
-        }
-        int endIndex = log.indexOf(']');
-        if (endIndex <= 2) {
-            return 0;
-        }
-        try {
-            return Integer.parseInt(log.substring(2, endIndex));
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
     /**
      * 获取窗口类型名称
      */
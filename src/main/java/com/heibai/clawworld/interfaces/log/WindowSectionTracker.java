@@ -0,0 +1,134 @@
+package com.heibai.clawworld.interfaces.log;
+
+import com.heibai.clawworld.infrastructure.util.ExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 窗口内容增量跟踪
+ * 记录每个会话上次收到的各窗口区块（按子类型区分）的内容摘要，
+ * 客户端开启增量模式时，内容未变化的区块只输出“未变化”标记，客户端沿用之前收到的内容
+ *
+ * 工作原理：
+ * 1. 只处理窗口类型的日志，状态日志（响应、环境变化等）总是完整输出
+ * 2. 同一个响应中同名的区块（如商店窗口的多段内容）按出现顺序分别比较
+ * 3. 每个响应（包括非增量请求和错误响应）都更新摘要，摘要始终对应客户端最后收到的完整内容
+ * 4. 本次没有输出的区块保留之前的摘要，如只刷新背包时其余区块的摘要不受影响
+ * 5. 摘要只保存在内存中，会话长时间没有请求或服务重启后下一次响应重新完整输出
+ */
+@Slf4j
+@Component
+public class WindowSectionTracker {
+
+    /**
+     * 未变化区块的内容
+     */
+    public static final String UNCHANGED = "（未变化）";
+
+    private static final int MAX_SESSIONS = 10000;
+    private static final long SESSION_EXPIRE_MS = 30 * 60 * 1000;
+
+    // 会话的区块摘要（key: 会话ID，value: 区块键 -> 内容摘要）
+    private final ExpiringCache<String, Map<String, Long>> sessions =
+        new ExpiringCache<>("窗口区块摘要", MAX_SESSIONS, SESSION_EXPIRE_MS);
+
+    private final LongAdder sectionsSent = new LongAdder();
+    private final LongAdder sectionsSkipped = new LongAdder();
+    private final LongAdder charsSaved = new LongAdder();
+
+    /**
+     * 记录本次输出的窗口区块摘要；增量模式下内容未变化的窗口区块替换为标记
+     * @param builder 已生成的日志
+     * @param sessionId 会话ID；为null时原样返回
+     * @param delta 是否开启增量模式；未开启时完整输出，只更新摘要
+     */
+    public List<GameLog> apply(GameLogBuilder builder, String sessionId, boolean delta) {
+        List<GameLog> logs = builder.getLogs();
+        if (sessionId == null) {
+            return logs;
+        }
+
+        Map<String, Long> previous = sessions.get(sessionId);
+        Map<String, Long> current = previous != null ? new HashMap<>(previous) : new HashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+
+        List<GameLog> result = new ArrayList<>(logs.size());
+        for (GameLog log : logs) {
+            if (log.getType() != GameLog.Type.WINDOW || log.getContent() == null) {
+                result.add(log);
+                continue;
+            }
+
+            int occurrence = occurrences.merge(log.getSubType(), 1, Integer::sum);
+            String key = log.getSubType() + "#" + occurrence;
+            long hash = hash(log.getContent());
+            Long last = current.put(key, hash);
+            if (delta && last != null && last == hash) {
+                sectionsSkipped.increment();
+                charsSaved.add(log.getContent().length() - UNCHANGED.length());
+                result.add(GameLog.builder()
+                    .source(log.getSource())
+                    .timestamp(log.getTimestamp())
+                    .type(log.getType())
+                    .subType(log.getSubType())
+                    .content(UNCHANGED)
+                    .build());
+            } else {
+                sectionsSent.increment();
+                result.add(log);
+            }
+        }
+
+        sessions.put(sessionId, current);
+        return result;
+    }
+
+    /**
+     * 清理过期会话的摘要
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        int evicted = sessions.evictExpired();
+        if (evicted > 0) {
+            log.debug("清理过期的窗口区块摘要 {} 条；{}", evicted, getStats());
+        }
+    }
+
+    /**
+     * 获取统计数据
+     */
+    public Stats getStats() {
+        return new Stats(sessions.size(), sectionsSent.sum(), sectionsSkipped.sum(), charsSaved.sum());
+    }
+
+    /**
+     * 增量统计
+     */
+    public record Stats(int sessions, long sectionsSent, long sectionsSkipped, long charsSaved) {
+
+        @Override
+        public String toString() {
+            return String.format("窗口增量: 会话%d，输出区块%d，省略区块%d，节省字符%d",
+                sessions, sectionsSent, sectionsSkipped, charsSaved);
+        }
+    }
+
+    /**
+     * 64位FNV-1a摘要，区块内容不同但摘要相同的概率可以忽略
+     */
+    static long hash(String content) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            h ^= content.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
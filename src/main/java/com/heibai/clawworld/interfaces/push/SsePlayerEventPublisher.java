@@ -0,0 +1,308 @@
+package com.heibai.clawworld.interfaces.push;
+
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于SSE的玩家事件推送
+ *
+ * 工作原理：
+ * 1. 客户端登录后用会话建立一条SSE连接，按玩家ID登记并绑定会话（同一玩家可以有多条连接，如多个标签页）；
+ *    登出或重新登录后旧会话的连接立即断开
+ * 2. 服务层发布事件时只把事件放入各连接自己的待发送队列，不阻塞战斗分片线程或请求线程；
+ *    在事务中发布的事件等事务提交后才放入队列，事务回滚时丢弃
+ * 3. 每条连接同一时刻最多占用一个推送线程，按投递顺序发送；一条连接发送缓慢只影响它自己，不拖慢其他玩家
+ * 4. 连接积压的事件超过上限，或单次发送超过超时时间时断开该连接，客户端EventSource会自动重连
+ *    （客户端下一次指令仍能拿到完整状态）
+ * 5. 定时发送心跳注释，及时发现已断开的连接
+ */
+@Slf4j
+@Component
+public class SsePlayerEventPublisher implements PlayerEventPublisher {
+
+    // 连接超时时间，超时后客户端自动重连
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000;
+
+    // 每条连接的待发送事件上限
+    static final int MAX_PENDING_PER_CONNECTION = 256;
+
+    // 单次发送的超时时间，由心跳检查
+    static final long SEND_TIMEOUT_MS = 10 * 1000;
+
+    // 推送线程数
+    private static final int SENDER_THREADS = 4;
+
+    // 玩家的推送连接（key: 玩家ID）
+    private final Map<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    private final ExecutorService sender;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SsePlayerEventPublisher() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(SENDER_THREADS, r -> {
+            Thread t = new Thread(r, "PlayerEventPush-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 为玩家建立推送连接
+     */
+    public SseEmitter subscribe(String playerId, String sessionId) {
+        return register(playerId, sessionId, new SseEmitter(EMITTER_TIMEOUT_MS));
+    }
+
+    SseEmitter register(String playerId, String sessionId, SseEmitter emitter) {
+        Connection connection = new Connection(playerId, sessionId, emitter);
+        connections.computeIfAbsent(playerId, k -> new CopyOnWriteArraySet<>()).add(connection);
+        emitter.onCompletion(() -> removeConnection(connection));
+        emitter.onTimeout(() -> removeConnection(connection));
+        emitter.onError(e -> removeConnection(connection));
+        log.debug("玩家 {} 建立推送连接", playerId);
+        return emitter;
+    }
+
+    @Override
+    public void publish(String playerId, PlayerEvent event) {
+        if (playerId == null || !connections.containsKey(playerId)) {
+            return;
+        }
+        afterCommit(() -> sendToPlayer(playerId, event));
+    }
+
+    @Override
+    public void publishAll(PlayerEvent event) {
+        if (connections.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (String playerId : connections.keySet()) {
+                sendToPlayer(playerId, event);
+            }
+        });
+    }
+
+    @Override
+    public void disconnect(String playerId, String activeSessionId) {
+        Set<Connection> playerConnections = playerId != null ? connections.get(playerId) : null;
+        if (playerConnections == null) {
+            return;
+        }
+        for (Connection connection : playerConnections) {
+            if (activeSessionId == null || !activeSessionId.equals(connection.sessionId)) {
+                connection.complete("会话已失效");
+            }
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers() {
+        return !connections.isEmpty();
+    }
+
+    /**
+     * 心跳：发送SSE注释，断开发送超时的连接
+     */
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Set<Connection> playerConnections : connections.values()) {
+            for (Connection connection : playerConnections) {
+                long sendStartedAt = connection.sendStartedAt;
+                if (sendStartedAt != 0 && now - sendStartedAt > SEND_TIMEOUT_MS) {
+                    connection.close("发送超时");
+                } else {
+                    connection.offer(SseEmitter.event().comment("ping"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getConnectionCount() {
+        return connections.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        connections.values().forEach(playerConnections -> playerConnections.forEach(c -> c.emitter.complete()));
+        connections.clear();
+    }
+
+    /**
+     * 当前线程有活动事务时推迟到提交后执行，否则立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void sendToPlayer(String playerId, PlayerEvent event) {
+        Set<Connection> playerConnections = connections.get(playerId);
+        if (playerConnections == null) {
+            return;
+        }
+        Map<String, Object> payload = toPayload(event);
+        for (Connection connection : playerConnections) {
+            // 事件构建器发送时会追加内容，每条连接各建一个
+            connection.offer(SseEmitter.event()
+                .name(event.type().name())
+                .data(payload, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 事件数据：只包含非空字段
+     */
+    private Map<String, Object> toPayload(PlayerEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        if (event.ref() != null) {
+            payload.put("ref", event.ref());
+        }
+        if (event.from() != null) {
+            payload.put("from", event.from());
+        }
+        if (event.text() != null) {
+            payload.put("text", event.text());
+        }
+        payload.put("ts", event.timestamp());
+        return payload;
+    }
+
+    private void removeConnection(Connection connection) {
+        connection.closed = true;
+        connections.computeIfPresent(connection.playerId, (k, playerConnections) -> {
+            playerConnections.remove(connection);
+            return playerConnections.isEmpty() ? null : playerConnections;
+        });
+    }
+
+    /**
+     * 单条推送连接及其待发送队列
+     * 同一时刻最多有一个推送任务在发送该连接的事件，保证顺序且不占用多个推送线程
+     */
+    private final class Connection {
+        private final String playerId;
+        private final String sessionId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // 当前这次发送的开始时间，没有在发送时为0
+        private volatile long sendStartedAt;
+        private volatile boolean closed;
+
+        private Connection(String playerId, String sessionId, SseEmitter emitter) {
+            this.playerId = playerId;
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_PER_CONNECTION) {
+                if (dropped.incrementAndGet() % 1000 == 1) {
+                    log.warn("推送连接积压过多，断开连接（累计 {} 次）", dropped.get());
+                }
+                close("积压过多");
+                return;
+            }
+            pending.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 推送线程池已关闭
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    sendStartedAt = System.currentTimeMillis();
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("玩家 {} 推送失败，移除连接: {}", playerId, e.getMessage());
+                        removeConnection(this);
+                        return;
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+            } finally {
+                draining.set(false);
+                // 释放后又有新事件进入时重新调度
+                if (!closed && !pending.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void close(String reason) {
+            log.debug("玩家 {} 推送连接{}，断开", playerId, reason);
+            removeConnection(this);
+            pending.clear();
+            emitter.completeWithError(new IOException(reason));
+        }
+
+        /**
+         * 正常结束连接（会话失效时使用）
+         */
+        private void complete(String reason) {
+            log.debug("玩家 {} 推送连接{}，断开", playerId, reason);
+            removeConnection(this);
+            pending.clear();
+            emitter.complete();
+        }
+    }
+}
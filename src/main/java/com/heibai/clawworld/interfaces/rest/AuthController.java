@@ -1,5 +1,6 @@
 package com.heibai.clawworld.interfaces.rest;
 
+import com.heibai.clawworld.interfaces.dto.CompactResponse;
 import com.heibai.clawworld.interfaces.dto.LoginRequest;
 import com.heibai.clawworld.interfaces.dto.LoginResponse;
 import com.heibai.clawworld.interfaces.dto.LogoutRequest;
@@ -55,6 +56,40 @@ public class AuthController {
         }
     }
 
+    /**
+     * 登录或注册接口，返回结构化响应（请求头 Accept 为 {@link CompactResponse#MEDIA_TYPE} 时匹配）
+     * 窗口内容直接由日志模型生成，不格式化为文本
+     *
+     * @param request 登录请求，包含用户名和密码
+     * @return 登录响应，包含会话ID和窗口日志
+     */
+    @PostMapping(value = "/login", produces = CompactResponse.MEDIA_TYPE)
+    public ResponseEntity<CompactResponse> loginCompact(@RequestBody LoginRequest request) {
+        if (request.getUsername() == null || request.getUsername().trim().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(CompactResponse.error("用户名不能为空"));
+        }
+
+        if (request.getPassword() == null || request.getPassword().trim().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(CompactResponse.error("密码不能为空"));
+        }
+
+        AuthService.LoginResult result = authService.loginOrRegister(
+                request.getUsername().trim(),
+                request.getPassword()
+        );
+
+        if (result.isSuccess()) {
+            CompactResponse response = CompactResponse.of(true, result.getLogs());
+            response.setSid(result.getSessionId());
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(401)
+                    .body(CompactResponse.error(result.getMessage()));
+        }
+    }
+
     /**
      * 登出接口
      */
@@ -1,8 +1,11 @@
 package com.heibai.clawworld.interfaces.rest;
 
 import com.heibai.clawworld.interfaces.command.*;
+import com.heibai.clawworld.interfaces.dto.BatchCommandRequest;
+import com.heibai.clawworld.interfaces.dto.BatchCommandResponse;
 import com.heibai.clawworld.interfaces.dto.CommandRequest;
 import com.heibai.clawworld.interfaces.dto.CommandResponse;
+import com.heibai.clawworld.interfaces.dto.CompactResponse;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.application.impl.AuthService;
 import com.heibai.clawworld.interfaces.log.UnifiedResponseGenerator;
@@ -10,6 +13,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,10 +26,20 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CommandController {
 
+    /**
+     * 单次批量请求最多执行的指令数
+     */
+    static final int MAX_BATCH_COMMANDS = 20;
+
     private final CommandParser commandParser;
     private final CommandExecutor commandExecutor;
     private final AuthService authService;
     private final UnifiedResponseGenerator responseGenerator;
+    private final PlayerCommandDispatcher commandDispatcher;
+    private final CommandAdmissionControl admissionControl;
+
+    private final ResponseFormat<CommandResponse> textFormat = new TextFormat();
+    private final ResponseFormat<CompactResponse> compactFormat = new CompactFormat();
 
     /**
      * 执行指令
@@ -33,26 +48,70 @@ public class CommandController {
      */
     @PostMapping("/execute")
     public ResponseEntity<CommandResponse> executeCommand(@RequestBody CommandRequest request) {
+        return execute(request, textFormat);
+    }
 
+    /**
+     * 执行指令，返回结构化响应（请求头 Accept 为 {@link CompactResponse#MEDIA_TYPE} 时匹配）
+     * @param request 指令请求（包含sessionId和command）
+     * @return 指令执行结果
+     */
+    @PostMapping(value = "/execute", produces = CompactResponse.MEDIA_TYPE)
+    public ResponseEntity<CompactResponse> executeCommandCompact(@RequestBody CommandRequest request) {
+        return execute(request, compactFormat);
+    }
+
+    private <R> ResponseEntity<R> execute(CommandRequest request, ResponseFormat<R> format) {
         // 验证会话
         Optional<AccountEntity> account = authService.getAccountBySessionId(request.getSessionId());
         if (!account.isPresent() || !account.get().isOnline()) {
             return ResponseEntity.status(401)
-                    .body(CommandResponse.error("会话无效或已过期"));
+                    .body(format.error("会话无效或已过期"));
         }
 
-        AccountEntity accountEntity = account.get();
+        // 准入控制通过后，同一玩家的指令按到达顺序排队执行
+        // 这里读取的账号只用于准入和确定通道，排在前面的指令可能还会修改账号，执行时在通道内重新读取
+        AccountEntity admissionAccount = account.get();
+        try (CommandAdmissionControl.Permit permit = admissionControl.acquire(
+                request.getSessionId(), 1, isPriority(admissionAccount))) {
+            return commandDispatcher.submit(
+                    PlayerCommandDispatcher.laneKey(admissionAccount.getPlayerId(), request.getSessionId()),
+                    () -> {
+                        Optional<AccountEntity> current = authService.getAccountBySessionId(request.getSessionId());
+                        if (!current.isPresent() || !current.get().isOnline()) {
+                            return ResponseEntity.status(401).body(format.error("会话无效或已过期"));
+                        }
+                        return executeInLane(request, current.get(), format);
+                    });
+        } catch (CommandAdmissionControl.RejectedException e) {
+            return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(format.error(e.getMessage()));
+        } catch (PlayerCommandDispatcher.QueueFullException e) {
+            return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(format.error(e.getMessage()));
+        }
+    }
 
+    /**
+     * 战斗中的指令对延迟敏感，过载时优先放行
+     */
+    private boolean isPriority(AccountEntity accountEntity) {
+        return CommandContext.WindowType.COMBAT.name().equals(accountEntity.getCurrentWindowType());
+    }
+
+    /**
+     * 在玩家的指令通道上执行单条指令
+     * @param accountEntity 进入通道后读取的账号，包含排在前面的指令保存的窗口状态
+     */
+    private <R> ResponseEntity<R> executeInLane(CommandRequest request, AccountEntity accountEntity, ResponseFormat<R> format) {
         // 记录指令和时间戳
         accountEntity.setLastCommand(request.getCommand());
         accountEntity.setLastCommandTimestamp(System.currentTimeMillis());
         // 保存指令记录
         authService.saveAccount(accountEntity);
 
-        // 重新获取账号信息，确保获取最新的窗口状态
-        account = authService.getAccountBySessionId(request.getSessionId());
-        accountEntity = account.get();
-
         // 获取当前窗口状态
         String windowId = accountEntity.getCurrentWindowId();
         CommandContext.WindowType windowType = accountEntity.getCurrentWindowType() != null ?
@@ -90,21 +149,23 @@ public class CommandController {
             String playerId = updatedAccount.isPresent() ? updatedAccount.get().getPlayerId() : accountEntity.getPlayerId();
 
             // 生成统一的日志格式响应
-            String responseText = responseGenerator.generateResponse(
+            R body = format.result(
+                result.isSuccess(),
                 playerId,
                 request.getCommand(),
                 result.getMessage(),
                 windowType,
                 result.getNewWindowType(),
-                result.isInventoryChanged()
+                result.isInventoryChanged(),
+                request.getSessionId(),
+                request.isDelta()
             );
 
             // 返回结果
             if (result.isSuccess()) {
-                return ResponseEntity.ok(CommandResponse.success(responseText));
+                return ResponseEntity.ok(body);
             } else {
-                return ResponseEntity.badRequest()
-                        .body(CommandResponse.error(responseText));
+                return ResponseEntity.badRequest().body(body);
             }
 
         } catch (CommandParser.CommandParseException e) {
@@ -112,25 +173,253 @@ public class CommandController {
             Optional<AccountEntity> updatedAccount = authService.getAccountBySessionId(request.getSessionId());
             String playerId = updatedAccount.isPresent() ? updatedAccount.get().getPlayerId() : accountEntity.getPlayerId();
 
-            String errorResponse = responseGenerator.generateErrorResponse(
-                playerId,
-                "指令解析失败: " + e.getMessage(),
-                windowType
-            );
             return ResponseEntity.badRequest()
-                    .body(CommandResponse.error(errorResponse));
+                    .body(format.failure(playerId, "指令解析失败: " + e.getMessage(), windowType, request.getSessionId()));
         } catch (Exception e) {
             // 重新获取账号信息以获取最新的playerId
             Optional<AccountEntity> updatedAccount = authService.getAccountBySessionId(request.getSessionId());
             String playerId = updatedAccount.isPresent() ? updatedAccount.get().getPlayerId() : accountEntity.getPlayerId();
 
-            String errorResponse = responseGenerator.generateErrorResponse(
+            return ResponseEntity.internalServerError()
+                    .body(format.failure(playerId, "服务器内部错误: " + e.getMessage(), windowType, request.getSessionId()));
+        }
+    }
+
+    /**
+     * 批量执行指令
+     * 只加载一次会话，按顺序解析和执行所有指令，每条指令使用上一条指令执行后的窗口类型解析；
+     * 全部执行完后统一生成一次状态日志和窗口内容，并附带每条指令的结果
+     * @param request 批量指令请求（包含sessionId、指令列表和失败策略）
+     * @return 批量执行结果
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCommandResponse> executeBatch(@RequestBody BatchCommandRequest request) {
+        List<String> commands = request.getCommands();
+        if (commands == null || commands.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(BatchCommandResponse.error("指令列表不能为空"));
+        }
+        if (commands.size() > MAX_BATCH_COMMANDS) {
+            return ResponseEntity.badRequest()
+                    .body(BatchCommandResponse.error("单次最多执行" + MAX_BATCH_COMMANDS + "条指令"));
+        }
+
+        // 验证会话
+        Optional<AccountEntity> account = authService.getAccountBySessionId(request.getSessionId());
+        if (!account.isPresent() || !account.get().isOnline()) {
+            return ResponseEntity.status(401)
+                    .body(BatchCommandResponse.error("会话无效或已过期"));
+        }
+
+        // 整批指令按指令数消耗令牌，作为一个整体在玩家的通道上执行，不会与该玩家的其他请求交错
+        // 这里读取的账号只用于准入和确定通道，执行时在通道内重新读取
+        AccountEntity admissionAccount = account.get();
+        try (CommandAdmissionControl.Permit permit = admissionControl.acquire(
+                request.getSessionId(), commands.size(), isPriority(admissionAccount))) {
+            return commandDispatcher.submit(
+                    PlayerCommandDispatcher.laneKey(admissionAccount.getPlayerId(), request.getSessionId()),
+                    () -> {
+                        Optional<AccountEntity> current = authService.getAccountBySessionId(request.getSessionId());
+                        if (!current.isPresent() || !current.get().isOnline()) {
+                            return ResponseEntity.status(401).body(BatchCommandResponse.error("会话无效或已过期"));
+                        }
+                        return executeBatchInLane(request, current.get());
+                    });
+        } catch (CommandAdmissionControl.RejectedException e) {
+            return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(BatchCommandResponse.error(e.getMessage()));
+        } catch (PlayerCommandDispatcher.QueueFullException e) {
+            return ResponseEntity.status(429)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(BatchCommandResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 在玩家的指令通道上执行批量指令
+     * @param accountEntity 进入通道后读取的账号
+     */
+    private ResponseEntity<BatchCommandResponse> executeBatchInLane(BatchCommandRequest request, AccountEntity accountEntity) {
+        List<String> commands = request.getCommands();
+
+        // 记录最后一条指令和时间戳
+        accountEntity.setLastCommand(commands.get(commands.size() - 1));
+        accountEntity.setLastCommandTimestamp(System.currentTimeMillis());
+        authService.saveAccount(accountEntity);
+
+        String playerId = accountEntity.getPlayerId();
+        String windowId = accountEntity.getCurrentWindowId();
+        CommandContext.WindowType initialWindowType = accountEntity.getCurrentWindowType() != null ?
+                CommandContext.WindowType.valueOf(accountEntity.getCurrentWindowType()) : null;
+        CommandContext.WindowType windowType = initialWindowType;
+        CommandContext.WindowType newWindowType = null;
+        boolean inventoryChanged = false;
+        boolean allSuccess = true;
+        boolean internalError = false;
+
+        List<BatchCommandResponse.StepResult> results = new ArrayList<>(commands.size());
+        StringBuilder messages = new StringBuilder();
+
+        for (int i = 0; i < commands.size(); i++) {
+            String commandText = commands.get(i);
+            CommandResult result;
+            try {
+                Command command = commandParser.parse(commandText, windowType);
+                CommandContext context = CommandContext.builder()
+                        .sessionId(request.getSessionId())
+                        .windowId(windowId)
+                        .playerId(playerId)
+                        .windowType(windowType)
+                        .build();
+                result = commandExecutor.execute(command, context);
+            } catch (CommandParser.CommandParseException e) {
+                result = CommandResult.error("指令解析失败: " + e.getMessage());
+            } catch (Exception e) {
+                result = CommandResult.error("服务器内部错误: " + e.getMessage());
+                internalError = true;
+            }
+
+            // 窗口改变时更新账号的窗口状态，后续指令按新窗口解析
+            if (result.isWindowChanged()) {
+                authService.updateWindowState(
+                        request.getSessionId(),
+                        result.getWindowContent(),
+                        result.getNewWindowType() != null ? result.getNewWindowType().name() : null
+                );
+                windowId = result.getWindowContent();
+                windowType = result.getNewWindowType();
+                newWindowType = result.getNewWindowType();
+                // 注册等指令会改变账号绑定的玩家
+                playerId = authService.getAccountBySessionId(request.getSessionId())
+                        .map(AccountEntity::getPlayerId)
+                        .orElse(playerId);
+            }
+            inventoryChanged |= result.isInventoryChanged();
+
+            results.add(new BatchCommandResponse.StepResult(i + 1, commandText, result.isSuccess(), result.getMessage()));
+            if (messages.length() > 0) {
+                messages.append('\n');
+            }
+            messages.append('[').append(i + 1).append("] ").append(commandText).append('\n').append(result.getMessage());
+
+            if (!result.isSuccess()) {
+                allSuccess = false;
+                // 内部错误时状态可能不一致，无论失败策略如何都停止执行
+                if (request.isStopOnError() || internalError) {
+                    int skipped = commands.size() - i - 1;
+                    if (skipped > 0) {
+                        messages.append('\n').append(String.format("第%d条指令失败，后续%d条指令未执行", i + 1, skipped));
+                    }
+                    break;
+                }
+            }
+        }
+
+        String responseText;
+        try {
+            // 统一生成一次日志格式响应（背包在窗口未切换时刷新一次）
+            responseText = responseGenerator.generateResponse(
                 playerId,
-                "服务器内部错误: " + e.getMessage(),
-                windowType
+                String.join("\n", commands),
+                messages.toString(),
+                initialWindowType,
+                newWindowType,
+                inventoryChanged,
+                request.getSessionId(),
+                request.isDelta()
             );
+        } catch (Exception e) {
             return ResponseEntity.internalServerError()
-                    .body(CommandResponse.error(errorResponse));
+                    .body(BatchCommandResponse.builder()
+                            .success(false)
+                            .response("服务器内部错误: " + e.getMessage())
+                            .results(results)
+                            .build());
+        }
+
+        BatchCommandResponse response = BatchCommandResponse.builder()
+                .success(allSuccess)
+                .response(responseText)
+                .results(results)
+                .build();
+        if (internalError) {
+            return ResponseEntity.internalServerError().body(response);
+        }
+        return allSuccess ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    /**
+     * 响应格式：文本日志或结构化响应
+     */
+    private interface ResponseFormat<R> {
+
+        /**
+         * 指令执行完成后的响应（包含状态日志和窗口内容）
+         */
+        R result(boolean success, String playerId, String command, String message,
+                 CommandContext.WindowType currentWindowType, CommandContext.WindowType newWindowType,
+                 boolean inventoryChanged, String sessionId, boolean delta);
+
+        /**
+         * 解析失败或执行异常的响应（仍检查被动窗口变化）
+         */
+        R failure(String playerId, String message, CommandContext.WindowType currentWindowType, String sessionId);
+
+        /**
+         * 没有进入执行的错误（如会话无效、请求被拒绝）
+         */
+        R error(String message);
+    }
+
+    /**
+     * 文本日志格式
+     */
+    private class TextFormat implements ResponseFormat<CommandResponse> {
+
+        @Override
+        public CommandResponse result(boolean success, String playerId, String command, String message,
+                                      CommandContext.WindowType currentWindowType, CommandContext.WindowType newWindowType,
+                                      boolean inventoryChanged, String sessionId, boolean delta) {
+            String responseText = responseGenerator.generateResponse(playerId, command, message,
+                    currentWindowType, newWindowType, inventoryChanged, sessionId, delta);
+            return success ? CommandResponse.success(responseText) : CommandResponse.error(responseText);
+        }
+
+        @Override
+        public CommandResponse failure(String playerId, String message, CommandContext.WindowType currentWindowType,
+                                       String sessionId) {
+            return CommandResponse.error(responseGenerator.generateErrorResponse(playerId, message, currentWindowType, sessionId));
+        }
+
+        @Override
+        public CommandResponse error(String message) {
+            return CommandResponse.error(message);
+        }
+    }
+
+    /**
+     * 结构化格式：直接使用日志模型，不格式化文本
+     */
+    private class CompactFormat implements ResponseFormat<CompactResponse> {
+
+        @Override
+        public CompactResponse result(boolean success, String playerId, String command, String message,
+                                      CommandContext.WindowType currentWindowType, CommandContext.WindowType newWindowType,
+                                      boolean inventoryChanged, String sessionId, boolean delta) {
+            return CompactResponse.of(success, responseGenerator.generateResponseLogs(playerId, command, message,
+                    currentWindowType, newWindowType, inventoryChanged, sessionId, delta));
+        }
+
+        @Override
+        public CompactResponse failure(String playerId, String message, CommandContext.WindowType currentWindowType,
+                                       String sessionId) {
+            return CompactResponse.of(false, responseGenerator.generateErrorResponseLogs(playerId, message, currentWindowType, sessionId));
+        }
+
+        @Override
+        public CompactResponse error(String message) {
+            return CompactResponse.error(message);
         }
     }
 }
@@ -0,0 +1,47 @@
+package com.heibai.clawworld.interfaces.rest;
+
+import com.heibai.clawworld.application.impl.AuthService;
+import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
+import com.heibai.clawworld.interfaces.push.SsePlayerEventPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+/**
+ * 事件推送控制器
+ * 客户端建立SSE连接后，轮到回合、交易变化、组队邀请、聊天消息和被动窗口切换会即时推送，无需轮询
+ */
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private final AuthService authService;
+    private final SsePlayerEventPublisher eventPublisher;
+
+    /**
+     * 建立推送连接
+     * @param sessionId 会话ID（EventSource无法设置请求体，通过查询参数传递）
+     * @return SSE连接
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam String sessionId) {
+        // 验证会话
+        Optional<AccountEntity> account = authService.getAccountBySessionId(sessionId);
+        if (!account.isPresent() || !account.get().isOnline()) {
+            return ResponseEntity.status(401).build();
+        }
+
+        // 尚未创建角色，注册完成后再连接
+        String playerId = account.get().getPlayerId();
+        if (playerId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(eventPublisher.subscribe(playerId, sessionId));
+    }
+}
@@ -0,0 +1,54 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 战斗模拟命令行入口
+ *
+ * 用法（参数均为 key=value，可省略）：
+ * mvn -q -Psim test-compile exec:exec \
+ *     -Dsim.args="role=WARRIOR level=5 party=1 enemy=goblin count=2 battles=1000000 maxTurns=200 seed=42 threads=8"
+ */
+public class CombatSimulationMain {
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                System.err.println("无效参数: " + arg + "，格式为 key=value");
+                System.exit(1);
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+
+        CombatSimulationScenario scenario = new CombatSimulationScenario(
+            options.getOrDefault("role", "WARRIOR"),
+            Integer.parseInt(options.getOrDefault("level", "1")),
+            Integer.parseInt(options.getOrDefault("party", "1")),
+            options.getOrDefault("enemy", "slime"),
+            Integer.parseInt(options.getOrDefault("count", "1")),
+            Long.parseLong(options.getOrDefault("battles", "100000")),
+            Integer.parseInt(options.getOrDefault("maxTurns", "200")),
+            Long.parseLong(options.getOrDefault("seed", "42")));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        ConfigDataManager configDataManager = ConfigDataManager.loadFromClasspath();
+        CombatSimulator simulator = new CombatSimulator(configDataManager);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            CombatSimulationReport report = simulator.run(scenario, pool);
+            long wallNanos = System.nanoTime() - start;
+            System.out.print(report.format(scenario, wallNanos));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+import lombok.Getter;
+
+/**
+ * 战斗模拟统计结果
+ * 每个fork/join叶子任务独立累计一份，最后合并，累计过程中不共享状态
+ */
+@Getter
+public class CombatSimulationReport {
+
+    // 伤害分布桶数：第i个桶统计 [2^(i-1), 2^i) 的伤害，第0个桶统计0伤害
+    private static final int DAMAGE_BUCKETS = 32;
+
+    private long battles;
+    private long playerWins;
+    private long enemyWins;
+    private long draws;
+
+    private long totalTurns;
+    private long turnNanos;
+    private final long[] turnHistogram;
+
+    private long hits;
+    private long misses;
+    private long crits;
+    private long totalDamage;
+    private int maxDamage;
+    private final long[] damageHistogram = new long[DAMAGE_BUCKETS];
+
+    public CombatSimulationReport(int maxTurns) {
+        this.turnHistogram = new long[maxTurns + 1];
+    }
+
+    public enum Outcome {
+        PLAYER_WIN, ENEMY_WIN, DRAW
+    }
+
+    void recordBattle(Outcome outcome, int turns, long nanos) {
+        battles++;
+        switch (outcome) {
+            case PLAYER_WIN -> playerWins++;
+            case ENEMY_WIN -> enemyWins++;
+            case DRAW -> draws++;
+        }
+        totalTurns += turns;
+        turnNanos += nanos;
+        turnHistogram[Math.min(turns, turnHistogram.length - 1)]++;
+    }
+
+    void recordHit(int damage, boolean crit) {
+        hits++;
+        if (crit) {
+            crits++;
+        }
+        totalDamage += damage;
+        maxDamage = Math.max(maxDamage, damage);
+        int bucket = damage <= 0 ? 0 : Math.min(DAMAGE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(damage));
+        damageHistogram[bucket]++;
+    }
+
+    void recordMiss() {
+        misses++;
+    }
+
+    /**
+     * 记录群体伤害汇总（没有逐个目标的伤害，分布按平均伤害计入）
+     */
+    void recordAreaSummary(int hitCount, int critCount, int missCount, int areaDamage) {
+        misses += missCount;
+        if (hitCount == 0) {
+            return;
+        }
+        int average = areaDamage / hitCount;
+        hits += hitCount;
+        crits += critCount;
+        totalDamage += areaDamage;
+        maxDamage = Math.max(maxDamage, average);
+        int bucket = average <= 0 ? 0 : Math.min(DAMAGE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(average));
+        damageHistogram[bucket] += hitCount;
+    }
+
+    /**
+     * 合并另一份统计结果
+     */
+    CombatSimulationReport merge(CombatSimulationReport other) {
+        battles += other.battles;
+        playerWins += other.playerWins;
+        enemyWins += other.enemyWins;
+        draws += other.draws;
+        totalTurns += other.totalTurns;
+        turnNanos += other.turnNanos;
+        for (int i = 0; i < turnHistogram.length; i++) {
+            turnHistogram[i] += other.turnHistogram[i];
+        }
+        hits += other.hits;
+        misses += other.misses;
+        crits += other.crits;
+        totalDamage += other.totalDamage;
+        maxDamage = Math.max(maxDamage, other.maxDamage);
+        for (int i = 0; i < DAMAGE_BUCKETS; i++) {
+            damageHistogram[i] += other.damageHistogram[i];
+        }
+        return this;
+    }
+
+    public double getPlayerWinRate() {
+        return battles == 0 ? 0 : (double) playerWins / battles;
+    }
+
+    public double getAverageTurns() {
+        return battles == 0 ? 0 : (double) totalTurns / battles;
+    }
+
+    public double getNanosPerTurn() {
+        return totalTurns == 0 ? 0 : (double) turnNanos / totalTurns;
+    }
+
+    public double getAverageDamage() {
+        return hits == 0 ? 0 : (double) totalDamage / hits;
+    }
+
+    /**
+     * 回合数的百分位
+     * @param percentile 0-100
+     */
+    public int getTurnPercentile(double percentile) {
+        long threshold = (long) Math.ceil(battles * percentile / 100.0);
+        long cumulative = 0;
+        for (int turns = 0; turns < turnHistogram.length; turns++) {
+            cumulative += turnHistogram[turns];
+            if (cumulative >= threshold && cumulative > 0) {
+                return turns;
+            }
+        }
+        return turnHistogram.length - 1;
+    }
+
+    /**
+     * 生成可读的统计报告
+     */
+    public String format(CombatSimulationScenario scenario, long wallNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("场景: %d x %s(Lv%d) vs %d x %s，共 %d 场，最大 %d 回合%n",
+            scenario.partySize(), scenario.roleId(), scenario.playerLevel(),
+            scenario.enemyCount(), scenario.enemyId(), battles, scenario.maxTurns()));
+        sb.append(String.format("胜率: 玩家 %.2f%%  敌人 %.2f%%  平局 %.2f%%%n",
+            percent(playerWins), percent(enemyWins), percent(draws)));
+        sb.append(String.format("回合数: 平均 %.2f  P50 %d  P90 %d  P99 %d%n",
+            getAverageTurns(), getTurnPercentile(50), getTurnPercentile(90), getTurnPercentile(99)));
+        sb.append(String.format("伤害: 命中 %d  未命中 %d  暴击 %d  平均 %.2f  最大 %d%n",
+            hits, misses, crits, getAverageDamage(), maxDamage));
+        sb.append("伤害分布:");
+        for (int i = 0; i < DAMAGE_BUCKETS; i++) {
+            if (damageHistogram[i] > 0) {
+                long low = i == 0 ? 0 : 1L << (i - 1);
+                long high = i == 0 ? 0 : (1L << i) - 1;
+                sb.append(String.format(" [%d-%d]=%d", low, high, damageHistogram[i]));
+            }
+        }
+        sb.append(System.lineSeparator());
+        sb.append(String.format("性能: %.1f ns/回合，总回合 %d，耗时 %.2f s，%.0f 场/秒%n",
+            getNanosPerTurn(), totalTurns, wallNanos / 1e9, battles / Math.max(wallNanos / 1e9, 1e-9)));
+        return sb.toString();
+    }
+
+    private double percent(long count) {
+        return battles == 0 ? 0 : count * 100.0 / battles;
+    }
+}
@@ -0,0 +1,30 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+/**
+ * 战斗模拟场景
+ *
+ * @param roleId      玩家职业ID（roles.csv）
+ * @param playerLevel 玩家等级（决定基础属性和已学技能）
+ * @param partySize   玩家人数
+ * @param enemyId     敌人模板ID（enemies.csv）
+ * @param enemyCount  敌人数量
+ * @param battles     模拟场次
+ * @param maxTurns    单场最大回合数，超过视为平局（对应线上的战斗超时）
+ * @param seed        随机种子，相同种子和场景得到相同的统计结果
+ */
+public record CombatSimulationScenario(String roleId, int playerLevel, int partySize,
+                                       String enemyId, int enemyCount,
+                                       long battles, int maxTurns, long seed) {
+
+    public CombatSimulationScenario {
+        if (partySize <= 0 || enemyCount <= 0) {
+            throw new IllegalArgumentException("参战人数必须大于0");
+        }
+        if (battles <= 0) {
+            throw new IllegalArgumentException("模拟场次必须大于0");
+        }
+        if (maxTurns <= 0) {
+            throw new IllegalArgumentException("最大回合数必须大于0");
+        }
+    }
+}
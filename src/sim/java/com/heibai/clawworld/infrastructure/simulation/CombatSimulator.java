@@ -0,0 +1,313 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatEvent;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.service.CombatDamageCalculator;
+import com.heibai.clawworld.domain.service.CombatEngine;
+import com.heibai.clawworld.domain.service.PlayerStatsService;
+import com.heibai.clawworld.domain.service.ai.AutoBattleAI;
+import com.heibai.clawworld.domain.service.ai.EnemyAI;
+import com.heibai.clawworld.domain.service.skill.SkillExecutor;
+import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.config.data.character.EnemyConfig;
+import com.heibai.clawworld.infrastructure.config.data.character.RoleConfig;
+import com.heibai.clawworld.infrastructure.config.data.character.RoleSkillConfig;
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
+import com.heibai.clawworld.infrastructure.persistence.mapper.CombatMapper;
+import com.heibai.clawworld.infrastructure.persistence.mapper.ConfigMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 无头战斗模拟器
+ * 不依赖Spring和MongoDB，使用CSV配置在真实的CombatEngine上批量打完整场战斗，用于：
+ * 1. 策划调整 enemies.csv / skills.csv 后评估胜率、回合数、伤害分布
+ * 2. 获得引擎处理战斗的性能基线（ns/回合，包含分片投递、敌人AI和结算；引擎以模拟模式运行，不含回合计时和结束缓存）
+ *
+ * 每场战斗走与线上相同的引擎入口：创建战斗、双方加入、初始化第一个回合，之后轮到玩家时
+ * 按默认自动战斗策略（AutoBattleAI）选择技能并提交，敌人回合和结算都由引擎处理，统计数据从战斗日志的结构化事件中读取。
+ * 玩家回合由模拟器逐个提交而不是开启自动战斗，以便超过最大回合数时让玩家撤退结束战斗（记为平局）。
+ *
+ * 各场战斗在fork/join线程池中并行执行并共用一个引擎（同一战斗的操作仍在所属分片上串行），
+ * 每场战斗使用自己的种子，每个叶子任务拥有独立的统计结果。
+ */
+@Slf4j
+public class CombatSimulator {
+
+    // 每个叶子任务最多模拟的场次
+    private static final long LEAF_BATTLES = 2048;
+
+    private static final String PLAYER_FACTION = "sim_players";
+
+    private static final String MAP_ID = "simulation";
+
+    private final ConfigDataManager configDataManager;
+    private final PlayerStatsService playerStatsService;
+    private final SkillResolver skillResolver;
+    private final CombatMapper combatMapper = new CombatMapper();
+
+    // 玩家的决策与线上自动战斗相同，只使用确定性规则
+    private final EnemyAI playerAI;
+
+    public CombatSimulator(ConfigDataManager configDataManager) {
+        this.configDataManager = configDataManager;
+        // 只用到职业属性计算，不涉及装备实例
+        this.playerStatsService = new PlayerStatsService(configDataManager, new ConfigMapper(null));
+        this.skillResolver = new SkillResolver(configDataManager);
+        this.playerAI = new AutoBattleAI(skillResolver);
+    }
+
+    /**
+     * 使用公共fork/join线程池运行场景
+     */
+    public CombatSimulationReport run(CombatSimulationScenario scenario) {
+        return run(scenario, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定线程池中运行场景
+     */
+    public CombatSimulationReport run(CombatSimulationScenario scenario, ForkJoinPool pool) {
+        // 模板角色只构建一次，每场战斗复制
+        List<CombatCharacter> playerTemplates = new ArrayList<>();
+        for (int i = 0; i < scenario.partySize(); i++) {
+            playerTemplates.add(createPlayer(scenario.roleId(), scenario.playerLevel(), i));
+        }
+        List<CombatCharacter> enemyTemplates = new ArrayList<>();
+        for (int i = 0; i < scenario.enemyCount(); i++) {
+            enemyTemplates.add(createEnemy(scenario.enemyId(), i));
+        }
+
+        // 引擎每回合的调试日志会严重拖慢模拟，模拟期间只保留警告，结束后恢复原来的级别
+        Logger domainLogger = (Logger) LoggerFactory.getLogger("com.heibai.clawworld.domain");
+        Level previousLevel = domainLogger.getLevel();
+        domainLogger.setLevel(Level.WARN);
+
+        // 模拟模式：不计时、不缓存已结束战斗、不写检查点、不推送事件、不记录录像
+        CombatEngine combatEngine = CombatEngine.forSimulation(configDataManager, skillResolver,
+            new SkillExecutor(new CombatDamageCalculator()));
+        try {
+            log.info("开始战斗模拟: {} 场，并行度 {}", scenario.battles(), pool.getParallelism());
+            return pool.invoke(new BattleRangeTask(combatEngine, scenario, playerTemplates, enemyTemplates, 0, scenario.battles()));
+        } finally {
+            combatEngine.destroy();
+            domainLogger.setLevel(previousLevel);
+        }
+    }
+
+    /**
+     * 按职业配置构建指定等级的玩家战斗角色（属性按职业成长计算，技能为该等级已学会的职业技能）
+     */
+    public CombatCharacter createPlayer(String roleId, int level, int index) {
+        RoleConfig role = configDataManager.getRole(roleId);
+        if (role == null) {
+            throw new IllegalArgumentException("职业不存在: " + roleId);
+        }
+        Player player = new Player();
+        player.setId("sim_player_" + index);
+        player.setName(role.getName() + (index + 1));
+        player.setRoleId(role.getId());
+        player.setLevel(level);
+        player.setFaction(PLAYER_FACTION);
+        playerStatsService.recalculateStats(player);
+        player.setCurrentHealth(player.getMaxHealth());
+        player.setCurrentMana(player.getMaxMana());
+
+        List<String> learned = new ArrayList<>();
+        for (RoleSkillConfig roleSkill : configDataManager.getRoleSkills(role.getId())) {
+            if (roleSkill.getLearnLevel() <= level) {
+                learned.add(roleSkill.getSkillId());
+            }
+        }
+        player.setSkills(learned);
+        return combatMapper.toCombatCharacter(player);
+    }
+
+    /**
+     * 按敌人模板构建满状态的敌人战斗角色
+     */
+    public CombatCharacter createEnemy(String enemyId, int index) {
+        EnemyConfig config = configDataManager.getEnemy(enemyId);
+        if (config == null) {
+            throw new IllegalArgumentException("敌人不存在: " + enemyId);
+        }
+        EnemyInstanceEntity instance = new EnemyInstanceEntity();
+        instance.setId("sim_enemy_" + index);
+        instance.setTemplateId(config.getId());
+        instance.setInstanceId(config.getId() + "_" + index);
+        instance.setDisplayName(config.getName() + "#" + (index + 1));
+        instance.setCurrentHealth(config.getHealth());
+        instance.setCurrentMana(config.getMana());
+        return combatMapper.toCombatCharacter(instance, config);
+    }
+
+    /**
+     * 模拟 [from, to) 区间的场次，超过叶子大小时二分
+     */
+    private class BattleRangeTask extends RecursiveTask<CombatSimulationReport> {
+        private final CombatEngine combatEngine;
+        private final CombatSimulationScenario scenario;
+        private final List<CombatCharacter> playerTemplates;
+        private final List<CombatCharacter> enemyTemplates;
+        private final long from;
+        private final long to;
+
+        BattleRangeTask(CombatEngine combatEngine, CombatSimulationScenario scenario,
+                        List<CombatCharacter> playerTemplates, List<CombatCharacter> enemyTemplates, long from, long to) {
+            this.combatEngine = combatEngine;
+            this.scenario = scenario;
+            this.playerTemplates = playerTemplates;
+            this.enemyTemplates = enemyTemplates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CombatSimulationReport compute() {
+            if (to - from <= LEAF_BATTLES) {
+                return simulateRange();
+            }
+            long mid = (from + to) >>> 1;
+            BattleRangeTask left = new BattleRangeTask(combatEngine, scenario, playerTemplates, enemyTemplates, from, mid);
+            BattleRangeTask right = new BattleRangeTask(combatEngine, scenario, playerTemplates, enemyTemplates, mid, to);
+            left.fork();
+            CombatSimulationReport rightReport = right.compute();
+            return left.join().merge(rightReport);
+        }
+
+        private CombatSimulationReport simulateRange() {
+            CombatSimulationReport report = new CombatSimulationReport(scenario.maxTurns());
+            for (long battle = from; battle < to; battle++) {
+                simulateBattle(battle, report);
+            }
+            return report;
+        }
+
+        private void simulateBattle(long battle, CombatSimulationReport report) {
+            List<CombatCharacter> players = copyCharacters(playerTemplates);
+            List<CombatCharacter> enemies = copyCharacters(enemyTemplates);
+            String enemyFaction = enemyTemplates.get(0).getFactionId();
+
+            long start = System.nanoTime();
+            // 每场战斗的种子由场景种子和场次派生，结果与线程调度和任务切分无关
+            String combatId = combatEngine.createCombat(MAP_ID, scenario.seed() * 0x9E3779B97F4A7C15L + battle);
+            // 战斗结束后会从引擎中移除，保留实例用于读取日志和胜负
+            CombatInstance combat = combatEngine.getCombat(combatId).orElseThrow();
+            combatEngine.addPartyToCombat(combatId, PLAYER_FACTION, players);
+            combatEngine.addPartyToCombat(combatId, enemyFaction, enemies);
+            combatEngine.initializeFirstTurn(combatId);
+
+            // 分片上的调用返回后战斗处于等待玩家指令的状态，此时在当前线程读取战斗实例是安全的
+            int turns = readEvents(combat, 0, report);
+            int logCursor = combat.getLastLogSequence();
+            boolean retreated = false;
+            while (!combat.isFinished()) {
+                CombatCharacter actor = combat.getCurrentTurnCharacterId().map(combat::findCharacter).orElse(null);
+                if (actor == null || !actor.isPlayer()) {
+                    // 引擎只会停在玩家回合，其他情况说明战斗已被引擎结束（如超时）
+                    break;
+                }
+                if (turns >= scenario.maxTurns()) {
+                    retreat(combatId, combat);
+                    retreated = true;
+                    break;
+                }
+
+                CombatEngine.CombatActionResult result = act(combatId, combat, actor);
+                turns++;
+                turns += readEvents(combat, logCursor, report);
+                logCursor = combat.getLastLogSequence();
+                if (result.isCombatEnded()) {
+                    break;
+                }
+            }
+            combatEngine.getAndRemoveRewardDistribution(combatId);
+            long nanos = System.nanoTime() - start;
+
+            CombatSimulationReport.Outcome outcome = CombatSimulationReport.Outcome.DRAW;
+            if (!retreated && combat.isFinished()) {
+                outcome = combat.getWinner()
+                    .map(winner -> PLAYER_FACTION.equals(winner.getFactionId())
+                        ? CombatSimulationReport.Outcome.PLAYER_WIN
+                        : CombatSimulationReport.Outcome.ENEMY_WIN)
+                    .orElse(CombatSimulationReport.Outcome.DRAW);
+            }
+            report.recordBattle(outcome, turns, nanos);
+        }
+
+        /**
+         * 按自动战斗策略为玩家选择技能并提交；技能无法执行时改为跳过回合，与引擎处理AI的方式一致
+         */
+        private CombatEngine.CombatActionResult act(String combatId, CombatInstance combat, CombatCharacter actor) {
+            EnemyAI.AIDecision decision = playerAI.makeDecision(combat, actor);
+            if (decision.getType() == EnemyAI.DecisionType.ATTACK) {
+                CombatEngine.CombatActionResult result = combatEngine.executeSkillWithWait(
+                    combatId, actor.getCharacterId(), decision.getSkillId(), decision.getTargetId());
+                if (result.isSuccess() || result.isCombatEnded()) {
+                    return result;
+                }
+            }
+            return combatEngine.skipTurnWithWait(combatId, actor.getCharacterId());
+        }
+
+        /**
+         * 超过最大回合数：所有存活的玩家撤退，由引擎结算结束战斗
+         */
+        private void retreat(String combatId, CombatInstance combat) {
+            List<String> playerIds = new ArrayList<>();
+            for (CombatCharacter player : combat.getAliveCharactersInFaction(PLAYER_FACTION)) {
+                playerIds.add(player.getCharacterId());
+            }
+            for (String playerId : playerIds) {
+                combatEngine.forfeit(combatId, playerId);
+            }
+        }
+
+        /**
+         * 统计指定序列号之后的日志事件
+         * @return 期间敌人行动的回合数（玩家回合由调用方计数）
+         */
+        private int readEvents(CombatInstance combat, int logCursor, CombatSimulationReport report) {
+            int enemyTurns = 0;
+            for (CombatInstance.CombatLogEntry entry : combat.getLogsSince(logCursor)) {
+                CombatEvent event = entry.getEvent();
+                if (event == null) {
+                    continue;
+                }
+                switch (event.getType()) {
+                    case TURN_START -> {
+                        CombatCharacter actor = combat.findCharacter(event.getActorId());
+                        if (actor != null && actor.isEnemy()) {
+                            enemyTurns++;
+                        }
+                    }
+                    case DAMAGE, AREA_DAMAGE -> report.recordHit(event.getValue(), event.isCrit());
+                    case MISS, AREA_MISS -> report.recordMiss();
+                    case AREA_SUMMARY -> report.recordAreaSummary(event.getHitCount(), event.getCritCount(),
+                        event.getMissCount(), event.getValue());
+                    default -> {
+                    }
+                }
+            }
+            return enemyTurns;
+        }
+    }
+
+    private static List<CombatCharacter> copyCharacters(List<CombatCharacter> templates) {
+        List<CombatCharacter> copies = new ArrayList<>(templates.size());
+        for (CombatCharacter template : templates) {
+            copies.add(template.copy());
+        }
+        return copies;
+    }
+}
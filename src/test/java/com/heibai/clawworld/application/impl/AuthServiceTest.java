@@ -4,12 +4,16 @@ import com.heibai.clawworld.application.service.ChatService;
 import com.heibai.clawworld.application.service.MapEntityService;
 import com.heibai.clawworld.application.service.PlayerSessionService;
 import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.domain.map.GameMap;
+import com.heibai.clawworld.domain.service.CombatEngine;
 import com.heibai.clawworld.domain.service.PlayerLevelService;
 import com.heibai.clawworld.infrastructure.factory.MapInitializationService;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
 import com.heibai.clawworld.interfaces.log.MapWindowLogGenerator;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -61,6 +65,15 @@ class AuthServiceTest {
     @Mock
     private com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository playerRepository;
 
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
+    @Mock
+    private CombatEngine combatEngine;
+
+    @Mock
+    private PlayerEventPublisher eventPublisher;
+
     @InjectMocks
     private AuthService authService;
 
@@ -131,6 +144,63 @@ class AuthServiceTest {
         verify(accountRepository).save(any(AccountEntity.class));
         verify(playerSessionService, times(2)).getPlayerState("player1"); // 调用两次：升级前和升级后
         verify(playerLevelService).processLevelUp(any(Player.class));
+        // 旧会话的推送连接被断开
+        verify(eventPublisher).disconnect("player1", result.getSessionId());
+    }
+
+    @Test
+    void testLoginOrRegister_PlayerInRestoredCombat_ShouldKeepCombatState() {
+        // Arrange
+        when(accountRepository.findByUsername("testuser")).thenReturn(Optional.of(testAccount));
+        when(accountRepository.save(any(AccountEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Player mockPlayer = new Player();
+        mockPlayer.setId("player1");
+        mockPlayer.setMapId("starter_village");
+        mockPlayer.setInCombat(true);
+        mockPlayer.setCombatId("combat1");
+        when(playerSessionService.getPlayerState("player1")).thenReturn(mockPlayer);
+        when(playerLevelService.processLevelUp(any(Player.class))).thenReturn(false);
+        when(tradeRepository.findActiveTradesByPlayerId(any(), anyString())).thenReturn(new ArrayList<>());
+        when(combatEngine.getCombat("combat1")).thenReturn(Optional.of(new CombatInstance("combat1", "starter_village")));
+
+        // Act
+        AuthService.LoginResult result = authService.loginOrRegister("testuser", "testpass");
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(mockPlayer.isInCombat());
+        assertEquals("combat1", mockPlayer.getCombatId());
+        assertEquals("COMBAT", testAccount.getCurrentWindowType());
+        assertEquals("combat1", testAccount.getCurrentWindowId());
+        verify(playerRepository, never()).save(any());
+        verify(mapInitializationService, never()).getMap(anyString());
+    }
+
+    @Test
+    void testLoginOrRegister_PlayerInEndedCombat_ShouldClearCombatState() {
+        // Arrange
+        when(accountRepository.findByUsername("testuser")).thenReturn(Optional.of(testAccount));
+        when(accountRepository.save(any(AccountEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Player mockPlayer = new Player();
+        mockPlayer.setId("player1");
+        mockPlayer.setMapId("starter_village");
+        mockPlayer.setInCombat(true);
+        mockPlayer.setCombatId("combat1");
+        when(playerSessionService.getPlayerState("player1")).thenReturn(mockPlayer);
+        when(playerLevelService.processLevelUp(any(Player.class))).thenReturn(false);
+        when(tradeRepository.findActiveTradesByPlayerId(any(), anyString())).thenReturn(new ArrayList<>());
+        when(combatEngine.getCombat("combat1")).thenReturn(Optional.empty());
+
+        // Act
+        AuthService.LoginResult result = authService.loginOrRegister("testuser", "testpass");
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertFalse(mockPlayer.isInCombat());
+        assertNull(mockPlayer.getCombatId());
+        assertEquals("MAP", testAccount.getCurrentWindowType());
     }
 
     @Test
@@ -207,6 +277,7 @@ class AuthServiceTest {
             account.getSessionId() == null &&
             account.getLastLogoutTime() != null
         ));
+        verify(eventPublisher).disconnect("player1", null);
     }
 
     @Test
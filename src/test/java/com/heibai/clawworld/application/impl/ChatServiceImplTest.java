@@ -1,6 +1,8 @@
 package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.domain.chat.ChatMessage;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.ChatMessageEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
@@ -23,6 +25,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
 
@@ -44,6 +47,9 @@ class ChatServiceImplTest {
     @Mock
     private ChatMapper chatMapper;
 
+    @Mock
+    private PlayerEventPublisher eventPublisher;
+
     @InjectMocks
     private ChatServiceImpl chatService;
 
@@ -107,6 +113,25 @@ class ChatServiceImplTest {
         assertTrue(result.isSuccess());
         assertEquals("地图频道消息发送成功", result.getMessage());
         verify(chatMessageRepository).save(any(ChatMessageEntity.class));
+        // 没有推送连接时不查询地图上的玩家
+        verify(playerRepository, never()).findByCurrentMapId(any());
+    }
+
+    @Test
+    void testSendMapMessage_PushesToPlayersOnMap() {
+        PlayerEntity other = new PlayerEntity();
+        other.setId("player2");
+        when(playerRepository.findById("player1")).thenReturn(Optional.of(testPlayer));
+        when(accountRepository.findByPlayerId("player1")).thenReturn(Optional.of(testAccount));
+        when(chatMessageRepository.save(any(ChatMessageEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(eventPublisher.hasSubscribers()).thenReturn(true);
+        when(playerRepository.findByCurrentMapId("map1")).thenReturn(List.of(testPlayer, other));
+
+        ChatService.ChatResult result = chatService.sendMapMessage("player1", "Hello Map");
+
+        assertTrue(result.isSuccess());
+        verify(eventPublisher).publish(eq("player1"), any(PlayerEvent.class));
+        verify(eventPublisher).publish(eq("player2"), any(PlayerEvent.class));
     }
 
     @Test
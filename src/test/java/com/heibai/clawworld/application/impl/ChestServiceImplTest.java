@@ -11,6 +11,7 @@ import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.mapper.ConfigMapper;
 import com.heibai.clawworld.infrastructure.persistence.repository.ChestInstanceRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -47,6 +48,9 @@ class ChestServiceImplTest {
     @Mock
     private ConfigMapper configMapper;
 
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
     @InjectMocks
     private ChestServiceImpl chestService;
 
@@ -294,7 +294,7 @@ class CombatDefeatAndProtectionTest {
             enemyInstance.setX(5);
             enemyInstance.setY(5);
 
-            when(enemyInstanceRepository.findByMapId("test_map")).thenReturn(List.of(enemyInstance));
+            when(enemyInstanceRepository.findFirstByMapIdAndDisplayName("test_map", "史莱姆")).thenReturn(Optional.of(enemyInstance));
             when(combatEngine.getCombat("combat123")).thenReturn(Optional.of(existingCombat));
 
             // Mock新服务
@@ -344,7 +344,7 @@ class CombatDefeatAndProtectionTest {
             enemyInstance.setX(5);
             enemyInstance.setY(5);
 
-            when(enemyInstanceRepository.findByMapId("test_map")).thenReturn(List.of(enemyInstance));
+            when(enemyInstanceRepository.findFirstByMapIdAndDisplayName("test_map", "史莱姆")).thenReturn(Optional.of(enemyInstance));
             when(combatEngine.getCombat("combat123")).thenReturn(Optional.of(existingCombat));
 
             // Mock新服务
@@ -12,7 +12,9 @@ import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.domain.service.CombatEngine;
 import com.heibai.clawworld.domain.service.skill.SkillResolver;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.config.data.character.EnemyConfig;
 import com.heibai.clawworld.infrastructure.config.data.map.MapConfig;
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
 import com.heibai.clawworld.infrastructure.persistence.mapper.CombatMapper;
 import com.heibai.clawworld.infrastructure.persistence.mapper.ConfigMapper;
 import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceRepository;
@@ -27,6 +29,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -274,4 +277,46 @@ class CombatServiceImplTest {
 
         assertNotNull(result);
     }
+
+    @Test
+    @DisplayName("同时攻击同一敌人 - 占用失败后加入抢先发起的战斗")
+    void testInitiateCombatWithEnemy_ClaimLostJoinsExistingCombat() {
+        EnemyInstanceEntity freeEnemy = new EnemyInstanceEntity();
+        freeEnemy.setMapId("test_map");
+        freeEnemy.setInstanceId("goblin#1");
+        freeEnemy.setTemplateId("goblin");
+        freeEnemy.setDisplayName("哥布林");
+        freeEnemy.setX(5);
+        freeEnemy.setY(5);
+
+        EnemyInstanceEntity engagedEnemy = new EnemyInstanceEntity();
+        engagedEnemy.setMapId("test_map");
+        engagedEnemy.setInstanceId("goblin#1");
+        engagedEnemy.setTemplateId("goblin");
+        engagedEnemy.setDisplayName("哥布林");
+        engagedEnemy.setInCombat(true);
+        engagedEnemy.setCombatId("combat_other");
+
+        when(playerSessionService.getPlayerState("player1")).thenReturn(attacker);
+        when(protectionChecker.checkMapAllowsCombat("test_map")).thenReturn(CombatProtectionChecker.CheckResult.ok());
+        when(enemyInstanceRepository.findFirstByMapIdAndDisplayName("test_map", "哥布林"))
+            .thenReturn(Optional.of(freeEnemy), Optional.of(engagedEnemy));
+        when(initiationService.isInInteractionRange(attacker, 5, 5)).thenReturn(true);
+        when(configDataManager.getEnemy("goblin")).thenReturn(new EnemyConfig());
+        when(initiationService.collectPartyMembers(attacker)).thenReturn(List.of(attacker));
+        when(combatMapper.toCombatCharacter(attacker)).thenReturn(new CombatCharacter());
+        when(combatEngine.createCombat("test_map")).thenReturn("combat_new");
+        // 另一名玩家抢先占用了敌人
+        when(enemyInstanceRepository.claimForCombat("test_map", "goblin#1", null, "combat_new")).thenReturn(Optional.empty());
+        when(combatEngine.getCombat("combat_other")).thenReturn(Optional.of(new CombatInstance("combat_other", "test_map")));
+        when(protectionChecker.checkMonsterStealProtection(eq("test_map"), any())).thenReturn(CombatProtectionChecker.CheckResult.ok());
+
+        CombatService.CombatResult result = combatService.initiateCombatWithEnemy("player1", "哥布林", "test_map");
+
+        assertTrue(result.isSuccess());
+        assertEquals("combat_other", result.getCombatId());
+        verify(combatEngine).discardCombat("combat_new");
+        verify(combatEngine).addPartyToCombat(eq("combat_other"), eq("FACTION_A"), anyList());
+        verify(combatEngine, never()).initializeFirstTurn(anyString());
+    }
 }
@@ -8,6 +8,7 @@ import com.heibai.clawworld.infrastructure.persistence.repository.EnemyInstanceR
 import com.heibai.clawworld.infrastructure.persistence.repository.NpcShopInstanceRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -69,6 +70,9 @@ class MapEntityServiceImplTest {
     @Mock
     private CharacterInfoService characterInfoService;
 
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
     @InjectMocks
     private MapEntityServiceImpl mapEntityService;
 
@@ -1,12 +1,15 @@
 package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.domain.character.Party;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.infrastructure.persistence.entity.PartyEntity;
 import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
 import com.heibai.clawworld.infrastructure.persistence.mapper.PartyMapper;
 import com.heibai.clawworld.infrastructure.persistence.repository.PartyRepository;
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.application.service.PartyService;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,10 +19,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +40,12 @@ class PartyServiceImplTest {
     @Mock
     private PartyMapper partyMapper;
 
+    @Mock
+    private PlayerEventPublisher eventPublisher;
+
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
     @InjectMocks
     private PartyServiceImpl partyService;
 
@@ -79,6 +91,7 @@ class PartyServiceImplTest {
         assertTrue(result.isSuccess());
         assertEquals("邀请已发送", result.getMessage());
         verify(partyRepository, atLeastOnce()).save(any(PartyEntity.class));
+        verify(eventPublisher).publish(eq("player2"), argThat((PlayerEvent e) -> e.type() == PlayerEvent.Type.PARTY_INVITE));
     }
 
     @Test
@@ -263,4 +276,23 @@ class PartyServiceImplTest {
         assertNotNull(result);
         assertEquals("party1", result.getId());
     }
+
+    @Test
+    void testGetPlayerParties_ShouldMapRequestedMembersFromOneQuery() {
+        // Arrange
+        party.setMemberIds(new ArrayList<>(Arrays.asList("player1", "player3")));
+        Party domainParty = new Party();
+        domainParty.setId("party1");
+        List<String> playerIds = Arrays.asList("player1", "player2");
+
+        when(partyRepository.findByMemberIdsIn(playerIds)).thenReturn(List.of(party));
+        when(partyMapper.toDomain(party)).thenReturn(domainParty);
+
+        // Act
+        Map<String, Party> result = partyService.getPlayerParties(playerIds);
+
+        // Assert
+        assertEquals(Map.of("player1", domainParty), result);
+        verify(partyRepository, never()).findByMemberIdsContaining(anyString());
+    }
 }
@@ -16,6 +16,7 @@ import com.heibai.clawworld.infrastructure.persistence.repository.PartyRepositor
 import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import com.heibai.clawworld.application.service.PlayerSessionService;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -56,6 +57,9 @@ class PlayerSessionServiceImplTest {
     @Mock
     private MapInitializationService mapInitializationService;
 
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
     @InjectMocks
     private PlayerSessionServiceImpl playerSessionService;
 
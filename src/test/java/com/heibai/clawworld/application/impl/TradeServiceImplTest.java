@@ -1,6 +1,8 @@
 package com.heibai.clawworld.application.impl;
 
 import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
 import com.heibai.clawworld.domain.item.Equipment;
 import com.heibai.clawworld.domain.item.Item;
 import com.heibai.clawworld.domain.item.Rarity;
@@ -10,6 +12,7 @@ import com.heibai.clawworld.infrastructure.persistence.mapper.TradeMapper;
 import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
 import com.heibai.clawworld.application.service.PlayerSessionService;
 import com.heibai.clawworld.application.service.TradeService;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -50,6 +53,12 @@ class TradeServiceImplTest {
     @Mock
     private com.heibai.clawworld.application.service.WindowStateService windowStateService;
 
+    @Mock
+    private PlayerEventPublisher eventPublisher;
+
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
     @InjectMocks
     private TradeServiceImpl tradeService;
 
@@ -104,6 +113,7 @@ class TradeServiceImplTest {
         lenient().when(windowStateService.getCurrentWindowType(anyString())).thenReturn("MAP");
         lenient().when(windowStateService.transitionWindow(anyString(), anyString(), anyString())).thenReturn(true);
         lenient().when(windowStateService.transitionWindows(any())).thenReturn(true);
+        lenient().when(windowStateService.transitionWindows(any(), any())).thenReturn(true);
     }
 
     @Test
@@ -181,6 +191,8 @@ class TradeServiceImplTest {
         assertTrue(result.isSuccess());
         assertEquals("接受交易成功", result.getMessage());
         assertEquals(TradeEntity.TradeStatus.ACTIVE, tradeEntity.getStatus());
+        // 接受者自己的窗口切换随响应返回，只向发起者推送
+        verify(windowStateService).transitionWindows(any(), eq("player2"));
     }
 
     @Test
@@ -308,6 +320,7 @@ class TradeServiceImplTest {
         TradeEntity tradeEntity = new TradeEntity();
         tradeEntity.setId("trade1");
         tradeEntity.setInitiatorId("player1");
+        tradeEntity.setReceiverId("player2");
         tradeEntity.setStatus(TradeEntity.TradeStatus.ACTIVE);
         tradeEntity.setInitiatorLocked(false);
 
@@ -321,6 +334,9 @@ class TradeServiceImplTest {
         assertTrue(result.isSuccess());
         assertEquals("锁定交易成功", result.getMessage());
         assertTrue(tradeEntity.isInitiatorLocked());
+        // 对方收到交易状态变化推送
+        verify(eventPublisher).publish(eq("player2"),
+            argThat((PlayerEvent e) -> e.type() == PlayerEvent.Type.TRADE && "trade1".equals(e.ref())));
     }
 
     @Test
@@ -413,6 +429,7 @@ class TradeServiceImplTest {
         assertTrue(result.isSuccess());
         assertEquals("取消交易成功", result.getMessage());
         assertEquals(TradeEntity.TradeStatus.CANCELLED, tradeEntity.getStatus());
+        verify(windowStateService).transitionWindows(any(), eq("player1"));
     }
 
     @Test
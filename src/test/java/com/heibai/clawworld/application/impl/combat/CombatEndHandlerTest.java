@@ -0,0 +1,198 @@
+package com.heibai.clawworld.application.impl.combat;
+
+import com.heibai.clawworld.application.impl.WindowStateServiceImpl;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
+import com.heibai.clawworld.domain.service.CombatSettlementService;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
+import com.heibai.clawworld.infrastructure.persistence.entity.EnemyInstanceEntity;
+import com.heibai.clawworld.infrastructure.persistence.entity.PlayerEntity;
+import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
+import com.heibai.clawworld.infrastructure.persistence.repository.PlayerRepository;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 战斗结束处理器测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("战斗结束处理器测试")
+class CombatEndHandlerTest {
+
+    @Mock
+    private CombatSettlementService settlementService;
+
+    @Mock
+    private ConfigDataManager configDataManager;
+
+    @Mock
+    private PlayerRepository playerRepository;
+
+    @Mock
+    private CombatRewardDistributor rewardDistributor;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations playerOps;
+
+    @Mock
+    private BulkOperations accountOps;
+
+    @Mock
+    private BulkOperations enemyOps;
+
+    @Mock
+    private PlayerEventPublisher eventPublisher;
+
+    @Mock
+    private MapEntityJournal mapEntityJournal;
+
+    private CombatEndHandler endHandler;
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        lenient().when(mongoTemplate.getConverter()).thenReturn(converter);
+        endHandler = new CombatEndHandler(settlementService, configDataManager, playerRepository,
+            new WindowStateServiceImpl(accountRepository, eventPublisher), rewardDistributor, accountRepository,
+            mongoTemplate, eventPublisher, mapEntityJournal);
+    }
+
+    @Test
+    @DisplayName("结算修改只在内存中进行，最后每个集合一次批量写入")
+    void testSettlementWritesAreBatched() {
+        PlayerEntity survivor = createPlayer("p1", "幸存者");
+        PlayerEntity defeated = createPlayer("p2", "倒下者");
+        defeated.setCurrentHealth(0);
+
+        CombatInstance.RewardDistribution distribution = new CombatInstance.RewardDistribution();
+        distribution.setCombatType(CombatInstance.CombatType.PVE);
+        distribution.getPlayerIds().add("p1");
+        distribution.getPlayerFinalStates().put("p1", new CombatInstance.PlayerFinalState(40, 15));
+        distribution.getDefeatedPlayers().add(new CombatInstance.DefeatedPlayer("p2", 5, false));
+        distribution.getDefeatedEnemies().add(new CombatInstance.DefeatedEnemy("map1", "goblin#1", 60));
+
+        AccountEntity survivorAccount = createAccount("p1");
+        survivorAccount.getLastEntitySnapshot().put("倒下者", new AccountEntity.EntitySnapshot());
+        AccountEntity defeatedAccount = createAccount("p2");
+
+        when(settlementService.getAndRemoveRewardDistribution("combat1")).thenReturn(distribution);
+        when(playerRepository.findAllById(any())).thenReturn(List.of(survivor, defeated));
+        when(playerRepository.findByCombatId("combat1")).thenReturn(List.of(survivor));
+        when(accountRepository.findByPlayerIdIn(any())).thenReturn(List.of(survivorAccount, defeatedAccount));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PlayerEntity.class)).thenReturn(playerOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AccountEntity.class)).thenReturn(accountOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EnemyInstanceEntity.class)).thenReturn(enemyOps);
+
+        endHandler.handleCombatEnd("combat1");
+
+        verify(rewardDistributor).distributeRewards(eq(distribution), any(CombatSettlementWritePlan.class));
+        verify(playerRepository, never()).findAll();
+        verify(playerRepository, never()).save(any());
+        verify(accountRepository, never()).save(any());
+
+        // 存活玩家同步了战斗后状态并退出战斗
+        assertEquals(40, survivor.getCurrentHealth());
+        assertEquals(15, survivor.getCurrentMana());
+        assertFalse(survivor.isInCombat());
+        assertNull(survivor.getCombatId());
+
+        // 被击败玩家恢复满状态并退出战斗
+        assertEquals(100, defeated.getCurrentHealth());
+        assertFalse(defeated.isInCombat());
+
+        // 窗口切换回地图，被击败玩家从存活玩家的快照中移除
+        assertEquals("MAP", survivorAccount.getCurrentWindowType());
+        assertEquals("MAP", defeatedAccount.getCurrentWindowType());
+        assertFalse(survivorAccount.getLastEntitySnapshot().containsKey("倒下者"));
+
+        // 玩家和账号只更新结算中修改过的字段
+        ArgumentCaptor<Query> playerQueries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> playerUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(playerOps, times(2)).updateOne(playerQueries.capture(), playerUpdates.capture());
+        verify(playerOps, never()).replaceOne(any(Query.class), any());
+        verify(playerOps).execute();
+        Document survivorUpdate = updateFor("p1", playerQueries, playerUpdates);
+        assertEquals(new Document("currentHealth", 40).append("currentMana", 15).append("inCombat", false),
+            survivorUpdate.get("$set"));
+        assertEquals(new Document("combatId", 1), survivorUpdate.get("$unset"));
+
+        ArgumentCaptor<Query> accountQueries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> accountUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(accountOps, times(2)).updateOne(accountQueries.capture(), accountUpdates.capture());
+        verify(accountOps, never()).replaceOne(any(Query.class), any());
+        verify(accountOps).execute();
+        Document survivorAccountSet = (Document) updateFor(survivorAccount.getId(), accountQueries, accountUpdates).get("$set");
+        assertEquals("MAP", survivorAccountSet.get("currentWindowType"));
+        assertTrue(survivorAccountSet.containsKey("lastEntitySnapshot"));
+        assertFalse(survivorAccountSet.containsKey("playerId"));
+        verify(enemyOps).updateOne(any(Query.class), any(Update.class));
+        verify(enemyOps).execute();
+
+        // 写入完成后推送窗口切换事件
+        verify(eventPublisher).publish(argThat((Collection<String> ids) -> ids.size() == 2),
+            argThat((PlayerEvent e) -> e.type() == PlayerEvent.Type.WINDOW && "MAP".equals(e.ref())));
+    }
+
+    private Document updateFor(String id, ArgumentCaptor<Query> queries, ArgumentCaptor<Update> updates) {
+        for (int i = 0; i < queries.getAllValues().size(); i++) {
+            if (id.equals(queries.getAllValues().get(i).getQueryObject().get("_id"))) {
+                return updates.getAllValues().get(i).getUpdateObject();
+            }
+        }
+        throw new AssertionError("没有 " + id + " 的更新");
+    }
+
+    private PlayerEntity createPlayer(String id, String name) {
+        PlayerEntity player = new PlayerEntity();
+        player.setId(id);
+        player.setName(name);
+        player.setLevel(5);
+        player.setMaxHealth(100);
+        player.setCurrentHealth(100);
+        player.setMaxMana(50);
+        player.setCurrentMana(50);
+        player.setInCombat(true);
+        player.setCombatId("combat1");
+        return player;
+    }
+
+    private AccountEntity createAccount(String playerId) {
+        AccountEntity account = new AccountEntity();
+        account.setId("account_" + playerId);
+        account.setPlayerId(playerId);
+        account.setCurrentWindowType("COMBAT");
+        account.setLastEntitySnapshot(new HashMap<>());
+        return account;
+    }
+}
@@ -0,0 +1,141 @@
+package com.heibai.clawworld.domain.combat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分段战斗日志测试
+ */
+@DisplayName("分段战斗日志测试")
+class CombatLogTest {
+
+    @Test
+    @DisplayName("序列号从1开始连续递增")
+    void testAppendAssignsSequence() {
+        CombatLog log = new CombatLog();
+
+        assertEquals(0, log.getLastSequence());
+        assertEquals(1, log.append(1L, "a").getSequence());
+        assertEquals(2, log.append(2L, "b").getSequence());
+        assertEquals(2, log.getLastSequence());
+        assertEquals(2, log.size());
+    }
+
+    @Test
+    @DisplayName("增量读取只返回指定序列号之后的日志，跨段读取正确")
+    void testSinceAcrossSegments() {
+        CombatLog log = new CombatLog();
+        for (int i = 1; i <= CombatLog.SEGMENT_SIZE * 3; i++) {
+            log.append(i, "msg" + i);
+        }
+
+        List<CombatInstance.CombatLogEntry> tail = log.since(CombatLog.SEGMENT_SIZE - 2);
+
+        assertEquals(CombatLog.SEGMENT_SIZE * 2 + 2, tail.size());
+        assertEquals(CombatLog.SEGMENT_SIZE - 1, tail.get(0).getSequence());
+        assertEquals("msg" + CombatLog.SEGMENT_SIZE * 3, tail.get(tail.size() - 1).getMessage());
+        assertTrue(log.since(log.getLastSequence()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("已创建的视图不受后续追加影响")
+    void testViewIsStable() {
+        CombatLog log = new CombatLog();
+        log.append(1L, "a");
+        List<CombatInstance.CombatLogEntry> view = log.all();
+
+        log.append(2L, "b");
+
+        assertEquals(1, view.size());
+        assertEquals(2, log.all().size());
+    }
+
+    @Test
+    @DisplayName("超过保留上限时淘汰最早的段")
+    void testRetentionDropsOldestSegments() {
+        CombatLog log = new CombatLog(2);
+        int total = CombatLog.SEGMENT_SIZE * 3 + 5;
+        for (int i = 1; i <= total; i++) {
+            log.append(i, "msg" + i);
+        }
+
+        assertEquals(total, log.getLastSequence());
+        assertEquals(CombatLog.SEGMENT_SIZE * 2 + 1, log.getFirstSequence());
+        assertEquals(CombatLog.SEGMENT_SIZE + 5, log.size());
+
+        // 请求已淘汰的序列号时，从最早保留的日志开始返回
+        List<CombatInstance.CombatLogEntry> all = log.since(0);
+        assertEquals(log.getFirstSequence(), all.get(0).getSequence());
+        assertEquals(total, all.get(all.size() - 1).getSequence());
+    }
+
+    @Test
+    @DisplayName("日志显示格式只生成一次")
+    void testFormattedIsCached() {
+        CombatLog log = new CombatLog();
+        CombatInstance.CombatLogEntry entry = log.append(1L, "攻击");
+
+        assertEquals("[#1] 攻击", entry.getFormatted());
+        assertSame(entry.getFormatted(), entry.getFormatted());
+    }
+
+    @Test
+    @DisplayName("结构化事件按需渲染为文本或紧凑格式")
+    void testEventRendering() {
+        Map<String, String> names = Map.of("p1", "玩家1", "e1", "哥布林");
+        CombatLog log = new CombatLog(names::get);
+
+        CombatInstance.CombatLogEntry cast = log.append(1L,
+            CombatEvent.skill(CombatEvent.Type.SKILL_TARGET, "p1", "e1", "火球术"));
+        CombatInstance.CombatLogEntry damage = log.append(2L,
+            CombatEvent.damage(CombatEvent.Type.AREA_DAMAGE, "e1", 35, true));
+
+        assertEquals("[#1] 玩家1 对 哥布林 使用了 火球术", cast.getFormatted());
+        assertEquals("对 哥布林 造成了 35 点伤害（暴击！）", damage.getMessage());
+        assertEquals("CAST 玩家1 火球术 哥布林", cast.render(CombatEventFormat.COMPACT));
+        assertEquals("DMG 哥布林 35 CRIT", damage.render(CombatEventFormat.COMPACT));
+    }
+
+    @Test
+    @DisplayName("脱离战斗实例的副本保留已渲染文本，按解析好的名称渲染其他格式")
+    void testDetach() {
+        Map<String, String> live = new HashMap<>(Map.of("p1", "玩家1", "e1", "哥布林"));
+        CombatLog log = new CombatLog(live::get);
+        CombatInstance.CombatLogEntry cast = log.append(1L,
+            CombatEvent.skill(CombatEvent.Type.SKILL_TARGET, "p1", "e1", "火球术"));
+
+        CombatInstance.CombatLogEntry detached = cast.detach(Map.of("p1", "玩家1", "e1", "哥布林"));
+        live.clear();
+
+        assertEquals("[#1] 玩家1 对 哥布林 使用了 火球术", detached.getFormatted());
+        assertEquals("CAST 玩家1 火球术 哥布林", detached.render(CombatEventFormat.COMPACT));
+        assertSame(cast.getEvent(), detached.getEvent());
+    }
+
+    @Test
+    @DisplayName("从检查点恢复后序列号继续编号，恢复前的日志不可读")
+    void testContinueFrom() {
+        CombatLog log = new CombatLog();
+        log.continueFrom(CombatLog.SEGMENT_SIZE + 5);
+
+        assertEquals(CombatLog.SEGMENT_SIZE + 5, log.getLastSequence());
+        assertEquals(0, log.size());
+        assertTrue(log.since(0).isEmpty());
+
+        assertEquals(CombatLog.SEGMENT_SIZE + 6, log.append(1L, "a").getSequence());
+        log.append(2L, "b");
+
+        List<CombatInstance.CombatLogEntry> all = log.since(3);
+        assertEquals(2, all.size());
+        assertEquals("a", all.get(0).getMessage());
+        assertEquals(CombatLog.SEGMENT_SIZE + 6, log.getFirstSequence());
+        assertEquals(1, log.since(CombatLog.SEGMENT_SIZE + 6).size());
+        assertThrows(IllegalStateException.class, () -> log.continueFrom(1));
+    }
+}
@@ -0,0 +1,106 @@
+package com.heibai.clawworld.domain.combat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 战斗分片执行器测试
+ */
+@DisplayName("战斗分片执行器测试")
+class CombatShardExecutorTest {
+
+    private CombatShardExecutor shards;
+
+    @BeforeEach
+    void setUp() {
+        shards = new CombatShardExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.shutdown();
+    }
+
+    @Test
+    @DisplayName("同一战斗的任务总是在同一分片线程上执行")
+    void testSameCombatSameThread() {
+        String first = shards.call("combat-1", () -> Thread.currentThread().getName());
+        String second = shards.call("combat-1", () -> Thread.currentThread().getName());
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith("CombatShard-"));
+    }
+
+    @Test
+    @DisplayName("分片内部嵌套调用直接执行，不会死锁")
+    void testNestedCallRunsInline() {
+        int result = shards.call("combat-1", () -> {
+            assertTrue(shards.isInShard("combat-1"));
+            return shards.call("combat-1", () -> 42);
+        });
+
+        assertEquals(42, result);
+    }
+
+    @Test
+    @DisplayName("并发提交的任务在分片上串行执行")
+    void testConcurrentCallsAreSerialized() throws Exception {
+        List<Integer> unsafeList = new ArrayList<>();
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            callers.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    shards.run("combat-1", () -> unsafeList.add(1));
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        callers.shutdown();
+        assertEquals(threads * perThread, unsafeList.size());
+    }
+
+    @Test
+    @DisplayName("异步投递的任务异常不影响分片继续工作")
+    void testPostedTaskFailureIsIsolated() throws Exception {
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+
+        shards.post("combat-1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        shards.post("combat-1", () -> {
+            executed.add("ok");
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("ok"), executed);
+    }
+
+    @Test
+    @DisplayName("任务中的运行时异常原样抛给调用方")
+    void testCallPropagatesRuntimeException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> shards.call("combat-1", () -> {
+                throw new IllegalArgumentException("bad");
+            }));
+    }
+}
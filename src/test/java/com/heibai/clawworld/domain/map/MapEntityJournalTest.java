@@ -0,0 +1,74 @@
+package com.heibai.clawworld.domain.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapEntityJournalTest {
+
+    private final MapEntityJournal journal = new MapEntityJournal();
+
+    @Test
+    void testSince_ShouldReturnEntitiesChangedAfterCursor() {
+        journal.record("village", "p1", "勇者");
+        long cursor = journal.head("village");
+        journal.record("village", "p2", "路人");
+        journal.record("village", "e1", null);
+        journal.record("village", "p2", "路人");
+        journal.record("forest", "p3", "猎人");
+
+        MapEntityJournal.Changes changes = journal.since("village", cursor);
+
+        assertEquals(Set.of("p2", "e1"), changes.entityIds());
+        assertEquals(Set.of("路人"), changes.entityNames());
+        assertEquals(4, changes.head());
+        assertTrue(journal.since("village", changes.head()).isEmpty());
+        assertTrue(journal.since("desert", 0).isEmpty());
+    }
+
+    @Test
+    void testSince_CursorAgedOutOrFromAnotherProcess_ShouldRequireResync() {
+        long cursor = journal.head("village");
+        for (int i = 0; i < MapEntityJournal.CAPACITY; i++) {
+            journal.record("village", "p" + i, "玩家" + i);
+        }
+        assertNotNull(journal.since("village", cursor));
+
+        journal.record("village", "late", "迟到者");
+        assertNull(journal.since("village", cursor));
+
+        // 游标大于当前序号（服务重启前的游标）
+        assertNull(new MapEntityJournal().since("village", 5));
+        assertEquals(1, journal.getStats().expired());
+    }
+
+    @Test
+    void testRecordAt_ShouldBecomeEventWhenDue() {
+        long cursor = journal.head("village");
+        journal.recordAt("village", "c1", "大宝箱", System.currentTimeMillis() + 60_000);
+        journal.recordAt("village", "c2", "旧宝箱", System.currentTimeMillis() - 1);
+
+        MapEntityJournal.Changes changes = journal.since("village", cursor);
+
+        assertEquals(Set.of("c2"), changes.entityIds());
+        assertEquals(1, journal.head("village"));
+    }
+
+    @Test
+    void testRecordAll_AndRelationVersion() {
+        journal.recordAll(List.of(
+            new MapEntityJournal.Change("village", "p1", "勇者"),
+            new MapEntityJournal.Change(null, "p1", "勇者"),
+            new MapEntityJournal.Change("forest", "p1", "勇者")));
+        journal.relationChanged();
+        journal.relationChanged();
+
+        assertEquals(1, journal.head("village"));
+        assertEquals(1, journal.head("forest"));
+        assertEquals(2, journal.relationVersion());
+        assertEquals(2, journal.getStats().recorded());
+    }
+}
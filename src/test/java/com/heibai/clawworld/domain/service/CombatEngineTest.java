@@ -2,10 +2,14 @@ package com.heibai.clawworld.domain.service;
 
 import com.heibai.clawworld.domain.combat.Combat;
 import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatCheckpoint;
+import com.heibai.clawworld.domain.combat.CombatCheckpointStore;
+import com.heibai.clawworld.domain.combat.CombatEvent;
 import com.heibai.clawworld.domain.combat.CombatInstance;
 import com.heibai.clawworld.domain.combat.CombatParty;
 import com.heibai.clawworld.domain.service.skill.SkillExecutor;
 import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.domain.skill.Skill;
 import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,9 +17,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -216,6 +224,187 @@ class CombatEngineTest {
         assertTrue(combat.isPresent());
     }
 
+    // ==================== 增量日志测试 ====================
+
+    @Test
+    @DisplayName("增量日志 - 只返回参战者确认之后的日志")
+    void testUnacknowledgedLogs_PerParticipant() {
+        String combatId = combatEngine.createCombat("map-1");
+
+        List<CombatCharacter> players = new ArrayList<>();
+        players.add(createTestCharacter("player1", "玩家1", 100, 50));
+        combatEngine.addPartyToCombat(combatId, "player_faction", players);
+
+        CombatInstance combat = combatEngine.getCombat(combatId).get();
+        combat.addLog("第一条");
+        combat.addLog("第二条");
+
+        // 阵营加入日志 + 两条新日志
+        List<CombatInstance.CombatLogEntry> pending = combatEngine.getUnacknowledgedLogs(combatId, "player1");
+        assertEquals(3, pending.size());
+
+        // 确认后只返回新增日志
+        combatEngine.acknowledgeLogs(combatId, "player1", pending.get(pending.size() - 1).getSequence());
+        combat.addLog("第三条");
+        pending = combatEngine.getUnacknowledgedLogs(combatId, "player1");
+        assertEquals(1, pending.size());
+        assertEquals("第三条", pending.get(0).getMessage());
+
+        // 确认位置不会后退
+        combatEngine.acknowledgeLogs(combatId, "player1", 0);
+        assertEquals(1, combatEngine.getUnacknowledgedLogs(combatId, "player1").size());
+    }
+
+    @Test
+    @DisplayName("增量日志 - 取走日志时同时推进确认位置")
+    void testTakeUnacknowledgedLogs() {
+        String combatId = combatEngine.createCombat("map-1");
+
+        List<CombatCharacter> players = new ArrayList<>();
+        players.add(createTestCharacter("player1", "玩家1", 100, 50));
+        combatEngine.addPartyToCombat(combatId, "player_faction", players);
+
+        CombatInstance combat = combatEngine.getCombat(combatId).get();
+        combat.addLog("第一条");
+
+        List<CombatInstance.CombatLogEntry> taken = combatEngine.takeUnacknowledgedLogs(combatId, "player1");
+        assertEquals(2, taken.size());
+        assertEquals("第一条", taken.get(1).getMessage());
+        assertTrue(combatEngine.takeUnacknowledgedLogs(combatId, "player1").isEmpty());
+
+        combat.addLog("第二条");
+        combatEngine.acknowledgeAllLogs(combatId, "player1");
+        assertTrue(combatEngine.getUnacknowledgedLogs(combatId, "player1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("增量日志 - 战斗进行中的成功行动不附带日志，失败时附带并确认")
+    void testActionResultLogs_OnlyOnErrorOrEnd() {
+        String combatId = combatEngine.createCombat("map-1");
+        combatEngine.addPartyToCombat(combatId, "faction1",
+            List.of(createTestCharacter("player1", "玩家1", 100, 50)));
+        combatEngine.addPartyToCombat(combatId, "faction2",
+            List.of(createTestCharacter("player2", "玩家2", 100, 50)));
+
+        CombatEngine.CombatActionResult error = combatEngine.executeSkillWithWait(combatId, "player1", "basic_attack", "player2");
+        assertFalse(error.isSuccess());
+        assertFalse(error.getBattleLog().isEmpty());
+        assertEquals(error.getLogSequence(), combatEngine.getCombat(combatId).get().getLogCursor("player1"));
+        assertTrue(combatEngine.getUnacknowledgedLogs(combatId, "player1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("战斗结束信息 - 只保留玩家最早确认位置之后的日志，按结束时的名称渲染")
+    void testCombatEndInfo_KeepsLogsAfterLowestCursor() {
+        String combatId = combatEngine.createCombat("map-1");
+        combatEngine.addPartyToCombat(combatId, "faction1",
+            List.of(createTestCharacter("player1", "玩家1", 100, 50)));
+        combatEngine.addPartyToCombat(combatId, "faction2",
+            List.of(createTestCharacter("player2", "玩家2", 100, 50)));
+
+        CombatInstance combat = combatEngine.getCombat(combatId).get();
+        combat.addLog("双方都已确认");
+        combat.acknowledgeLog("player1", combat.getLastLogSequence());
+        combat.acknowledgeLog("player2", combat.getLastLogSequence());
+        combat.addEvent(CombatEvent.actor(CombatEvent.Type.JOIN, "player2"));
+        int player2Cursor = combat.getLastLogSequence();
+        combat.acknowledgeLog("player2", player2Cursor);
+        combat.addLog("都未确认");
+
+        CombatSettlementService.CombatEndInfo endInfo = new CombatSettlementService.CombatEndInfo(combat, null);
+        combat.findCharacter("player2").setName("改名后");
+
+        assertEquals(2, endInfo.getFinalLogs().size());
+        assertEquals("玩家2 加入战斗！", endInfo.getUnacknowledgedLogs("player1").get(0).getMessage());
+        assertEquals(1, endInfo.getUnacknowledgedLogs("player2").size());
+        assertEquals(combat.getLastLogSequence(), endInfo.getLastLogSequence());
+        assertEquals(player2Cursor, endInfo.getLogsSince(0).get(0).getSequence());
+    }
+
+    @Test
+    @DisplayName("增量日志 - 中途加入的角色看不到加入前的日志")
+    void testUnacknowledgedLogs_LateJoiner() {
+        String combatId = combatEngine.createCombat("map-1");
+
+        List<CombatCharacter> players = new ArrayList<>();
+        players.add(createTestCharacter("player1", "玩家1", 100, 50));
+        combatEngine.addPartyToCombat(combatId, "player_faction", players);
+
+        CombatInstance combat = combatEngine.getCombat(combatId).get();
+        combat.addLog("加入前的日志");
+
+        combatEngine.addCharacterToCombat(combatId, "player_faction", createTestCharacter("player2", "玩家2", 100, 50));
+        combat.addLog("加入后的日志");
+
+        // 新加入的角色从自己的加入日志开始看到
+        List<CombatInstance.CombatLogEntry> pending = combatEngine.getUnacknowledgedLogs(combatId, "player2");
+        assertEquals(2, pending.size());
+        assertEquals("玩家2 加入战斗！", pending.get(0).getMessage());
+        assertEquals("加入后的日志", pending.get(1).getMessage());
+        assertEquals(4, combatEngine.getUnacknowledgedLogs(combatId, "player1").size());
+    }
+
+    // ==================== 只读快照测试 ====================
+
+    @Test
+    @DisplayName("只读快照 - 状态变化后发布新版本，未变化的角色复用")
+    void testSnapshot_PublishedAfterChange() {
+        String combatId = combatEngine.createCombat("map-1");
+
+        List<CombatCharacter> players = new ArrayList<>();
+        players.add(createTestCharacter("player1", "玩家1", 100, 50));
+        players.add(createTestCharacter("player2", "玩家2", 100, 50));
+        combatEngine.addPartyToCombat(combatId, "player_faction", players);
+
+        CombatInstance combat = combatEngine.getCombat(combatId).get();
+        Combat first = combat.getSnapshot();
+        assertSame(first, combat.getSnapshot());
+        assertEquals(2, first.getParties().get(0).getCharacters().size());
+
+        // 没有修改状态的分片任务不发布新快照
+        combatEngine.executeOnCombat(combatId, instance -> instance.findCharacter("player1") != null);
+        assertSame(first, combat.getSnapshot());
+
+        combatEngine.executeOnCombat(combatId, instance -> {
+            instance.findCharacter("player1").takeDamage(30);
+            return true;
+        });
+
+        Combat second = combat.getSnapshot();
+        assertNotSame(first, second);
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        // 旧快照不受影响
+        assertEquals(100, findSnapshotCharacter(first, "player1").getCurrentHealth());
+        assertEquals(70, findSnapshotCharacter(second, "player1").getCurrentHealth());
+        assertSame(findSnapshotCharacter(first, "player2"), findSnapshotCharacter(second, "player2"));
+        assertThrows(UnsupportedOperationException.class, () -> second.getParties().clear());
+    }
+
+    @Test
+    @DisplayName("只读快照 - 日志在发布时固定，之后的日志和改名不影响已发布的快照")
+    void testSnapshot_LogFixedAtPublish() {
+        String combatId = combatEngine.createCombat("map-1");
+        combatEngine.addPartyToCombat(combatId, "player_faction",
+            List.of(createTestCharacter("player1", "玩家1", 100, 50)));
+        combatEngine.addCharacterToCombat(combatId, "player_faction", createTestCharacter("player2", "玩家2", 100, 50));
+
+        CombatInstance combat = combatEngine.getCombat(combatId).get();
+        Combat published = combat.getSnapshot();
+        List<String> log = published.getCombatLog();
+        int size = log.size();
+
+        combatEngine.executeOnCombat(combatId, instance -> {
+            instance.findCharacter("player2").setName("改名后");
+            instance.addLog("新日志");
+            return true;
+        });
+
+        assertEquals(size, log.size());
+        assertTrue(log.get(size - 1).contains("玩家2 加入战斗！"));
+        assertTrue(combat.getSnapshot().getVersion() > published.getVersion());
+        assertEquals(size + 1, combat.getSnapshot().getCombatLog().size());
+    }
+
     // ==================== 战斗实例测试 ====================
 
     @Test
@@ -275,6 +464,205 @@ class CombatEngineTest {
         assertEquals("faction1", winner.get().getFactionId());
     }
 
+    @Test
+    @DisplayName("战斗检查点 - 关闭时写入，新引擎启动时恢复")
+    void testCheckpointRestore() {
+        Map<String, CombatCheckpoint> saved = new ConcurrentHashMap<>();
+        CombatCheckpointStore store = new CombatCheckpointStore() {
+            @Override
+            public void saveAll(Collection<CombatCheckpoint> checkpoints) {
+                checkpoints.forEach(checkpoint -> saved.put(checkpoint.getCombatId(), checkpoint));
+            }
+
+            @Override
+            public void deleteAll(Collection<String> combatIds) {
+                combatIds.forEach(saved::remove);
+            }
+
+            @Override
+            public List<CombatCheckpoint> loadAll() {
+                return new ArrayList<>(saved.values());
+            }
+        };
+
+        CombatEngine first = new CombatEngine(configDataManager, skillResolver, skillExecutor, settlementService,
+            store, 60_000);
+        String combatId = first.createCombat("map-1");
+        CombatCharacter player1 = createTestCharacter("player1", "玩家1", 100, 50);
+        player1.setSkillCooldown("fireball", 2);
+        first.addPartyToCombat(combatId, "faction1", List.of(player1));
+        first.addPartyToCombat(combatId, "faction2", List.of(createTestCharacter("player2", "玩家2", 100, 50)));
+        first.acknowledgeLogs(combatId, "player1", 2);
+        first.executeOnCombat(combatId, combat -> {
+            combat.findCharacter("player2").takeDamage(30);
+            combat.recordDamage("faction1", "player2", 30);
+            combat.getActionBar().get("player1").setProgress(CombatInstance.ActionBarEntry.ACTION_BAR_MAX);
+            combat.getActionBar().get("player2").setProgress(4000);
+            combat.addLog("玩家1 造成了 30 点伤害");
+            return null;
+        });
+        int lastSequence = first.getCombat(combatId).orElseThrow().getLastLogSequence();
+        first.destroy();
+
+        assertEquals(1, saved.size());
+
+        CombatEngine second = new CombatEngine(configDataManager, skillResolver, skillExecutor, settlementService,
+            store, 60_000);
+        second.restoreCheckpoints();
+        try {
+            CombatInstance restored = second.getCombat(combatId).orElseThrow();
+            assertEquals("map-1", restored.getMapId());
+            assertEquals(70, restored.findCharacter("player2").getCurrentHealth());
+            assertEquals(2, restored.findCharacter("player1").getSkillCooldowns().get("fireball"));
+            assertEquals(4000, restored.getActionBar().get("player2").getProgress());
+            assertEquals(Optional.of("player1"), restored.getCurrentTurnCharacterId());
+            assertTrue(second.getTurnStartTime(combatId) > 0);
+            assertEquals("faction1", restored.getLootOwnerFaction("player2", false));
+            assertEquals(2, restored.getLogCursor("player1"));
+            assertEquals(List.of("player2"), restored.getEnemyCharacters("faction1").stream()
+                .map(CombatCharacter::getCharacterId).toList());
+            assertFalse(restored.isFinished());
+
+            // 日志从检查点之后继续编号，只保留恢复提示
+            assertEquals(lastSequence + 1, restored.getLastLogSequence());
+            assertEquals("服务器重启，战斗已恢复", restored.getLogsSince(0).get(0).getMessage());
+        } finally {
+            second.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("战斗检查点 - 不产生日志的确认位置变化也会生成检查点")
+    void testCheckpointIfChanged_TracksStateWithoutLogs() {
+        CombatInstance combat = new CombatInstance("test-combat", "map-1");
+        CombatParty party = new CombatParty("faction1");
+        party.addCharacter(createTestCharacter("player1", "玩家1", 100, 50));
+        combat.addParty("faction1", party);
+
+        assertNotNull(combat.checkpointIfChanged());
+        assertNull(combat.checkpointIfChanged());
+
+        combat.acknowledgeLog("player1", combat.getLastLogSequence() + 1);
+        CombatCheckpoint checkpoint = combat.checkpointIfChanged();
+        assertNotNull(checkpoint);
+        assertEquals(combat.getLastLogSequence() + 1, checkpoint.getLogCursors().get("player1"));
+
+        // 确认位置没有前进时不需要新的检查点
+        combat.acknowledgeLog("player1", 0);
+        assertNull(combat.checkpointIfChanged());
+    }
+
+    @Test
+    @DisplayName("战斗实例 - 存活视图随伤害、撤退和复活实时更新")
+    void testCombatInstance_LiveAliveViews() {
+        CombatInstance combat = new CombatInstance("test-combat", "map-1");
+
+        CombatParty party1 = new CombatParty("faction1");
+        CombatCharacter char1 = createTestCharacter("char1", "角色1", 100, 50);
+        party1.addCharacter(char1);
+
+        CombatParty party2 = new CombatParty("faction2");
+        CombatCharacter char2 = createTestCharacter("char2", "角色2", 100, 50);
+        CombatCharacter char3 = createTestCharacter("char3", "角色3", 100, 50);
+        party2.addCharacter(char2);
+        party2.addCharacter(char3);
+
+        combat.addParty("faction1", party1);
+        combat.addParty("faction2", party2);
+
+        List<CombatCharacter> enemies = combat.getEnemyCharacters("faction1");
+        assertSame(enemies, combat.getEnemyCharacters("faction1"));
+        assertEquals(List.of(char2, char3), enemies);
+        assertEquals(3, combat.getAllAliveCharacters().size());
+
+        char2.takeDamage(100);
+        assertEquals(List.of(char3), enemies);
+        assertFalse(combat.isFinished());
+
+        char3.setRetreated(true);
+        assertTrue(enemies.isEmpty());
+        assertTrue(combat.isFinished());
+        assertEquals("faction1", combat.getWinner().orElseThrow().getFactionId());
+
+        // 复活后按加入顺序回到视图中
+        char3.setRetreated(false);
+        char2.setDead(false);
+        char2.setCurrentHealth(10);
+        assertEquals(List.of(char2, char3), enemies);
+        assertFalse(combat.isFinished());
+
+        // 新阵营加入也计入存活阵营
+        char1.takeDamage(100);
+        assertTrue(combat.isFinished());
+        combat.addCharacterToParty("faction3", createTestCharacter("char4", "角色4", 100, 50));
+        assertFalse(combat.isFinished());
+        assertEquals(3, combat.getEnemyCharacters("faction1").size());
+        assertThrows(UnsupportedOperationException.class, () -> enemies.remove(0));
+    }
+
+    @Test
+    @DisplayName("大规模战斗 - 战斗类型增量维护，群体技能批量结算并只记录汇总")
+    void testRaidAreaSkill_BatchedSummary() {
+        CombatInstance combat = new CombatInstance("raid-combat", "map-1", 42L);
+
+        CombatParty players = new CombatParty("players");
+        CombatCharacter caster = createTestCharacter("caster", "法师", 500, 100);
+        caster.setMagicAttack(60);
+        caster.setFactionId("players");
+        players.addCharacter(caster);
+        combat.addParty("players", players);
+        assertEquals(CombatInstance.CombatType.PVP, combat.getCombatType());
+
+        CombatParty monsters = new CombatParty("monsters");
+        List<CombatCharacter> enemyList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            CombatCharacter enemy = createTestCharacter("enemy" + i, "史莱姆" + i, 20 + i, 0);
+            enemy.setCharacterType("ENEMY");
+            enemy.setFactionId("monsters");
+            enemyList.add(enemy);
+            monsters.addCharacter(enemy);
+        }
+        combat.addParty("monsters", monsters);
+        assertEquals(CombatInstance.CombatType.PVE, combat.getCombatType());
+        assertEquals(21, combat.getParticipantCount());
+        assertTrue(combat.isRaid());
+
+        // 按相同种子逐个计算，作为批量结算的期望值
+        CombatDamageCalculator calculator = new CombatDamageCalculator();
+        SplittableRandom expectedRandom = new SplittableRandom(42L);
+        int expectedTotal = 0;
+        int expectedHits = 0;
+        for (CombatCharacter enemy : enemyList) {
+            CombatDamageCalculator.DamageResult damage = calculator.calculateDamage(caster, enemy, false, 1.5, expectedRandom);
+            if (!damage.isMissed()) {
+                expectedTotal += damage.getDamage();
+                expectedHits++;
+            }
+        }
+
+        Skill skill = new Skill();
+        skill.setId("blizzard");
+        skill.setName("暴风雪");
+        skill.setTargetType(Skill.SkillTarget.ENEMY_ALL);
+        skill.setDamageType(Skill.DamageType.MAGICAL);
+        skill.setDamageMultiplier(1.5);
+
+        SkillExecutor executor = new SkillExecutor(calculator);
+        List<CombatEvent> events =
+            executor.executeSkill(combat, caster, skill, null).getEvents();
+
+        assertEquals(CombatEvent.Type.SKILL_AREA, events.get(0).getType());
+        CombatEvent summary = events.get(1);
+        assertEquals(CombatEvent.Type.AREA_SUMMARY, summary.getType());
+        assertEquals(expectedHits, summary.getHitCount());
+        assertEquals(20 - expectedHits, summary.getMissCount());
+        assertEquals(expectedTotal, summary.getValue());
+
+        long dead = enemyList.stream().filter(e -> !e.isAlive()).count();
+        assertEquals(dead, events.size() - 2);
+        assertEquals(20 - dead, combat.getEnemyCharacters("players").size());
+    }
+
     // ==================== 行动条测试 ====================
 
     @Test
@@ -491,6 +879,14 @@ class CombatEngineTest {
 
     // ==================== 辅助方法 ====================
 
+    private Combat.CombatCharacter findSnapshotCharacter(Combat snapshot, String characterId) {
+        return snapshot.getParties().stream()
+            .flatMap(party -> party.getCharacters().stream())
+            .filter(character -> character.getCharacterId().equals(characterId))
+            .findFirst()
+            .orElseThrow();
+    }
+
     private CombatCharacter createTestCharacter(String id, String name, int health, int mana) {
         CombatCharacter character = new CombatCharacter();
         character.setCharacterId(id);
@@ -0,0 +1,223 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
+import com.heibai.clawworld.domain.combat.CombatCharacter;
+import com.heibai.clawworld.domain.combat.CombatCheckpointStore;
+import com.heibai.clawworld.domain.combat.CombatInstance;
+import com.heibai.clawworld.domain.combat.CombatRecording;
+import com.heibai.clawworld.domain.event.PlayerEventPublisher;
+import com.heibai.clawworld.domain.service.CombatDamageCalculator;
+import com.heibai.clawworld.domain.service.CombatEngine;
+import com.heibai.clawworld.domain.service.CombatSettlementService;
+import com.heibai.clawworld.domain.service.skill.SkillExecutor;
+import com.heibai.clawworld.domain.service.skill.SkillResolver;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 战斗录像重放测试
+ */
+@DisplayName("战斗录像重放测试")
+class CombatReplayerTest {
+
+    private static ConfigDataManager configDataManager;
+
+    private CombatEngine combatEngine;
+
+    @BeforeAll
+    static void loadConfig() {
+        configDataManager = ConfigDataManager.loadFromClasspath();
+    }
+
+    @BeforeEach
+    void setUp() {
+        combatEngine = new CombatEngine(configDataManager, new SkillResolver(configDataManager),
+            new SkillExecutor(new CombatDamageCalculator()), new CombatSettlementService(configDataManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        combatEngine.destroy();
+    }
+
+    @Test
+    @DisplayName("重放结果与录制时一致")
+    void testReplayMatchesRecording() {
+        String combatId = playFight();
+
+        CombatRecording recording = combatEngine.getRecording(combatId).orElseThrow();
+        assertTrue(recording.getInputs().size() > 3);
+        assertTrue(recording.getLastLogSequence() > 0);
+
+        CombatReplayer.ReplayResult result = new CombatReplayer(configDataManager).replay(recording);
+        assertTrue(result.matches());
+    }
+
+    @Test
+    @DisplayName("不同种子的重放结果不一致")
+    void testReplayWithDifferentSeed() {
+        String combatId = playFight();
+
+        CombatRecording recording = combatEngine.getRecording(combatId).orElseThrow();
+        recording.setSeed(recording.getSeed() + 1);
+
+        CombatReplayer.ReplayResult result = new CombatReplayer(configDataManager).replay(recording);
+        assertFalse(result.matches());
+    }
+
+    @Test
+    @DisplayName("输入超过上限时录像标记为不完整并拒绝重放")
+    void testRecordingOverLimit_ShouldBeTruncated() {
+        combatEngine.destroy();
+        combatEngine = new CombatEngine(configDataManager, new SkillResolver(configDataManager),
+            new SkillExecutor(new CombatDamageCalculator()), new CombatSettlementService(configDataManager),
+            CombatCheckpointStore.NONE, 0, PlayerEventPublisher.NONE, 3);
+        String combatId = playFight();
+
+        CombatRecording recording = combatEngine.getRecording(combatId).orElseThrow();
+        assertTrue(recording.isTruncated());
+        assertTrue(recording.getInputs().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new CombatReplayer(configDataManager).replay(recording));
+    }
+
+    @Test
+    @DisplayName("录像可以保存为文件后重放")
+    void testReplayFromFile(@TempDir Path dir) throws Exception {
+        String combatId = playFight();
+        Path file = dir.resolve("recording.json");
+
+        CombatReplayer.write(combatEngine.getRecording(combatId).orElseThrow(), file);
+        CombatRecording recording = CombatReplayer.read(file);
+
+        assertTrue(new CombatReplayer(configDataManager).replay(recording).matches());
+    }
+
+    @Test
+    @DisplayName("自动战斗一次调用打完并返回摘要，录像可以重放")
+    void testAutoBattle() {
+        String combatId = startFight();
+
+        CombatEngine.CombatActionResult result =
+            combatEngine.autoBattle(combatId, "p1", AutoBattlePolicy.defaultPolicy());
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertTrue(result.isCombatEnded());
+        assertEquals("自动战斗结束", result.getMessage());
+        assertTrue(result.getBattleLog().get(0).startsWith("自动战斗摘要：行动"));
+        assertFalse(result.getBattleLog().stream().anyMatch(line -> line.contains("回合")));
+
+        CombatRecording recording = combatEngine.getRecording(combatId).orElseThrow();
+        assertTrue(recording.getInputs().stream()
+            .anyMatch(input -> input.getType() == CombatRecording.InputType.AUTO_BATTLE));
+        assertTrue(new CombatReplayer(configDataManager).replay(recording).matches());
+    }
+
+    @Test
+    @DisplayName("有手动操作的队友时自动战斗开启后立即返回，战斗结束后的wait返回摘要")
+    void testAutoBattleWithManualTeammate() {
+        String combatId = startFight(List.of(
+            createCharacter("p1", "玩家1", "PLAYER", 300, 60, 100),
+            createCharacter("p2", "玩家2", "PLAYER", 300, 60, 95)));
+
+        CombatEngine.CombatActionResult result =
+            combatEngine.autoBattle(combatId, "p1", AutoBattlePolicy.defaultPolicy());
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertFalse(result.isCombatEnded());
+
+        // 手动队友推进战斗直到结束
+        result = combatEngine.skipTurnWithWait(combatId, "p2");
+        for (int i = 0; i < 100 && !result.isCombatEnded(); i++) {
+            assertTrue(result.isSuccess(), result.getMessage());
+            CombatInstance combat = combatEngine.getCombat(combatId).orElseThrow();
+            String targetId = combat.getEnemyCharacters("party_p1").get(0).getCharacterId();
+            result = combatEngine.executeSkillWithWait(combatId, "p2", "basic_attack", targetId);
+        }
+        assertTrue(result.isCombatEnded());
+
+        CombatEngine.CombatActionResult summary = combatEngine.skipTurnWithWait(combatId, "p1");
+        assertTrue(summary.isCombatEnded());
+        assertEquals("自动战斗结束", summary.getMessage());
+        assertTrue(summary.getBattleLog().get(0).startsWith("自动战斗摘要：行动"));
+    }
+
+    @Test
+    @DisplayName("关闭自动战斗后恢复手动操作，录像可以重放")
+    void testAutoBattleOff() {
+        String combatId = startFight(List.of(
+            createCharacter("p1", "玩家1", "PLAYER", 300, 60, 100),
+            createCharacter("p2", "玩家2", "PLAYER", 300, 60, 95)));
+
+        assertTrue(combatEngine.autoBattle(combatId, "p1", AutoBattlePolicy.defaultPolicy()).isSuccess());
+        CombatEngine.CombatActionResult result = combatEngine.disableAutoBattle(combatId, "p1");
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertNull(combatEngine.getCombat(combatId).orElseThrow().getAutoBattlePolicy("p1"));
+        assertFalse(combatEngine.disableAutoBattle(combatId, "p1").isSuccess());
+
+        CombatRecording recording = combatEngine.getRecording(combatId).orElseThrow();
+        assertTrue(recording.getInputs().stream()
+            .anyMatch(input -> input.getType() == CombatRecording.InputType.AUTO_BATTLE_OFF));
+    }
+
+    /**
+     * 一名玩家对两只哥布林，玩家先空过一次，之后一直普通攻击直到战斗结束
+     */
+    private String playFight() {
+        String combatId = startFight();
+
+        CombatEngine.CombatActionResult result = combatEngine.skipTurnWithWait(combatId, "p1");
+        for (int i = 0; i < 100 && !result.isCombatEnded(); i++) {
+            assertTrue(result.isSuccess(), result.getMessage());
+            CombatInstance combat = combatEngine.getCombat(combatId).orElseThrow();
+            String targetId = combat.getEnemyCharacters("party_p1").get(0).getCharacterId();
+            result = combatEngine.executeSkillWithWait(combatId, "p1", "basic_attack", targetId);
+        }
+        assertTrue(result.isCombatEnded());
+        return combatId;
+    }
+
+    private String startFight() {
+        return startFight(List.of(createCharacter("p1", "玩家1", "PLAYER", 300, 60, 100)));
+    }
+
+    private String startFight(List<CombatCharacter> players) {
+        String combatId = combatEngine.createCombat("map-1");
+        combatEngine.addPartyToCombat(combatId, "party_p1", players);
+        combatEngine.addPartyToCombat(combatId, "enemy_goblin", List.of(
+            createCharacter("e1", "哥布林#1", "ENEMY", 80, 20, 90),
+            createCharacter("e2", "哥布林#2", "ENEMY", 80, 20, 80)));
+        combatEngine.initializeFirstTurn(combatId);
+        return combatId;
+    }
+
+    private CombatCharacter createCharacter(String id, String name, String type, int health, int attack, int speed) {
+        CombatCharacter character = new CombatCharacter();
+        character.setCharacterId(id);
+        character.setName(name);
+        character.setCharacterType(type);
+        character.setMaxHealth(health);
+        character.setCurrentHealth(health);
+        character.setMaxMana(50);
+        character.setCurrentMana(50);
+        character.setPhysicalAttack(attack);
+        character.setPhysicalDefense(5);
+        character.setMagicAttack(10);
+        character.setMagicDefense(5);
+        character.setSpeed(speed);
+        character.setCritRate(0.2);
+        character.setCritDamage(0.5);
+        character.setHitRate(0.9);
+        character.setDodgeRate(0.1);
+        return character;
+    }
+}
@@ -0,0 +1,74 @@
+package com.heibai.clawworld.infrastructure.simulation;
+
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 无头战斗模拟器测试
+ */
+@DisplayName("无头战斗模拟器测试")
+class CombatSimulatorTest {
+
+    private static CombatSimulator simulator;
+
+    @BeforeAll
+    static void setUp() {
+        simulator = new CombatSimulator(ConfigDataManager.loadFromClasspath());
+    }
+
+    @Test
+    @DisplayName("模拟结果统计完整")
+    void testReportIsComplete() {
+        CombatSimulationScenario scenario = new CombatSimulationScenario("WARRIOR", 5, 1, "slime", 2, 2000, 200, 42);
+
+        CombatSimulationReport report = simulator.run(scenario);
+
+        assertEquals(2000, report.getBattles());
+        assertEquals(report.getBattles(), report.getPlayerWins() + report.getEnemyWins() + report.getDraws());
+        assertTrue(report.getTotalTurns() > 0);
+        assertTrue(report.getHits() > 0);
+        assertTrue(report.getNanosPerTurn() > 0);
+        // 5级战士对两只史莱姆应当稳赢
+        assertTrue(report.getPlayerWinRate() > 0.9);
+    }
+
+    @Test
+    @DisplayName("相同种子的结果与并行度无关")
+    void testDeterministicAcrossParallelism() {
+        CombatSimulationScenario scenario = new CombatSimulationScenario("WARRIOR", 3, 1, "goblin", 2, 5000, 200, 7);
+
+        CombatSimulationReport single = simulator.run(scenario, new ForkJoinPool(1));
+        CombatSimulationReport parallel = simulator.run(scenario, new ForkJoinPool(4));
+
+        assertEquals(single.getPlayerWins(), parallel.getPlayerWins());
+        assertEquals(single.getTotalTurns(), parallel.getTotalTurns());
+        assertEquals(single.getTotalDamage(), parallel.getTotalDamage());
+    }
+
+    @Test
+    @DisplayName("超过最大回合数时玩家撤退，记为平局")
+    void testMaxTurns_ShouldRetreatAsDraw() {
+        CombatSimulationScenario scenario = new CombatSimulationScenario("WARRIOR", 1, 1, "goblin", 3, 200, 1, 3);
+
+        CombatSimulationReport report = simulator.run(scenario);
+
+        assertEquals(200, report.getBattles());
+        assertEquals(200, report.getDraws());
+        assertEquals(0, report.getPlayerWins() + report.getEnemyWins());
+    }
+
+    @Test
+    @DisplayName("未知的职业或敌人")
+    void testUnknownConfig() {
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(
+            new CombatSimulationScenario("UNKNOWN", 1, 1, "slime", 1, 1, 10, 1)));
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(
+            new CombatSimulationScenario("WARRIOR", 1, 1, "unknown", 1, 1, 10, 1)));
+    }
+}
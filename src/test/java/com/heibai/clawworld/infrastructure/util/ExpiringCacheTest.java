@@ -0,0 +1,96 @@
+package com.heibai.clawworld.infrastructure.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 过期缓存测试
+ */
+@DisplayName("过期缓存测试")
+class ExpiringCacheTest {
+
+    @Test
+    @DisplayName("读取过期条目视为未命中并触发淘汰回调")
+    void testExpireOnRead() {
+        AtomicLong now = new AtomicLong(0);
+        List<String> evicted = new ArrayList<>();
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 10, 100,
+            (key, value) -> evicted.add(key), now::get);
+
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+
+        now.set(100);
+        assertNull(cache.get("a"));
+        assertEquals(List.of("a"), evicted);
+        assertEquals(0, cache.size());
+
+        ExpiringCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.expirations());
+    }
+
+    @Test
+    @DisplayName("定时清理只淘汰过期条目，覆盖写入重新计时")
+    void testEvictExpired() {
+        AtomicLong now = new AtomicLong(0);
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 10, 100, (key, value) -> { }, now::get);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        now.set(50);
+        cache.put("a", "1'");
+        cache.put("c", "3");
+
+        now.set(120);
+        assertEquals(1, cache.evictExpired());
+        assertNull(cache.get("b"));
+        assertEquals("1'", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+
+        now.set(200);
+        assertEquals(2, cache.evictExpired());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("超过容量时淘汰最早写入的条目")
+    void testSizeLimit() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>("test", 3, 60_000);
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(0));
+        assertNull(cache.get(1));
+        assertEquals(4, cache.get(4));
+        assertEquals(2, cache.getStats().sizeEvictions());
+    }
+
+    @Test
+    @DisplayName("移除后不再计入容量，失效的队列节点被跳过")
+    void testRemove() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>("test", 2, 60_000);
+        cache.put("a", "1");
+        assertEquals("1", cache.remove("a"));
+        assertNull(cache.remove("a"));
+
+        cache.put("b", "2");
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getStats().sizeEvictions());
+
+        cache.put("d", "4");
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getStats().sizeEvictions());
+    }
+}
@@ -0,0 +1,83 @@
+package com.heibai.clawworld.interfaces.command;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 指令准入控制测试
+ */
+@DisplayName("指令准入控制测试")
+class CommandAdmissionControlTest {
+
+    @Test
+    @DisplayName("令牌用完后拒绝，不同会话互不影响")
+    void testTokenBucketPerSession() {
+        CommandAdmissionControl control = new CommandAdmissionControl(0.01, 3, 100, 10);
+
+        for (int i = 0; i < 3; i++) {
+            control.acquire("s1", 1, false).close();
+        }
+        CommandAdmissionControl.RejectedException e = assertThrows(CommandAdmissionControl.RejectedException.class,
+            () -> control.acquire("s1", 1, false));
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+
+        // 其他会话不受影响
+        control.acquire("s2", 1, false).close();
+
+        CommandAdmissionControl.Stats stats = control.getStats();
+        assertEquals(4, stats.admitted());
+        assertEquals(1, stats.rateLimited());
+    }
+
+    @Test
+    @DisplayName("批量请求按指令数消耗令牌")
+    void testBatchCost() {
+        CommandAdmissionControl control = new CommandAdmissionControl(0.01, 20, 100, 10);
+
+        control.acquire("s1", 15, false).close();
+        assertThrows(CommandAdmissionControl.RejectedException.class, () -> control.acquire("s1", 10, false));
+        control.acquire("s1", 5, false).close();
+    }
+
+    @Test
+    @DisplayName("过载时普通请求先被拒绝，战斗指令使用预留名额")
+    void testPriorityReserve() {
+        CommandAdmissionControl control = new CommandAdmissionControl(100, 100, 3, 1);
+
+        CommandAdmissionControl.Permit p1 = control.acquire("s1", 1, false);
+        CommandAdmissionControl.Permit p2 = control.acquire("s2", 1, false);
+        // 普通请求的上限为2
+        assertThrows(CommandAdmissionControl.RejectedException.class, () -> control.acquire("s3", 1, false));
+        // 战斗指令可以使用预留名额
+        CommandAdmissionControl.Permit p3 = control.acquire("s4", 1, true);
+        assertThrows(CommandAdmissionControl.RejectedException.class, () -> control.acquire("s5", 1, true));
+        assertEquals(3, control.getStats().inFlight());
+        assertEquals(2, control.getStats().shed());
+
+        // 归还名额后可以继续执行，重复关闭不会多次归还
+        p1.close();
+        p1.close();
+        assertEquals(2, control.getStats().inFlight());
+        // 执行中的请求仍占满普通名额
+        assertThrows(CommandAdmissionControl.RejectedException.class, () -> control.acquire("s3", 1, false));
+        p2.close();
+        control.acquire("s3", 1, false).close();
+
+        p3.close();
+        assertEquals(0, control.getStats().inFlight());
+    }
+
+    @Test
+    @DisplayName("过载拒绝时不消耗令牌")
+    void testShedRefundsTokens() {
+        CommandAdmissionControl control = new CommandAdmissionControl(0.01, 1, 1, 0);
+
+        CommandAdmissionControl.Permit busy = control.acquire("s1", 1, false);
+        assertThrows(CommandAdmissionControl.RejectedException.class, () -> control.acquire("s2", 1, false));
+        busy.close();
+        // s2被过载拒绝时令牌已归还
+        control.acquire("s2", 1, false).close();
+    }
+}
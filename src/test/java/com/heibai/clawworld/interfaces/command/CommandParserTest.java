@@ -1,5 +1,6 @@
 package com.heibai.clawworld.interfaces.command;
 
+import com.heibai.clawworld.domain.combat.AutoBattlePolicy;
 import com.heibai.clawworld.interfaces.command.impl.combat.*;
 import com.heibai.clawworld.interfaces.command.impl.map.*;
 import com.heibai.clawworld.interfaces.command.impl.party.*;
@@ -13,6 +14,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -163,6 +166,16 @@ class CommandParserTest {
         assertEquals(10, moveCommand.getTargetY());
     }
 
+    @Test
+    @DisplayName("解析移动指令 - 全角数字坐标")
+    void testParseMoveCommand_FullWidthDigits() throws CommandParser.CommandParseException {
+        Command command = parser.parse("move ５ ７", CommandContext.WindowType.MAP);
+
+        assertTrue(command instanceof MoveCommand);
+        assertEquals(5, ((MoveCommand) command).getTargetX());
+        assertEquals(7, ((MoveCommand) command).getTargetY());
+    }
+
     @Test
     @DisplayName("解析移动指令 - 坐标格式错误")
     void testParseMoveCommand_InvalidCoordinates() {
@@ -372,6 +385,31 @@ class CommandParserTest {
         assertEquals(Command.CommandType.END_COMBAT, command.getType());
     }
 
+    @Test
+    @DisplayName("解析自动战斗指令")
+    void testParseAutoBattleCommand() throws CommandParser.CommandParseException {
+        Command command = parser.parse("auto threat 火球术 治疗术", CommandContext.WindowType.COMBAT);
+
+        assertTrue(command instanceof AutoBattleCommand);
+        AutoBattleCommand autoCommand = (AutoBattleCommand) command;
+        assertEquals(Command.CommandType.AUTO_BATTLE, command.getType());
+        assertEquals(AutoBattlePolicy.TargetStrategy.HIGHEST_THREAT, autoCommand.getTargetStrategy());
+        assertEquals(List.of("火球术", "治疗术"), autoCommand.getSkillNames());
+
+        AutoBattleCommand defaultCommand = (AutoBattleCommand) parser.parse("auto", CommandContext.WindowType.COMBAT);
+        assertNull(defaultCommand.getTargetStrategy());
+        assertTrue(defaultCommand.getSkillNames().isEmpty());
+    }
+
+    @Test
+    @DisplayName("解析关闭自动战斗指令")
+    void testParseAutoBattleOffCommand() throws CommandParser.CommandParseException {
+        Command command = parser.parse("auto off", CommandContext.WindowType.COMBAT);
+
+        assertTrue(command instanceof AutoBattleOffCommand);
+        assertEquals(Command.CommandType.AUTO_BATTLE_OFF, command.getType());
+    }
+
     // ==================== 交易窗口指令测试 ====================
 
     @Test
@@ -634,6 +672,16 @@ class CommandParserTest {
         assertEquals(5, ((ShopBuyCommand) command).getQuantity());
     }
 
+    @Test
+    @DisplayName("解析商店购买指令 - 全角数字数量")
+    void testParseShopBuyCommand_FullWidthQuantity() throws CommandParser.CommandParseException {
+        Command command = parser.parse("shop buy 药水 ３", CommandContext.WindowType.SHOP);
+
+        assertTrue(command instanceof ShopBuyCommand);
+        assertEquals("药水", ((ShopBuyCommand) command).getItemName());
+        assertEquals(3, ((ShopBuyCommand) command).getQuantity());
+    }
+
     @Test
     @DisplayName("解析商店出售指令")
     void testParseShopSellCommand() throws CommandParser.CommandParseException {
@@ -671,4 +719,42 @@ class CommandParserTest {
             parser.parse("shop buy 生命药剂 abc", CommandContext.WindowType.SHOP);
         });
     }
+
+    // ==================== 分词与错误结果测试 ====================
+
+    @Test
+    @DisplayName("解析失败时返回错误信息，不抛出异常")
+    void testTryParseReturnsError() {
+        CommandParser.ParseResult result = parser.tryParse("move abc 5", CommandContext.WindowType.MAP);
+        assertFalse(result.isSuccess());
+        assertEquals("move 指令的坐标必须是整数", result.error());
+
+        result = parser.tryParse("fly", CommandContext.WindowType.MAP);
+        assertEquals("地图窗口不支持的指令: fly", result.error());
+
+        result = parser.tryParse("party", CommandContext.WindowType.MAP);
+        assertEquals("party 指令需要子命令", result.error());
+
+        result = parser.tryParse("   ", CommandContext.WindowType.MAP);
+        assertEquals("指令不能为空", result.error());
+    }
+
+    @Test
+    @DisplayName("多余空白、指令名大小写和超出范围的整数")
+    void testTokenizerEdgeCases() throws CommandParser.CommandParseException {
+        Command move = parser.parse("  MOVE\t5   -3 ", CommandContext.WindowType.MAP);
+        assertEquals(5, ((MoveCommand) move).getTargetX());
+        assertEquals(-3, ((MoveCommand) move).getTargetY());
+
+        // 物品名保留中间的空白，去掉槽位前缀
+        Command use = parser.parse("Use  [头部]新手 头盔#1", CommandContext.WindowType.MAP);
+        assertEquals("新手 头盔#1", ((UseItemCommand) use).getItemName());
+
+        Command say = parser.parse("say  to 张三  你好  吗", CommandContext.WindowType.MAP);
+        assertEquals("张三", ((SayToCommand) say).getTargetPlayer());
+        assertEquals("你好  吗", ((SayToCommand) say).getMessage());
+
+        assertFalse(parser.tryParse("wait 99999999999", CommandContext.WindowType.MAP).isSuccess());
+        assertFalse(parser.tryParse("trade money +", CommandContext.WindowType.TRADE).isSuccess());
+    }
 }
@@ -0,0 +1,95 @@
+package com.heibai.clawworld.interfaces.command;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 玩家指令调度器测试
+ */
+@DisplayName("玩家指令调度器测试")
+class PlayerCommandDispatcherTest {
+
+    @Test
+    @DisplayName("同一玩家的指令串行执行，不同玩家的指令并行执行")
+    void testSerialPerPlayerParallelAcrossPlayers() throws Exception {
+        PlayerCommandDispatcher dispatcher = new PlayerCommandDispatcher(8);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        try {
+            Future<?> first = pool.submit(() -> dispatcher.submit("p1", () -> {
+                firstStarted.countDown();
+                await(release);
+                order.add("p1-first");
+                return null;
+            }));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+            Future<?> second = pool.submit(() -> dispatcher.submit("p1", () -> order.add("p1-second")));
+            // 其他玩家不受p1阻塞
+            assertTrue(pool.submit(() -> dispatcher.submit("p2", () -> order.add("p2"))).get(5, TimeUnit.SECONDS) != null);
+            assertEquals(List.of("p2"), order);
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("p2", "p1-first", "p1-second"), order);
+            assertEquals(0, dispatcher.getStats().activeLanes());
+            assertEquals(3, dispatcher.getStats().dispatched());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("排队数达到上限时拒绝新指令")
+    void testRejectWhenQueueFull() throws Exception {
+        PlayerCommandDispatcher dispatcher = new PlayerCommandDispatcher(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> running = pool.submit(() -> dispatcher.submit("p1", () -> {
+                started.countDown();
+                await(release);
+                return null;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(PlayerCommandDispatcher.QueueFullException.class,
+                () -> dispatcher.submit("p1", () -> null));
+            assertEquals("ok", dispatcher.submit("p2", () -> "ok"));
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            assertEquals("ok", dispatcher.submit("p1", () -> "ok"));
+
+            PlayerCommandDispatcher.Stats stats = dispatcher.getStats();
+            assertEquals(1, stats.rejected());
+            assertEquals(1, stats.maxObservedDepth());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.heibai.clawworld.interfaces.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLogBuilderTest {
+
+    private static long at(int hour, int minute, int second, int millis) {
+        return LocalDateTime.of(2026, 1, 1, hour, minute, second)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + millis;
+    }
+
+    @Test
+    void testBuild_ShouldFormatEachLogOnItsOwnLine() {
+        GameLogBuilder builder = new GameLogBuilder()
+            .addStateWithTimestamp("响应", "移动完成", at(9, 5, 7, 0))
+            .addWindowWithTimestamp("背包", "你的背包：\n小型生命药水 x3", at(9, 5, 7, 999));
+        builder.addLog(GameLog.builder().type(GameLog.Type.BACKGROUND).content("无时间戳").build());
+
+        assertEquals("[09:05:07][状态][响应]移动完成\n"
+            + "[09:05:07][窗口][背包]你的背包：\n小型生命药水 x3\n"
+            + "[背景]无时间戳", builder.build());
+    }
+
+    @Test
+    void testFormat_ShouldRefreshTimestampAcrossSecondsAndOutOfOrder() {
+        assertEquals("[23:59:59][状态][响应]a",
+            GameLog.serverStateWithTimestamp("响应", "a", at(23, 59, 59, 500)).format());
+        assertEquals("[00:00:00][状态][响应]b",
+            GameLog.serverStateWithTimestamp("响应", "b", at(0, 0, 0, 1)).format());
+        // 较旧的时间戳不受缓存影响
+        assertEquals("[12:30:00][状态][响应]c",
+            GameLog.serverStateWithTimestamp("响应", "c", at(12, 30, 0, 0) - 86_400_000L).format());
+    }
+
+    @Test
+    void testFormat_ReusedBufferShouldNotLeakPreviousContent() {
+        String large = "x".repeat(300 * 1024);
+        String first = GameLogBuilder.format(List.of(GameLog.serverWindowWithTimestamp("大窗口", large, at(1, 0, 0, 0))));
+        assertTrue(first.endsWith(large));
+
+        String second = GameLogBuilder.format(List.of(GameLog.serverStateWithTimestamp("响应", "ok", at(1, 0, 0, 0))));
+        assertEquals("[01:00:00][状态][响应]ok", second);
+        assertEquals("", GameLogBuilder.format(List.of()));
+    }
+
+    @Test
+    void testTrim_ShouldMatchStringTrim() {
+        for (String text : new String[]{"", "  ", "\n  1. 甲\n  2. 乙\n", "abc", " a b \t"}) {
+            assertEquals(text.trim(), GameLogBuilder.trim(new StringBuilder(text)));
+        }
+    }
+}
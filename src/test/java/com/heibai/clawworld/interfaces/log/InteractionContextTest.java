@@ -0,0 +1,136 @@
+package com.heibai.clawworld.interfaces.log;
+
+import com.heibai.clawworld.application.service.PartyService;
+import com.heibai.clawworld.domain.character.Enemy;
+import com.heibai.clawworld.domain.character.Party;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.infrastructure.persistence.entity.TradeEntity;
+import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 交互上下文测试
+ */
+@DisplayName("交互上下文测试")
+@ExtendWith(MockitoExtension.class)
+class InteractionContextTest {
+
+    @Mock
+    private PartyService partyService;
+
+    @Mock
+    private TradeRepository tradeRepository;
+
+    private Player player(String id, String name) {
+        Player player = new Player();
+        player.setId(id);
+        player.setName(name);
+        return player;
+    }
+
+    private Party party(String id, String leaderId, String... memberIds) {
+        Party party = new Party();
+        party.setId(id);
+        party.setLeaderId(leaderId);
+        party.setMemberIds(new ArrayList<>(List.of(memberIds)));
+        return party;
+    }
+
+    @Test
+    @DisplayName("所有玩家的选项只查询一次队伍和交易，并在多次使用间复用")
+    void testOptionsForManyPlayers_ShouldQueryOnce() {
+        List<MapEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entities.add(player("p" + i, "玩家" + i));
+        }
+        entities.add(new Enemy());
+        Party fullParty = party("party2", "p2", "p2", "p3");
+        when(partyService.getPlayerParties(anyCollection())).thenReturn(Map.of("p2", fullParty, "p3", fullParty));
+
+        InteractionContext context = new InteractionContext("viewer", partyService, tradeRepository);
+        context.prefetch(entities);
+        for (MapEntity entity : entities) {
+            if (entity instanceof Player) {
+                context.getInteractionOptions(entity, List.of("查看"));
+            }
+        }
+        // 同一响应中地图窗口再次生成选项
+        context.prefetch(entities);
+        List<String> options = context.getInteractionOptions(entities.get(2), List.of("查看"));
+
+        assertEquals(List.of("查看", "请求加入队伍", "请求交易"), options);
+        verify(partyService, times(1)).getPlayerParties(anyCollection());
+        verify(partyService, never()).getPlayerParty(anyString());
+        verify(tradeRepository, times(2)).findActiveTradesByPlayerId(any(), eq("viewer"));
+        verify(tradeRepository, never()).findByStatusAndReceiverId(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("组队邀请、加入请求和交易请求按目标区分")
+    void testViewerRelations_ShouldProduceTargetSpecificOptions() {
+        Party viewerParty = party("party1", "viewer", "viewer", "mate");
+        Party.PartyRequest request = new Party.PartyRequest();
+        request.setRequesterId("applicant");
+        request.setRequestTime(System.currentTimeMillis());
+        viewerParty.getPendingRequests().add(request);
+
+        Party inviterParty = party("party2", "inviter", "inviter");
+        Party.PartyInvitation invitation = new Party.PartyInvitation();
+        invitation.setInviterId("inviter");
+        invitation.setInviteeId("viewer");
+        invitation.setInviteTime(System.currentTimeMillis());
+        inviterParty.getPendingInvitations().add(invitation);
+
+        when(partyService.getPlayerParties(anyCollection())).thenReturn(
+            Map.of("viewer", viewerParty, "mate", viewerParty, "inviter", inviterParty));
+
+        TradeEntity trade = new TradeEntity();
+        trade.setInitiatorId("trader");
+        trade.setReceiverId("viewer");
+        trade.setCreateTime(System.currentTimeMillis());
+        when(tradeRepository.findActiveTradesByPlayerId(TradeEntity.TradeStatus.PENDING, "viewer"))
+            .thenReturn(List.of(trade));
+
+        InteractionContext context = new InteractionContext("viewer", partyService, tradeRepository);
+        Player mate = player("mate", "队友");
+        Player inviter = player("inviter", "邀请者");
+        Player applicant = player("applicant", "申请者");
+        Player trader = player("trader", "商人");
+        context.prefetch(List.of(mate, inviter, applicant, trader));
+
+        assertEquals(List.of(), context.getPlayerOptions(mate));
+        assertEquals(List.of("邀请组队", "接受组队邀请", "拒绝组队邀请"), context.getPlayerOptions(inviter));
+        assertEquals(List.of("邀请组队", "接受组队请求", "拒绝组队请求"), context.getPlayerOptions(applicant));
+        assertEquals(List.of("邀请组队", "接受交易请求", "拒绝交易请求"), context.getPlayerOptions(trader));
+        assertEquals(List.of(trade), context.getReceivedTradeRequests());
+    }
+
+    @Test
+    @DisplayName("未预先查询的玩家单独查询队伍，非玩家实体不追加选项")
+    void testWithoutPrefetch_ShouldFallBackToSingleLookup() {
+        InteractionContext context = new InteractionContext("viewer", partyService, tradeRepository);
+        Enemy enemy = new Enemy();
+
+        assertEquals(List.of("查看", "攻击"), context.getInteractionOptions(enemy, List.of("查看", "攻击")));
+        assertEquals(List.of("邀请组队", "请求交易"), context.getPlayerOptions(player("p1", "玩家1")));
+        assertNull(context.getParty("p1"));
+
+        verify(partyService, times(2)).getPlayerParty(anyString());
+        verifyNoMoreInteractions(partyService);
+    }
+}
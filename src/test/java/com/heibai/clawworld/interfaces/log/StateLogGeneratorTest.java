@@ -0,0 +1,178 @@
+package com.heibai.clawworld.interfaces.log;
+
+import com.heibai.clawworld.application.service.ChatService;
+import com.heibai.clawworld.application.service.MapEntityService;
+import com.heibai.clawworld.application.service.PartyService;
+import com.heibai.clawworld.application.service.PlayerSessionService;
+import com.heibai.clawworld.domain.character.Enemy;
+import com.heibai.clawworld.domain.character.Player;
+import com.heibai.clawworld.domain.map.MapEntity;
+import com.heibai.clawworld.domain.map.MapEntityJournal;
+import com.heibai.clawworld.infrastructure.config.ConfigDataManager;
+import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
+import com.heibai.clawworld.infrastructure.persistence.repository.AccountRepository;
+import com.heibai.clawworld.infrastructure.persistence.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 地图状态日志生成测试（基于地图事件日志的增量同步）
+ */
+@DisplayName("地图状态日志生成测试")
+@ExtendWith(MockitoExtension.class)
+class StateLogGeneratorTest {
+
+    private static final String MAP_ID = "village";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private MapEntityService mapEntityService;
+
+    @Mock
+    private PlayerSessionService playerSessionService;
+
+    @Mock
+    private ConfigDataManager configDataManager;
+
+    @Mock
+    private PartyService partyService;
+
+    @Mock
+    private TradeRepository tradeRepository;
+
+    private MapEntityJournal journal;
+    private StateLogGenerator generator;
+
+    private AccountEntity account;
+    private Player viewer;
+    private Player passerby;
+    private Enemy slime;
+
+    @BeforeEach
+    void setUp() {
+        journal = new MapEntityJournal();
+        generator = new StateLogGenerator(accountRepository, chatService, mapEntityService, playerSessionService,
+            configDataManager, partyService, tradeRepository, journal);
+
+        account = new AccountEntity();
+        account.setPlayerId("p1");
+        viewer = player("p1", "勇者", 1, 1);
+        passerby = player("p2", "路人", 3, 3);
+        slime = new Enemy();
+        slime.setId("e1");
+        slime.setName("史莱姆#1");
+        slime.setMapId(MAP_ID);
+        slime.setX(5);
+        slime.setY(5);
+
+        when(accountRepository.findByPlayerId("p1")).thenReturn(Optional.of(account));
+        when(playerSessionService.getPlayerState("p1")).thenReturn(viewer);
+        lenient().when(mapEntityService.getMapEntities(MAP_ID, "p1"))
+            .thenAnswer(invocation -> new ArrayList<MapEntity>(List.of(viewer, passerby, slime)));
+    }
+
+    private Player player(String id, String name, int x, int y) {
+        Player player = new Player();
+        player.setId(id);
+        player.setName(name);
+        player.setMapId(MAP_ID);
+        player.setX(x);
+        player.setY(y);
+        return player;
+    }
+
+    private String generate() {
+        GameLogBuilder builder = new GameLogBuilder();
+        generator.generateMapStateLogs(builder, "p1", "ok");
+        return builder.build();
+    }
+
+    @Test
+    @DisplayName("首次生成只保存快照，之后没有事件时不再读取地图实体")
+    void testNoEvents_ShouldSkipEntityLoading() {
+        String first = generate();
+        assertFalse(first.contains("环境变化"));
+        assertEquals(2, account.getLastEntitySnapshot().size());
+        // 实体快照和组队邀请各读取一次
+        verify(mapEntityService, times(2)).getMapEntities(anyString(), anyString());
+
+        String second = generate();
+        assertFalse(second.contains("环境变化"));
+        verify(mapEntityService, times(2)).getMapEntities(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("只重建事件中变化的实体，其余快照原样保留")
+    void testRecordedMove_ShouldReportOnlyChangedEntity() {
+        generate();
+        AccountEntity.EntitySnapshot slimeSnapshot = account.getLastEntitySnapshot().get("史莱姆#1");
+
+        passerby.setX(4);
+        journal.record(MAP_ID, "p2", "路人");
+        String logs = generate();
+
+        assertTrue(logs.contains("玩家 路人 移动到 (4,3)"));
+        assertSame(slimeSnapshot, account.getLastEntitySnapshot().get("史莱姆#1"));
+        assertEquals(4, account.getLastEntitySnapshot().get("路人").getX());
+    }
+
+    @Test
+    @DisplayName("只按ID记录的敌人死亡也能识别")
+    void testEnemyDeathRecordedById_ShouldReportOptionChange() {
+        generate();
+
+        slime.setDead(true);
+        journal.record(MAP_ID, "e1", null);
+        String logs = generate();
+
+        assertTrue(logs.contains("史莱姆#1 的交互选项变化：移除[攻击]"));
+    }
+
+    @Test
+    @DisplayName("离开地图的实体从快照中移除")
+    void testRecordedLeave_ShouldRemoveEntity() {
+        generate();
+
+        when(mapEntityService.getMapEntities(MAP_ID, "p1"))
+            .thenAnswer(invocation -> new ArrayList<MapEntity>(List.of(viewer, slime)));
+        journal.record(MAP_ID, "p2", "路人");
+        String logs = generate();
+
+        assertTrue(logs.contains("路人 离开了地图"));
+        assertFalse(account.getLastEntitySnapshot().containsKey("路人"));
+        assertTrue(account.getLastEntitySnapshot().containsKey("史莱姆#1"));
+    }
+
+    @Test
+    @DisplayName("游标过期时完整同步，不遗漏变化")
+    void testAgedOutCursor_ShouldFallBackToFullSync() {
+        generate();
+
+        passerby.setY(6);
+        // 超过每张地图保留的事件数
+        for (int i = 0; i < 600; i++) {
+            journal.record(MAP_ID, "other" + i, "其他" + i);
+        }
+        String logs = generate();
+
+        assertTrue(logs.contains("玩家 路人 移动到 (3,6)"));
+        assertEquals(1, journal.getStats().expired());
+    }
+}
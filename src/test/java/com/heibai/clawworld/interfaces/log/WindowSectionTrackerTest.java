@@ -0,0 +1,84 @@
+package com.heibai.clawworld.interfaces.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 窗口内容增量跟踪测试
+ */
+@DisplayName("窗口内容增量跟踪测试")
+class WindowSectionTrackerTest {
+
+    private final WindowSectionTracker tracker = new WindowSectionTracker();
+
+    private GameLogBuilder mapWindow(String inventory) {
+        return new GameLogBuilder()
+            .addState("响应", "移动完成")
+            .addWindow("玩家状态", "生命 100/100")
+            .addWindow("背包", inventory);
+    }
+
+    private String render(GameLogBuilder builder, String sessionId) {
+        return GameLogBuilder.format(tracker.apply(builder, sessionId, true));
+    }
+
+    @Test
+    @DisplayName("没有会话或未开启增量模式时完整输出")
+    void testFullModeWithoutSession() {
+        GameLogBuilder builder = mapWindow("药水x3");
+        assertEquals(builder.build(), render(builder, null));
+        assertEquals(builder.build(), render(builder, null));
+        assertEquals(builder.build(), GameLogBuilder.format(tracker.apply(builder, "s1", false)));
+        assertEquals(builder.build(), GameLogBuilder.format(tracker.apply(builder, "s1", false)));
+    }
+
+    @Test
+    @DisplayName("未变化的窗口区块输出标记，状态日志和变化的区块完整输出")
+    void testUnchangedSectionsReplaced() {
+        String first = render(mapWindow("药水x3"), "s1");
+        assertTrue(first.contains("生命 100/100"));
+        assertTrue(first.contains("药水x3"));
+
+        String second = render(mapWindow("药水x2"), "s1");
+        assertTrue(second.contains("[状态][响应]移动完成"));
+        assertTrue(second.contains("[窗口][玩家状态]" + WindowSectionTracker.UNCHANGED));
+        assertFalse(second.contains("生命 100/100"));
+        assertTrue(second.contains("药水x2"));
+
+        // 其他会话不受影响
+        assertTrue(render(mapWindow("药水x2"), "s2").contains("生命 100/100"));
+        assertEquals(2, tracker.getStats().sessions());
+    }
+
+    @Test
+    @DisplayName("只输出部分区块时保留其余区块的摘要，同名区块按顺序比较")
+    void testPartialRenderAndRepeatedSubTypes() {
+        render(mapWindow("药水x3"), "s1");
+        // 只刷新背包
+        render(new GameLogBuilder().addWindow("背包", "药水x1"), "s1");
+
+        String again = render(mapWindow("药水x1"), "s1");
+        assertFalse(again.contains("生命 100/100"));
+        assertFalse(again.contains("药水x1"));
+
+        render(new GameLogBuilder().addWindow("商店窗口", "商店：铁匠").addWindow("商店窗口", "出售：铁剑"), "s1");
+        String shop = render(new GameLogBuilder().addWindow("商店窗口", "商店：铁匠").addWindow("商店窗口", "出售：铜剑"), "s1");
+        assertFalse(shop.contains("铁匠"));
+        assertTrue(shop.contains("出售：铜剑"));
+    }
+
+    @Test
+    @DisplayName("非增量响应同样更新摘要，之后的增量响应与客户端最后收到的内容比较")
+    void testFullResponseUpdatesHashes() {
+        render(mapWindow("药水x3"), "s1");
+        // 非增量请求收到了新的背包内容
+        tracker.apply(mapWindow("药水x2"), "s1", false);
+
+        // 背包恢复为第一次的内容时必须完整输出
+        String logs = render(mapWindow("药水x3"), "s1");
+        assertTrue(logs.contains("药水x3"));
+        assertFalse(logs.contains("生命 100/100"));
+    }
+}
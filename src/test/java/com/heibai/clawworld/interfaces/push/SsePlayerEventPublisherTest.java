@@ -0,0 +1,146 @@
+package com.heibai.clawworld.interfaces.push;
+
+import com.heibai.clawworld.domain.event.PlayerEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SSE玩家事件推送测试
+ */
+@DisplayName("SSE玩家事件推送测试")
+class SsePlayerEventPublisherTest {
+
+    private SsePlayerEventPublisher publisher;
+
+    // 阻塞中的连接在测试结束时放行
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        publisher = new SsePlayerEventPublisher();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        publisher.shutdown();
+    }
+
+    @Test
+    @DisplayName("一条连接发送阻塞时不影响其他玩家")
+    void testSlowConnection_ShouldNotBlockOthers() throws Exception {
+        CountingEmitter slow = new CountingEmitter(release);
+        CountingEmitter fast = new CountingEmitter(null);
+        publisher.register("p1", "s1", slow);
+        publisher.register("p2", "s2", fast);
+
+        publisher.publish("p1", PlayerEvent.turn("combat1"));
+        assertTrue(slow.started.await(1, TimeUnit.SECONDS));
+        publisher.publish("p2", PlayerEvent.turn("combat2"));
+
+        assertTrue(fast.sent.await(1, TimeUnit.SECONDS));
+        assertEquals(0, slow.sentCount.get());
+    }
+
+    @Test
+    @DisplayName("积压超过上限的连接被断开")
+    void testBacklogOverLimit_ShouldDropConnection() throws Exception {
+        CountingEmitter slow = new CountingEmitter(release);
+        publisher.register("p1", "s1", slow);
+        publisher.register("p2", "s2", new CountingEmitter(null));
+
+        publisher.publish("p1", PlayerEvent.turn("combat1"));
+        assertTrue(slow.started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i <= SsePlayerEventPublisher.MAX_PENDING_PER_CONNECTION; i++) {
+            publisher.publish("p1", PlayerEvent.turn("combat1"));
+        }
+
+        assertEquals(1, publisher.getConnectionCount());
+        assertTrue(publisher.hasSubscribers());
+    }
+
+    @Test
+    @DisplayName("事务中发布的事件在提交后才发送")
+    void testPublishInTransaction_ShouldWaitForCommit() throws Exception {
+        CountingEmitter emitter = new CountingEmitter(null);
+        publisher.register("p1", "s1", emitter);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            publisher.publish("p1", PlayerEvent.trade("trade1", "ACTIVE"));
+            assertFalse(emitter.sent.await(100, TimeUnit.MILLISECONDS));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(emitter.sent.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("会话失效后断开旧会话的连接，保留当前会话的连接")
+    void testDisconnect_ShouldCloseStaleSessions() {
+        publisher.register("p1", "old", new CountingEmitter(null));
+        publisher.register("p1", "new", new CountingEmitter(null));
+        publisher.register("p2", "s2", new CountingEmitter(null));
+
+        publisher.disconnect("p1", "new");
+        assertEquals(2, publisher.getConnectionCount());
+
+        publisher.disconnect("p1", null);
+        assertEquals(1, publisher.getConnectionCount());
+    }
+
+    @Test
+    @DisplayName("没有连接时不发送")
+    void testNoSubscribers() {
+        assertFalse(publisher.hasSubscribers());
+        publisher.publish("p1", PlayerEvent.turn("combat1"));
+        publisher.publishAll(PlayerEvent.window("MAP"));
+        assertEquals(0, publisher.getConnectionCount());
+    }
+
+    /**
+     * 记录发送次数的连接，可以在发送时阻塞
+     */
+    private static class CountingEmitter extends SseEmitter {
+        private final CountDownLatch block;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch sent = new CountDownLatch(1);
+        private final AtomicInteger sentCount = new AtomicInteger();
+
+        CountingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            started.countDown();
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            sentCount.incrementAndGet();
+            sent.countDown();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.heibai.clawworld.interfaces.rest;
 
+import com.heibai.clawworld.interfaces.dto.CompactResponse;
 import com.heibai.clawworld.interfaces.dto.LoginRequest;
 import com.heibai.clawworld.interfaces.dto.LoginResponse;
 import com.heibai.clawworld.interfaces.dto.LogoutRequest;
 import com.heibai.clawworld.application.impl.AuthService;
+import com.heibai.clawworld.interfaces.log.GameLogBuilder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -222,4 +224,42 @@ class AuthControllerTest {
 
         verify(authService).loginOrRegister("testuser", "testpass");
     }
+
+    @Test
+    void testLoginCompact_Success_ShouldReturnLogsAndSessionId() {
+        LoginRequest request = new LoginRequest();
+        request.setUsername("testuser");
+        request.setPassword("testpass");
+
+        AuthService.LoginResult loginResult = AuthService.LoginResult.success(
+                "session123",
+                new GameLogBuilder().addWindow("地图信息", "当前地图：新手村").getLogs(),
+                false
+        );
+        when(authService.loginOrRegister("testuser", "testpass")).thenReturn(loginResult);
+
+        ResponseEntity<CompactResponse> response = authController.loginCompact(request);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(response.getBody().isOk());
+        assertEquals("session123", response.getBody().getSid());
+        assertEquals("当前地图：新手村", response.getBody().getL().get(0).getC());
+        // 文本内容按需格式化
+        assertTrue(loginResult.getContent().endsWith("[窗口][地图信息]当前地图：新手村"));
+    }
+
+    @Test
+    void testLoginCompact_WrongPassword_ShouldReturn401() {
+        LoginRequest request = new LoginRequest();
+        request.setUsername("testuser");
+        request.setPassword("wrongpass");
+        when(authService.loginOrRegister("testuser", "wrongpass")).thenReturn(AuthService.LoginResult.error("密码错误"));
+
+        ResponseEntity<CompactResponse> response = authController.loginCompact(request);
+
+        assertEquals(401, response.getStatusCode().value());
+        assertFalse(response.getBody().isOk());
+        assertEquals("密码错误", response.getBody().getM());
+        assertNull(response.getBody().getL());
+    }
 }
@@ -0,0 +1,272 @@
+package com.heibai.clawworld.interfaces.rest;
+
+import com.heibai.clawworld.application.impl.AuthService;
+import com.heibai.clawworld.infrastructure.persistence.entity.AccountEntity;
+import com.heibai.clawworld.interfaces.command.Command;
+import com.heibai.clawworld.interfaces.command.CommandAdmissionControl;
+import com.heibai.clawworld.interfaces.command.CommandContext;
+import com.heibai.clawworld.interfaces.command.CommandExecutor;
+import com.heibai.clawworld.interfaces.command.CommandParser;
+import com.heibai.clawworld.interfaces.command.CommandResult;
+import com.heibai.clawworld.interfaces.command.PlayerCommandDispatcher;
+import com.heibai.clawworld.interfaces.dto.BatchCommandRequest;
+import com.heibai.clawworld.interfaces.dto.BatchCommandResponse;
+import com.heibai.clawworld.interfaces.dto.CommandRequest;
+import com.heibai.clawworld.interfaces.dto.CommandResponse;
+import com.heibai.clawworld.interfaces.dto.CompactResponse;
+import com.heibai.clawworld.interfaces.dto.CompactSections;
+import com.heibai.clawworld.interfaces.log.GameLog;
+import com.heibai.clawworld.interfaces.log.GameLogBuilder;
+import com.heibai.clawworld.interfaces.log.UnifiedResponseGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CommandController批量指令单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CommandControllerTest {
+
+    @Mock
+    private CommandParser commandParser;
+
+    @Mock
+    private CommandExecutor commandExecutor;
+
+    @Mock
+    private AuthService authService;
+
+    @Mock
+    private UnifiedResponseGenerator responseGenerator;
+
+    @Spy
+    private PlayerCommandDispatcher commandDispatcher = new PlayerCommandDispatcher(8);
+
+    @Spy
+    private CommandAdmissionControl admissionControl = new CommandAdmissionControl(2, 20, 150, 30);
+
+    @InjectMocks
+    private CommandController commandController;
+
+    private AccountEntity account;
+
+    @BeforeEach
+    void setUp() {
+        account = new AccountEntity();
+        account.setPlayerId("player1");
+        account.setOnline(true);
+        account.setCurrentWindowType("MAP");
+        lenient().when(authService.getAccountBySessionId("session1")).thenReturn(Optional.of(account));
+    }
+
+    @Test
+    void testBatch_AllSuccess_ShouldRenderOnce() throws Exception {
+        Command move = mock(Command.class);
+        Command attack = mock(Command.class);
+        Command cast = mock(Command.class);
+        when(commandParser.parse("move 5 7", CommandContext.WindowType.MAP)).thenReturn(move);
+        when(commandParser.parse("interact 史莱姆 攻击", CommandContext.WindowType.MAP)).thenReturn(attack);
+        // 进入战斗后的指令按战斗窗口解析
+        when(commandParser.parse("cast 火球术 史莱姆", CommandContext.WindowType.COMBAT)).thenReturn(cast);
+        when(commandExecutor.execute(eq(move), any())).thenReturn(CommandResult.success("移动完成"));
+        when(commandExecutor.execute(eq(attack), any())).thenReturn(
+                CommandResult.successWithWindowChange("战斗开始", CommandContext.WindowType.COMBAT, "combat1"));
+        when(commandExecutor.execute(eq(cast), any())).thenReturn(CommandResult.success("释放火球术"));
+        when(responseGenerator.generateResponse(eq("player1"), anyString(), anyString(),
+                eq(CommandContext.WindowType.MAP), eq(CommandContext.WindowType.COMBAT), eq(false), eq("session1"), eq(false)))
+                .thenReturn("rendered");
+
+        BatchCommandRequest request = new BatchCommandRequest();
+        request.setSessionId("session1");
+        request.setCommands(List.of("move 5 7", "interact 史莱姆 攻击", "cast 火球术 史莱姆"));
+
+        ResponseEntity<BatchCommandResponse> response = commandController.executeBatch(request);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertTrue(response.getBody().isSuccess());
+        assertEquals("rendered", response.getBody().getResponse());
+        assertEquals(3, response.getBody().getResults().size());
+        assertEquals("战斗开始", response.getBody().getResults().get(1).getMessage());
+
+        verify(authService).saveAccount(account);
+        verify(authService).updateWindowState("session1", "combat1", "COMBAT");
+        verify(responseGenerator, times(1)).generateResponse(anyString(), anyString(), anyString(), any(), any(), anyBoolean(), eq("session1"), eq(false));
+    }
+
+    @Test
+    void testBatch_StopOnError_ShouldSkipRemaining() throws Exception {
+        Command move = mock(Command.class);
+        when(commandParser.parse("move 5 7", CommandContext.WindowType.MAP)).thenReturn(move);
+        when(commandParser.parse("fly", CommandContext.WindowType.MAP))
+                .thenThrow(new CommandParser.CommandParseException("未知指令"));
+        when(commandExecutor.execute(eq(move), any())).thenReturn(CommandResult.success("移动完成"));
+        when(responseGenerator.generateResponse(any(), anyString(), anyString(), any(), any(), anyBoolean(), eq("session1"), eq(false)))
+                .thenReturn("rendered");
+
+        BatchCommandRequest request = new BatchCommandRequest();
+        request.setSessionId("session1");
+        request.setCommands(List.of("move 5 7", "fly", "move 1 1"));
+
+        ResponseEntity<BatchCommandResponse> response = commandController.executeBatch(request);
+
+        assertEquals(400, response.getStatusCode().value());
+        assertFalse(response.getBody().isSuccess());
+        assertEquals(2, response.getBody().getResults().size());
+        assertFalse(response.getBody().getResults().get(1).isSuccess());
+        verify(commandParser, never()).parse(eq("move 1 1"), any());
+    }
+
+    @Test
+    void testBatch_ContinueOnError_ShouldRunAll() throws Exception {
+        Command move = mock(Command.class);
+        when(commandParser.parse(startsWith("move"), eq(CommandContext.WindowType.MAP))).thenReturn(move);
+        when(commandExecutor.execute(eq(move), any()))
+                .thenReturn(CommandResult.error("无法移动"))
+                .thenReturn(CommandResult.successWithInventoryChange("移动完成"));
+        when(responseGenerator.generateResponse(any(), anyString(), anyString(), any(), isNull(), eq(true), eq("session1"), eq(false)))
+                .thenReturn("rendered");
+
+        BatchCommandRequest request = new BatchCommandRequest();
+        request.setSessionId("session1");
+        request.setCommands(List.of("move 99 99", "move 1 1"));
+        request.setStopOnError(false);
+
+        ResponseEntity<BatchCommandResponse> response = commandController.executeBatch(request);
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals(2, response.getBody().getResults().size());
+        assertTrue(response.getBody().getResults().get(1).isSuccess());
+        assertEquals("rendered", response.getBody().getResponse());
+    }
+
+    @Test
+    void testBatch_TooManyCommands_ShouldReturn400() {
+        BatchCommandRequest request = new BatchCommandRequest();
+        request.setSessionId("session1");
+        request.setCommands(Collections.nCopies(CommandController.MAX_BATCH_COMMANDS + 1, "wait"));
+
+        ResponseEntity<BatchCommandResponse> response = commandController.executeBatch(request);
+
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(commandExecutor);
+    }
+
+    @Test
+    void testExecute_ShouldReadAccountInsideLane() throws Exception {
+        // 排队期间前一条指令把窗口切换到了战斗
+        AccountEntity afterPreviousCommand = new AccountEntity();
+        afterPreviousCommand.setPlayerId("player1");
+        afterPreviousCommand.setOnline(true);
+        afterPreviousCommand.setCurrentWindowType("COMBAT");
+        afterPreviousCommand.setCurrentWindowId("combat1");
+        when(authService.getAccountBySessionId("session1"))
+                .thenReturn(Optional.of(account))
+                .thenReturn(Optional.of(afterPreviousCommand));
+
+        Command cast = mock(Command.class);
+        when(commandParser.parse("cast 火球术 史莱姆", CommandContext.WindowType.COMBAT)).thenReturn(cast);
+        when(commandExecutor.execute(eq(cast), any())).thenReturn(CommandResult.success("释放火球术"));
+        when(responseGenerator.generateResponse(any(), anyString(), anyString(), any(), any(), anyBoolean(), eq("session1"), eq(false)))
+                .thenReturn("rendered");
+
+        CommandRequest request = new CommandRequest();
+        request.setSessionId("session1");
+        request.setCommand("cast 火球术 史莱姆");
+
+        ResponseEntity<CommandResponse> response = commandController.executeCommand(request);
+
+        assertEquals(200, response.getStatusCode().value());
+        verify(commandExecutor).execute(eq(cast), argThat(context -> "combat1".equals(context.getWindowId())));
+        // 保存的是通道内读取的账号，不会覆盖前一条指令保存的状态
+        verify(authService).saveAccount(afterPreviousCommand);
+        verify(authService, never()).saveAccount(account);
+    }
+
+    @Test
+    void testExecute_Rejected_ShouldReturn429WithRetryAfter() {
+        doThrow(new CommandAdmissionControl.RejectedException("指令发送过于频繁，请稍后再试", 1500))
+                .when(admissionControl).acquire(eq("session1"), eq(1), eq(false));
+
+        CommandRequest request = new CommandRequest();
+        request.setSessionId("session1");
+        request.setCommand("look");
+
+        ResponseEntity<CommandResponse> response = commandController.executeCommand(request);
+
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+        verifyNoInteractions(commandParser, commandExecutor);
+    }
+
+    @Test
+    void testBatch_QueueFull_ShouldReturn429WithRetryAfter() {
+        doThrow(new PlayerCommandDispatcher.QueueFullException("指令排队过多，请等待之前的指令执行完成"))
+                .when(commandDispatcher).submit(eq("player1"), any());
+
+        BatchCommandRequest request = new BatchCommandRequest();
+        request.setSessionId("session1");
+        request.setCommands(List.of("wait"));
+
+        ResponseEntity<BatchCommandResponse> response = commandController.executeBatch(request);
+
+        assertEquals(429, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        verifyNoInteractions(commandParser, commandExecutor);
+    }
+
+    @Test
+    void testExecuteCompact_ShouldUseLogModelAndBeSmaller() throws Exception {
+        Command look = mock(Command.class);
+        when(commandParser.parse("move 5 7", CommandContext.WindowType.MAP)).thenReturn(look);
+        when(commandExecutor.execute(eq(look), any())).thenReturn(CommandResult.success("移动完成"));
+        List<GameLog> logs = new GameLogBuilder()
+                .addState("响应", "移动完成")
+                .addWindow("玩家状态", "等级 5，生命 100/100，位置 (5,7)")
+                .addWindow("背包", "你的背包：\n小型生命药水 x3")
+                .addWindow("实体列表", "新手村的地图实体：\n史莱姆 Lv.1 (3,4) [可直接交互] [类型：普通敌人] [交互选项: 攻击]\n",
+                        List.of(new CompactSections.EntityRow("史莱姆", 1, 3, 4, "可直接交互", "普通敌人", List.of("攻击"))))
+                .getLogs();
+        when(responseGenerator.generateResponseLogs(eq("player1"), eq("move 5 7"), eq("移动完成"),
+                eq(CommandContext.WindowType.MAP), isNull(), eq(false), eq("session1"), eq(false))).thenReturn(logs);
+
+        CommandRequest request = new CommandRequest();
+        request.setSessionId("session1");
+        request.setCommand("move 5 7");
+
+        ResponseEntity<CompactResponse> response = commandController.executeCommandCompact(request);
+
+        assertEquals(200, response.getStatusCode().value());
+        CompactResponse body = response.getBody();
+        assertTrue(body.isOk());
+        assertEquals(4, body.getL().size());
+        assertEquals("W", body.getL().get(1).getK());
+        assertEquals("玩家状态", body.getL().get(1).getS());
+        // 结构化响应不生成文本
+        verify(responseGenerator, never()).generateResponse(any(), any(), any(), any(), any(), anyBoolean(), any(), anyBoolean());
+
+        JsonMapper mapper = JsonMapper.builder().build();
+        String json = mapper.writeValueAsString(body);
+        assertTrue(json.contains("[\"W\",\"玩家状态\",\"等级 5，生命 100/100，位置 (5,7)\",0]"), json);
+        // 带结构化内容的窗口输出结构化行，不输出文本
+        assertTrue(json.contains("[\"W\",\"实体列表\",[[\"史莱姆\",1,3,4,\"可直接交互\",\"普通敌人\",[\"攻击\"]]],0]"), json);
+        assertFalse(json.contains("新手村的地图实体"), json);
+        int compactSize = json.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+        int textSize = mapper.writeValueAsBytes(CommandResponse.success(GameLogBuilder.format(logs))).length;
+        assertTrue(compactSize < textSize, compactSize + " >= " + textSize);
+    }
+}